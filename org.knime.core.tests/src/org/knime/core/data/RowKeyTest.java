@@ -0,0 +1,102 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Tests that generated {@link RowKey}s, which are held as number, behave like keys created from their string.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowKeyTest {
+
+    /** Tests equality, hash code and string of generated keys and keys with the same string. */
+    @Test
+    public void testGeneratedKeys() {
+        for (long index : new long[]{0, 1, 9, 10, 123456789, 999_999_999_999_999_999L, 1_000_000_000_000_000_000L,
+            Long.MAX_VALUE, -1, Long.MIN_VALUE}) {
+            final String string = "Row" + index;
+            final RowKey generated = RowKey.createRowKey(index);
+            final RowKey parsed = new RowKey(string);
+            assertEquals(string, generated.getString());
+            assertEquals(generated, parsed);
+            assertEquals(parsed, generated);
+            assertEquals(string.hashCode(), generated.hashCode());
+            assertEquals(string.hashCode(), parsed.hashCode());
+            assertEquals(index >= 0 && index < 1_000_000_000_000_000_000L ? index : -1, parsed.getGeneratedIndex());
+        }
+    }
+
+    /** Tests that keys similar to generated keys are held as string and are not equal to generated keys. */
+    @Test
+    public void testOtherKeys() {
+        for (String string : new String[]{"", "Row", "Row01", "Row00", "row1", "Row1a", "Row-1", "Row 1", "Row1#0"}) {
+            final RowKey key = new RowKey(string);
+            assertEquals(-1, key.getGeneratedIndex());
+            assertEquals(string, key.getString());
+            assertEquals(string.hashCode(), key.hashCode());
+            assertNotEquals(RowKey.createRowKey(0L), key);
+            assertNotEquals(RowKey.createRowKey(1L), key);
+            assertFalse(key.equals(RowKey.createRowKey(1L)));
+        }
+    }
+
+    /** Tests that the string of a key is kept, also if it is a generated key. */
+    @Test
+    public void testStringIsKept() {
+        final String string = new String("Row5");
+        assertSame(string, new RowKey(string).getString());
+        final RowKey generated = RowKey.createRowKey(5L);
+        assertSame(generated.getString(), generated.toString());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.collection;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the primitive-backed list cells ({@link AbstractPrimitiveListCell} and subclasses).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrimitiveListCellTest {
+
+    private static final class Output extends DataOutputStream implements DataCellDataOutput {
+        Output(final ByteArrayOutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeDataCell(final DataCell cell) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class Input extends DataInputStream implements DataCellDataInput {
+        Input(final byte[] bytes) {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public DataCell readDataCell() throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static <T extends DataCell> T roundTrip(final T cell, final DataCellSerializer<T> serializer)
+        throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Output out = new Output(bytes)) {
+            serializer.serialize(cell, out);
+        }
+        try (Input in = new Input(bytes.toByteArray())) {
+            return serializer.deserialize(in);
+        }
+    }
+
+    @Test
+    public void testSerialization() throws IOException {
+        // larger than one serialization chunk
+        int[] ints = IntStream.range(0, 100000).map(i -> i * 31).toArray();
+        IntListCell intCell = CollectionCellFactory.createIntListCell(ints);
+        assertArrayEquals(ints, roundTrip(intCell, new IntListCell.IntListCellSerializer()).toIntArray());
+
+        long[] longs = {Long.MIN_VALUE, 0L, Long.MAX_VALUE};
+        LongListCell longCell = CollectionCellFactory.createLongListCell(longs);
+        assertArrayEquals(longs, roundTrip(longCell, new LongListCell.LongListCellSerializer()).toLongArray());
+
+        double[] doubles = {Double.NaN, -0.0, 1.5, Double.POSITIVE_INFINITY};
+        DoubleListCell doubleCell = CollectionCellFactory.createDoubleListCell(doubles);
+        assertEquals(doubleCell, roundTrip(doubleCell, new DoubleListCell.DoubleListCellSerializer()));
+
+        String[] strings = {"a", "", "äöü €", "last"};
+        StringListCell stringCell = CollectionCellFactory.createStringListCell(strings);
+        assertArrayEquals(strings,
+            roundTrip(stringCell, new StringListCell.StringListCellSerializer()).toStringArray());
+
+        assertEquals(0, roundTrip(CollectionCellFactory.createIntListCell(new int[0]),
+            new IntListCell.IntListCellSerializer()).size());
+    }
+
+    /** Strings that aren't valid UTF-16, like unpaired surrogates, are kept unchanged, as by {@link StringCell}. */
+    @Test
+    public void testSerializationOfAnyString() throws IOException {
+        String[] strings = {"\uD800", "a\uDC00b", "\uD83D\uDE00", "\u0000", "\uFFFF\u07FF\u0080\u007F"};
+        StringListCell stringCell = CollectionCellFactory.createStringListCell(strings);
+        assertArrayEquals(strings, stringCell.toStringArray());
+        assertArrayEquals(strings,
+            roundTrip(stringCell, new StringListCell.StringListCellSerializer()).toStringArray());
+    }
+
+    @Test
+    public void testEqualsListCell() {
+        List<DataCell> cells = Arrays.asList(new DoubleCell(1.0), new DoubleCell(Double.NaN), new DoubleCell(-3));
+        ListCell listCell = CollectionCellFactory.createListCell(cells);
+        DataCell compact = CollectionCellFactory.createCompactListCell(cells);
+        assertThat(compact, instanceOf(DoubleListCell.class));
+        assertEquals(listCell, compact);
+        assertEquals(compact, listCell);
+        assertEquals(listCell.hashCode(), compact.hashCode());
+        assertEquals(listCell.toString(), compact.toString());
+        assertEquals(cells, ((ListDataValue)compact).stream().collect(Collectors.toList()));
+
+        List<DataCell> strings = Arrays.asList(new StringCell("x"), new StringCell("y"));
+        assertEquals(CollectionCellFactory.createListCell(strings).hashCode(),
+            CollectionCellFactory.createCompactListCell(strings).hashCode());
+        assertNotEquals(CollectionCellFactory.createListCell(strings),
+            CollectionCellFactory.createStringListCell(new String[] {"x", "z"}));
+    }
+
+    @Test
+    public void testCompactFallback() {
+        // mixed classes and missing values aren't supported by the primitive cells
+        assertThat(CollectionCellFactory.createCompactListCell(Arrays.asList(new IntCell(1), new DoubleCell(2))),
+            instanceOf(ListCell.class));
+        assertThat(CollectionCellFactory.createCompactListCell(Arrays.asList(new IntCell(1),
+            DataType.getMissingCell())), instanceOf(ListCell.class));
+        assertThat(CollectionCellFactory.createCompactListCell(Arrays.asList(new IntCell(1), new IntCell(2))),
+            instanceOf(IntListCell.class));
+    }
+}
@@ -74,6 +74,8 @@ public void testDefault() {
         assertEquals("Wrong default (LRU cache size)", BufferSettings.DEF_LRU_CACHE_SIZE, settings.getLRUCacheSize());
         assertEquals("Wrong default (enable LRU cache flag)", BufferSettings.DEF_TABLE_CACHE.equals("LRU"),
             settings.useLRU());
+        assertEquals("Wrong default (read-ahead batches)", BufferSettings.DEF_READ_AHEAD_BATCHES,
+            settings.getReadAheadBatches());
         assertEquals("Wrong default (output format)",
             TableStoreFormatRegistry.getInstance().getInstanceTableStoreFormat(), settings.getOutputFormat(spec));
     }
@@ -89,14 +91,20 @@ public void testChangedValues() {
         final int lruCacheSize = def.getLRUCacheSize() * -1;
         final boolean useLRU = !def.useLRU();
         final TableStoreFormat outputFormat = new DefaultTableStoreFormat();
+        final int readAheadBatches = def.getReadAheadBatches() + 1;
 
         final BufferSettings settings = BufferSettings.getDefault()//
             .withOutputFormat(outputFormat)//
             .withLRU(useLRU)//
-            .withLRUCacheSize(lruCacheSize);
+            .withLRUCacheSize(lruCacheSize)//
+            .withReadAheadBatches(readAheadBatches);
 
         assertEquals("Modified settings created wrong LRU cache size", lruCacheSize, settings.getLRUCacheSize());
         assertEquals("Modified settings created wrong enable LRU flag", useLRU, settings.useLRU());
+        assertEquals("Modified settings created wrong number of read-ahead batches", readAheadBatches,
+            settings.getReadAheadBatches());
+        assertEquals("Default settings has been modified (read-ahead batches)",
+            BufferSettings.getDefault().getReadAheadBatches(), def.getReadAheadBatches());
         assertTrue("Modified settings created wrong output format",
             outputFormat == settings.getOutputFormat(new DataTableSpecCreator().createSpec()));
         assertFalse("Default settings has been modified (output format)",
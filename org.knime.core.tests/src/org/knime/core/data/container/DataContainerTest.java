@@ -791,6 +791,139 @@ public void run() {
         }
     }
 
+    /**
+     * Tests {@link DataContainer#closeWithFileCopy(ContainerTable)}: the copy has the same content and remains
+     * readable after the source table has been cleared.
+     *
+     * @throws IOException if the copy fails
+     */
+    @Test(timeout = 5000)
+    public void testCloseWithFileCopy() throws IOException {
+        final DataContainer source = new DataContainer(SPEC_STR_INT_DBL, true, 0);
+        for (RowIterator it = generateRows(1000); it.hasNext();) {
+            source.addRowToTable(it.next());
+        }
+        source.close();
+
+        final DataContainer copy = new DataContainer(SPEC_STR_INT_DBL, true, 0);
+        org.junit.Assert.assertTrue("File copy not supported", copy.closeWithFileCopy(source.getBufferedTable()));
+        org.junit.Assert.assertTrue(copy.isClosed());
+        org.junit.Assert.assertEquals(1000, copy.size());
+
+        source.getBufferedTable().clear();
+        RowIterator copyIt = copy.getTable().iterator();
+        for (RowIterator it = generateRows(1000); it.hasNext();) {
+            org.junit.Assert.assertEquals(it.next(), copyIt.next());
+        }
+        org.junit.Assert.assertFalse(copyIt.hasNext());
+    }
+
+    /**
+     * Tests that generated and other row keys are restored when they are written to and read from disk.
+     */
+    @Test(timeout = 5000)
+    public void testCompactRowKeys() {
+        final DataContainer container = new DataContainer(SPEC_STR_INT_DBL, true, 0);
+        final RowKey[] keys = {RowKey.createRowKey(0L), new RowKey("Row1"), RowKey.createRowKey(Long.MAX_VALUE),
+            new RowKey("Row02"), new RowKey("Row3#1"), new RowKey(""), RowKey.createRowKey(-4L),
+            RowKey.createRowKey(999_999_999_999_999_999L)};
+        for (int i = 0; i < keys.length; i++) {
+            container.addRowToTable(
+                new DefaultRow(keys[i], new StringCell("s" + i), new IntCell(i), new DoubleCell(i)));
+        }
+        container.close();
+
+        final RowIterator tableIt = container.getTable().iterator();
+        for (RowKey key : keys) {
+            final RowKey read = tableIt.next().getKey();
+            org.junit.Assert.assertEquals(key, read);
+            org.junit.Assert.assertEquals(key.getString(), read.getString());
+            org.junit.Assert.assertEquals(key.getGeneratedIndex(), read.getGeneratedIndex());
+        }
+        org.junit.Assert.assertFalse(tableIt.hasNext());
+        container.getBufferedTable().clear();
+    }
+
+    /**
+     * Tests that string cells written to disk are read back correctly when repeated values are written as dictionary
+     * entries, also beyond the dictionary's size limit, and that repeated values share one instance.
+     */
+    @Test
+    public void testStringDictionary() {
+        final DataTableSpec spec = new DataTableSpec(new String[]{"Low", "High", "Int"},
+            new DataType[]{StringCell.TYPE, StringCell.TYPE, IntCell.TYPE});
+        final DataContainerSettings settings = DataContainerSettings.getDefault().withMaxCellsInMemory(0)
+            .withBufferSettings(BufferSettings.getDefault().withLRU(false));
+        final DataContainer container = new DataContainer(spec, settings);
+        final int count = 3 * StringCellDictionary.MAX_SIZE;
+        final String longString = RandomStringUtils.randomAlphabetic(StringCellDictionary.MAX_STRING_LENGTH + 1);
+        for (int i = 0; i < count; i++) {
+            container.addRowToTable(createDictionaryTestRow(i, longString));
+        }
+        container.close();
+
+        final DataCell[] firstLowCells = new DataCell[5];
+        final RowIterator tableIt = container.getTable().iterator();
+        for (int i = 0; i < count; i++) {
+            final DataRow expected = createDictionaryTestRow(i, longString);
+            final DataRow read = tableIt.next();
+            org.junit.Assert.assertEquals(expected, read);
+            final DataCell low = read.getCell(0);
+            if (!low.isMissing()) {
+                final int value = i % 5;
+                if (firstLowCells[value] == null) {
+                    firstLowCells[value] = low;
+                }
+                org.junit.Assert.assertSame(firstLowCells[value], low);
+            }
+        }
+        org.junit.Assert.assertFalse(tableIt.hasNext());
+        container.getBufferedTable().clear();
+    }
+
+    private static DataRow createDictionaryTestRow(final int i, final String longString) {
+        final DataCell low = i % 7 == 0 ? DataType.getMissingCell() : new StringCell("value " + (i % 5));
+        final DataCell high =
+            new StringCell(i % 11 == 0 ? longString : "value " + (i % (2 * StringCellDictionary.MAX_SIZE)));
+        return new DefaultRow(RowKey.createRowKey((long)i), low, high, new IntCell(i));
+    }
+
+    /**
+     * Tests that tables read from disk with read-ahead enabled are returned in order and that closing the iterator
+     * while rows are decoded in the background stops the iteration.
+     */
+    @Test(timeout = 5000)
+    public void testReadAhead() {
+        final DataContainerSettings settings = DataContainerSettings.getDefault().withMaxCellsInMemory(0)
+            .withBufferSettings(BufferSettings.getDefault().withLRU(false).withReadAheadBatches(2));
+        final DataContainer container = new DataContainer(SPEC_STR_INT_DBL, settings);
+        final int count = 1050;
+        for (RowIterator it = generateRows(count); it.hasNext();) {
+            container.addRowToTable(it.next());
+        }
+        container.close();
+
+        try (final CloseableRowIterator tableIt = container.getBufferedTable().iterator()) {
+            org.junit.Assert.assertTrue("Read-ahead not used: " + tableIt.getClass().getName(),
+                tableIt instanceof ReadAheadRowIterator);
+            for (RowIterator it = generateRows(count); it.hasNext();) {
+                org.junit.Assert.assertEquals(it.next(), tableIt.next());
+            }
+            org.junit.Assert.assertFalse(tableIt.hasNext());
+        }
+
+        final CloseableRowIterator tableIt = container.getBufferedTable().iterator();
+        final RowIterator it = generateRows(count);
+        for (int i = 0; i < 150; i++) {
+            org.junit.Assert.assertEquals(it.next(), tableIt.next());
+        }
+        tableIt.close();
+        org.junit.Assert.assertTrue(tableIt.hasNext());
+        org.junit.Assert.assertTrue("Row expected to be invalid after close",
+            tableIt.next().getKey().getString().startsWith("INVALID_ROW"));
+        container.getBufferedTable().clear();
+    }
+
     /**
      * Test that even medium-sized tables (larger then the container's maximum number of cells) are kept in memory. Also
      * test that once the table has been evicted from memory, it is read back into memory on next iteration.
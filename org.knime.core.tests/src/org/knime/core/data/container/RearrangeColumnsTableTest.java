@@ -0,0 +1,247 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the pipelined and block-wise evaluation of cell factories in {@link RearrangeColumnsTable}, see
+ * {@link AbstractCellFactory#setPipelinedProcessing(boolean, int)} and
+ * {@link AbstractCellFactory#setRowBlockSize(int)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RearrangeColumnsTableTest {
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final ExecutionContext EXEC = new ExecutionContext(new DefaultNodeProgressMonitor(),
+        new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+        SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
+
+    private static BufferedDataTable createTable(final int rowCount) {
+        final BufferedDataContainer cont =
+            EXEC.createDataContainer(new DataTableSpec(new DataColumnSpecCreator("in", IntCell.TYPE).createSpec()));
+        for (int i = 0; i < rowCount; i++) {
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    /** Multiplies the input by a constant, fails if called concurrently or out of order. */
+    private static final class MultiplyFactory extends SingleCellFactory {
+
+        private final int m_factor;
+
+        private final AtomicInteger m_activeCalls = new AtomicInteger();
+
+        private final AtomicBoolean m_isMisused = new AtomicBoolean();
+
+        private int m_lastValue = -1;
+
+        MultiplyFactory(final int factor, final int rowBatchSize) {
+            super(new DataColumnSpecCreator("times " + factor, LongCell.TYPE).createSpec());
+            m_factor = factor;
+            setPipelinedProcessing(true, rowBatchSize);
+        }
+
+        @Override
+        public DataCell getCell(final DataRow row) {
+            try {
+                final int value = ((IntCell)row.getCell(0)).getIntValue();
+                if (m_activeCalls.incrementAndGet() != 1 || value != m_lastValue + 1) {
+                    m_isMisused.set(true);
+                }
+                m_lastValue = value;
+                return new LongCell((long)value * m_factor);
+            } finally {
+                m_activeCalls.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Tests that the new cells of several pipelined factories are assembled in input order and that each factory
+     * processes the rows sequentially.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test(timeout = 10000)
+    public void testPipelinedFactories() throws Exception {
+        final int rowCount = 5000;
+        final BufferedDataTable table = createTable(rowCount);
+        final MultiplyFactory[] factories =
+            {new MultiplyFactory(2, 1), new MultiplyFactory(3, 17), new MultiplyFactory(5, 100)};
+        final ColumnRearranger rearranger = new ColumnRearranger(table.getDataTableSpec());
+        for (MultiplyFactory factory : factories) {
+            rearranger.append(factory);
+        }
+        final BufferedDataTable result = EXEC.createColumnRearrangeTable(table, rearranger, EXEC);
+
+        assertEquals("Wrong number of rows", rowCount, result.size());
+        int i = 0;
+        for (final Iterator<DataRow> it = result.iterator(); it.hasNext(); i++) {
+            final DataRow row = it.next();
+            assertEquals("Wrong row key", RowKey.createRowKey((long)i), row.getKey());
+            assertEquals(new IntCell(i), row.getCell(0));
+            for (int f = 0; f < factories.length; f++) {
+                assertEquals(new LongCell((long)i * factories[f].m_factor), row.getCell(f + 1));
+            }
+        }
+        for (MultiplyFactory factory : factories) {
+            assertFalse("Factory called concurrently or out of order", factory.m_isMisused.get());
+        }
+    }
+
+    /**
+     * Tests that an exception thrown by one of the pipelined factories is passed on to the caller.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test(timeout = 10000, expected = IllegalStateException.class)
+    public void testPipelinedFactoryFailure() throws Exception {
+        final BufferedDataTable table = createTable(1000);
+        final ColumnRearranger rearranger = new ColumnRearranger(table.getDataTableSpec());
+        rearranger.append(new MultiplyFactory(2, 10));
+        final SingleCellFactory failing =
+            new SingleCellFactory(new DataColumnSpecCreator("failing", IntCell.TYPE).createSpec()) {
+                @Override
+                public DataCell getCell(final DataRow row) {
+                    if (row.getKey().equals(RowKey.createRowKey(500L))) {
+                        throw new IllegalStateException("Expected failure");
+                    }
+                    return row.getCell(0);
+                }
+            };
+        failing.setPipelinedProcessing(true);
+        rearranger.append(failing);
+        EXEC.createColumnRearrangeTable(table, rearranger, EXEC);
+    }
+
+    /** Negates the input, processing rows in blocks; records the largest block seen. */
+    private static final class BlockFactory extends SingleCellFactory {
+
+        private int m_maxBlock;
+
+        private int m_nextValue;
+
+        private boolean m_isOutOfOrder;
+
+        BlockFactory(final int rowBlockSize) {
+            super(new DataColumnSpecCreator("negated", IntCell.TYPE).createSpec());
+            setRowBlockSize(rowBlockSize);
+        }
+
+        @Override
+        public void getCells(final DataRow[] rows, final DataCell[][] out) {
+            m_maxBlock = Math.max(m_maxBlock, rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                final int value = ((IntCell)rows[i].getCell(0)).getIntValue();
+                m_isOutOfOrder |= value != m_nextValue++;
+                out[i] = new DataCell[]{new IntCell(-value)};
+            }
+        }
+
+        @Override
+        public DataCell getCell(final DataRow row) {
+            throw new IllegalStateException("Block factory called per row");
+        }
+    }
+
+    /**
+     * Tests that a factory with a row block size receives the rows in blocks of at most that size and in input order.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test(timeout = 10000)
+    public void testRowBlockFactory() throws Exception {
+        final int rowCount = 1010;
+        final BufferedDataTable table = createTable(rowCount);
+        final BlockFactory factory = new BlockFactory(64);
+        final ColumnRearranger rearranger = new ColumnRearranger(table.getDataTableSpec());
+        rearranger.append(factory);
+        rearranger.append(new MultiplyFactory(2, 1));
+        final BufferedDataTable result = EXEC.createColumnRearrangeTable(table, rearranger, EXEC);
+
+        assertEquals("Wrong number of rows", rowCount, result.size());
+        int i = 0;
+        for (final Iterator<DataRow> it = result.iterator(); it.hasNext(); i++) {
+            final DataRow row = it.next();
+            assertEquals("Wrong row key", RowKey.createRowKey((long)i), row.getKey());
+            assertEquals(new IntCell(-i), row.getCell(1));
+            assertEquals(new LongCell(2L * i), row.getCell(2));
+        }
+        assertFalse("Rows passed out of order", factory.m_isOutOfOrder);
+        assertTrue("Unexpected block size " + factory.m_maxBlock, factory.m_maxBlock > 1 && factory.m_maxBlock <= 64);
+    }
+}
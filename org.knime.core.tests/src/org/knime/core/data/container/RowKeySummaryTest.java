@@ -0,0 +1,224 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link RowKeySummary} and its use when concatenating tables.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowKeySummaryTest {
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final ExecutionContext EXEC = new ExecutionContext(new DefaultNodeProgressMonitor(),
+        new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+        SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
+
+    private static RowKeySummary summarize(final String format, final int from, final int to) {
+        final RowKeySummary.Builder builder = new RowKeySummary.Builder();
+        for (int i = from; i < to; i++) {
+            builder.add(new RowKey(String.format(format, i)));
+        }
+        return builder.build(true);
+    }
+
+    private static BufferedDataTable createTable(final String format, final int from, final int to) {
+        final BufferedDataContainer cont =
+            EXEC.createDataContainer(new DataTableSpec(new DataColumnSpecCreator("in", IntCell.TYPE).createSpec()));
+        for (int i = from; i < to; i++) {
+            cont.addRowToTable(new DefaultRow(String.format(format, i), new IntCell(i)));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    /** Tests that generated keys in consecutive ranges are proven disjoint, also if they differ in length. */
+    @Test
+    public void testDisjointRanges() {
+        final RowKeySummary first = summarize("Row%d", 0, 100);
+        final RowKeySummary second = summarize("Row%d", 100, 1500);
+        final RowKeySummary third = summarize("Row%d", 1500, 3000);
+        assertTrue(first.isDisjoint(second));
+        assertTrue(second.isDisjoint(third));
+        assertTrue(third.isDisjoint(first));
+        assertFalse(first.isDisjoint(summarize("Row%d", 99, 200)));
+        assertFalse(first.mightContain("Row100"));
+        assertTrue(first.mightContain("Row99"));
+    }
+
+    /** Tests that keys with different suffixes (as created by loops) are proven disjoint. */
+    @Test
+    public void testDisjointSuffixes() {
+        final RowKeySummary iteration1 = summarize("Row%d#1", 0, 100);
+        final RowKeySummary iteration11 = summarize("Row%d#11", 0, 100);
+        final RowKeySummary iteration2 = summarize("Row%d#2", 50, 150);
+        assertTrue(iteration1.isDisjoint(iteration11));
+        assertTrue(iteration1.isDisjoint(iteration2));
+        final RowKeySummary composed = RowKeySummary.compose(true, iteration1, iteration11);
+        assertTrue(composed.isDisjoint(iteration2));
+        assertFalse(composed.isDisjoint(summarize("Row%d#11", 99, 120)));
+        assertTrue(composed.mightContain("Row5#11"));
+    }
+
+    /** Tests that the summary has no false negatives, also for tables exceeding the maximum Bloom filter size. */
+    @Test
+    public void testNoFalseNegatives() {
+        final Random random = new Random(42);
+        for (int count : new int[]{1, 10, 1000, 50000}) {
+            final RowKey[] keys = new RowKey[count];
+            final RowKeySummary.Builder builder = new RowKeySummary.Builder();
+            for (int i = 0; i < count; i++) {
+                keys[i] = new RowKey(Long.toHexString(random.nextLong()));
+                builder.add(keys[i]);
+            }
+            final RowKeySummary summary = builder.build(false);
+            for (RowKey key : keys) {
+                assertTrue("False negative for " + key, summary.mightContain(key.getString()));
+                final RowKeySummary.Builder single = new RowKeySummary.Builder();
+                single.add(key);
+                assertFalse("Tables sharing a key considered disjoint", summary.isDisjoint(single.build(true)));
+            }
+        }
+    }
+
+    /** Tests the summary of generated keys, which are summarized by their numbers until other keys are added. */
+    @Test
+    public void testGeneratedKeys() throws Exception {
+        assertSummary(new String[]{"Row0", "Row99", "Row", ""}, "Row%d", 0, 100);
+        assertSummary(new String[]{"Row10", "Row19", "Row1", ""}, "Row%d", 10, 20);
+        assertSummary(new String[]{"Row5", "Row5", "Row5", "Row5"}, "Row%d", 5, 6);
+        assertSummary(new String[]{"Row5", "Row1005", "Row", "5"}, "Row5", "Row15", "Row1005");
+        assertSummary(new String[]{"Row105", "Row1005", "Row10", "05"}, "Row105", "Row1005");
+        assertSummary(new String[]{"Row7", "Row7", "Row7", "Row7"}, "Row7", "Row7");
+        assertSummary(new String[]{"Row12", "Row12x", "Row12", ""}, "Row12", "Row123", "Row12x");
+        assertSummary(new String[]{"Row9", "Row010", "Row", ""}, "Row10", "Row9", "Row010");
+    }
+
+    private static void assertSummary(final String[] expected, final String format, final int from, final int to)
+        throws Exception {
+        final String[] keys = new String[to - from];
+        for (int i = from; i < to; i++) {
+            keys[i - from] = String.format(format, i);
+        }
+        assertSummary(expected, keys);
+    }
+
+    /** Asserts the minimum, maximum, common prefix and common suffix of the summary of the given keys. */
+    private static void assertSummary(final String[] expected, final String... keys) throws Exception {
+        final RowKeySummary.Builder builder = new RowKeySummary.Builder();
+        for (String key : keys) {
+            builder.add(new RowKey(key));
+        }
+        final NodeSettings settings = new NodeSettings("summary");
+        builder.build(false).save(settings);
+        final String[] actual = {settings.getString("min_key"), settings.getString("max_key"),
+            settings.getString("common_prefix"), settings.getString("common_suffix")};
+        assertArrayEquals(String.join(", ", keys), expected, actual);
+        for (String key : keys) {
+            assertTrue(key, RowKeySummary.load(settings).mightContain(key));
+        }
+    }
+
+    /** Tests saving and loading a summary. */
+    @Test
+    public void testSaveLoad() throws Exception {
+        final RowKeySummary summary = summarize("Row%d", 0, 2000);
+        final NodeSettings settings = new NodeSettings("summary");
+        summary.save(settings);
+        final RowKeySummary loaded = RowKeySummary.load(settings);
+        assertTrue(loaded.hasUniqueKeys());
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(loaded.mightContain("Row" + i));
+        }
+        assertFalse(loaded.mightContain("Row2000"));
+        assertTrue(loaded.isDisjoint(summarize("Row%d", 2000, 2100)));
+    }
+
+    /** Tests that containers collect unique summaries and that concatenation still detects duplicates. */
+    @Test
+    public void testConcatenate() throws Exception {
+        final BufferedDataTable first = createTable("Row%d#0", 0, 500);
+        final BufferedDataTable second = createTable("Row%d#1", 0, 500);
+        assertTrue(first.getRowKeySummary().get().hasUniqueKeys());
+        final BufferedDataTable concatenated = EXEC.createConcatenateTable(EXEC, first, second);
+        assertEquals(1000, concatenated.size());
+        assertTrue(concatenated.getRowKeySummary().isPresent());
+
+        final BufferedDataTable third = createTable("Row%d#1", 499, 600);
+        try {
+            EXEC.createConcatenateTable(EXEC, concatenated, createTable("Row%d#2", 0, 10), third);
+            throw new AssertionError("Duplicate row key not detected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Row499#1"));
+        }
+    }
+}
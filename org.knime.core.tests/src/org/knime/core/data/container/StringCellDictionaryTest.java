@@ -0,0 +1,159 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests {@link StringCellDictionary}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class StringCellDictionaryTest {
+
+    private static DataTableSpec createSpec(final int stringColumns) {
+        final String[] names = new String[stringColumns + 1];
+        final DataType[] types = new DataType[stringColumns + 1];
+        for (int i = 0; i <= stringColumns; i++) {
+            names[i] = "col" + i;
+            types[i] = i == 0 ? IntCell.TYPE : StringCell.TYPE;
+        }
+        return new DataTableSpec(names, types);
+    }
+
+    /** Tests that only string columns are encoded and that they share the memory limit of the table. */
+    @Test
+    public void testMemoryLimit() {
+        final StringCellDictionary[] dictionaries = StringCellDictionary.createForWriting(createSpec(4));
+        assertNull(dictionaries[0]);
+        assertArrayEquals(new int[]{1, 2, 3, 4}, StringCellDictionary.getColumns(dictionaries));
+        assertEquals(StringCellDictionary.MAX_TABLE_BYTES / 4, StringCellDictionary.getMaxBytes(dictionaries));
+        assertNull(StringCellDictionary.createForWriting(createSpec(0)));
+        assertNull(StringCellDictionary.createForWriting(createSpec(10000)));
+
+        // entries of the maximum length exceed the limit before the maximum number of entries
+        final StringCellDictionary dictionary = dictionaries[1];
+        final String prefix = new String(new char[StringCellDictionary.MAX_STRING_LENGTH - 10]).replace('\0', 'x');
+        int added = 0;
+        while (true) {
+            final StringCell cell = new StringCell(prefix + added);
+            assertEquals(-1, dictionary.lookupOrAdd(cell));
+            final int index = dictionary.lookupOrAdd(cell);
+            if (index < 0) {
+                break;
+            }
+            assertEquals(added, index);
+            added++;
+        }
+        assertTrue(added > 0 && added < StringCellDictionary.MAX_SIZE);
+        assertEquals(0, dictionary.lookupOrAdd(new StringCell(prefix + 0)));
+    }
+
+    /** Tests that a full dictionary of a column with mostly distinct values is dropped, on both sides alike. */
+    @Test
+    public void testDropMostlyDistinct() throws IOException {
+        final StringCellDictionary writer = StringCellDictionary.createForWriting(createSpec(1))[1];
+        final StringCellDictionary reader =
+            StringCellDictionary.createForReading(2, new int[]{1}, StringCellDictionary.MAX_TABLE_BYTES)[1];
+        for (int i = 0; i < StringCellDictionary.MAX_SIZE; i++) {
+            final StringCell cell = new StringCell("value " + i);
+            assertEquals(-1, writer.lookupOrAdd(cell));
+            reader.add(cell);
+        }
+        assertEquals(0, writer.lookupOrAdd(new StringCell("value 0")));
+        assertEquals("value 0", reader.get(0).getStringValue());
+        final StringCell next = new StringCell("value " + StringCellDictionary.MAX_SIZE);
+        assertEquals(-1, writer.lookupOrAdd(next));
+        reader.add(next);
+        // dropped, no further lookups
+        assertEquals(-1, writer.lookupOrAdd(new StringCell("value 0")));
+        try {
+            reader.get(0);
+            fail("Dropped dictionary returned an entry");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /** Tests that a full dictionary is kept if its entries are used. */
+    @Test
+    public void testKeepRepeated() throws IOException {
+        final StringCellDictionary dictionary =
+            StringCellDictionary.createForReading(1, new int[]{0}, StringCellDictionary.MAX_TABLE_BYTES)[0];
+        for (int i = 0; i < StringCellDictionary.MAX_SIZE; i++) {
+            final StringCell cell = new StringCell("value " + i);
+            dictionary.add(cell);
+            assertSame(cell, dictionary.get(i));
+        }
+        dictionary.add(new StringCell("other"));
+        assertEquals("value 5", dictionary.get(5).getStringValue());
+    }
+
+    /** Tests that a disabled dictionary fails instead of returning entries that may not match the writer's. */
+    @Test(expected = IOException.class)
+    public void testDisable() throws IOException {
+        final StringCellDictionary dictionary =
+            StringCellDictionary.createForReading(1, new int[]{0}, StringCellDictionary.MAX_TABLE_BYTES)[0];
+        dictionary.add(new StringCell("a"));
+        dictionary.disable();
+        dictionary.add(new StringCell("b"));
+        dictionary.get(0);
+    }
+}
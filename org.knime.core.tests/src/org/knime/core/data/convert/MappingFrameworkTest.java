@@ -80,6 +80,8 @@
 import org.knime.core.data.convert.map.CellValueProducer;
 import org.knime.core.data.convert.map.CellValueProducerFactory;
 import org.knime.core.data.convert.map.ConsumptionPath;
+import org.knime.core.data.convert.map.DataRowConsumer;
+import org.knime.core.data.convert.map.DataRowProducer;
 import org.knime.core.data.convert.map.Destination;
 import org.knime.core.data.convert.map.MappingFramework;
 import org.knime.core.data.convert.map.ProducerRegistry;
@@ -92,6 +94,7 @@
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.FileStoreFactory;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.config.Config;
@@ -343,6 +346,75 @@ public void consumerTest() throws Exception {
         assertEquals(1, testSink.h2oFrame.size());
         assertEquals(4, testSink.h2oFrame.get(0).length);
         assertArrayEquals(new Object[]{"KNIME", new Integer(42), new Long(42L), null}, testSink.h2oFrame.get(0));
+
+        // compiled consumer reuses its converters and consumers across rows
+        final DataRowConsumer<H2OParameters> consumer = MappingFramework.compileDataRowConsumer(testSink, mapping);
+        testSink.h2oFrame.add(new Object[4]);
+        for (final H2OParameters param : parameters) {
+            param.rowIndex = 1;
+        }
+        consumer.consumeDataRow(row, parameters);
+        consumer.consumeDataRow(new DefaultRow(RowKey.createRowKey(1L), new StringCell("AG"), new IntCell(7),
+            new MissingCell(null), new LongCell(3L)), parameters);
+        assertArrayEquals(new Object[]{"AG", new Integer(7), null, new Long(3L)}, testSink.h2oFrame.get(1));
+    }
+
+    /**
+     * Tests that compiled consumers only reuse instances of factories that declare themselves stateless.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void compiledConsumerTest() throws Exception {
+        final int[] creations = new int[2];
+        final SimpleCellValueConsumerFactory<H2ODestination, String, String, H2OParameters> statelessConsumer =
+            new SimpleCellValueConsumerFactory<H2ODestination, String, String, H2OParameters>(String.class, "STR",
+                (c, v, p) -> c.h2oFrame.get(p.rowIndex)[p.columnIndex] = v) {
+                @Override
+                public CellValueConsumer<H2ODestination, String, H2OParameters> create() {
+                    creations[0]++;
+                    return super.create();
+                }
+            };
+        final SimpleCellValueConsumerFactory<H2ODestination, String, String, H2OParameters> statefulConsumer =
+            new SimpleCellValueConsumerFactory<H2ODestination, String, String, H2OParameters>(String.class, "STR",
+                (c, v, p) -> c.h2oFrame.get(p.rowIndex)[p.columnIndex] = v) {
+                @Override
+                public CellValueConsumer<H2ODestination, String, H2OParameters> create() {
+                    creations[1]++;
+                    return super.create();
+                }
+
+                @Override
+                public boolean isStateless() {
+                    return false;
+                }
+            };
+        final DataCellToJavaConverterFactory<?, ?> converter = DataCellToJavaConverterRegistry.getInstance()
+            .getConverterFactories(StringCell.TYPE, String.class).stream().findFirst().get();
+        assertTrue(converter.isStateless());
+        final ConsumptionPath[] mapping = new ConsumptionPath[]{new ConsumptionPath(converter, statelessConsumer),
+            new ConsumptionPath(converter, statefulConsumer)};
+
+        final H2ODestination testSink = new H2ODestination();
+        final H2OParameters[] parameters = new H2OParameters[2];
+        for (int i = 0; i < parameters.length; ++i) {
+            parameters[i] = new H2OParameters();
+            parameters[i].columnIndex = i;
+        }
+        final DataRowConsumer<H2OParameters> consumer = MappingFramework.compileDataRowConsumer(testSink, mapping);
+        for (int r = 0; r < 3; r++) {
+            testSink.h2oFrame.add(new Object[2]);
+            for (final H2OParameters param : parameters) {
+                param.rowIndex = r;
+            }
+            consumer.consumeDataRow(new DefaultRow(RowKey.createRowKey((long)r), new StringCell("a" + r),
+                new StringCell("b" + r)), parameters);
+        }
+
+        assertArrayEquals(new Object[]{"a2", "b2"}, testSink.h2oFrame.get(2));
+        assertEquals("Stateless consumer factory must be used once", 1, creations[0]);
+        assertEquals("Stateful consumer factory must be used per cell", 3, creations[1]);
     }
 
     /**
@@ -428,6 +500,32 @@ public void producerTest() throws Exception {
             assertTrue(row.getCell(3).isMissing());
         }
 
+        {
+            // compiled producer reuses its producers and converters across rows
+            final H2OSource testSource = new H2OSource();
+            testSource.h2oFrame.add(new Object[]{"KNIME", new Integer(42), new Long(42L), null});
+            testSource.h2oFrame.add(new Object[]{"AG", new Integer(7), null, new Long(3L)});
+            final DataRowProducer<H2OParameters> producer = MappingFramework
+                .compileDataRowProducer(FileStoreFactory.createNotInWorkflowFileStoreFactory(), testSource, mapping);
+
+            for (int r = 0; r < 2; r++) {
+                for (final H2OParameters param : parameters) {
+                    param.rowIndex = r;
+                }
+                final DataRow row = producer.produceDataRow(RowKey.createRowKey((long)r), parameters);
+                final Object[] expected = testSource.h2oFrame.get(r);
+                assertEquals(expected[0], ((StringValue)row.getCell(0)).getStringValue());
+                assertEquals(expected[1], ((IntValue)row.getCell(1)).getIntValue());
+                for (int c = 2; c < 4; c++) {
+                    if (expected[c] == null) {
+                        assertTrue(row.getCell(c).isMissing());
+                    } else {
+                        assertEquals(expected[c], ((LongValue)row.getCell(c)).getLongValue());
+                    }
+                }
+            }
+        }
+
         DataTableSpec spec = MappingFramework.createSpec(new String[]{"s", "i", "l", "missing"}, mapping);
         assertEquals(StringCell.TYPE, spec.getColumnSpec(0).getType());
         assertEquals(IntCell.TYPE, spec.getColumnSpec(1).getType());
@@ -51,6 +51,7 @@
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import java.lang.management.MemoryUsage;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
@@ -107,6 +108,18 @@ private static List<Integer> determineReserveSizeSplits() {
         return reserveSizeSplits;
     }
 
+    /**
+     * Checks the headroom, also for memory pools without a defined maximum.
+     */
+    @Test
+    public void testHeadroom() {
+        assertThat("Wrong headroom", MemoryAlertSystem.getHeadroom(new MemoryUsage(0, 300, 1000, 1000), 0.5), is(200L));
+        assertThat("Wrong headroom", MemoryAlertSystem.getHeadroom(new MemoryUsage(0, 700, 1000, 1000), 0.5),
+            is(-200L));
+        assertThat("Undefined maximum must not limit the headroom",
+            MemoryAlertSystem.getHeadroom(new MemoryUsage(0, 700, 1000, -1), 0.5), is(Long.MAX_VALUE));
+    }
+
     /**
      * Checks whether listeners are notified correctly.
      *
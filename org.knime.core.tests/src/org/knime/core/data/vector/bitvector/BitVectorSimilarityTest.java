@@ -0,0 +1,141 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.vector.bitvector;
+
+import static org.hamcrest.number.IsCloseTo.closeTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.vector.bitvector.BitVectorSimilarity.Measure;
+
+/**
+ * Tests for {@link BitVectorSimilarity}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BitVectorSimilarityTest {
+    private static final Random RANDOM = new Random(42);
+
+    private static final long LENGTH = 10000;
+
+    private static long[] randomIndices(final int count) {
+        return RANDOM.longs(count, 0, LENGTH).distinct().sorted().toArray();
+    }
+
+    private static BitVectorValue dense(final long[] indices) {
+        DenseBitVector bv = new DenseBitVector(LENGTH);
+        for (long i : indices) {
+            bv.set(i);
+        }
+        return new DenseBitVectorCellFactory(bv).createDataCell();
+    }
+
+    private static BitVectorValue sparse(final long[] indices) {
+        return new SparseBitVectorCellFactory(LENGTH, indices).createDataCell();
+    }
+
+    private static long expectedIntersection(final long[] a, final long[] b) {
+        return Arrays.stream(a).filter(v -> Arrays.binarySearch(b, v) >= 0).count();
+    }
+
+    /** Compares the kernels for all combinations of dense and sparse cells and skewed sizes. */
+    @Test
+    public void testCardinalityOfIntersection() {
+        int[] sizes = {0, 1, 3, 50, 800, 4000};
+        for (int s1 : sizes) {
+            for (int s2 : sizes) {
+                long[] a = randomIndices(s1);
+                long[] b = randomIndices(s2);
+                long expected = expectedIntersection(a, b);
+                assertEquals(expected, BitVectorSimilarity.cardinalityOfIntersection(dense(a), dense(b)));
+                assertEquals(expected, BitVectorSimilarity.cardinalityOfIntersection(sparse(a), sparse(b)));
+                assertEquals(expected, BitVectorSimilarity.cardinalityOfIntersection(dense(a), sparse(b)));
+                assertEquals(expected, BitVectorSimilarity.cardinalityOfIntersection(sparse(a), dense(b)));
+                assertEquals(expected, BitVectorUtil.cardinalityOfIntersection(sparse(a), dense(b)));
+                assertEquals(expected, BitVectorUtil.cardinalityOfIntersection(dense(a), sparse(b)));
+            }
+        }
+    }
+
+    /** Galloping search on heavily skewed sorted index arrays. */
+    @Test
+    public void testGallopingIntersection() {
+        long[] large = new long[10000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = 2L * i;
+        }
+        long[] small = {-1, 0, 1, 2, 1000, 1001, 19998, 19999, 20000};
+        assertEquals(4, BitVectorSimilarity.intersectionCount(small, small.length, large, large.length));
+        assertEquals(4, BitVectorSimilarity.intersectionCount(large, large.length, small, small.length));
+        assertEquals(0, BitVectorSimilarity.intersectionCount(small, 0, large, large.length));
+    }
+
+    /** Checks the similarity measures and the batch variant. */
+    @Test
+    public void testSimilarities() {
+        BitVectorValue query = sparse(new long[]{1, 2, 3, 4});
+        BitVectorValue[] targets = {dense(new long[]{3, 4, 5, 6}), sparse(new long[]{1, 2, 3, 4}), sparse(new long[0])};
+        assertThat(BitVectorSimilarity.similarity(Measure.TANIMOTO, query, targets[0]), closeTo(2.0 / 6, 1e-9));
+        assertThat(BitVectorSimilarity.similarity(Measure.DICE, query, targets[0]), closeTo(4.0 / 8, 1e-9));
+        assertThat(BitVectorSimilarity.similarity(Measure.COSINE, query, targets[0]), closeTo(2.0 / 4, 1e-9));
+
+        double[] result = new double[3];
+        BitVectorSimilarity.similarities(Measure.TANIMOTO, query, targets, result);
+        assertThat(result[0], closeTo(2.0 / 6, 1e-9));
+        assertThat(result[1], closeTo(1.0, 1e-9));
+        assertThat(result[2], closeTo(0.0, 1e-9));
+
+        BitVectorSimilarity.similarities(Measure.COSINE, query, Arrays.asList(targets), result);
+        assertThat(result[0], closeTo(0.5, 1e-9));
+        assertThat(result[2], closeTo(0.0, 1e-9));
+        assertThat(Measure.DICE.compute(0, 0, 0), closeTo(0.0, 0.0));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.vector.doublevector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DoubleVectorMath}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DoubleVectorMathTest {
+
+    /** A non-dense implementation, accessed through the default methods. */
+    private static DoubleVectorValue wrap(final double[] values) {
+        return new DoubleVectorValue() {
+            @Override
+            public int getLength() {
+                return values.length;
+            }
+
+            @Override
+            public double getValue(final int index) {
+                return values[index];
+            }
+        };
+    }
+
+    private static double[] random(final Random random, final int length) {
+        return random.doubles(length, -1, 1).toArray();
+    }
+
+    /** Reductions against a sequential reference, for lengths around the unrolling boundary. */
+    @Test
+    public void testReductions() {
+        Random random = new Random(7);
+        for (int length = 0; length < 20; length++) {
+            double[] a = random(random, length);
+            double[] b = random(random, length);
+            double dot = 0;
+            double dist = 0;
+            for (int i = 0; i < length; i++) {
+                dot += a[i] * b[i];
+                dist += (a[i] - b[i]) * (a[i] - b[i]);
+            }
+            DoubleVectorValue va = DoubleVectorCellFactory.createCell(a);
+            assertEquals(dot, DoubleVectorMath.dot(va, wrap(b)), 1e-12);
+            assertEquals(dist, DoubleVectorMath.squaredDistance(wrap(a), DoubleVectorCellFactory.createCell(b)), 1e-12);
+            assertEquals(Math.sqrt(dist), DoubleVectorMath.distance(wrap(a), wrap(b)), 1e-12);
+        }
+    }
+
+    /** Element-wise operations and normalization. */
+    @Test
+    public void testElementWise() {
+        DoubleVectorValue a = DoubleVectorCellFactory.createCell(new double[]{3, 4});
+        DoubleVectorValue b = wrap(new double[]{1, 2});
+        assertArrayEquals(new double[]{4, 6}, DoubleVectorMath.add(a, b).toArray(), 0.0);
+        assertArrayEquals(new double[]{2, 2}, DoubleVectorMath.subtract(a, b).toArray(), 0.0);
+        assertArrayEquals(new double[]{3, 8}, DoubleVectorMath.multiply(a, b).toArray(), 0.0);
+        assertArrayEquals(new double[]{6, 8}, DoubleVectorMath.scale(a, 2).toArray(), 0.0);
+        assertArrayEquals(new double[]{0.6, 0.8}, DoubleVectorMath.normalize(a).toArray(), 1e-12);
+        assertArrayEquals(new double[]{0, 0}, DoubleVectorMath.normalize(wrap(new double[2])).toArray(), 0.0);
+        assertEquals(5.0, DoubleVectorMath.norm(a), 0.0);
+    }
+
+    /** Bulk copy of dense and non-dense vectors. */
+    @Test
+    public void testCopyValues() {
+        double[] values = {1, 2, 3, 4};
+        double[] dest = new double[3];
+        DoubleVectorValue dense = DoubleVectorCellFactory.createCell(values);
+        dense.copyValues(1, dest, 0, 3);
+        assertArrayEquals(new double[]{2, 3, 4}, dest, 0.0);
+        wrap(values).copyValues(0, dest, 1, 2);
+        assertArrayEquals(new double[]{2, 1, 2}, dest, 0.0);
+        assertArrayEquals(values, wrap(values).toArray(), 0.0);
+    }
+
+    /** Vectors of different length are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testLengthMismatch() {
+        DoubleVectorMath.dot(wrap(new double[2]), wrap(new double[3]));
+    }
+
+    /** Invalid copy ranges are rejected. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCopyOutOfRange() {
+        wrap(new double[2]).copyValues(1, new double[2], 0, 2);
+    }
+}
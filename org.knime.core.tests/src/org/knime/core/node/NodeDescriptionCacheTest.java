@@ -0,0 +1,202 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.knime.core.node.NodeDescriptionCache.BundleIndex;
+import org.knime.core.node.NodeDescriptionCache.IndexEntry;
+import org.knime.core.node.NodeDescriptionCache.IndexedNodeDescription;
+import org.knime.core.node.testfactories.v28.XSD_v28;
+import org.osgi.framework.Version;
+
+/**
+ * Tests the node description index of {@link NodeDescriptionCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeDescriptionCacheTest {
+
+    private static final Version VERSION = new Version(1, 2, 0, "v201910190000");
+
+    /** Temporary index directory. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private NodeDescriptionParser m_parser;
+
+    private NodeDescription m_description;
+
+    private Path m_bundleDirectory;
+
+    /**
+     * Parses the description used by the tests.
+     *
+     * @throws Exception if the description can't be parsed
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_parser = new NodeDescriptionParser();
+        m_description = m_parser.parseDescription(XSD_v28.class);
+        m_bundleDirectory = m_tempFolder.getRoot().toPath().resolve("org.knime.test");
+    }
+
+    /**
+     * Descriptions read from the index equal the parsed ones, the XML is parsed on demand.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        final String name = XSD_v28.class.getName();
+        final BundleIndex index = new BundleIndex(m_bundleDirectory, VERSION);
+        assertNull(index.get(name));
+        index.add(name, IndexEntry.of(m_description));
+        assertTrue(Files.exists(m_bundleDirectory.resolve(VERSION + ".idx")));
+
+        // a new session reads the entry from the file
+        final IndexEntry entry = new BundleIndex(m_bundleDirectory, VERSION).get(name);
+        assertNotNull(entry);
+        final NodeDescription indexed = new IndexedNodeDescription(XSD_v28.class, entry, m_parser);
+        assertEquals(m_description.getNodeName(), indexed.getNodeName());
+        assertEquals(m_description.getIconPath(), indexed.getIconPath());
+        assertEquals(m_description.getType(), indexed.getType());
+        assertEquals(m_description.getInteractiveViewName(), indexed.getInteractiveViewName());
+        assertEquals(m_description.isDeprecated(), indexed.isDeprecated());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(m_description.getInportName(i), indexed.getInportName(i));
+            assertEquals(m_description.getInportDescription(i), indexed.getInportDescription(i));
+            assertEquals(m_description.getOutportName(i), indexed.getOutportName(i));
+            assertEquals(m_description.getOutportDescription(i), indexed.getOutportDescription(i));
+        }
+        assertEquals(m_description.getViewCount(), indexed.getViewCount());
+        for (int i = 0; i < m_description.getViewCount(); i++) {
+            assertEquals(m_description.getViewName(i), indexed.getViewName(i));
+            assertEquals(m_description.getViewDescription(i), indexed.getViewDescription(i));
+        }
+        assertNotNull(indexed.getXMLDescription());
+    }
+
+    /**
+     * Creating an index deletes the indices of older versions of the same bundle only.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testOutdatedIndices() throws Exception {
+        final Path older = m_bundleDirectory.resolve("1.1.0.v201901010000.idx");
+        final Path newer = m_bundleDirectory.resolve("1.3.0.v202001010000.idx");
+        final Path otherBundle = m_tempFolder.getRoot().toPath().resolve("org.knime.test_ext")
+            .resolve("1.0.0.v201801010000.idx");
+        for (Path file : new Path[]{older, newer, otherBundle}) {
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+        }
+
+        new BundleIndex(m_bundleDirectory, VERSION).add(XSD_v28.class.getName(), IndexEntry.of(m_description));
+        assertFalse(Files.exists(older));
+        assertTrue(Files.exists(newer));
+        assertTrue(Files.exists(otherBundle));
+        assertTrue(Files.exists(m_bundleDirectory.resolve(VERSION + ".idx")));
+    }
+
+    /**
+     * Several writers appending to the same index (as KNIME instances sharing a configuration area) keep it readable.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        final IndexEntry entry = IndexEntry.of(m_description);
+        final int writers = 4;
+        final int entriesPerWriter = 50;
+        final ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                final BundleIndex index = new BundleIndex(m_bundleDirectory, VERSION);
+                final int writer = w;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < entriesPerWriter; i++) {
+                        index.add("factory" + writer + "_" + i, entry);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final BundleIndex index = new BundleIndex(m_bundleDirectory, VERSION);
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < entriesPerWriter; i++) {
+                final IndexEntry read = index.get("factory" + w + "_" + i);
+                assertNotNull("Missing entry " + w + "_" + i, read);
+                assertEquals(m_description.getNodeName(), new IndexedNodeDescription(XSD_v28.class, read, m_parser)
+                    .getNodeName());
+            }
+        }
+    }
+}
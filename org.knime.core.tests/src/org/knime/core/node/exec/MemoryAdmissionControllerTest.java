@@ -0,0 +1,172 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Tests {@link MemoryAdmissionController} with a fixed (fake) memory headroom.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class MemoryAdmissionControllerTest {
+
+    private final AtomicLong m_headroom = new AtomicLong(100);
+
+    private ThreadPool m_pool;
+
+    private MemoryAdmissionController m_controller;
+
+    @Before
+    public void setUp() {
+        m_pool = new ThreadPool(4);
+        m_controller = new MemoryAdmissionController(m_headroom::get, TimeUnit.HOURS.toMillis(1), true);
+    }
+
+    @After
+    public void tearDown() {
+        m_pool.shutdown();
+    }
+
+    private static Runnable blockingTask(final CountDownLatch latch) {
+        return () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    @Test(timeout = 10000)
+    public void testDeferUntilReleased() throws Exception {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        Future<?> first = m_controller.submit(m_pool, blockingTask(releaseFirst), 80);
+        AtomicBoolean secondRan = new AtomicBoolean();
+        Future<?> second = m_controller.submit(m_pool, () -> secondRan.set(true), 50);
+        assertEquals("Second job must be deferred", 1, m_controller.getNrPendingJobs());
+        assertFalse(second.isDone());
+
+        // jobs without footprint are never deferred
+        m_controller.submit(m_pool, () -> {}, 0).get();
+
+        releaseFirst.countDown();
+        first.get();
+        second.get();
+        assertTrue(secondRan.get());
+        assertEquals(0, m_controller.getNrPendingJobs());
+    }
+
+    @Test(timeout = 10000)
+    public void testAlwaysAdmitWhenIdle() throws Exception {
+        m_headroom.set(-1);
+        AtomicBoolean ran = new AtomicBoolean();
+        m_controller.submit(m_pool, () -> ran.set(true), 1000).get();
+        assertTrue("Job must be admitted if nothing else is running", ran.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelPending() throws Exception {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        Future<?> first = m_controller.submit(m_pool, blockingTask(releaseFirst), 80);
+        AtomicBoolean secondRan = new AtomicBoolean();
+        Future<?> second = m_controller.submit(m_pool, () -> secondRan.set(true), 50);
+        assertTrue(second.cancel(true));
+        assertTrue(second.isCancelled());
+        assertEquals(0, m_controller.getNrPendingJobs());
+        releaseFirst.countDown();
+        first.get();
+        assertFalse(secondRan.get());
+    }
+
+    /** Deferred jobs count as pending jobs of their pool, also if they are canceled before being admitted. */
+    @Test(timeout = 10000)
+    public void testDeferredJobsArePending() throws Exception {
+        final ThreadPool otherPool = new ThreadPool(1);
+        try {
+            CountDownLatch releaseFirst = new CountDownLatch(1);
+            Future<?> first = m_controller.submit(otherPool, blockingTask(releaseFirst), 80);
+            AtomicBoolean secondRan = new AtomicBoolean();
+            m_controller.submit(m_pool, () -> secondRan.set(true), 50);
+            Future<?> third = m_controller.submit(m_pool, () -> { }, 50);
+            assertEquals(2, m_controller.getNrPendingJobs());
+            assertTrue(third.cancel(true));
+
+            AtomicBoolean secondRanBeforeTermination = new AtomicBoolean();
+            Thread waiter = new Thread(() -> {
+                try {
+                    m_pool.waitForTermination();
+                    secondRanBeforeTermination.set(secondRan.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            waiter.start();
+            Thread.sleep(100);
+            assertTrue("Pool terminated while a job is deferred", waiter.isAlive());
+            releaseFirst.countDown();
+            first.get();
+            waiter.join();
+            assertTrue("Deferred job not awaited by pool", secondRanBeforeTermination.get());
+        } finally {
+            otherPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.pmml;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.xmlbeans.XmlException;
+import org.dmg.pmml.DATATYPE;
+import org.dmg.pmml.DerivedFieldDocument.DerivedField;
+import org.dmg.pmml.OPTYPE;
+import org.dmg.pmml.PMMLDocument;
+import org.dmg.pmml.TransformationDictionaryDocument.TransformationDictionary;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests loading, saving, copying and comparing of {@link PMMLPortObject}s, which keep their documents in serialized
+ * form until they are accessed.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PMMLPortObjectSerializationTest {
+
+    private static final PMMLPortObjectSpec SPEC = new PMMLPortObjectSpecCreator(new DataTableSpec(
+        new DataColumnSpecCreator("name", StringCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("a", DoubleCell.TYPE).createSpec())).createSpec();
+
+    private static byte[] save(final PMMLPortObject port) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        port.save(out);
+        return out.toByteArray();
+    }
+
+    private static PMMLPortObject load(final byte[] rawPMML) throws IOException, XmlException {
+        PMMLPortObject port = new PMMLPortObject();
+        port.loadFrom(SPEC, new ByteArrayInputStream(rawPMML));
+        return port;
+    }
+
+    /** A dictionary with a single field copying "a". */
+    private static TransformationDictionary transformations(final String name) {
+        TransformationDictionary dict = TransformationDictionary.Factory.newInstance();
+        DerivedField df = dict.addNewDerivedField();
+        df.setName(name);
+        df.setDataType(DATATYPE.DOUBLE);
+        df.setOptype(OPTYPE.CONTINUOUS);
+        df.addNewFieldRef().setField("a");
+        return dict;
+    }
+
+    private static String toString(final byte[] rawPMML) {
+        return new String(rawPMML, StandardCharsets.UTF_8);
+    }
+
+    /** A loaded document is saved as it was read and is parsed once its content is accessed. */
+    @Test
+    public void testLazyLoad() throws Exception {
+        PMMLPortObject original = new PMMLPortObject(SPEC);
+        original.addGlobalTransformations(transformations("a*"));
+        byte[] rawPMML = save(original);
+
+        PMMLPortObject loaded = load(rawPMML);
+        assertArrayEquals(rawPMML, save(loaded));
+        assertEquals(1, loaded.getDerivedFields().length);
+        assertEquals("a*", loaded.getDerivedFields()[0].getName());
+        assertTrue(loaded.getSummary().startsWith("PMML document with version"));
+        loaded.validate();
+        assertArrayEquals(rawPMML, save(loaded));
+    }
+
+    /** Malformed documents are rejected while loading and not only once they are accessed. */
+    @Test(expected = XmlException.class)
+    public void testLoadMalformed() throws Exception {
+        byte[] rawPMML = save(new PMMLPortObject(SPEC));
+        load(Arrays.copyOf(rawPMML, rawPMML.length / 2));
+    }
+
+    /** A modified document is saved with its modifications. */
+    @Test
+    public void testSaveModified() throws Exception {
+        PMMLPortObject port = load(save(new PMMLPortObject(SPEC)));
+        assertFalse(toString(save(port)).contains("a*"));
+        port.addGlobalTransformations(transformations("a*"));
+        assertTrue(toString(save(port)).contains("a*"));
+    }
+
+    /** Modifications through references held by the caller show up in the saved document. */
+    @Test
+    public void testSaveSharedDocument() throws Exception {
+        PMMLDocument doc = PMMLDocument.Factory.parse(new ByteArrayInputStream(save(new PMMLPortObject(SPEC))));
+        PMMLPortObject port = new PMMLPortObject(SPEC, doc);
+        assertFalse(toString(save(port)).contains("changed description"));
+        doc.getPMML().getHeader().setDescription("changed description");
+        assertTrue(toString(save(port)).contains("changed description"));
+    }
+
+    /** Derived fields are handed out as copies that do not affect the port object. */
+    @Test
+    public void testDerivedFieldsAreCopies() throws Exception {
+        PMMLPortObject port = new PMMLPortObject(SPEC);
+        port.addGlobalTransformations(transformations("a*"));
+        byte[] rawPMML = save(port);
+        port.getDerivedFields()[0].setName("renamed");
+        assertEquals("a*", port.getDerivedFields()[0].getName());
+        assertArrayEquals(rawPMML, save(port));
+    }
+
+    /** Copies share the content of their source but are modified independently. */
+    @Test
+    public void testCopy() throws Exception {
+        PMMLPortObject loaded = load(save(new PMMLPortObject(SPEC)));
+        PMMLPortObject copy = new PMMLPortObject(SPEC, loaded);
+        assertEquals(loaded, copy);
+        assertArrayEquals(save(loaded), save(copy));
+
+        copy.addGlobalTransformations(transformations("a*"));
+        assertEquals(0, loaded.getDerivedFields().length);
+        assertEquals(1, copy.getDerivedFields().length);
+        assertNotEquals(loaded, copy);
+    }
+
+    /** Equal documents are equal whether they are parsed or not, different ones are not. */
+    @Test
+    public void testEquals() throws Exception {
+        byte[] rawPMML = save(new PMMLPortObject(SPEC));
+        PMMLPortObject first = load(rawPMML);
+        PMMLPortObject second = load(rawPMML);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        // parsing one of them must not change the result
+        first.getSummary();
+        assertEquals(first, second);
+        assertEquals(second, first);
+
+        PMMLPortObject modified = load(rawPMML);
+        modified.addGlobalTransformations(transformations("a*"));
+        assertNotEquals(first, modified);
+        assertNotEquals(modified, second);
+    }
+}
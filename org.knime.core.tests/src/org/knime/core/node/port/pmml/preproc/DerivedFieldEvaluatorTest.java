@@ -0,0 +1,275 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.pmml.preproc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.dmg.pmml.ApplyDocument.Apply;
+import org.dmg.pmml.ConstantDocument.Constant;
+import org.dmg.pmml.DATATYPE;
+import org.dmg.pmml.DerivedFieldDocument.DerivedField;
+import org.dmg.pmml.DiscretizeBinDocument.DiscretizeBin;
+import org.dmg.pmml.DiscretizeDocument.Discretize;
+import org.dmg.pmml.INVALIDVALUETREATMENTMETHOD;
+import org.dmg.pmml.IntervalDocument.Interval;
+import org.dmg.pmml.IntervalDocument.Interval.Closure;
+import org.dmg.pmml.LinearNormDocument.LinearNorm;
+import org.dmg.pmml.NormContinuousDocument.NormContinuous;
+import org.dmg.pmml.OPTYPE;
+import org.dmg.pmml.OUTLIERTREATMENTMETHOD;
+import org.junit.Test;
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.InvalidSettingsException;
+
+/**
+ * Tests for {@link DerivedFieldEvaluator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DerivedFieldEvaluatorTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new DataColumnSpecCreator("name", StringCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("a", DoubleCell.TYPE).createSpec());
+
+    private static DerivedField newField(final String name, final DATATYPE.Enum type) {
+        DerivedField df = DerivedField.Factory.newInstance();
+        df.setName(name);
+        df.setDataType(type);
+        df.setOptype(DATATYPE.STRING == type ? OPTYPE.CATEGORICAL : OPTYPE.CONTINUOUS);
+        return df;
+    }
+
+    /** Min-max normalization of "a" to [0, 1], outliers clipped. */
+    private static DerivedField normalized() {
+        DerivedField df = newField("a*", DATATYPE.DOUBLE);
+        NormContinuous norm = df.addNewNormContinuous();
+        norm.setField("a");
+        norm.setOutliers(OUTLIERTREATMENTMETHOD.AS_EXTREME_VALUES);
+        LinearNorm low = norm.addNewLinearNorm();
+        low.setOrig(10);
+        low.setNorm(0);
+        LinearNorm high = norm.addNewLinearNorm();
+        high.setOrig(20);
+        high.setNorm(1);
+        return df;
+    }
+
+    /** Bins the normalized value into "low" [0, 0.5) and "high" [0.5, 1]. */
+    private static DerivedField binned() {
+        DerivedField df = newField("bin", DATATYPE.STRING);
+        Discretize discretize = df.addNewDiscretize();
+        discretize.setField("a*");
+        discretize.setMapMissingTo("none");
+        addBin(discretize, "low", 0, 0.5, Closure.CLOSED_OPEN);
+        addBin(discretize, "high", 0.5, 1, Closure.CLOSED_CLOSED);
+        return df;
+    }
+
+    private static void addBin(final Discretize discretize, final String value, final double left,
+        final double right, final Closure.Enum closure) {
+        DiscretizeBin bin = discretize.addNewDiscretizeBin();
+        bin.setBinValue(value);
+        Interval interval = bin.addNewInterval();
+        interval.setClosure(closure);
+        interval.setLeftMargin(left);
+        interval.setRightMargin(right);
+    }
+
+    private static double doubleValue(final DataCell cell) {
+        return ((DoubleValue)cell).getDoubleValue();
+    }
+
+    private static String stringValue(final DataCell cell) {
+        return ((StringValue)cell).getStringValue();
+    }
+
+    /** Chained derived fields referring to the input and to each other. */
+    @Test
+    public void testChainedFields() throws InvalidSettingsException {
+        DerivedField diff = newField("diff", DATATYPE.DOUBLE);
+        Apply apply = diff.addNewApply();
+        apply.setFunction("-");
+        apply.addNewFieldRef().setField("a");
+        apply.addNewFieldRef().setField("a*");
+
+        DerivedFieldEvaluator evaluator =
+            DerivedFieldEvaluator.compile(new DerivedField[]{normalized(), binned(), diff}, SPEC);
+        assertEquals(3, evaluator.getColumnSpecs().length);
+        assertEquals("bin", evaluator.getColumnSpecs()[1].getName());
+        assertEquals(StringCell.TYPE, evaluator.getColumnSpecs()[1].getType());
+
+        DataCell[] cells = evaluator.evaluate(new DefaultRow("Row0", new StringCell("x"), new DoubleCell(12)));
+        assertEquals(0.2, doubleValue(cells[0]), 1e-12);
+        assertEquals("low", stringValue(cells[1]));
+        assertEquals(11.8, doubleValue(cells[2]), 1e-12);
+
+        cells = evaluator.evaluate(new DefaultRow("Row1", new StringCell("y"), new DoubleCell(35)));
+        assertEquals(1, doubleValue(cells[0]), 0);
+        assertEquals("high", stringValue(cells[1]));
+    }
+
+    /** Missing input values are propagated or replaced as configured. */
+    @Test
+    public void testMissingValues() throws InvalidSettingsException {
+        DerivedFieldEvaluator evaluator =
+            DerivedFieldEvaluator.compile(new DerivedField[]{normalized(), binned()}, SPEC);
+        DataCell[] cells =
+            evaluator.evaluate(new DefaultRow("Row0", new StringCell("x"), DataType.getMissingCell()));
+        assertTrue(cells[0].isMissing());
+        assertEquals("none", stringValue(cells[1]));
+    }
+
+    /** References to unknown fields are rejected when compiling. */
+    @Test(expected = InvalidSettingsException.class)
+    public void testUnknownField() throws InvalidSettingsException {
+        DerivedField df = newField("b", DATATYPE.DOUBLE);
+        df.addNewFieldRef().setField("unknown");
+        DerivedFieldEvaluator.compile(new DerivedField[]{df}, SPEC);
+    }
+
+    private static Apply newApply(final DerivedField df, final String function, final String field) {
+        Apply apply = df.addNewApply();
+        apply.setFunction(function);
+        apply.addNewFieldRef().setField(field);
+        return apply;
+    }
+
+    private static boolean booleanValue(final DataCell cell) {
+        return ((BooleanValue)cell).getBooleanValue();
+    }
+
+    /** Constants are compared with their declared or inferred type. */
+    @Test
+    public void testTypedConstants() throws InvalidSettingsException {
+        DerivedField greater = newField("greater", DATATYPE.BOOLEAN);
+        Constant threshold = newApply(greater, "greaterThan", "a").addNewConstant();
+        threshold.setStringValue("9.5");
+        threshold.setDataType(DATATYPE.DOUBLE);
+        DerivedField named = newField("named", DATATYPE.BOOLEAN);
+        newApply(named, "equal", "name").addNewConstant().setStringValue("x");
+        DerivedField sum = newField("sum", DATATYPE.DOUBLE);
+        newApply(sum, "+", "a").addNewConstant().setStringValue("1e1");
+
+        DerivedFieldEvaluator evaluator = DerivedFieldEvaluator.compile(new DerivedField[]{greater, named, sum}, SPEC);
+        DataCell[] cells = evaluator.evaluate(new DefaultRow("Row0", new StringCell("x"), new DoubleCell(12)));
+        assertTrue(booleanValue(cells[0]));
+        assertTrue(booleanValue(cells[1]));
+        assertEquals(22, doubleValue(cells[2]), 0);
+
+        cells = evaluator.evaluate(new DefaultRow("Row1", new StringCell("y"), new DoubleCell(9)));
+        assertFalse(booleanValue(cells[0]));
+        assertFalse(booleanValue(cells[1]));
+    }
+
+    /** Constants that do not match their declared type are rejected when compiling. */
+    @Test(expected = InvalidSettingsException.class)
+    public void testInvalidConstant() throws InvalidSettingsException {
+        DerivedField df = newField("b", DATATYPE.DOUBLE);
+        Constant constant = newApply(df, "+", "a").addNewConstant();
+        constant.setStringValue("abc");
+        constant.setDataType(DATATYPE.DOUBLE);
+        DerivedFieldEvaluator.compile(new DerivedField[]{df}, SPEC);
+    }
+
+    /** Non-numeric strings are not numbers and treated as missing by Discretize. */
+    @Test
+    public void testDiscretizeString() throws InvalidSettingsException {
+        DerivedField df = binned();
+        df.getDiscretize().setField("name");
+        DerivedFieldEvaluator evaluator = DerivedFieldEvaluator.compile(new DerivedField[]{df}, SPEC);
+        assertEquals("none", stringValue(
+            evaluator.evaluate(new DefaultRow("Row0", new StringCell("abc"), new DoubleCell(0)))[0]));
+        assertEquals("high", stringValue(
+            evaluator.evaluate(new DefaultRow("Row1", new StringCell(" 0.75"), new DoubleCell(0)))[0]));
+    }
+
+    /** The default value and invalid value treatment of Apply. */
+    @Test
+    public void testApplyDefaultValue() throws InvalidSettingsException {
+        DerivedField invalid = newField("invalid", DATATYPE.DOUBLE);
+        newApply(invalid, "/", "a").addNewConstant().setStringValue("0");
+        DerivedField asMissing = newField("asMissing", DATATYPE.DOUBLE);
+        Apply apply = newApply(asMissing, "/", "a");
+        apply.addNewConstant().setStringValue("0");
+        apply.setDefaultValue("-1");
+        apply.setInvalidValueTreatment(INVALIDVALUETREATMENTMETHOD.AS_MISSING);
+        DerivedField asIs = newField("asIs", DATATYPE.DOUBLE);
+        apply = newApply(asIs, "/", "a");
+        apply.addNewConstant().setStringValue("0");
+        apply.setInvalidValueTreatment(INVALIDVALUETREATMENTMETHOD.AS_IS);
+        DerivedField noElse = newField("noElse", DATATYPE.DOUBLE);
+        apply = noElse.addNewApply();
+        apply.setFunction("if");
+        apply.setDefaultValue("7");
+        apply.addNewConstant().setStringValue("false");
+        apply.addNewFieldRef().setField("a");
+
+        DerivedFieldEvaluator evaluator =
+            DerivedFieldEvaluator.compile(new DerivedField[]{invalid, asMissing, asIs, noElse}, SPEC);
+        DataCell[] cells = evaluator.evaluate(new DefaultRow("Row0", new StringCell("x"), new DoubleCell(1)));
+        assertTrue(cells[0].isMissing());
+        assertEquals(-1, doubleValue(cells[1]), 0);
+        assertEquals(Double.POSITIVE_INFINITY, doubleValue(cells[2]), 0);
+        assertEquals(7, doubleValue(cells[3]), 0);
+
+        // a missing argument is mapped by mapMissingTo, not by the default value
+        cells = evaluator.evaluate(new DefaultRow("Row1", new StringCell("x"), DataType.getMissingCell()));
+        assertTrue(cells[1].isMissing());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.tableview;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DefaultTable;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests {@link TableSearchIndex}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class TableSearchIndexTest {
+
+    private static final int HEADER = FindPosition.HEADER;
+
+    private static final int[] NO_COLUMNS = new int[0];
+
+    /** Table with generated row IDs and an int column. */
+    private static DataTable createTable(final int rowCount) {
+        DataRow[] rows = new DataRow[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i));
+        }
+        return new DefaultTable(rows, new String[]{"int"}, new DataType[]{IntCell.TYPE});
+    }
+
+    /** Table with row IDs "Key&lt;i&gt;", an int column and two string columns. */
+    private static DataTable createStringTable(final int rowCount) {
+        DataRow[] rows = new DataRow[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = new DefaultRow(new RowKey("Key" + i), new StringCell("a" + i), new IntCell(i),
+                i % 10 == 0 ? DataType.getMissingCell() : new StringCell("b" + i));
+        }
+        return new DefaultTable(rows, new String[]{"a", "int", "b"},
+            new DataType[]{StringCell.TYPE, IntCell.TYPE, StringCell.TYPE});
+    }
+
+    private static void awaitDone(final TableSearchIndex index) throws InterruptedException {
+        for (int i = 0; i < 500 && !index.isReady() && !index.isFailed(); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static int findRowID(final TableSearchIndex index, final SearchString searchString, final int fromRow,
+        final int toRow) {
+        int[] hit = index.find(searchString, null, true, NO_COLUMNS, fromRow, HEADER, toRow);
+        return hit == null ? -1 : hit[0];
+    }
+
+    /** Finds row IDs by substring, ignoring case, regex, and within a range. */
+    @Test
+    public void testFind() throws Exception {
+        TableSearchIndex index = new TableSearchIndex(createTable(5000));
+        awaitDone(index);
+        assertTrue(index.isReady());
+        assertThat(index.size(), is(5000));
+        assertFalse(index.isIndexed(0));
+        assertThat(findRowID(index, new SearchString("Row42", false, false), 0, 5000), is(42));
+        assertThat(findRowID(index, new SearchString("Row42", false, false), 43, 5000), is(420));
+        assertThat(findRowID(index, new SearchString("row4999", true, false), 0, 5000), is(4999));
+        assertThat(findRowID(index, new SearchString("row4999", false, false), 0, 5000), is(-1));
+        assertThat(findRowID(index, new SearchString("Row1\\d{3}", false, true), 0, 5000), is(1000));
+        assertThat(findRowID(index, new SearchString("Row42", false, false), 0, 42), is(-1));
+    }
+
+    /** Finds string cells in view order, continuing after a hit within the same row, and through a permutation. */
+    @Test
+    public void testFindStringColumns() throws Exception {
+        TableSearchIndex index = new TableSearchIndex(createStringTable(1000));
+        awaitDone(index);
+        assertTrue(index.isReady());
+        assertTrue(index.isIndexed(0));
+        assertFalse(index.isIndexed(1));
+        assertTrue(index.isIndexed(2));
+
+        // view shows column "b" before column "a"
+        int[] columns = new int[]{2, 0};
+        SearchString s = new SearchString("7", false, false);
+        assertThat(index.find(s, null, true, columns, 0, HEADER, 1000), is(new int[]{7, HEADER}));
+        assertThat(index.find(s, null, true, columns, 7, 0, 1000), is(new int[]{7, 0}));
+        assertThat(index.find(s, null, true, columns, 7, 1, 1000), is(new int[]{7, 1}));
+        assertThat(index.find(s, null, false, columns, 7, 2, 1000), is(new int[]{17, 0}));
+        // missing cells are shown and matched as "?"
+        assertThat(index.find(new SearchString("?", false, false), null, false, columns, 0, HEADER, 1000),
+            is(new int[]{0, 0}));
+        assertThat(index.find(new SearchString("b0", false, false), null, false, columns, 0, HEADER, 1000),
+            is(nullValue()));
+
+        // reversed view
+        int[] permutation = new int[1000];
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = permutation.length - 1 - i;
+        }
+        assertThat(index.find(new SearchString("a998", false, false), permutation, false, columns, 0, HEADER, 1000),
+            is(new int[]{1, 1}));
+    }
+
+    /** Generated row IDs take no memory, string columns are dropped if they exceed the budget. */
+    @Test
+    public void testMemoryBudget() throws Exception {
+        TableSearchIndex index = new TableSearchIndex(createTable(5000), 1000);
+        awaitDone(index);
+        assertTrue(index.isReady());
+        assertThat(findRowID(index, new SearchString("Row4321", false, false), 0, 5000), is(4321));
+
+        index = new TableSearchIndex(createStringTable(5000), 150000);
+        awaitDone(index);
+        assertTrue(index.isReady());
+        assertFalse(index.isIndexed(0));
+        assertThat(findRowID(index, new SearchString("Key4321", false, false), 0, 5000), is(4321));
+
+        index = new TableSearchIndex(createStringTable(5000), 1000);
+        awaitDone(index);
+        assertTrue(index.isFailed());
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.tableview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.container.DataContainerSettings;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.sort.DataTableSorter;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests {@link TableSortPermutation} and {@link PermutedTable}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TableSortPermutationTest {
+
+    private static final int ROW_COUNT = 3 * PermutedTable.BATCH_SIZE + 17;
+
+    private static DataTable createTable() {
+        DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("string", StringCell.TYPE).createSpec());
+        Random random = new Random(17);
+        DataContainer container = new DataContainer(spec);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(random.nextInt(20)),
+                random.nextInt(10) == 0 ? DataType.getMissingCell() : new StringCell("s" + random.nextInt(50))));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    private static List<DataRow> rows(final DataTable table) {
+        List<DataRow> result = new ArrayList<>();
+        for (DataRow r : table) {
+            result.add(r);
+        }
+        return result;
+    }
+
+    /** The permuted table shows the same rows as a sorted copy. */
+    @Test
+    public void testSameOrderAsSortedCopy() throws Exception {
+        DataTable table = createTable();
+        // primary: string descending, secondary: int descending
+        TableSortOrder order = new TableSortOrder(0).nextSortOrder(1);
+        int[] permutation = TableSortPermutation.create(table, ROW_COUNT, order, new ExecutionMonitor());
+        assertEquals(ROW_COUNT, permutation.length);
+
+        List<String> sortCols = new ArrayList<>();
+        for (int i : order.getSortColumnIndices()) {
+            sortCols.add(table.getDataTableSpec().getColumnSpec(i).getName());
+        }
+        DataTable sorted =
+            new DataTableSorter(table, ROW_COUNT, sortCols, order.getSortColumnOrder(), false).sort(
+                new ExecutionMonitor());
+        List<DataRow> expected = rows(sorted);
+        List<DataRow> actual = rows(new PermutedTable(table, permutation));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("Row " + i, expected.get(i).getKey(), actual.get(i).getKey());
+        }
+    }
+
+    /** Sorting by row ID and starting the iteration at an arbitrary position. */
+    @Test
+    public void testRowKeySortAndIteratorFromPosition() throws Exception {
+        DataTable table = createTable();
+        TableSortOrder order = new TableSortOrder(TableSortOrder.COLIDX_ROWKEY);
+        int[] permutation = TableSortPermutation.create(table, -1, order, new ExecutionMonitor());
+        PermutedTable permuted = new PermutedTable(table, permutation);
+        List<DataRow> all = rows(permuted);
+        for (int i = 1; i < all.size(); i++) {
+            // descending
+            assertTrue(all.get(i - 1).getKey().getString().compareTo(all.get(i).getKey().getString()) >= 0);
+        }
+        int from = PermutedTable.BATCH_SIZE + 5;
+        try (CloseableRowIterator it = permuted.iterator(from)) {
+            for (int i = from; i < all.size(); i++) {
+                assertEquals(all.get(i).getKey(), it.next().getKey());
+            }
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /** Rows far apart in the underlying table within one batch, read twice (second time from the block cache). */
+    @Test
+    public void testScatteredPermutation() throws Exception {
+        DataTable table = createTable();
+        List<DataRow> original = rows(table);
+        // alternate between the start and the end of the table, covering partial blocks at both ends
+        int[] permutation = new int[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            permutation[i] = i % 2 == 0 ? i / 2 : ROW_COUNT - 1 - i / 2;
+        }
+        PermutedTable permuted = new PermutedTable(table, permutation);
+        for (int pass = 0; pass < 2; pass++) {
+            List<DataRow> actual = rows(permuted);
+            assertEquals(ROW_COUNT, actual.size());
+            for (int i = 0; i < ROW_COUNT; i++) {
+                assertEquals("Row " + i, original.get(permutation[i]).getKey(), actual.get(i).getKey());
+            }
+        }
+    }
+
+    /**
+     * A table on disk larger than the block cache, with the rows of each batch scattered over the whole table. Reads
+     * enough batches to evict blocks from the cache, then a batch at the end and the first batch again.
+     */
+    @Test(timeout = 60000)
+    public void testLargeTableOnDisk() throws Exception {
+        final int rowCount = (PermutedTable.MAX_CACHED_BLOCKS + 100) * PermutedTable.BLOCK_SIZE + 17;
+        DataContainer container = new DataContainer(new DataTableSpec(
+            new DataColumnSpecCreator("int", IntCell.TYPE).createSpec()),
+            DataContainerSettings.getDefault().withMaxCellsInMemory(0));
+        for (int i = 0; i < rowCount; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        container.close();
+        ContainerTable table = (ContainerTable)container.getTable();
+        int[] permutation = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            permutation[i] = i;
+        }
+        Random random = new Random(3);
+        for (int i = rowCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        PermutedTable permuted = new PermutedTable(table, permutation);
+        try (CloseableRowIterator it = permuted.iterator()) {
+            for (int i = 0; i < 6 * PermutedTable.BATCH_SIZE; i++) {
+                assertEquals("Row " + i, permutation[i], ((IntCell)it.next().getCell(0)).getIntValue());
+            }
+        }
+        int from = rowCount - PermutedTable.BATCH_SIZE / 2;
+        try (CloseableRowIterator it = permuted.iterator(from)) {
+            for (int i = from; i < rowCount; i++) {
+                assertEquals("Row " + i, permutation[i], ((IntCell)it.next().getCell(0)).getIntValue());
+            }
+            assertFalse(it.hasNext());
+        }
+        try (CloseableRowIterator it = permuted.iterator()) {
+            for (int i = 0; i < PermutedTable.BATCH_SIZE; i++) {
+                assertEquals("Row " + i, permutation[i], ((IntCell)it.next().getCell(0)).getIntValue());
+            }
+        }
+        table.clear();
+    }
+
+    /** Sort orders are used as cache keys. */
+    @Test
+    public void testSortOrderEquality() {
+        TableSortOrder o1 = new TableSortOrder(0).nextSortOrder(1);
+        TableSortOrder o2 = new TableSortOrder(0).nextSortOrder(1);
+        assertEquals(o1, o2);
+        assertEquals(o1.hashCode(), o2.hashCode());
+        assertFalse(o1.equals(o1.nextSortOrder(1)));
+        assertArrayEquals(o1.getSortColumnIndices(), o2.getSortColumnIndices());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link AsyncNodeEventDispatcher}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AsyncNodeEventDispatcherTest {
+
+    private WorkflowManager m_node1;
+
+    private WorkflowManager m_node2;
+
+    /** Creates two (project) nodes to listen to. */
+    @Before
+    public void setUp() {
+        m_node1 = WorkflowManager.ROOT.createAndAddProject("Async Events 1", new WorkflowCreationHelper());
+        m_node2 = WorkflowManager.ROOT.createAndAddProject("Async Events 2", new WorkflowCreationHelper());
+    }
+
+    /** Removes the nodes. */
+    @After
+    public void tearDown() {
+        WorkflowManager.ROOT.removeProject(m_node1.getID());
+        WorkflowManager.ROOT.removeProject(m_node2.getID());
+    }
+
+    /** Events are delivered on a different thread and bursts are coalesced per node, latest event wins. */
+    @Test(timeout = 10000)
+    public void testCoalescingAndOrder() throws Exception {
+        final CountDownLatch releaseListener = new CountDownLatch(1);
+        final List<NodeProgressEvent> received = Collections.synchronizedList(new ArrayList<>());
+        final AtomicReference<Thread> deliveryThread = new AtomicReference<>();
+        final CountDownLatch firstEventReceived = new CountDownLatch(1);
+        NodeProgressListener slowListener = createBlockingListener(received, deliveryThread, firstEventReceived,
+            releaseListener);
+        assertTrue(AsyncNodeEventDispatcher.addProgressListener(m_node1, slowListener));
+        assertTrue(AsyncNodeEventDispatcher.addProgressListener(m_node2, slowListener));
+        m_node1.progressChanged(new NodeProgressEvent(m_node1.getID(), new NodeProgress(0.0, "start")));
+        assertTrue("First event not delivered", firstEventReceived.await(5, TimeUnit.SECONDS));
+        // listener is now blocked -- fire a burst that must not block this thread
+        for (int i = 1; i <= 1000; i++) {
+            m_node1.progressChanged(
+                new NodeProgressEvent(m_node1.getID(), new NodeProgress(i / 1000.0, "node 1: " + i)));
+            if (i == 500) {
+                m_node2.progressChanged(new NodeProgressEvent(m_node2.getID(), new NodeProgress(0.5, "node 2")));
+            }
+        }
+        releaseListener.countDown();
+        long timeout = System.currentTimeMillis() + 5000;
+        while (received.size() < 3 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100); // give it a chance to deliver more (it shouldn't)
+        assertNotEquals("Delivered on caller thread", Thread.currentThread(), deliveryThread.get());
+        assertEquals("Number of delivered events", 3, received.size());
+        assertEquals(m_node1.getID(), received.get(1).getSource());
+        assertEquals("node 1: 1000", received.get(1).getNodeProgress().getMessage());
+        assertEquals(m_node2.getID(), received.get(2).getSource());
+        assertEquals("node 2", received.get(2).getNodeProgress().getMessage());
+        assertTrue(AsyncNodeEventDispatcher.removeProgressListener(m_node1, slowListener));
+        assertTrue(AsyncNodeEventDispatcher.removeProgressListener(m_node2, slowListener));
+    }
+
+    /** Events still queued when a listener is removed are not delivered anymore. */
+    @Test(timeout = 10000)
+    public void testRemoveDiscardsQueuedEvents() throws Exception {
+        final CountDownLatch releaseListener = new CountDownLatch(1);
+        final List<NodeProgressEvent> received = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch firstEventReceived = new CountDownLatch(1);
+        NodeProgressListener slowListener =
+            createBlockingListener(received, new AtomicReference<>(), firstEventReceived, releaseListener);
+        assertTrue(AsyncNodeEventDispatcher.addProgressListener(m_node1, slowListener));
+        assertFalse("Registered twice", AsyncNodeEventDispatcher.addProgressListener(m_node1, slowListener));
+        m_node1.progressChanged(new NodeProgressEvent(m_node1.getID(), new NodeProgress(0.0, "start")));
+        assertTrue("First event not delivered", firstEventReceived.await(5, TimeUnit.SECONDS));
+        m_node1.progressChanged(new NodeProgressEvent(m_node1.getID(), new NodeProgress(0.5, "queued")));
+        assertTrue(AsyncNodeEventDispatcher.removeProgressListener(m_node1, slowListener));
+        assertFalse("Removed twice", AsyncNodeEventDispatcher.removeProgressListener(m_node1, slowListener));
+        m_node1.progressChanged(new NodeProgressEvent(m_node1.getID(), new NodeProgress(0.7, "after removal")));
+        releaseListener.countDown();
+        Thread.sleep(200);
+        assertEquals("Number of delivered events", 1, received.size());
+        assertEquals("start", received.get(0).getNodeProgress().getMessage());
+    }
+
+    /** Listeners can be removed and added again; the new registration receives events. */
+    @Test(timeout = 10000)
+    public void testAddAfterRemove() throws Exception {
+        final List<NodeStateEvent> received = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch eventReceived = new CountDownLatch(1);
+        NodeStateChangeListener l = e -> {
+            received.add(e);
+            eventReceived.countDown();
+        };
+        assertTrue(AsyncNodeEventDispatcher.addStateListener(m_node1, l));
+        assertTrue(AsyncNodeEventDispatcher.removeStateListener(m_node1, l));
+        assertTrue(AsyncNodeEventDispatcher.addStateListener(m_node1, l));
+        m_node1.notifyStateChangeListeners(new NodeStateEvent(m_node1));
+        assertTrue("Event not delivered", eventReceived.await(5, TimeUnit.SECONDS));
+        assertEquals(m_node1.getID(), received.get(0).getSource());
+        assertTrue(AsyncNodeEventDispatcher.removeStateListener(m_node1, l));
+    }
+
+    private static NodeProgressListener createBlockingListener(final List<NodeProgressEvent> received,
+        final AtomicReference<Thread> deliveryThread, final CountDownLatch firstEventReceived,
+        final CountDownLatch releaseListener) {
+        return e -> {
+            deliveryThread.set(Thread.currentThread());
+            received.add(e);
+            firstEventReceived.countDown();
+            try {
+                releaseListener.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.knime.core.node.workflow.FlowVariable.Scope;
+import org.knime.core.node.workflow.VariableType.IntType;
+import org.knime.core.node.workflow.VariableType.StringType;
+
+/**
+ * Tests the lookup and merge behavior of {@link FlowObjectStack}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FlowObjectStackTest {
+
+    private static final NodeID NODE_1 = NodeID.ROOTID.createChild(1);
+
+    private static final NodeID NODE_2 = NodeID.ROOTID.createChild(2);
+
+    private static final NodeID NODE_3 = NodeID.ROOTID.createChild(3);
+
+    /** Variables are looked up by name and type, the top-most one wins. */
+    @Test
+    public void testPeekFlowVariable() {
+        FlowObjectStack stack = new FlowObjectStack(NODE_1);
+        stack.push(new FlowVariable("a", 1));
+        stack.push(new FlowVariable("b", "b"));
+        stack.push(new FlowVariable("a", "x"));
+        stack.push(new FlowVariable("a", 2));
+
+        assertEquals(2, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        assertEquals("x", stack.peekFlowVariable("a", StringType.INSTANCE).get().getStringValue());
+        assertFalse(stack.peekFlowVariable("b", IntType.INSTANCE).isPresent());
+        assertFalse(stack.peekFlowVariable("c", IntType.INSTANCE).isPresent());
+
+        Map<String, FlowVariable> ints = stack.getAvailableFlowVariables(IntType.INSTANCE);
+        assertEquals(2, ints.get("a").getIntValue());
+        assertFalse(ints.containsKey("b"));
+        Map<String, FlowVariable> all = stack.getAvailableFlowVariables(IntType.INSTANCE, StringType.INSTANCE);
+        assertEquals(2, all.get("a").getIntValue());
+        assertEquals("b", all.get("b").getStringValue());
+
+        stack.pop(FlowVariable.class);
+        assertEquals("x", stack.peekFlowVariable("a", StringType.INSTANCE).get().getStringValue());
+        assertEquals(1, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+    }
+
+    /** Successors don't see local variables and variables pushed twice in the same scope only once. */
+    @Test
+    public void testMergeSingleStack() {
+        FlowObjectStack stack = new FlowObjectStack(NODE_1);
+        int rootSize = stack.size();
+        stack.push(new FlowVariable("a", 1));
+        stack.push(new FlowVariable("local", 1, Scope.Local));
+        stack.push(new FlowVariable("b", 1));
+        stack.push(new FlowVariable("a", 1));
+
+        FlowObjectStack successor = new FlowObjectStack(NODE_2, new FlowObjectStack[]{stack});
+        assertEquals(rootSize + 2, successor.size());
+        assertFalse(successor.peekFlowVariable("local", IntType.INSTANCE).isPresent());
+        List<FlowObject> owned = successor.getFlowObjectsOwnedBy(NODE_1);
+        assertEquals("b", ((FlowVariable)owned.get(0)).getName());
+        assertEquals("a", ((FlowVariable)owned.get(1)).getName());
+
+        // merging the same stack again gives an equal result, modifications of the successors are independent
+        FlowObjectStack successor2 = new FlowObjectStack(NODE_2, new FlowObjectStack[]{stack, stack});
+        assertEquals(successor, successor2);
+        successor.pop(FlowVariable.class);
+        assertEquals(rootSize + 1, successor.size());
+        assertEquals(rootSize + 2, successor2.size());
+        assertEquals(rootSize + 4, stack.size());
+    }
+
+    /** Variables of the first input overrule those of the other inputs. */
+    @Test
+    public void testMergeMultipleStacks() {
+        FlowObjectStack stack1 = new FlowObjectStack(NODE_1);
+        stack1.push(new FlowVariable("a", 1));
+        stack1.push(new FlowVariable("c", 1));
+        FlowObjectStack stack2 = new FlowObjectStack(NODE_2);
+        stack2.push(new FlowVariable("a", 2));
+        stack2.push(new FlowVariable("b", 2));
+
+        FlowObjectStack merged = new FlowObjectStack(NODE_3, new FlowObjectStack[]{stack1, stack2});
+        assertEquals(1, merged.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        assertEquals(2, merged.peekFlowVariable("b", IntType.INSTANCE).get().getIntValue());
+        assertEquals(1, merged.peekFlowVariable("c", IntType.INSTANCE).get().getIntValue());
+    }
+
+    /** Scope contexts separate the scopes and are found by peek and pop. */
+    @Test
+    public void testScopeContexts() {
+        FlowObjectStack stack = new FlowObjectStack(NODE_1);
+        stack.push(new FlowVariable("a", 1));
+        FlowLoopContext loopContext = new FlowLoopContext();
+        stack.push(loopContext);
+        stack.push(new FlowVariable("a", 1));
+
+        // the variable is in a different scope and not merged with the one outside the loop
+        FlowObjectStack successor = new FlowObjectStack(NODE_2, new FlowObjectStack[]{stack});
+        assertEquals(stack.size(), successor.size());
+        assertSame(loopContext, successor.peek(FlowLoopContext.class));
+
+        assertSame(loopContext, successor.pop(FlowLoopContext.class));
+        assertNull(successor.peek(FlowLoopContext.class));
+        assertTrue(successor.peekFlowVariable("a", IntType.INSTANCE).isPresent());
+        assertSame(loopContext, stack.peek(FlowLoopContext.class));
+    }
+}
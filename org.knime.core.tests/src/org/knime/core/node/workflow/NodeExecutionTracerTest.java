@@ -0,0 +1,128 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.workflow.NodeExecutionTracer.Phase;
+import org.knime.core.node.workflow.NodeExecutionTracer.Span;
+
+/**
+ * Tests {@link NodeExecutionTracer} on a simple chain of nodes (reuses the workflow of {@link Simplechainofnodes}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeExecutionTracerTest extends WorkflowTestCase {
+
+    private NodeID m_dataGen;
+    private NodeID m_tblView;
+
+    @Before
+    public void setUp() throws Exception {
+        NodeExecutionTracer.getInstance().clear();
+        NodeExecutionTracer.getInstance().setEnabled(true);
+        NodeID baseID = loadAndSetWorkflow(getWorkflowDirectory("simplechainofnodes"));
+        m_dataGen = new NodeID(baseID, 1);
+        m_tblView = new NodeID(baseID, 4);
+    }
+
+    @After
+    public void disableTracing() {
+        NodeExecutionTracer.getInstance().setEnabled(false);
+        NodeExecutionTracer.getInstance().clear();
+    }
+
+    @Test
+    public void testSpansRecorded() throws Exception {
+        executeAndWait(m_tblView);
+        checkState(m_tblView, InternalNodeContainerState.EXECUTED);
+        List<Span> spans = NodeExecutionTracer.getInstance().getSpans();
+        List<Span> execSpans = spans.stream().filter(s -> s.getPhase() == Phase.EXECUTE).collect(Collectors.toList());
+        assertEquals("Number of execute spans", 4, execSpans.size());
+        assertEquals("Number of queued spans", 4, spans.stream().filter(s -> s.getPhase() == Phase.QUEUED).count());
+        assertEquals("Number of lock wait spans", 4,
+            spans.stream().filter(s -> s.getPhase() == Phase.LOCK_WAIT).count());
+        assertTrue("No configure spans", spans.stream().anyMatch(s -> s.getPhase() == Phase.CONFIGURE));
+
+        Span dataGenExec = execSpans.stream().filter(s -> s.getNodeID().equals(m_dataGen.toString())).findFirst()
+            .orElseThrow(() -> new AssertionError("No execute span for data generator"));
+        assertEquals(Boolean.TRUE, dataGenExec.getArgs().get("success"));
+        assertTrue("Data generator should have written rows", (Long)dataGenExec.getArgs().get("rowsWritten") > 0L);
+        assertTrue("Negative duration", dataGenExec.getDurationNanos() >= 0L);
+    }
+
+    @Test
+    public void testChromeTraceExport() throws Exception {
+        executeAndWait(m_dataGen);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NodeExecutionTracer.getInstance().writeChromeTrace(out);
+        String json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(json, containsString("\"traceEvents\""));
+        assertThat(json, containsString("\"ph\":\"X\""));
+        assertThat(json, containsString("\"nodeID\":\"" + m_dataGen + "\""));
+        assertThat(json, containsString("\"thread_name\""));
+    }
+
+    @Test
+    public void testDisabledTracerRecordsNothing() throws Exception {
+        NodeExecutionTracer.getInstance().setEnabled(false);
+        executeAndWait(m_tblView);
+        assertTrue(NodeExecutionTracer.getInstance().getSpans().isEmpty());
+    }
+
+}
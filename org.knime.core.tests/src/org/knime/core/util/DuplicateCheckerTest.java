@@ -54,6 +54,7 @@
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.knime.core.data.RowKey;
 import org.knime.core.node.NodeLogger;
 
 import junit.framework.Assert;
@@ -134,6 +135,54 @@ public void testEarlyDuplicate() throws Exception {
         checker.addKey("A");
     }
 
+    /**
+     * Tests generated row keys added in interleaved ascending sequences, as done by containers processing several
+     * batches concurrently, and mixed with other keys.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testGeneratedKeys() throws Exception {
+        DuplicateChecker checker = new DuplicateChecker(1000);
+        for (long i = 0; i < 10000; i++) {
+            checker.addKey(RowKey.createRowKey(i));
+            checker.addKey(RowKey.createRowKey(10000 + i));
+            checker.addKey(new RowKey("Row" + i + "#1"));
+        }
+        checker.checkForDuplicates();
+        checker.clear();
+
+        checker.addKey(RowKey.createRowKey(4L));
+        checker.addKey(RowKey.createRowKey(6L));
+        checker.addKey(RowKey.createRowKey(5L));
+        expectedException.expect(DuplicateKeyException.class);
+        checker.addKey(new RowKey("Row5"));
+    }
+
+    /**
+     * Tests that duplicates are detected once there are too many ranges of generated keys.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testGeneratedKeysUnordered() throws Exception {
+        DuplicateChecker checker = new DuplicateChecker();
+        for (long i = 0; i < 6000; i += 2) {
+            checker.addKey(RowKey.createRowKey(i));
+        }
+        for (long i = 1; i < 6000; i += 2) {
+            checker.addKey(RowKey.createRowKey(i));
+        }
+        try {
+            checker.addKey(RowKey.createRowKey(10L));
+            Assert.fail("Duplicate of an early key not detected");
+        } catch (DuplicateKeyException e) {
+            Assert.assertEquals("Row10", e.getKey());
+        }
+        expectedException.expect(DuplicateKeyException.class);
+        checker.addKey(RowKey.createRowKey(5000L));
+    }
+
 //    /**
 //     * Simply test that calling write to disk works with duplicates works as expected.
 //     *
@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * Tests for {@link FileDeletionService}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FileDeletionServiceTest {
+
+    /** Temporary directory for the files to delete. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private static Path createFile(final Path path, final int size, final long modifiedMillis) throws Exception {
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[size]);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(modifiedMillis));
+        return path;
+    }
+
+    /**
+     * Queued files and directories are deleted in the background, the statistics are updated.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testDelete() throws Exception {
+        final FileDeletionService service = FileDeletionService.getInstance();
+        final Path root = m_tempFolder.getRoot().toPath();
+        final long now = System.currentTimeMillis();
+        final Path file = createFile(root.resolve("file.bin"), 100, now);
+        final Path dir = root.resolve("dir");
+        createFile(dir.resolve("a.bin"), 10, now);
+        createFile(dir.resolve("sub").resolve("b.bin"), 20, now);
+        final long deletedFiles = service.getDeletedFiles();
+        final long deletedBytes = service.getDeletedBytes();
+
+        service.delete(file.toFile(), dir.toFile(), root.resolve("does-not-exist").toFile());
+        service.waitUntilFinished();
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(dir));
+        assertEquals(0, service.getPendingCount());
+        assertEquals(0, service.getLagMillis());
+        // other tests may delete files concurrently
+        assertTrue(service.getDeletedFiles() >= deletedFiles + 3);
+        assertTrue(service.getDeletedBytes() >= deletedBytes + 130);
+    }
+
+    /**
+     * Many requests are processed by concurrent workers.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testDeleteMany() throws Exception {
+        final FileDeletionService service = FileDeletionService.getInstance();
+        final Path root = m_tempFolder.getRoot().toPath();
+        final File[] files = new File[1000];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = createFile(root.resolve("file" + i), 1, System.currentTimeMillis()).toFile();
+        }
+        for (File f : files) {
+            service.delete(f);
+        }
+        service.waitUntilFinished();
+        for (File f : files) {
+            assertFalse(f.getName(), f.exists());
+        }
+    }
+
+    /**
+     * Only old container files in the temp directory and in workflow temp directories are considered orphaned.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testFindOrphanedContainerFiles() throws Exception {
+        final Path tempDir = m_tempFolder.getRoot().toPath();
+        final long now = System.currentTimeMillis();
+        final long old = now - TimeUnit.DAYS.toMillis(10);
+        final long maxModified = now - TimeUnit.DAYS.toMillis(7);
+
+        final Path oldContainer = createFile(tempDir.resolve("knime_container_1.bin.gz"), 1, old);
+        createFile(tempDir.resolve("knime_container_2.bin.gz"), 1, now);
+        final Path oldWorkflowContainer =
+            createFile(tempDir.resolve("knime_Workflow1").resolve("knime_container_3.bin.gz"), 1, old);
+        createFile(tempDir.resolve("knime_Workflow1").resolve("other_file.bin"), 1, old);
+        createFile(tempDir.resolve("knime_Workflow1").resolve("sub").resolve("knime_container_4.bin.gz"), 1, old);
+        createFile(tempDir.resolve("other").resolve("knime_container_5.bin.gz"), 1, old);
+        createFile(tempDir.resolve("knime_other.bin"), 1, old);
+
+        final List<File> orphans = FileDeletionService.findOrphanedContainerFiles(tempDir, maxModified);
+        assertEquals(new HashSet<>(Arrays.asList(oldContainer.toFile(), oldWorkflowContainer.toFile())),
+            new HashSet<>(orphans));
+    }
+
+    /** The sweep of orphaned container files is disabled unless enabled explicitly. */
+    @Test
+    public void testSweepDisabledByDefault() {
+        Assume.assumeTrue(System.getProperty(KNIMEConstants.PROPERTY_TEMP_FILE_SWEEP_AGE) == null);
+        assertEquals(0, FileDeletionService.getSweepAgeHours());
+    }
+}
@@ -51,13 +51,23 @@
 import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeThat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.eclipse.core.runtime.Platform;
 import org.junit.Test;
@@ -230,4 +240,63 @@ public void testFileResolvedFromUncUrlContainsTheProtocolHostAndPathInItsAbsolut
         File resolvedFile = FileUtil.getFileFromURL(new URL("file://HOST/path"));
         assertThat("Resolved file does not have a correct UNC path", resolvedFile.getAbsolutePath(), is("\\\\HOST\\path"));
     }
+
+    /**
+     * Checks that archives written by {@link FileUtil#zipDirParallel(File, java.util.Collection, int,
+     * FileUtil.ZipFileFilter, FileUtil.ZipFileFilter, org.knime.core.node.ExecutionMonitor)} can be read by
+     * {@link ZipInputStream} and {@link FileUtil#unzipParallel(File, File)}.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelZipRoundtrip() throws Exception {
+        File tempDir = FileUtil.createTempDir("parallelZip");
+        try {
+            File root = new File(tempDir, "workflow");
+            Random rand = new Random(42);
+            for (int i = 0; i < 50; i++) {
+                File dir = new File(root, "node " + (i % 5) + "/internal");
+                assertTrue("Could not create " + dir, dir.mkdirs() || dir.isDirectory());
+                // every 10th file exceeds the limit for in-memory compression
+                byte[] content = new byte[i % 10 == 0 ? 5 << 20 : rand.nextInt(10000)];
+                for (int j = 0; j < content.length; j++) {
+                    content[j] = (byte)('a' + rand.nextInt(4));
+                }
+                Files.write(new File(dir, "file" + i + (i % 3 == 0 ? ".bin.snappy" : ".xml")).toPath(), content);
+            }
+            assertTrue(new File(root, "empty").mkdir());
+
+            File zipFile = new File(tempDir, "workflow.zip");
+            assertThat("Not all files added", FileUtil.zipDirParallel(zipFile, Collections.singletonList(root), 9,
+                FileUtil.ZIP_INCLUDEALL_FILTER, FileUtil.ZIP_COMPRESSED_FILES_FILTER, null), is(true));
+
+            int fileCount = 0;
+            try (ZipInputStream in = new ZipInputStream(new FileInputStream(zipFile))) {
+                ZipEntry e;
+                while ((e = in.getNextEntry()) != null) {
+                    if (!e.isDirectory()) {
+                        byte[] expected = Files.readAllBytes(new File(tempDir, e.getName()).toPath());
+                        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                        FileUtil.copy(in, actual);
+                        assertArrayEquals("Wrong content of " + e.getName(), expected, actual.toByteArray());
+                        fileCount++;
+                    }
+                }
+            }
+            assertThat("Wrong number of files in archive", fileCount, is(50));
+
+            File destDir = new File(tempDir, "extracted");
+            assertTrue(destDir.mkdir());
+            FileUtil.unzipParallel(zipFile, destDir);
+            assertTrue("Empty directory not extracted", new File(destDir, "workflow/empty").isDirectory());
+            for (int i = 0; i < 50; i++) {
+                String name = "workflow/node " + (i % 5) + "/internal/file" + i + (i % 3 == 0 ? ".bin.snappy" : ".xml");
+                assertTrue("Wrong content of " + name,
+                    Arrays.equals(Files.readAllBytes(new File(tempDir, name).toPath()),
+                        Files.readAllBytes(new File(destDir, name).toPath())));
+            }
+        } finally {
+            FileUtil.deleteRecursively(tempDir);
+        }
+    }
 }
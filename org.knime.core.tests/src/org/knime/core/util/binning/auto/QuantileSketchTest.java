@@ -0,0 +1,160 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.util.binning.auto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link QuantileSketch}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class QuantileSketchTest {
+
+    /** Checks the rank of each percentile against the sorted data. */
+    private static void assertRankError(final QuantileSketch sketch, final double[] sorted) {
+        final double bound = QuantileSketch.getNormalizedRankError(sketch.getK());
+        for (int p = 1; p < 100; p++) {
+            final double q = p / 100.0;
+            final double value = sketch.getQuantile(q);
+            // the range of ranks the value occupies in the data
+            int lo = Arrays.binarySearch(sorted, value);
+            int hi = lo;
+            while (lo > 0 && sorted[lo - 1] == value) {
+                lo--;
+            }
+            while (hi < sorted.length - 1 && sorted[hi + 1] == value) {
+                hi++;
+            }
+            final double rank = Math.max(lo, Math.min(hi, q * sorted.length));
+            assertEquals("Rank of quantile " + q, q, rank / sorted.length, bound);
+        }
+    }
+
+    /** Small streams are kept completely, hence quantiles are exact. */
+    @Test
+    public void testExactForSmallStreams() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 100; i >= 1; i--) {
+            sketch.update(i);
+        }
+        sketch.update(Double.NaN);
+        assertEquals(100, sketch.getCount());
+        assertArrayEquals(new double[]{1, 25, 50, 75, 100},
+            sketch.getQuantiles(new double[]{0, 0.25, 0.5, 0.75, 1}), 0);
+    }
+
+    /** The documented error bound holds for a large stream and for merged partitions of it. */
+    @Test
+    public void testErrorBoundAndMerge() {
+        Random random = new Random(42);
+        int n = 300_000;
+        double[] data = new double[n];
+        QuantileSketch whole = new QuantileSketch();
+        QuantileSketch[] parts = new QuantileSketch[3];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new QuantileSketch();
+        }
+        for (int i = 0; i < n; i++) {
+            data[i] = Math.exp(random.nextGaussian());
+            whole.update(data[i]);
+            parts[i % parts.length].update(data[i]);
+        }
+        QuantileSketch merged = new QuantileSketch();
+        for (QuantileSketch part : parts) {
+            merged.merge(part);
+        }
+        Arrays.sort(data);
+
+        assertEquals(n, whole.getCount());
+        assertEquals(n, merged.getCount());
+        assertEquals(data[0], merged.getMin(), 0);
+        assertEquals(data[n - 1], merged.getMax(), 0);
+        assertRankError(whole, data);
+        assertRankError(merged, data);
+    }
+
+    /** Save and load restore an identical sketch. */
+    @Test
+    public void testSaveLoad() throws IOException {
+        QuantileSketch sketch = new QuantileSketch(50);
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.update(random.nextDouble());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            sketch.save(out);
+        }
+        QuantileSketch loaded =
+            QuantileSketch.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        double[] fractions = {0, 0.1, 0.5, 0.9, 1};
+        assertEquals(sketch.getCount(), loaded.getCount());
+        assertArrayEquals(sketch.getQuantiles(fractions), loaded.getQuantiles(fractions), 0);
+    }
+
+    /** An empty sketch has no quantiles. */
+    @Test
+    public void testEmpty() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(sketch.isEmpty());
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        assertTrue(Double.isNaN(sketch.getMin()));
+    }
+}
@@ -51,10 +51,12 @@
 import java.net.URL;
 
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeDialogPane;
 import org.knime.core.node.NodeFactory.NodeType;
 import org.knime.core.node.NotConfigurableException;
 import org.knime.core.node.config.base.ConfigBaseRO;
+import org.knime.core.node.workflow.AsyncNodeEventDispatcher;
 import org.knime.core.node.workflow.NativeNodeContainer;
 import org.knime.core.node.workflow.NodeAnnotation;
 import org.knime.core.node.workflow.NodeContainer;
@@ -87,6 +89,12 @@
 public abstract class NodeContainerWrapper<W extends NodeContainer> extends AbstractWrapper<W>
     implements NodeContainerUI {
 
+    /**
+     * Whether state, progress and message listeners are registered through the {@link AsyncNodeEventDispatcher} so
+     * that UI listeners don't slow down node execution. If not (the default), they are notified on the thread causing
+     * the change.
+     */
+    private static final boolean ASYNC_NODE_EVENTS = Boolean.getBoolean(KNIMEConstants.PROPERTY_ASYNC_UI_NODE_EVENTS);
 
     /**
      * @param delegate the implementation to delegate to
@@ -171,22 +179,26 @@ public void clearWaitingLoopList() {
 
     @Override
     public boolean addProgressListener(final NodeProgressListener listener) {
-        return unwrap().addProgressListener(listener);
+        return ASYNC_NODE_EVENTS ? AsyncNodeEventDispatcher.addProgressListener(unwrap(), listener)
+            : unwrap().addProgressListener(listener);
     }
 
     @Override
     public boolean removeNodeProgressListener(final NodeProgressListener listener) {
-        return unwrap().removeNodeProgressListener(listener);
+        return ASYNC_NODE_EVENTS ? AsyncNodeEventDispatcher.removeProgressListener(unwrap(), listener)
+            : unwrap().removeNodeProgressListener(listener);
     }
 
     @Override
     public boolean addNodeMessageListener(final NodeMessageListener listener) {
-        return unwrap().addNodeMessageListener(listener);
+        return ASYNC_NODE_EVENTS ? AsyncNodeEventDispatcher.addMessageListener(unwrap(), listener)
+            : unwrap().addNodeMessageListener(listener);
     }
 
     @Override
     public boolean removeNodeMessageListener(final NodeMessageListener listener) {
-        return unwrap().removeNodeMessageListener(listener);
+        return ASYNC_NODE_EVENTS ? AsyncNodeEventDispatcher.removeMessageListener(unwrap(), listener)
+            : unwrap().removeNodeMessageListener(listener);
     }
 
     @Override
@@ -229,12 +241,14 @@ public void setUIInformationForCorrection(final NodeUIInformation uiInfo) {
 
     @Override
     public boolean addNodeStateChangeListener(final NodeStateChangeListener listener) {
-        return unwrap().addNodeStateChangeListener(listener);
+        return ASYNC_NODE_EVENTS ? AsyncNodeEventDispatcher.addStateListener(unwrap(), listener)
+            : unwrap().addNodeStateChangeListener(listener);
     }
 
     @Override
     public boolean removeNodeStateChangeListener(final NodeStateChangeListener listener) {
-        return unwrap().removeNodeStateChangeListener(listener);
+        return ASYNC_NODE_EVENTS ? AsyncNodeEventDispatcher.removeStateListener(unwrap(), listener)
+            : unwrap().removeNodeStateChangeListener(listener);
     }
 
     @Override
@@ -55,13 +55,37 @@
 /**
  * Key for a specific row which holds an identifier of type {@link String}.
  *
+ * <p>
+ * Keys of the form created by {@link #createRowKey(long)} (<code>"Row"</code> followed by a non-negative number
+ * without leading zeros) are identified by their number, which allows to compare and collect them without their
+ * strings; the string of a key created from its number is only created (and then kept) on demand. This is transparent
+ * to clients: keys are equal if their strings are equal, and the hash code is the one of the string.
+ *
  * @see DataRow
  * @author Michael Berthold, University of Konstanz
  */
 public final class RowKey {
 
-    /** Private member holding non-null row id. */
-    private final String m_id;
+    /** Prefix of generated row keys, see {@link #createRowKey(long)}. */
+    private static final String GENERATED_PREFIX = "Row";
+
+    /** Hash code of {@link #GENERATED_PREFIX}. */
+    private static final int GENERATED_PREFIX_HASH = GENERATED_PREFIX.hashCode();
+
+    /** Maximum number of digits of generated keys held as number, longer numbers might overflow. */
+    private static final int MAX_GENERATED_DIGITS = 18;
+
+    /** Upper bound (exclusive) of the numbers of generated keys held as number. */
+    private static final long MAX_GENERATED_INDEX = 1_000_000_000_000_000_000L;
+
+    /** Private member holding the row id, null until requested if the key was created from {@link #m_index}. */
+    private String m_id;
+
+    /** The number of a generated key or -1 if it isn't a generated key. */
+    private final long m_index;
+
+    /** The hash code, i.e. the one of the key's string. */
+    private final int m_hash;
 
     /**
      * Creates a row key based on a {@link String}.
@@ -74,11 +98,68 @@ public RowKey(final String id) {
             throw new NullPointerException("Argument must not be null.");
         }
         m_id = id;
+        m_index = parseGeneratedIndex(id);
+        m_hash = id.hashCode();
+    }
+
+    /** Creates a generated key, see {@link #createRowKey(long)}.
+     * @param index the number, in [0, {@link #MAX_GENERATED_INDEX}) */
+    private RowKey(final long index) {
+        m_index = index;
+        // same as the hash code of the string, without creating it
+        int hash = 0;
+        int factor = 1;
+        long remainder = index;
+        do {
+            hash += factor * ('0' + (int)(remainder % 10));
+            factor *= 31;
+            remainder /= 10;
+        } while (remainder > 0);
+        m_hash = factor * GENERATED_PREFIX_HASH + hash;
     }
 
     /** @return Underlying string of this row key. */
     public String getString() {
-        return m_id;
+        String id = m_id;
+        if (id == null) {
+            // racy but benign: strings are immutable and all threads create equal ones
+            id = GENERATED_PREFIX + m_index;
+            m_id = id;
+        }
+        return id;
+    }
+
+    /**
+     * If this key has the form of the keys created by {@link #createRowKey(long)}, i.e. <code>"Row"</code> followed by
+     * a non-negative number without leading zeros (of at most 18 digits), returns that number. Used to store such keys
+     * compactly.
+     *
+     * @return the number of the key or -1 if it isn't a generated key
+     * @since 4.1
+     */
+    public long getGeneratedIndex() {
+        return m_index;
+    }
+
+    /**
+     * @return the number of a generated key with the given string or -1 if it's not a generated key
+     */
+    private static long parseGeneratedIndex(final String id) {
+        final int length = id.length();
+        final int prefixLength = GENERATED_PREFIX.length();
+        if (length <= prefixLength || length > prefixLength + MAX_GENERATED_DIGITS
+            || !id.startsWith(GENERATED_PREFIX) || (id.charAt(prefixLength) == '0' && length > prefixLength + 1)) {
+            return -1;
+        }
+        long index = 0;
+        for (int i = prefixLength; i < length; i++) {
+            final char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
     }
 
     /** {@inheritDoc} */
@@ -94,7 +175,12 @@ public boolean equals(final Object obj) {
             return true;
         }
         if (obj instanceof RowKey) {
-            return ((RowKey)obj).m_id.equals(m_id);
+            // the string of a generated key is determined by its number, other keys have no number
+            final RowKey other = (RowKey)obj;
+            if (m_hash != other.m_hash || m_index != other.m_index) {
+                return false;
+            }
+            return m_index >= 0 || m_id.equals(other.m_id);
         }
         return false;
     }
@@ -104,7 +190,7 @@ public boolean equals(final Object obj) {
      */
     @Override
     public int hashCode() {
-        return m_id.hashCode();
+        return m_hash;
     }
 
     /**
@@ -156,7 +242,7 @@ public static RowKey[] toRowKeys(final String... strs) {
      */
     @Deprecated
     public static RowKey createRowKey(final int rowIndex) {
-        return new RowKey("Row" + rowIndex);
+        return createRowKey((long)rowIndex);
     }
 
     /**
@@ -173,6 +259,9 @@ public static RowKey createRowKey(final int rowIndex) {
      * @since 3.0
      */
     public static RowKey createRowKey(final long rowIndex) {
-        return new RowKey("Row" + rowIndex);
+        if (rowIndex >= 0 && rowIndex < MAX_GENERATED_INDEX) {
+            return new RowKey(rowIndex);
+        }
+        return new RowKey(GENERATED_PREFIX + rowIndex);
     }
 }
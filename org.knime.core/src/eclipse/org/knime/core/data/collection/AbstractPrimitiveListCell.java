@@ -0,0 +1,225 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.collection;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataValue;
+
+/**
+ * Base class of the list cells that keep their elements in a primitive array rather than in a list of (boxed)
+ * {@link DataCell} objects, see {@link IntListCell}, {@link LongListCell}, {@link DoubleListCell} and
+ * {@link StringListCell}. Elements are materialized as cells only on access via {@link #get(int)} or
+ * {@link #iterator()}. The lists can't contain missing values.
+ *
+ * <p>
+ * Cells of this class are equal to any other {@link ListDataValue} cell (including {@link ListCell}) with equal
+ * elements and return the same hash code as a {@link ListCell} with equal elements.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ * @see CollectionCellFactory#createCompactListCell(java.util.Collection)
+ */
+public abstract class AbstractPrimitiveListCell extends DataCell implements ListDataValue {
+
+    /** Number of bytes written/read at once in the bulk array serialization. */
+    private static final int IO_CHUNK_BYTES = 1 << 16;
+
+    /** Constructor for subclasses. */
+    AbstractPrimitiveListCell() {
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<DataCell> iterator() {
+        return new Iterator<DataCell>() {
+            private int m_index;
+
+            @Override
+            public boolean hasNext() {
+                return m_index < size();
+            }
+
+            @Override
+            public DataCell next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(m_index++);
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsBlobWrapperCells() {
+        return false;
+    }
+
+    /**
+     * Compares the elements with another {@link ListDataValue} (e.g. a {@link ListCell}).
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean equalContent(final DataValue otherValue) {
+        return ListCell.equalElements(this, (ListDataValue)otherValue);
+    }
+
+    /**
+     * Same as {@link java.util.List#hashCode()} on the element cells, i.e. compatible to {@link ListCell}.
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size(); i++) {
+            hash = 31 * hash + elementHashCode(i);
+        }
+        return hash;
+    }
+
+    /**
+     * @param index element index
+     * @return the hash code of the element as cell (without creating the cell)
+     */
+    abstract int elementHashCode(int index);
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                b.append(", ");
+            }
+            b.append(get(i));
+        }
+        return b.append(']').toString();
+    }
+
+    /* Bulk serialization of primitive arrays, writing chunks of raw bytes rather than one call per element. */
+
+    /** @return a buffer for (de)serializing an array in chunks, at most {@link #IO_CHUNK_BYTES} large */
+    private static ByteBuffer chunkBuffer(final int length, final int elementBytes) {
+        return ByteBuffer.allocate((int)Math.min(IO_CHUNK_BYTES, (long)length * elementBytes));
+    }
+
+    static void writeInts(final DataOutput output, final int[] values) throws IOException {
+        output.writeInt(values.length);
+        final ByteBuffer buffer = chunkBuffer(values.length, Integer.BYTES);
+        for (int from = 0; from < values.length; from += buffer.capacity() / Integer.BYTES) {
+            final int length = Math.min(values.length - from, buffer.capacity() / Integer.BYTES);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, from, length);
+            output.write(buffer.array(), 0, length * Integer.BYTES);
+        }
+    }
+
+    static int[] readInts(final DataInput input) throws IOException {
+        final int[] values = new int[input.readInt()];
+        final ByteBuffer buffer = chunkBuffer(values.length, Integer.BYTES);
+        for (int from = 0; from < values.length; from += buffer.capacity() / Integer.BYTES) {
+            final int length = Math.min(values.length - from, buffer.capacity() / Integer.BYTES);
+            input.readFully(buffer.array(), 0, length * Integer.BYTES);
+            buffer.clear();
+            buffer.asIntBuffer().get(values, from, length);
+        }
+        return values;
+    }
+
+    static void writeLongs(final DataOutput output, final long[] values) throws IOException {
+        output.writeInt(values.length);
+        final ByteBuffer buffer = chunkBuffer(values.length, Long.BYTES);
+        for (int from = 0; from < values.length; from += buffer.capacity() / Long.BYTES) {
+            final int length = Math.min(values.length - from, buffer.capacity() / Long.BYTES);
+            buffer.clear();
+            buffer.asLongBuffer().put(values, from, length);
+            output.write(buffer.array(), 0, length * Long.BYTES);
+        }
+    }
+
+    static long[] readLongs(final DataInput input) throws IOException {
+        final long[] values = new long[input.readInt()];
+        final ByteBuffer buffer = chunkBuffer(values.length, Long.BYTES);
+        for (int from = 0; from < values.length; from += buffer.capacity() / Long.BYTES) {
+            final int length = Math.min(values.length - from, buffer.capacity() / Long.BYTES);
+            input.readFully(buffer.array(), 0, length * Long.BYTES);
+            buffer.clear();
+            buffer.asLongBuffer().get(values, from, length);
+        }
+        return values;
+    }
+
+    static void writeDoubles(final DataOutput output, final double[] values) throws IOException {
+        output.writeInt(values.length);
+        final ByteBuffer buffer = chunkBuffer(values.length, Double.BYTES);
+        for (int from = 0; from < values.length; from += buffer.capacity() / Double.BYTES) {
+            final int length = Math.min(values.length - from, buffer.capacity() / Double.BYTES);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(values, from, length);
+            output.write(buffer.array(), 0, length * Double.BYTES);
+        }
+    }
+
+    static double[] readDoubles(final DataInput input) throws IOException {
+        final double[] values = new double[input.readInt()];
+        final ByteBuffer buffer = chunkBuffer(values.length, Double.BYTES);
+        for (int from = 0; from < values.length; from += buffer.capacity() / Double.BYTES) {
+            final int length = Math.min(values.length - from, buffer.capacity() / Double.BYTES);
+            input.readFully(buffer.array(), 0, length * Double.BYTES);
+            buffer.clear();
+            buffer.asDoubleBuffer().get(values, from, length);
+        }
+        return values;
+    }
+}
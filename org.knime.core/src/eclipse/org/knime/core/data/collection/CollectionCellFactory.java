@@ -53,6 +53,10 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.container.BlobSupportDataRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.node.BufferedDataTable;
 
 import java.util.ArrayList;
@@ -107,6 +111,103 @@ public static ListCell createListCell(final DataRow row, final int[] cols) {
         return new ListCell(l);
     }
 
+    /**
+     * Creates a list cell backed by an <code>int[]</code>, see {@link IntListCell}.
+     *
+     * @param values the values, not copied (must not be modified afterwards)
+     * @return a new cell with element type {@link IntCell#TYPE}
+     * @since 4.1
+     */
+    public static IntListCell createIntListCell(final int[] values) {
+        return new IntListCell(values);
+    }
+
+    /**
+     * Creates a list cell backed by a <code>long[]</code>, see {@link LongListCell}.
+     *
+     * @param values the values, not copied (must not be modified afterwards)
+     * @return a new cell with element type {@link LongCell#TYPE}
+     * @since 4.1
+     */
+    public static LongListCell createLongListCell(final long[] values) {
+        return new LongListCell(values);
+    }
+
+    /**
+     * Creates a list cell backed by a <code>double[]</code>, see {@link DoubleListCell}.
+     *
+     * @param values the values, not copied (must not be modified afterwards)
+     * @return a new cell with element type {@link DoubleCell#TYPE}
+     * @since 4.1
+     */
+    public static DoubleListCell createDoubleListCell(final double[] values) {
+        return new DoubleListCell(values);
+    }
+
+    /**
+     * Creates a list cell backed by a compact string arena, see {@link StringListCell}.
+     *
+     * @param values the values
+     * @return a new cell with element type {@link StringCell#TYPE}
+     * @throws NullPointerException If the argument is null or contains null values.
+     * @since 4.1
+     */
+    public static StringListCell createStringListCell(final String[] values) {
+        return StringListCell.create(values);
+    }
+
+    /**
+     * Creates a list cell from the given collection, using a primitive-backed cell
+     * ({@link AbstractPrimitiveListCell}) if the collection is not empty and all its elements are of the same class,
+     * one of {@link IntCell}, {@link LongCell}, {@link DoubleCell} or {@link StringCell} (i.e. there are no missing
+     * values). Otherwise a {@link ListCell} is created, see {@link #createListCell(Collection)}. Note that the type of
+     * the returned cell depends on the elements, so this method is meant for nodes whose output column type is
+     * determined accordingly (or is a general {@link ListDataValue}).
+     *
+     * @param coll The underlying collection.
+     * @return A new cell implementing {@link ListDataValue}.
+     * @throws NullPointerException If the argument is null or contains null values.
+     * @since 4.1
+     */
+    public static DataCell createCompactListCell(final Collection<? extends DataCell> coll) {
+        if (coll.isEmpty()) {
+            return createListCell(coll);
+        }
+        final Class<? extends DataCell> elementClass = coll.iterator().next().getClass();
+        for (DataCell c : coll) {
+            if (c.getClass() != elementClass) {
+                return createListCell(coll);
+            }
+        }
+        int i = 0;
+        if (elementClass == IntCell.class) {
+            final int[] values = new int[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((IntCell)c).getIntValue();
+            }
+            return createIntListCell(values);
+        } else if (elementClass == LongCell.class) {
+            final long[] values = new long[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((LongCell)c).getLongValue();
+            }
+            return createLongListCell(values);
+        } else if (elementClass == DoubleCell.class) {
+            final double[] values = new double[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((DoubleCell)c).getDoubleValue();
+            }
+            return createDoubleListCell(values);
+        } else if (elementClass == StringCell.class) {
+            final String[] values = new String[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((StringCell)c).getStringValue();
+            }
+            return createStringListCell(values);
+        }
+        return createListCell(coll);
+    }
+
     /**
      * Creates a new {@link ListCell} based on selected cells from a
      * {@link DataRow}. This method will check if the row is returned by
@@ -0,0 +1,152 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.collection;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * List of int values backed by a <code>int[]</code>, see {@link AbstractPrimitiveListCell}. The elements are
+ * returned as {@link IntCell}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ * @see CollectionCellFactory#createIntListCell(int[])
+ */
+public final class IntListCell extends AbstractPrimitiveListCell {
+
+    /**
+     * Convenience method to determine the type of the collection. This is a shortcut for
+     * <code>DataType.getType(IntListCell.class, IntCell.TYPE)</code>.
+     *
+     * @return a DataType representing the collection
+     */
+    public static DataType getCollectionType() {
+        return DataType.getType(IntListCell.class, IntCell.TYPE);
+    }
+
+    private final int[] m_values;
+
+    /**
+     * @param values the values, not copied
+     */
+    IntListCell(final int[] values) {
+        m_values = values;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataType getElementType() {
+        return IntCell.TYPE;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return m_values.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataCell get(final int index) {
+        return new IntCell(m_values[index]);
+    }
+
+    /**
+     * @param index the element index
+     * @return the value at that index
+     */
+    public int getInt(final int index) {
+        return m_values[index];
+    }
+
+    /**
+     * @return a copy of the values
+     */
+    public int[] toIntArray() {
+        return m_values.clone();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    int elementHashCode(final int index) {
+        return m_values[index];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean equalsDataCell(final DataCell dc) {
+        return Arrays.equals(m_values, ((IntListCell)dc).m_values);
+    }
+
+    /**
+     * Serializer for {@link IntListCell}s, writes the raw array in one pass.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     */
+    public static final class IntListCellSerializer implements DataCellSerializer<IntListCell> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void serialize(final IntListCell cell, final DataCellDataOutput output) throws IOException {
+            writeInts(output, cell.m_values);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public IntListCell deserialize(final DataCellDataInput input) throws IOException {
+            return new IntListCell(readInts(input));
+        }
+    }
+}
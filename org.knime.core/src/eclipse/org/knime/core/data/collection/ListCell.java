@@ -58,6 +58,7 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.DataValue;
 
 /**
  * Default implementation of a {@link CollectionDataValue}, whereby the
@@ -143,12 +144,42 @@ protected boolean equalsDataCell(final DataCell dc) {
         return m_list.equals(((ListCell)dc).m_list);
     }
 
+    /**
+     * Compares the elements with another {@link ListDataValue} cell of a different class (e.g. a list backed by a
+     * primitive array, see {@link AbstractPrimitiveListCell}).
+     * {@inheritDoc}
+     * @since 4.1
+     */
+    @Override
+    protected boolean equalContent(final DataValue otherValue) {
+        return equalElements(this, (ListDataValue)otherValue);
+    }
+
     /** {@inheritDoc} */
     @Override
     public int hashCode() {
         return m_list.hashCode();
     }
 
+    /**
+     * Element-wise comparison of two lists.
+     *
+     * @param l1 first list
+     * @param l2 second list
+     * @return true if both have the same size and equal elements at all positions
+     */
+    static boolean equalElements(final ListDataValue l1, final ListDataValue l2) {
+        if (l1.size() != l2.size()) {
+            return false;
+        }
+        for (int i = 0; i < l1.size(); i++) {
+            if (!l1.get(i).equals(l2.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
@@ -0,0 +1,244 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.collection;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * List of strings stored in a compact arena, i.e. the encoded characters of all elements in one <code>byte[]</code>
+ * plus an <code>int[]</code> of element offsets, see {@link AbstractPrimitiveListCell}. The elements are returned as
+ * {@link StringCell}. Characters are encoded as by {@link DataOutput#writeUTF(String)} (modified UTF-8), which unlike
+ * standard UTF-8 keeps unpaired surrogates, so any string is returned unchanged as it is by {@link StringCell}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ * @see CollectionCellFactory#createStringListCell(String[])
+ */
+public final class StringListCell extends AbstractPrimitiveListCell {
+
+    /**
+     * Convenience method to determine the type of the collection. This is a shortcut for
+     * <code>DataType.getType(StringListCell.class, StringCell.TYPE)</code>.
+     *
+     * @return a DataType representing the collection
+     */
+    public static DataType getCollectionType() {
+        return DataType.getType(StringListCell.class, StringCell.TYPE);
+    }
+
+    /** Modified UTF-8 bytes of all elements. */
+    private final byte[] m_arena;
+
+    /** Start offset of element i in m_arena, with a trailing entry for the end of the last element. */
+    private final int[] m_offsets;
+
+    private StringListCell(final byte[] arena, final int[] offsets) {
+        m_arena = arena;
+        m_offsets = offsets;
+    }
+
+    /**
+     * @param values the values, not null and not containing null
+     * @return a new cell
+     */
+    static StringListCell create(final String[] values) {
+        final int[] offsets = new int[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new NullPointerException("List element at index " + i + " must not be null");
+            }
+            offsets[i + 1] = Math.addExact(offsets[i], encodedLength(values[i]));
+        }
+        final byte[] arena = new byte[offsets[values.length]];
+        for (int i = 0; i < values.length; i++) {
+            encode(values[i], arena, offsets[i]);
+        }
+        return new StringListCell(arena, offsets);
+    }
+
+    /** @return the number of bytes of the modified UTF-8 encoding of the string */
+    private static int encodedLength(final String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length++;
+            } else if (c <= 0x07FF) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /** Writes the modified UTF-8 encoding of the string, each char separately (also surrogates). */
+    private static void encode(final String s, final byte[] arena, final int offset) {
+        int pos = offset;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                arena[pos++] = (byte)c;
+            } else if (c <= 0x07FF) {
+                arena[pos++] = (byte)(0xC0 | (c >> 6));
+                arena[pos++] = (byte)(0x80 | (c & 0x3F));
+            } else {
+                arena[pos++] = (byte)(0xE0 | (c >> 12));
+                arena[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                arena[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /** Decodes the modified UTF-8 bytes in [from, to) of the arena. */
+    private static String decode(final byte[] arena, final int from, final int to) {
+        final char[] chars = new char[to - from];
+        int count = 0;
+        int pos = from;
+        while (pos < to) {
+            final int b = arena[pos] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char)b;
+                pos++;
+            } else if (b < 0xE0) {
+                chars[count++] = (char)(((b & 0x1F) << 6) | (arena[pos + 1] & 0x3F));
+                pos += 2;
+            } else {
+                chars[count++] = (char)(((b & 0x0F) << 12) | ((arena[pos + 1] & 0x3F) << 6) | (arena[pos + 2] & 0x3F));
+                pos += 3;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataType getElementType() {
+        return StringCell.TYPE;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return m_offsets.length - 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataCell get(final int index) {
+        return new StringCell(getString(index));
+    }
+
+    /**
+     * @param index the element index
+     * @return the value at that index
+     */
+    public String getString(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return decode(m_arena, m_offsets[index], m_offsets[index + 1]);
+    }
+
+    /**
+     * @return the values as new array
+     */
+    public String[] toStringArray() {
+        final String[] result = new String[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getString(i);
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    int elementHashCode(final int index) {
+        return getString(index).hashCode();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean equalsDataCell(final DataCell dc) {
+        final StringListCell o = (StringListCell)dc;
+        return Arrays.equals(m_offsets, o.m_offsets) && Arrays.equals(m_arena, o.m_arena);
+    }
+
+    /**
+     * Serializer for {@link StringListCell}s, writes the offsets and the byte arena in one pass each.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     */
+    public static final class StringListCellSerializer implements DataCellSerializer<StringListCell> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void serialize(final StringListCell cell, final DataCellDataOutput output) throws IOException {
+            writeInts(output, cell.m_offsets);
+            output.writeInt(cell.m_arena.length);
+            output.write(cell.m_arena);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public StringListCell deserialize(final DataCellDataInput input) throws IOException {
+            final int[] offsets = readInts(input);
+            final byte[] arena = new byte[input.readInt()];
+            input.readFully(arena);
+            return new StringListCell(arena, offsets);
+        }
+    }
+}
@@ -49,7 +49,9 @@
 
 import java.util.Arrays;
 
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.filestore.FileStoreFactory;
 import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
@@ -74,6 +76,12 @@ public abstract class AbstractCellFactory implements CellFactory {
     private int m_maxParallelWorkers = -1;
     private int m_maxQueueSize = -1;
 
+    /** Rows handed to this factory's pipeline stage at once or -1 if pipelined processing is disabled. */
+    private int m_pipelineRowBatchSize = -1;
+
+    /** Number of rows passed to {@link #getCells(DataRow[], DataCell[][])} at once, 1 for row-by-row processing. */
+    private int m_rowBlockSize = 1;
+
     /** True if the deprecatd {@link #setProgress(int, int, RowKey, ExecutionMonitor)} method is overridden. If so,
      * it will be called by the default implementation of the (new) setProgress method. */
     private final boolean m_isSetProgressWithIntOverridden;
@@ -226,6 +234,94 @@ public final int getMaxQueueSize() {
         return m_maxQueueSize;
     }
 
+    /** Enables or disables pipelined processing. If all cell factories of a {@link ColumnRearranger} enable it (and
+     * they don't all enable {@link #setParallelProcessing(boolean) parallel processing}), each factory is evaluated in
+     * a separate stage on the global thread pool, concurrently to the other factories. A single factory still
+     * processes the rows one after another and in the order of the input table, so {@link #getCells(DataRow)} is
+     * never called concurrently on the same instance. This must only be enabled if the factory does not share state
+     * with the other factories of the rearranger.
+     * @param value If to enable pipelined processing.
+     * @see #setPipelinedProcessing(boolean, int)
+     * @since 4.1
+     */
+    public final void setPipelinedProcessing(final boolean value) {
+        setPipelinedProcessing(value, 1);
+    }
+
+    /** Enables or disables pipelined processing, see {@link #setPipelinedProcessing(boolean)}.
+     * @param value If to enable pipelined processing.
+     * @param rowBatchSize The number of rows that need to be available before they are handed to this factory's
+     * stage (unless the end of the input has been reached). Larger values reduce the synchronization overhead for
+     * cheap factories, smaller values the latency for expensive ones.
+     * @since 4.1
+     */
+    public final void setPipelinedProcessing(final boolean value, final int rowBatchSize) {
+        if (value) {
+            if (rowBatchSize <= 0) {
+                throw new IllegalArgumentException("Row batch size must be larger than 0: " + rowBatchSize);
+            }
+            m_pipelineRowBatchSize = rowBatchSize;
+        } else {
+            m_pipelineRowBatchSize = -1;
+        }
+    }
+
+    /** Returns true if pipelined processing is enabled, see {@link #setPipelinedProcessing(boolean)}.
+     * @return true if this factory may be evaluated concurrently to other factories.
+     * @since 4.1
+     */
+    public final boolean isPipelinedProcessing() {
+        return m_pipelineRowBatchSize > 0;
+    }
+
+    /** The number of rows handed to this factory's pipeline stage at once or -1 if pipelined processing is disabled.
+     * See {@link #setPipelinedProcessing(boolean, int)}.
+     * @return The row batch size or -1.
+     * @since 4.1
+     */
+    public final int getPipelineRowBatchSize() {
+        return m_pipelineRowBatchSize;
+    }
+
+    /** Sets the number of rows that are handed to {@link #getCells(DataRow[], DataCell[][])} at once. Factories with a
+     * high per-call overhead (e.g. because they call an external engine) can override that method and set a block
+     * size larger than 1 in order to amortize the overhead over many rows. Blocks are used when the input is processed
+     * sequentially, in a {@link #setPipelinedProcessing(boolean) pipeline}, or streamed; with
+     * {@link #setParallelProcessing(boolean) parallel processing} rows are still processed one by one.
+     * @param rowBlockSize The maximum number of rows per block, 1 to process rows one by one.
+     * @since 4.1
+     */
+    public final void setRowBlockSize(final int rowBlockSize) {
+        if (rowBlockSize <= 0) {
+            throw new IllegalArgumentException("Row block size must be larger than 0: " + rowBlockSize);
+        }
+        m_rowBlockSize = rowBlockSize;
+    }
+
+    /** The maximum number of rows handed to {@link #getCells(DataRow[], DataCell[][])} at once, see
+     * {@link #setRowBlockSize(int)}.
+     * @return The row block size, 1 by default.
+     * @since 4.1
+     */
+    public final int getRowBlockSize() {
+        return m_rowBlockSize;
+    }
+
+    /** Computes the new cells for a block of consecutive input rows. Called by the framework instead of
+     * {@link #getCells(DataRow)} if the {@link #getRowBlockSize() row block size} is larger than 1. The default
+     * implementation calls {@link #getCells(DataRow)} for each row; subclasses may override it to process the rows
+     * in one go. The arrays must not be retained after the method returns.
+     * @param rows The input rows in table order, at most {@link #getRowBlockSize()} and at least one.
+     * @param out An array of the same length as <code>rows</code>; element <code>i</code> needs to be set to the
+     * new cells for <code>rows[i]</code> (as returned by {@link #getCells(DataRow)}).
+     * @since 4.1
+     */
+    public void getCells(final DataRow[] rows, final DataCell[][] out) {
+        for (int i = 0; i < rows.length; i++) {
+            out[i] = getCells(rows[i]);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public DataColumnSpec[] getColumnSpecs() {
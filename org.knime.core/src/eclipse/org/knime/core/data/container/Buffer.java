@@ -59,6 +59,8 @@
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -82,7 +84,6 @@
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -98,6 +99,7 @@
 import org.apache.commons.io.IOUtils;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.IDataRepository;
@@ -137,6 +139,7 @@
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.util.FileDeletionService;
 import org.knime.core.util.FileUtil;
 import org.knime.core.util.LRUCache;
 import org.knime.core.util.MutableBoolean;
@@ -254,6 +257,9 @@ public class Buffer implements KNIMEStreamConstants {
     /** Config entry: internal buffer ID. */
     private static final String CFG_BUFFER_ID = "container.id";
 
+    /** Config entry: summary of the row keys, see {@link RowKeySummary} (added in 4.1, optional). */
+    private static final String CFG_ROW_KEY_SUMMARY = "table.rowkey.summary";
+
     /**
      * Config entries when writing the spec to the file (uses NodeSettings object, which uses key-value pairs. Here:
      * size of the table (#rows).
@@ -270,10 +276,10 @@ public class Buffer implements KNIMEStreamConstants {
     private static final String CFG_SIZE_L = "table.size.long";
 
     /** Current version string. */
-    public static final String VERSION = "container_12";
+    public static final String VERSION = "container_13";
 
     /** The version number corresponding to {@link #VERSION}. */
-    public static final int IVERSION = 12;
+    public static final int IVERSION = 13;
 
     private static final HashMap<String, Integer> COMPATIBILITY_MAP;
 
@@ -290,7 +296,8 @@ public class Buffer implements KNIMEStreamConstants {
         COMPATIBILITY_MAP.put("container_9", 9); // never released - some workflow tests contain it (BW used a nightly)
         COMPATIBILITY_MAP.put("container_10", 10); // version 3.6 (multiple table formats)
         COMPATIBILITY_MAP.put("container_11", 11); // version 3.7 - add FileStoreCell support for multiple FileStores
-        COMPATIBILITY_MAP.put(VERSION, IVERSION); // version 3.8 - changed default compression to Snappy
+        COMPATIBILITY_MAP.put("container_12", 12); // version 3.8 - changed default compression to Snappy
+        COMPATIBILITY_MAP.put(VERSION, IVERSION); // version 4.1 - compact row keys, dictionary encoded strings
         // NOTE consider to also
         // - increment the workflow.knime version number when updating this list
         // - update list in NoKeyBuffer
@@ -330,8 +337,10 @@ public class Buffer implements KNIMEStreamConstants {
                         it.clear();
                     }
                 }
-                DeleteInBackgroundThread.waitUntilFinished();
+                FileDeletionService.getInstance().waitUntilFinished();
             });
+            // container files of sessions that weren't shut down properly
+            FileDeletionService.getInstance().sweepOrphanedContainerFiles();
         } catch (Exception e) {
             LOGGER.warn("Unable to add shutdown hook to delete temp files", e);
         }
@@ -493,6 +502,12 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
     /** the current row count (how often has addRow been called). */
     private long m_size;
 
+    /** Collects the row key summary while rows are added, null before the first row and after close. */
+    private RowKeySummary.Builder m_rowKeySummaryBuilder;
+
+    /** The summary of the row keys once the buffer is closed, null if unknown (or no keys are stored). */
+    private RowKeySummary m_rowKeySummary;
+
     /** The buffer settings. */
     private final BufferSettings m_bufferSettings;
 
@@ -788,6 +803,12 @@ synchronized void addBlobSupportDataRow(final BlobSupportDataRow row) throws IOE
              */
             flushBuffer();
         }
+        if (!shouldSkipRowKey()) {
+            if (m_rowKeySummaryBuilder == null) {
+                m_rowKeySummaryBuilder = new RowKeySummary.Builder();
+            }
+            m_rowKeySummaryBuilder.add(row.getKey());
+        }
         if (m_listWhileAddRow != null) {
             m_listWhileAddRow.add(row);
             if (m_listWhileAddRow.size() > m_maxRowsInMem) {
@@ -1178,6 +1199,10 @@ synchronized void close(final DataTableSpec spec) {
     /** Closes by creating shortcut array for file access. */
     void closeInternal() {
         assert Thread.holdsLock(this);
+        if (m_rowKeySummaryBuilder != null) {
+            m_rowKeySummary = m_rowKeySummaryBuilder.build(false);
+            m_rowKeySummaryBuilder = null;
+        }
         if (m_listWhileAddRow != null) {
             // buffer still held in memory; can be cached
             CACHE.put(Buffer.this, m_listWhileAddRow);
@@ -1257,6 +1282,9 @@ private void writeMetaToFile(final Supplier<OutputStream> out) throws IOExceptio
         subSettings.addString(CFG_TABLE_FORMAT, m_outputFormat.getClass().getName());
         NodeSettingsWO formatSettings = subSettings.addNodeSettings(CFG_TABLE_FORMAT_CONFIG);
         m_formatSettings.copyTo(formatSettings);
+        if (m_rowKeySummary != null) {
+            m_rowKeySummary.save(subSettings.addNodeSettings(CFG_ROW_KEY_SUMMARY));
+        }
         if (m_outputWriter instanceof DefaultTableStoreWriter) {
             // AP-8954 -- for standard KNIME tables write the meta information into the root so that 3.5 and before
             // can load it;
@@ -1337,6 +1365,13 @@ private void readMetaFromFile(final InputStream metaIn, final File fileStoreDir)
             NodeSettingsRO outputFormatSettings =
                 m_version >= 10 ? subSettings.getNodeSettings(CFG_TABLE_FORMAT_CONFIG) : subSettings;
             m_formatSettings = outputFormatSettings;
+            if (subSettings.containsKey(CFG_ROW_KEY_SUMMARY)) {
+                try {
+                    m_rowKeySummary = RowKeySummary.load(subSettings.getNodeSettings(CFG_ROW_KEY_SUMMARY));
+                } catch (InvalidSettingsException ise) {
+                    LOGGER.debug("Ignoring invalid row key summary: " + ise.getMessage(), ise);
+                }
+            }
             initOutputReader(outputFormatSettings, m_version);
         }
     }
@@ -1676,6 +1711,25 @@ private List<BlobSupportDataRow> obtainListFromCacheOrBackIntoMemoryIterator() {
         return null;
     }
 
+    /**
+     * The summary of the row keys collected while the rows were added (and saved with the meta information).
+     *
+     * @return the summary or null if the buffer is open, empty, stores no row keys, or was written by a version that
+     *         didn't collect the summary
+     */
+    synchronized RowKeySummary getRowKeySummary() {
+        return m_rowKeySummary;
+    }
+
+    /**
+     * Called by the {@link DataContainer} once it has verified that the row keys of this (closed) buffer are unique.
+     */
+    synchronized void setHasUniqueRowKeys() {
+        if (m_rowKeySummary != null) {
+            m_rowKeySummary = m_rowKeySummary.withUniqueKeys(true);
+        }
+    }
+
     /**
      * True if any row containing blob cells is contained in this buffer.
      *
@@ -1713,6 +1767,59 @@ Buffer createLocalCloneForWriting() {
             castAndGetFileStoreHandler(), m_bufferSettings);
     }
 
+    /**
+     * Whether {@link #createFileCopy(int, IDataRepository)} can be used on this buffer. That is the case if the buffer
+     * is closed and completely written to a file of the current version, and if its rows can't contain blob or file
+     * store cells (the addresses of those refer to the buffer or file store handler owning them).
+     *
+     * @return that property
+     */
+    synchronized boolean isFileCopySupported() {
+        if (m_spec == null || getClass() != Buffer.class || !isFlushedToDisk() || m_binFile == null
+            || m_version != IVERSION || m_containsBlobs || hasOwnFileStoreCells()) {
+            return false;
+        }
+        for (DataColumnSpec col : m_spec) {
+            Class<? extends DataCell> cellClass = col.getType().getCellClass();
+            if (cellClass == null || col.getType().isCollectionType()
+                || BlobDataCell.class.isAssignableFrom(cellClass) || FileStoreCell.class.isAssignableFrom(cellClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a new buffer for reading that contains the same data as this buffer, whereby the binary file is not
+     * re-encoded row by row but hard linked to a new temp file (or, where the file system doesn't support that,
+     * copied as a whole). The file is never modified once a buffer is closed, so sharing its content is safe; each
+     * buffer deletes its own link when cleared.
+     *
+     * @param bufferID the ID of the new buffer
+     * @param dataRepository the data repository of the new buffer
+     * @return the new buffer
+     * @throws IOException if linking/copying the file fails
+     * @throws IllegalStateException if {@link #isFileCopySupported()} returns <code>false</code>
+     */
+    synchronized Buffer createFileCopy(final int bufferID, final IDataRepository dataRepository)
+        throws IOException {
+        if (!isFileCopySupported()) {
+            throw new IllegalStateException("File copy not supported for buffer " + getBufferID());
+        }
+        final ByteArrayOutputStream meta = new ByteArrayOutputStream();
+        writeMetaToFile(() -> meta);
+        final File target = DataContainer.createTempFile(m_outputFormat.getFilenameSuffix());
+        Files.delete(target.toPath());
+        try {
+            Files.createLink(target.toPath(), m_binFile.toPath());
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            LOGGER.debug("Unable to hard link table file, copying it instead (" + e.getMessage() + ")");
+            Files.copy(m_binFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new Buffer(target, null, null, m_spec, new ByteArrayInputStream(meta.toByteArray()), bufferID,
+            dataRepository, m_bufferSettings);
+    }
+
     /**
      * Returns a file store handler used when data needs to be copied (version hop, see
      * {@link #createLocalCloneForWriting()}). When this buffer was created using the 'write' constructor this will be
@@ -1780,6 +1887,7 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
             }
             synchronized (copy) {
                 copy.closeInternal();
+                copy.m_rowKeySummary = m_rowKeySummary;
             }
             if (tempFile != null) {
                 try (final InputStream in = new FileInputStream(tempFile);
@@ -1869,6 +1977,13 @@ protected void finalize() throws Throwable {
         clear();
     }
 
+    /**
+     * @return the settings this buffer has been created with
+     */
+    BufferSettings getBufferSettings() {
+        return m_bufferSettings;
+    }
+
     /**
      * Get this buffer's ID. It may be null if this buffer is not used as part of the workflow (but rather just has been
      * read/written from/to a zip file.
@@ -1941,10 +2056,11 @@ void performClear() {
                             // reason, we are OK with it as well, since we're clearing this buffer anyways.
                         }
                     }
+                    // deleting blob directories may be a very long lasting job (bug 1051)
                     if (m_blobDir != null) {
-                        DeleteInBackgroundThread.delete(m_binFile, m_blobDir);
+                        FileDeletionService.getInstance().delete(m_binFile, m_blobDir);
                     } else {
-                        DeleteInBackgroundThread.delete(m_binFile);
+                        FileDeletionService.getInstance().delete(m_binFile);
                     }
                 }
                 if (m_fileStoreHandler instanceof NotInWorkflowWriteFileStoreHandler) {
@@ -2215,163 +2331,6 @@ public void close() {
         }
     }
 
-    /**
-     * A background thread that deletes temporary files and directory (which may be a very long lasting job - in
-     * particular when blob directories need to get deleted). This is the long term fix for bug 1051.
-     * <p>
-     * Implementation note: There is singleton thread running that does the deletion, if this thread is idle for a
-     * while, it is shut down and recreated on demand.
-     */
-    private static final class DeleteInBackgroundThread extends Thread {
-
-        private static final NodeLogger THREAD_LOGGER = NodeLogger.getLogger(DeleteInBackgroundThread.class);
-
-        private static DeleteInBackgroundThread instance;
-
-        private final LinkedBlockingQueue<File> m_filesToDeleteList;
-
-        private static final Object LOCK = new Object();
-
-        private DeleteInBackgroundThread() {
-            super("KNIME-Temp-File-Deleter");
-            m_filesToDeleteList = new LinkedBlockingQueue<File>();
-        }
-
-        /**
-         * Queues a set of files for deletion and returns immediately.
-         *
-         * @param file To delete.
-         */
-        public static void delete(final File... file) {
-            synchronized (LOCK) {
-                if (instance == null || !instance.isAlive()) {
-                    instance = new DeleteInBackgroundThread();
-                    instance.start();
-                }
-                instance.addFile(file);
-            }
-        }
-
-        /**
-         * Blocks the calling thread until all queued files have been deleted.
-         */
-        public static void waitUntilFinished() {
-            synchronized (LOCK) {
-                if (instance == null || !instance.isAlive()) {
-                    return;
-                }
-            }
-            instance.blockUntilFinished();
-        }
-
-        private void addFile(final File[] files) {
-            synchronized (LOCK) {
-                m_filesToDeleteList.addAll(Arrays.asList(files));
-                if (!m_filesToDeleteList.isEmpty()) {
-                    LOCK.notifyAll();
-                }
-            }
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void run() {
-            while (true) {
-                synchronized (LOCK) {
-                    if (m_filesToDeleteList.isEmpty()) {
-                        try {
-                            LOCK.wait(60 * 1000);
-                        } catch (InterruptedException ie) {
-                            if (!m_filesToDeleteList.isEmpty()) {
-                                THREAD_LOGGER.warn("Deletion of " + m_filesToDeleteList.size() + "files "
-                                    + "or directories failed because deleter thread was interrupted");
-                            }
-                            return;
-                        }
-                        if (m_filesToDeleteList.isEmpty()) {
-                            return;
-                        }
-                    }
-                }
-                executeDeletion();
-            }
-        }
-
-        private synchronized void executeDeletion() {
-            try {
-                File first;
-                while ((first = m_filesToDeleteList.poll()) != null) {
-                    String type = first.isFile() ? "file" : "directory";
-                    boolean deleted = deleteRecursively(first);
-                    if (!deleted && first.exists()) {
-                        // note: although all input streams are closed, the
-                        // file can't be deleted. If we call the gc, it
-                        // works. No clue. That only happens on windows!
-                        // http://forum.java.sun.com/thread.jspa?forumID=31&threadID=609458
-                        System.gc();
-                    }
-                    if (deleted || deleteRecursively(first)) {
-                        logDebug("Deleted temporary " + type + " \"" + first.getAbsolutePath() + "\"", null);
-                    } else {
-                        logDebug("Failed to delete temporary " + type + " \"" + first.getAbsolutePath() + "\"", null);
-                    }
-                }
-            } finally {
-                notifyAll();
-            }
-        }
-
-        private synchronized void blockUntilFinished() {
-            if (!m_filesToDeleteList.isEmpty()) {
-                try {
-                    wait();
-                } catch (InterruptedException ie) {
-                    // that should only be called from the shutdown hook,
-                    // if someone interrupts us, so be it.
-                }
-            }
-        }
-
-        /**
-         * Makes sure the list is empty. This is necessary because when the VM goes done, any running thread is stopped.
-         *
-         * @see java.lang.Object#finalize()
-         */
-        @Override
-        protected void finalize() throws Throwable {
-            if (!m_filesToDeleteList.isEmpty()) {
-                executeDeletion();
-            }
-        }
-
-        /**
-         * Deletes the argument file or directory recursively and returns true if this was successful. This method
-         * follows any symbolic link (in comparison to {@link org.knime.core.utilFileUtil#deleteRecursively(File)}.
-         *
-         * @param f The (blob) directory or temp file to delete.
-         * @return Whether or not the f has been deleted.
-         */
-        private static boolean deleteRecursively(final File f) {
-            if (f.isFile()) {
-                return f.delete();
-            }
-            File[] files = f.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    boolean deleted = file.delete();
-                    if (!deleted) {
-                        if (file.isDirectory()) {
-                            deleteRecursively(file);
-                        }
-                    }
-                }
-            }
-            return f.delete();
-        }
-    }
-
     /**
      * See {@link #ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083} for details.
      *
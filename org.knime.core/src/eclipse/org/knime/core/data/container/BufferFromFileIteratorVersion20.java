@@ -64,6 +64,7 @@
 import org.knime.core.data.container.DCObjectInputVersion2.BlockableDCObjectInputVersion2;
 import org.knime.core.data.container.DefaultTableStoreReader.FromFileIterator;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.data.filestore.FileStoreCell;
 import org.knime.core.data.filestore.FileStoreKey;
 import org.knime.core.data.filestore.FileStoreUtil;
@@ -101,6 +102,15 @@ public final class BufferFromFileIteratorVersion20 extends FromFileIterator {
     /** Utility object with designated functionality to deserialize datacell. */
     private DataCellStreamReader m_dataCellStreamReader;
 
+    /** Whether row keys are stored in the compact form used since buffer version 13. */
+    private final boolean m_isCompactRowKeys;
+
+    /**
+     * The string dictionary of each column (null for columns that aren't encoded), rebuilt while reading, or null if
+     * strings are not dictionary encoded.
+     */
+    private final StringCellDictionary[] m_stringDictionaries;
+
     /** Inits iterator, opens input stream.
      * @param tableFormatReader The associated buffer.
      * @throws IOException If stream reading fails.
@@ -116,6 +126,8 @@ public final class BufferFromFileIteratorVersion20 extends FromFileIterator {
 
         // init the format reader
         m_tableFormatReader = tableFormatReader;
+        m_isCompactRowKeys = tableFormatReader.getReadVersion() >= 13;
+        m_stringDictionaries = tableFormatReader.createStringDictionaries();
         assert m_tableFormatReader.getReadVersion() >= 6 : "Iterator is not backward compatible, use instead "
             + BufferFromFileIteratorVersion1x.class.getSimpleName();
 
@@ -169,12 +181,19 @@ public synchronized BlobSupportDataRow next() {
             DataCell nextCell;
             try {
                 try {
-                    nextCell = m_dataCellStreamReader.readDataCell(m_inStream);
+                    final StringCellDictionary dictionary = getStringDictionary(i);
+                    nextCell = dictionary == null ? m_dataCellStreamReader.readDataCell(m_inStream)
+                        : m_dataCellStreamReader.readDataCell(m_inStream, dictionary);
                 } finally {
                     m_inStream.endBlock();
                 }
             } catch (final Exception e) {
                 handleReadThrowable(e);
+                // the cell may have been added to the dictionary when written, subsequent indices might not match
+                final StringCellDictionary dictionary = getStringDictionary(i);
+                if (dictionary != null) {
+                    dictionary.disable();
+                }
                 nextCell = DataType.getMissingCell();
             }
             cells[i] = nextCell;
@@ -205,7 +224,7 @@ private RowKey readRowKeyAndEndBlock(
             return DUMMY_ROW_KEY;
         }
         try {
-            return inStream.readRowKey();
+            return m_isCompactRowKeys ? inStream.readCompactRowKey() : inStream.readRowKey();
         } finally {
             inStream.endBlock();
         }
@@ -299,6 +318,10 @@ static BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellCl
         }
     }
 
+    private StringCellDictionary getStringDictionary(final int col) {
+        return m_stringDictionaries == null || col >= m_stringDictionaries.length ? null : m_stringDictionaries[col];
+    }
+
     /** Utility class that separates the logic of reading DataCells from the stream. */
     public static class DataCellStreamReader {
 
@@ -320,8 +343,35 @@ public DataCellStreamReader(final AbstractTableStoreReader tableFormatReader) {
          */
         public DataCell readDataCell(final DCObjectInputVersion2 inStream) throws IOException {
             inStream.setCurrentClassLoader(null);
+            return readDataCell(inStream, inStream.readControlByte());
+        }
+
+        /**
+         * Reads a top-level data cell from a stream whose string cells are dictionary encoded, see
+         * {@link StringCellDictionary}. Does not exception handling, nor stream blocking.
+         *
+         * @param inStream To read from.
+         * @param dictionary The string dictionary of the cell's column.
+         * @return the data cell being read
+         * @throws IOException If exceptions occur.
+         */
+        DataCell readDataCell(final DCObjectInputVersion2 inStream, final StringCellDictionary dictionary)
+            throws IOException {
+            inStream.setCurrentClassLoader(null);
+            final byte identifier = inStream.readControlByte();
+            if (identifier == BYTE_TYPE_DICTIONARY_ENTRY) {
+                return dictionary.get(inStream.readVarLong());
+            }
+            final DataCell result = readDataCell(inStream, identifier);
+            if (result instanceof StringCell) {
+                dictionary.add((StringCell)result);
+            }
+            return result;
+        }
 
-            byte identifier = inStream.readControlByte();
+        private DataCell readDataCell(final DCObjectInputVersion2 inStream, final byte controlByte)
+            throws IOException {
+            byte identifier = controlByte;
             if (identifier == BYTE_TYPE_MISSING) {
                 return DataType.getMissingCell();
             }
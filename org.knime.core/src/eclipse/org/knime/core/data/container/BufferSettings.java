@@ -77,6 +77,9 @@ public final class BufferSettings {
     /** The default number of tables that can be kept in the soft-references LRU cache before being weak-referenced. */
     static final int DEF_LRU_CACHE_SIZE = 32;
 
+    /** The default number of row batches decoded ahead of the consumer when reading tables from disk. */
+    static final int DEF_READ_AHEAD_BATCHES = 4;
+
     /** The enable LRU caching flag. */
     private final boolean m_enableLRU;
 
@@ -86,6 +89,9 @@ public final class BufferSettings {
     /** The output table store format. */
     private final TableStoreFormat m_outputFormat;
 
+    /** The number of row batches decoded ahead of the consumer, 0 if reading ahead is disabled. */
+    private final int m_readAheadBatches;
+
     /**
      * Default constructor.
      */
@@ -93,6 +99,7 @@ public final class BufferSettings {
         m_enableLRU = initLRU();
         m_lruCacheSize = DEF_LRU_CACHE_SIZE;
         m_outputFormat = TableStoreFormatRegistry.getInstance().getInstanceTableStoreFormat();
+        m_readAheadBatches = initReadAheadBatches();
     }
 
     /**
@@ -101,12 +108,15 @@ public final class BufferSettings {
      * @param enableLRU the enable LRU flag
      * @param lruCacheSize the LRU cache size
      * @param outputFormat the output format
+     * @param readAheadBatches the number of row batches decoded ahead
      * @noreference This constructor is not intended to be referenced by clients.
      */
-    private BufferSettings(final boolean enableLRU, final int lruCacheSize, final TableStoreFormat outputFormat) {
+    private BufferSettings(final boolean enableLRU, final int lruCacheSize, final TableStoreFormat outputFormat,
+        final int readAheadBatches) {
         m_enableLRU = enableLRU;
         m_lruCacheSize = lruCacheSize;
         m_outputFormat = outputFormat;
+        m_readAheadBatches = readAheadBatches;
     }
 
     /**
@@ -130,6 +140,34 @@ private static boolean initLRU() {
         return DEF_TABLE_CACHE.equals("LRU");
     }
 
+    /**
+     * Initializes the number of read-ahead batches w.r.t. the defined properties.
+     *
+     * @return the number of read-ahead batches
+     */
+    private static int initReadAheadBatches() {
+        if (Boolean.getBoolean(KNIMEConstants.PROPERTY_SYNCHRONOUS_IO)) {
+            return 0;
+        }
+        int readAheadBatches = DEF_READ_AHEAD_BATCHES;
+        final String prop = KNIMEConstants.PROPERTY_ASYNC_READ_AHEAD;
+        final String val = System.getProperty(prop);
+        if (val != null) {
+            try {
+                readAheadBatches = Integer.parseInt(val.trim());
+                if (readAheadBatches < 0) {
+                    throw new IllegalArgumentException("number of read-ahead batches < 0: " + readAheadBatches);
+                }
+                LOGGER.debug("Setting number of read-ahead batches to " + readAheadBatches);
+            } catch (final IllegalArgumentException e) {
+                LOGGER.warn("Unable to parse property " + prop + ", using default (" + DEF_READ_AHEAD_BATCHES + ")",
+                    e);
+                readAheadBatches = DEF_READ_AHEAD_BATCHES;
+            }
+        }
+        return readAheadBatches;
+    }
+
     /**
      * Returns whether to use LRU caching or not.
      *
@@ -148,6 +186,15 @@ int getLRUCacheSize() {
         return m_lruCacheSize;
     }
 
+    /**
+     * Returns the number of row batches that are decoded ahead of the consumer when reading a table from disk.
+     *
+     * @return the number of read-ahead batches, 0 if reading ahead is disabled
+     */
+    int getReadAheadBatches() {
+        return m_readAheadBatches;
+    }
+
     /**
      * Returns the {@link TableStoreFormat} used to read and write the {@link Buffer Buffer's} content.
      *
@@ -183,7 +230,7 @@ public static BufferSettings getDefault() {
      * @return a new instance of {@code BufferSettings}
      */
     public BufferSettings withLRU(final boolean enableLRU) {
-        return new BufferSettings(enableLRU, m_lruCacheSize, m_outputFormat);
+        return new BufferSettings(enableLRU, m_lruCacheSize, m_outputFormat, m_readAheadBatches);
     }
 
     /**
@@ -194,7 +241,7 @@ public BufferSettings withLRU(final boolean enableLRU) {
      * @return a new instance of {@code BufferSettings}
      */
     public BufferSettings withLRUCacheSize(final int lruCacheSize) {
-        return new BufferSettings(m_enableLRU, lruCacheSize, m_outputFormat);
+        return new BufferSettings(m_enableLRU, lruCacheSize, m_outputFormat, m_readAheadBatches);
     }
 
     /**
@@ -205,7 +252,19 @@ public BufferSettings withLRUCacheSize(final int lruCacheSize) {
      * @return a new instance of {@code BufferSettings}
      */
     public BufferSettings withOutputFormat(final TableStoreFormat outputFormat) {
-        return new BufferSettings(m_enableLRU, m_lruCacheSize, outputFormat);
+        return new BufferSettings(m_enableLRU, m_lruCacheSize, outputFormat, m_readAheadBatches);
+    }
+
+    /**
+     * Creates a new <code>BufferSettings</code> object by replicating the current <code>BufferSettings</code> instance
+     * and solely changes the number of row batches that are decoded ahead of the consumer when reading from disk.
+     *
+     * @param readAheadBatches the new number of read-ahead batches, 0 to disable reading ahead
+     * @return a new instance of {@code BufferSettings}
+     * @since 4.1
+     */
+    public BufferSettings withReadAheadBatches(final int readAheadBatches) {
+        return new BufferSettings(m_enableLRU, m_lruCacheSize, m_outputFormat, Math.max(0, readAheadBatches));
     }
 
 }
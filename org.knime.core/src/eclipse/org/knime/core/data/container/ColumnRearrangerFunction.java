@@ -47,12 +47,18 @@
  */
 package org.knime.core.data.container;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 
 import org.knime.core.data.DataRow;
 import org.knime.core.data.container.ColumnRearranger.SpecAndFactoryObject;
 import org.knime.core.data.container.RearrangeColumnsTable.NewColumnsProducerMapping;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
 import org.knime.core.node.streamable.StreamableFunction;
 import org.knime.core.node.streamable.StreamableOperatorInternals;
 
@@ -66,6 +72,9 @@ final class ColumnRearrangerFunction extends StreamableFunction {
     private final boolean[] m_isFromRefTables;
     private final int[] m_includesIndices;
     private final StreamableOperatorInternals m_emptyInternals;
+    private final int m_inPortIdx;
+    private final int m_outPortIdx;
+    private final int m_rowBlockSize;
 
     /**
      * @param rearranger */
@@ -106,6 +115,9 @@ final class ColumnRearrangerFunction extends StreamableFunction {
         m_isFromRefTables = isFromRefTable;
         m_includesIndices = includesIndex;
         m_emptyInternals = emptyInternals;
+        m_inPortIdx = inPortIdx;
+        m_outPortIdx = outPortIdx;
+        m_rowBlockSize = RearrangeColumnsTable.getMaxRowBlockSize(m_newColumnsMapping);
     }
 
     /** {@inheritDoc} */
@@ -115,6 +127,57 @@ public void init(final ExecutionContext ctx) throws Exception {
         RearrangeColumnsTable.initProcessing(m_newColumnsMapping, ctx);
     }
 
+    /** {@inheritDoc} Collects the input into blocks if any of the cell factories processes row blocks (see
+     * {@link AbstractCellFactory#getRowBlockSize()}). */
+    @Override
+    public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext ctx)
+        throws Exception {
+        if (m_rowBlockSize <= 1) {
+            super.runFinal(inputs, outputs, ctx);
+            return;
+        }
+        RowInput rowInput = ((RowInput)inputs[m_inPortIdx]);
+        RowOutput rowOutput = ((RowOutput)outputs[m_outPortIdx]);
+        init(ctx);
+        try {
+            final List<DataRow> block = new ArrayList<>(m_rowBlockSize);
+            DataRow inputRow;
+            long index = 0;
+            do {
+                block.clear();
+                while (block.size() < m_rowBlockSize && (inputRow = rowInput.poll()) != null) {
+                    block.add(inputRow);
+                }
+                for (DataRow outputRow : compute(block.toArray(new DataRow[block.size()]))) {
+                    rowOutput.push(outputRow);
+                }
+                if (!block.isEmpty()) {
+                    index += block.size();
+                    final long i = index;
+                    final DataRow r = block.get(block.size() - 1);
+                    ctx.setMessage(() -> String.format("Row %d (\"%s\"))", i, r.getKey()));
+                }
+            } while (block.size() == m_rowBlockSize);
+            rowInput.close();
+            rowOutput.close();
+        } finally {
+            finish();
+        }
+    }
+
+    /** Block variant of {@link #compute(DataRow)}.
+     * @param inputRows the input rows
+     * @return the output rows, one for each input row */
+    DataRow[] compute(final DataRow[] inputRows) {
+        DataRow[] appendRows = RearrangeColumnsTable.calcNewCellsForRows(inputRows, m_newColumnsMapping);
+        DataRow[] outputRows = new DataRow[inputRows.length];
+        for (int i = 0; i < inputRows.length; i++) {
+            outputRows[i] =
+                JoinTableIterator.createOutputRow(inputRows[i], appendRows[i], m_includesIndices, m_isFromRefTables);
+        }
+        return outputRows;
+    }
+
     /** {@inheritDoc} */
     @Override
     public DataRow compute(final DataRow inputRow) {
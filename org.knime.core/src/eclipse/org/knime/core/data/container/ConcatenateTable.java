@@ -46,6 +46,8 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -86,6 +88,8 @@ public final class ConcatenateTable implements KnowsRowCountTable {
     private BufferedDataTable[] m_tables;
     private DataTableSpec m_spec;
     private String m_rowKeyDuplicateSuffix;
+    /** Lazily composed, see {@link #getRowKeySummary()}. */
+    private Optional<RowKeySummary> m_rowKeySummary;
 
     private ConcatenateTable(final BufferedDataTable[] tables,
         final String rowKeyDuplicateSuffix, final long rowCount) {
@@ -173,6 +177,39 @@ public DataTableSpec getDataTableSpec() {
         return m_spec;
     }
 
+    /**
+     * Summary of the row keys, composed of the summaries of the concatenated tables. Only available if the row keys
+     * are not modified (no duplicate suffix is set) and the summaries of all concatenated tables are known.
+     *
+     * @return the summary, empty if not known
+     * @since 4.1
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public synchronized Optional<RowKeySummary> getRowKeySummary() {
+        if (m_rowKeySummary == null) {
+            m_rowKeySummary = Optional.empty();
+            if (m_rowKeyDuplicateSuffix == null) {
+                final List<RowKeySummary> parts = new ArrayList<>(m_tables.length);
+                for (BufferedDataTable table : m_tables) {
+                    if (table.size() == 0) {
+                        continue;
+                    }
+                    final Optional<RowKeySummary> part = table.getRowKeySummary();
+                    if (!part.isPresent()) {
+                        return m_rowKeySummary;
+                    }
+                    parts.add(part.get());
+                }
+                if (!parts.isEmpty()) {
+                    // keys have been checked on creation or are guaranteed to be unique by the caller
+                    m_rowKeySummary =
+                        Optional.of(RowKeySummary.compose(true, parts.toArray(new RowKeySummary[parts.size()])));
+                }
+            }
+        }
+        return m_rowKeySummary;
+    }
+
     /** {@inheritDoc} */
     @Override
     public CloseableRowIterator iterator() {
@@ -302,21 +339,58 @@ public static ConcatenateTable create(final ExecutionMonitor mon, final Buffered
         return new ConcatenateTable(tables, null, rowCount);
     }
 
+    /**
+     * Checks the row keys of all tables for duplicates. The {@link RowKeySummary row key summaries} of the tables are
+     * used to skip tables whose keys are unique and can't occur in any other table. The keys of the remaining tables
+     * are only passed to the duplicate checker if they can't be ruled out to occur in another table by its summary.
+     */
     private static void checkForDuplicates(final ExecutionMonitor mon, final BufferedDataTable[] tables,
         final long rowCount) throws CanceledExecutionException {
+        final RowKeySummary[] summaries = new RowKeySummary[tables.length];
+        // for each table the summaries of the other tables it may share keys with (null elements if unknown)
+        final List<List<RowKeySummary>> overlapping = new ArrayList<>(tables.length);
+        for (int i = 0; i < tables.length; i++) {
+            summaries[i] = tables[i].getRowKeySummary().orElse(null);
+            overlapping.add(new ArrayList<>());
+        }
+        for (int i = 0; i < tables.length; i++) {
+            for (int j = i + 1; j < tables.length && tables[i].size() > 0; j++) {
+                if (tables[j].size() > 0
+                    && (summaries[i] == null || summaries[j] == null || !summaries[i].isDisjoint(summaries[j]))) {
+                    overlapping.get(i).add(summaries[j]);
+                    overlapping.get(j).add(summaries[i]);
+                }
+            }
+        }
+        long checkRowCount = 0;
+        final boolean[] isCheckAllKeys = new boolean[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            final List<RowKeySummary> others = overlapping.get(i);
+            isCheckAllKeys[i] = summaries[i] == null || !summaries[i].hasUniqueKeys() || others.contains(null);
+            if (isCheckAllKeys[i] || !others.isEmpty()) {
+                checkRowCount += tables[i].size();
+            }
+        }
         DuplicateChecker check = new DuplicateChecker();
         int r = 0;
         for (int i = 0; i < tables.length; i++) {
+            final List<RowKeySummary> others = overlapping.get(i);
+            if (!isCheckAllKeys[i] && others.isEmpty()) {
+                continue;
+            }
             for (DataRow row : tables[i]) {
                 RowKey key = row.getKey();
-                try {
-                    check.addKey(key.toString());
-                } catch (DuplicateKeyException | IOException ex) {
-                    throw new IllegalArgumentException("Duplicate row key \"" + key + "\" in table with index " + i);
+                if (isCheckAllKeys[i] || others.stream().anyMatch(o -> o.mightContain(key.getString()))) {
+                    try {
+                        check.addKey(key.toString());
+                    } catch (DuplicateKeyException | IOException ex) {
+                        throw new IllegalArgumentException(
+                            "Duplicate row key \"" + key + "\" in table with index " + i);
+                    }
                 }
                 r++;
-                mon.setProgress(r / (double)rowCount,
-                    "Checking tables, row " + r + "/" + rowCount + " (\"" + row.getKey() + "\")");
+                mon.setProgress(r / (double)checkRowCount,
+                    "Checking tables, row " + r + "/" + checkRowCount + " (\"" + row.getKey() + "\")");
             }
             mon.checkCanceled();
         }
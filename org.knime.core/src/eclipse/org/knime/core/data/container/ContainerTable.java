@@ -49,6 +49,7 @@
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Optional;
 import java.util.zip.ZipOutputStream;
 
 import org.knime.core.data.DataTableSpec;
@@ -165,6 +166,18 @@ public Buffer getBuffer() {
         return m_buffer;
     }
 
+    /**
+     * Summary of the row keys of this table, used to avoid scanning tables for duplicate keys.
+     *
+     * @return the summary, empty if not known (e.g. empty table or table written by a previous version)
+     * @since 4.1
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public Optional<RowKeySummary> getRowKeySummary() {
+        ensureBufferOpen();
+        return Optional.ofNullable(m_buffer.getRowKeySummary());
+    }
+
     /**
      * Delegates to buffer to get its ID.
      * @return the buffer ID
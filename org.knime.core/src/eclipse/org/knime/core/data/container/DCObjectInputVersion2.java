@@ -158,6 +158,35 @@ RowKey readRowKey() throws IOException {
         return new RowKey(m_dataIn.readUTF());
     }
 
+    /** Reads a row key written in the compact form used since {@link Buffer#IVERSION} 13, see
+     * {@link DCObjectOutputVersion2#writeRowKey(RowKey)}.
+     * @return A new row key instance.
+     * @throws IOException If IO problems occur.
+     */
+    RowKey readCompactRowKey() throws IOException {
+        final long value = readVarLong();
+        return value == 0 ? new RowKey(m_dataIn.readUTF()) : RowKey.createRowKey(value - 1);
+    }
+
+    /** Reads a number written by {@link DCObjectOutputVersion2#writeVarLong(long)}.
+     * @return The number.
+     * @throws IOException If IO problems occur or the number is invalid.
+     */
+    long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 56) {
+                throw new IOException("Invalid variable length number encoding (too long)");
+            }
+            b = m_dataIn.readByte();
+            value |= (b & 0x7FL) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
     /** Reads a single byte from the stream.
      * @return That byte.
      * @throws IOException If IO problems occur. */
@@ -129,12 +129,33 @@ public void writeBlobAddress(final BlobAddress address) throws IOException {
         address.serialize(m_dataOut);
     }
 
-    /** Writes a row key by writing the underlying string to the stream.
+    /** Writes a row key. Generated keys (see {@link RowKey#getGeneratedIndex()}) are written as variable length
+     * number (<code>index + 1</code>), other keys as 0 followed by the underlying string (since
+     * {@link Buffer#IVERSION} 13, previous versions only wrote the string).
      * @param key Key to write
      * @throws IOException In case of stream corruption.
      */
     void writeRowKey(final RowKey key) throws IOException {
-        m_dataOut.writeUTF(key.getString());
+        final long index = key.getGeneratedIndex();
+        if (index >= 0) {
+            writeVarLong(index + 1);
+        } else {
+            m_dataOut.write(0);
+            m_dataOut.writeUTF(key.getString());
+        }
+    }
+
+    /** Writes a non-negative number in 7 bit groups, least significant first, the high bit marking continuation.
+     * @param value The number to write.
+     * @throws IOException In case of stream corruption.
+     */
+    void writeVarLong(final long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            m_dataOut.write((int)((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        m_dataOut.write((int)v);
     }
 
     /** Writes the argument byte.
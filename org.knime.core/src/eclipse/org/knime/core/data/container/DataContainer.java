@@ -94,6 +94,7 @@
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.NodeExecutionTracer;
 import org.knime.core.node.workflow.WorkflowDataRepository;
 import org.knime.core.util.DuplicateChecker;
 import org.knime.core.util.DuplicateKeyException;
@@ -589,8 +590,14 @@ public void close() {
             String key = dke.getKey();
             throw new DuplicateKeyException("Found duplicate row ID \"" + key + "\" (at unknown position)", key);
         }
+        // keys were checked above or, if the check is overridden, are guaranteed to be unique by the subclass
+        m_buffer.setHasUniqueRowKeys();
         m_table = new ContainerTable(m_buffer);
         getLocalTableRepository().put(m_table.getBufferID(), m_table);
+        final NodeExecutionTracer tracer = NodeExecutionTracer.getInstance();
+        if (tracer.isEnabled()) {
+            tracer.tableWritten(m_table.size(), Math.max(0L, getBufferFileSize()));
+        }
         m_buffer = null;
         m_spec = null;
         m_duplicateChecker.clear();
@@ -599,6 +606,38 @@ public void close() {
         m_size = -1;
     }
 
+    /**
+     * Closes this container, to which no rows must have been added, so that its table is a file level copy of the
+     * argument table: the table's data file is hard linked or copied as a whole instead of re-encoding every row. The
+     * new table gets its own buffer ID and is registered with this container's table repositories like any other
+     * table created by this container. Not all tables qualify (e.g. tables held in memory or containing blob or
+     * file store cells); in that case this method returns <code>false</code> and leaves the container unchanged.
+     *
+     * @param table the table to copy
+     * @return whether the container was closed with a copy of the table
+     * @throws IOException if the data file can't be linked or copied
+     * @throws IllegalStateException if the container is not open or rows were already added
+     * @since 4.1
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    protected final boolean closeWithFileCopy(final ContainerTable table) throws IOException {
+        if (!isOpen() || m_size != 0 || m_buffer != null) {
+            throw new IllegalStateException("File copy requires an open container with no rows added");
+        }
+        final Buffer source = table.getBuffer();
+        if (!source.isFileCopySupported()) {
+            return false;
+        }
+        m_table = new ContainerTable(source.createFileCopy(createInternalBufferID(), getDataRepository()));
+        getLocalTableRepository().put(m_table.getBufferID(), m_table);
+        m_spec = null;
+        m_duplicateChecker.clear();
+        m_duplicateChecker = null;
+        m_domainCreator = null;
+        m_size = -1;
+        return true;
+    }
+
     /**
      * Get the number of rows that have been added so far. (How often has <code>addRowToTable</code> been called.)
      *
@@ -833,15 +872,14 @@ protected int createInternalBufferID() {
      * This method may be overridden to disable duplicate checks. The overriding class must ensure that there are no
      * duplicates being added whatsoever.
      *
-     * @param key Key being added. This implementation extracts the string representation from it and adds it to an
-     *            internal {@link DuplicateChecker} instance.
+     * @param key Key being added. This implementation adds it to an internal {@link DuplicateChecker} instance.
      * @throws DataContainerException This implementation may throw a <code>DataContainerException</code> when
-     *             {@link DuplicateChecker#addKey(String)} throws an {@link IOException}.
+     *             {@link DuplicateChecker#addKey(RowKey)} throws an {@link IOException}.
      * @throws DuplicateKeyException If a duplicate is encountered.
      */
     protected void addRowKeyForDuplicateCheck(final RowKey key) {
         try {
-            m_duplicateChecker.addKey(key.toString());
+            m_duplicateChecker.addKey(key);
         } catch (IOException ioe) {
             throw new DataContainerException(
                 ioe.getClass().getSimpleName() + " while checking for duplicate row IDs: " + ioe.getMessage(), ioe);
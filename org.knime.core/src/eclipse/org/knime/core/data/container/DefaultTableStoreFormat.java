@@ -93,6 +93,12 @@ public final class DefaultTableStoreFormat implements TableStoreFormat {
     /** Compression format. */
     private static final String CFG_COMPRESSION = "container.compression";
 
+    /** The columns whose top-level strings are dictionary encoded, see {@link StringCellDictionary} (since 4.1). */
+    static final String CFG_STRING_DICTIONARY_COLUMNS = "container.string.dictionary.columns";
+
+    /** The memory limit of the string dictionary of each encoded column (since 4.1). */
+    static final String CFG_STRING_DICTIONARY_BYTES = "container.string.dictionary.bytes";
+
     /**
      * Checked function interface throwing an IOException.
      *
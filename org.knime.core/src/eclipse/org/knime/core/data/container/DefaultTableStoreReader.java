@@ -72,6 +72,12 @@ final class DefaultTableStoreReader extends AbstractTableStoreReader {
 
     private final boolean m_isReadRowKey;
 
+    /** The columns whose string cells are dictionary encoded or null if none. */
+    private final int[] m_stringDictionaryColumns;
+
+    /** The memory limit of each string dictionary. */
+    private final long m_stringDictionaryBytes;
+
     /**
      * Constructs a reader for materializing serialized KNIME tables.
      *
@@ -108,6 +114,9 @@ final class DefaultTableStoreReader extends AbstractTableStoreReader {
             cF = CompressionFormat.GZIP;
         }
         m_compressionFormat = cF;
+        m_stringDictionaryColumns =
+            settings.getIntArray(DefaultTableStoreFormat.CFG_STRING_DICTIONARY_COLUMNS, (int[])null);
+        m_stringDictionaryBytes = settings.getLong(DefaultTableStoreFormat.CFG_STRING_DICTIONARY_BYTES, 0);
     }
 
     @Override
@@ -115,9 +124,14 @@ public TableStoreCloseableRowIterator iterator() {
         try {
             if (getReadVersion() <= 5) { // 2.0 tech preview and before
                 return new BufferFromFileIteratorVersion1x(this);
-            } else {
-                return new BufferFromFileIteratorVersion20(this);
             }
+            final BufferFromFileIteratorVersion20 it = new BufferFromFileIteratorVersion20(this);
+            final Buffer buffer = getBuffer();
+            final int readAheadBatches = buffer == null ? 0 : buffer.getBufferSettings().getReadAheadBatches();
+            if (readAheadBatches > 0 && buffer.size() > ReadAheadRowIterator.ROWS_PER_BATCH) {
+                return new ReadAheadRowIterator(it, buffer.size(), m_spec.getNumColumns(), readAheadBatches);
+            }
+            return it;
         } catch (IOException ioe) {
             StringBuilder b = new StringBuilder("Cannot read file \"");
             b.append(m_binFile != null ? m_binFile.getName() : "<unknown>");
@@ -146,6 +160,15 @@ boolean isReadRowKey() {
         return m_isReadRowKey;
     }
 
+    /**
+     * @return New string dictionaries for reading the table, null for columns that aren't encoded, or null if top-level
+     *         string cells are not dictionary encoded, see {@link StringCellDictionary}.
+     */
+    StringCellDictionary[] createStringDictionaries() {
+        return m_stringDictionaryColumns == null ? null : StringCellDictionary
+            .createForReading(m_spec.getNumColumns(), m_stringDictionaryColumns, m_stringDictionaryBytes);
+    }
+
     /**
      * @return number of records
      * @see org.knime.core.data.container.Buffer#size()
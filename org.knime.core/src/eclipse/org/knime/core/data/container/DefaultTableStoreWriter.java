@@ -58,6 +58,7 @@
 import org.knime.core.data.container.DCObjectOutputVersion2.BlockableDCObjectOutputVersion2;
 import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.node.NodeSettingsWO;
 
 /**
@@ -75,6 +76,9 @@ final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements
     /** The compression format. */
     private final CompressionFormat m_compFormat;
 
+    /** The string dictionary of each column, null for columns that aren't encoded or if no column is encoded. */
+    private final StringCellDictionary[] m_stringDictionaries;
+
     /**
      * Constructs a writer for writing KNIME tables to disk using the given compression format.
      *
@@ -88,6 +92,7 @@ public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outp
         final CompressionFormat compFormat) throws IOException {
         super(spec, writeRowKey);
         m_compFormat = compFormat;
+        m_stringDictionaries = StringCellDictionary.createForWriting(spec);
         m_outStream = initOutFile(new BufferedOutputStream(outputStream));
     }
 
@@ -103,12 +108,33 @@ public void writeRow(final DataRow row) throws IOException {
         for (int i = 0; i < row.getNumCells(); i++) {
             DataCell cell =
                 row instanceof BlobSupportDataRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
-            writeDataCell(cell, m_outStream);
+            if (!(cell instanceof StringCell) || !writeDictionaryEntry((StringCell)cell, i)) {
+                writeDataCell(cell, m_outStream);
+            }
             m_outStream.endBlock();
         }
         m_outStream.endRow();
     }
 
+    /**
+     * Writes the string cell as index into the column's string dictionary if it is contained, otherwise adds it to the
+     * dictionary (if possible) and leaves it to the caller to write the cell in full.
+     *
+     * @return whether the cell has been written
+     */
+    private boolean writeDictionaryEntry(final StringCell cell, final int col) throws IOException {
+        if (m_stringDictionaries == null || col >= m_stringDictionaries.length || m_stringDictionaries[col] == null) {
+            return false;
+        }
+        final int index = m_stringDictionaries[col].lookupOrAdd(cell);
+        if (index < 0) {
+            return false;
+        }
+        m_outStream.writeControlByte(BYTE_TYPE_DICTIONARY_ENTRY);
+        m_outStream.writeVarLong(index);
+        return true;
+    }
+
     /**
      * Writes the row key to the out stream. This method is overridden in {@link NoKeyBuffer} in order to skip the row
      * key.
@@ -137,6 +163,12 @@ private BlockableDCObjectOutputVersion2 initOutFile(final OutputStream outStream
     @Override
     public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
         m_compFormat.saveSettings(settings);
+        if (m_stringDictionaries != null) {
+            settings.addIntArray(DefaultTableStoreFormat.CFG_STRING_DICTIONARY_COLUMNS,
+                StringCellDictionary.getColumns(m_stringDictionaries));
+            settings.addLong(DefaultTableStoreFormat.CFG_STRING_DICTIONARY_BYTES,
+                StringCellDictionary.getMaxBytes(m_stringDictionaries));
+        }
         super.writeMetaInfoAfterWrite(settings);
     }
 
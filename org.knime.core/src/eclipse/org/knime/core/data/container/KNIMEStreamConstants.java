@@ -81,5 +81,11 @@ public interface KNIMEStreamConstants {
     /** Separator for different rows. */
     static final byte BYTE_ROW_SEPARATOR = BYTE_TYPE_MISSING + 3;
 
+    /**
+     * The char for a string cell written as index into the column's string dictionary (only used for top-level
+     * cells, since 4.1), see {@link StringCellDictionary}. Not available as type shortcut.
+     */
+    static final byte BYTE_TYPE_DICTIONARY_ENTRY = Byte.MAX_VALUE;
+
 
 }
@@ -74,10 +74,10 @@ class NoKeyBuffer extends Buffer {
         NodeLogger.getLogger(NoKeyBuffer.class);
 
     /** Current version string. */
-    private static final String VERSION = "noRowKeyContainer_12";
+    private static final String VERSION = "noRowKeyContainer_13";
 
     /** The version number corresponding to VERSION. */
-    private static final int IVERSION = 12;
+    private static final int IVERSION = 13;
 
     private static final HashMap<String, Integer> COMPATIBILITY_MAP;
 
@@ -95,6 +95,7 @@ class NoKeyBuffer extends Buffer {
         COMPATIBILITY_MAP.put("noRowKeyContainer_9", 9);
         COMPATIBILITY_MAP.put("noRowKeyContainer_10", 10);
         COMPATIBILITY_MAP.put("noRowKeyContainer_11", 11);
+        COMPATIBILITY_MAP.put("noRowKeyContainer_12", 12);
         COMPATIBILITY_MAP.put(VERSION, IVERSION);
     }
 
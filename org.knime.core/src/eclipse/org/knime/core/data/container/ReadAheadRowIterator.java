@@ -0,0 +1,297 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DefaultTableStoreReader.FromFileIterator;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.workflow.NodeContext;
+
+/**
+ * File iterator that decodes rows ahead of the consumer. A task running in a bounded thread pool reads batches of
+ * {@link #ROWS_PER_BATCH} rows from a {@link BufferFromFileIteratorVersion20} into a queue of at most a configurable
+ * number of batches, while the consumer processes the current batch. The task never blocks on a full queue; it
+ * terminates and is rescheduled by the consumer once a batch has been taken. Closing the iterator stops the task and
+ * closes the underlying stream.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @see BufferSettings#withReadAheadBatches(int)
+ */
+final class ReadAheadRowIterator extends FromFileIterator {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ReadAheadRowIterator.class);
+
+    /** The number of rows decoded in one go and handed to the consumer as a batch. */
+    static final int ROWS_PER_BATCH = 100;
+
+    /** The executor decoding the batches, the read-side counterpart of {@link DataContainer#ASYNC_EXECUTORS}. */
+    private static final ThreadPoolExecutor ASYNC_READ_EXECUTORS;
+
+    static {
+        final int maxThreads = DataContainerSettings.getDefault().getMaxContainerThreads();
+        ASYNC_READ_EXECUTORS = new ThreadPoolExecutor(maxThreads, maxThreads, 10L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicLong m_threadCount = new AtomicLong();
+
+                @Override
+                public Thread newThread(final Runnable r) {
+                    return new Thread(r, "KNIME-Container-Read-Thread-" + m_threadCount.getAndIncrement());
+                }
+            });
+        ASYNC_READ_EXECUTORS.allowCoreThreadTimeOut(true);
+    }
+
+    /** The iterator doing the actual decoding, only accessed by the decode task (and when closing). */
+    private final BufferFromFileIteratorVersion20 m_delegate;
+
+    /** The number of rows in the table. */
+    private final long m_size;
+
+    /** The number of columns in the table. */
+    private final int m_numColumns;
+
+    /** The maximum number of decoded batches waiting in {@link #m_batches}. */
+    private final int m_maxBatches;
+
+    /** The node context of the creating thread, may be null. */
+    private final NodeContext m_nodeContext;
+
+    /** Decoded batches (<code>BlobSupportDataRow[]</code>) or the throwable that stopped the decoding. */
+    private final LinkedBlockingQueue<Object> m_batches = new LinkedBlockingQueue<>();
+
+    /** Whether a decode task is currently submitted or running. */
+    private final AtomicBoolean m_isScheduled = new AtomicBoolean();
+
+    /** Number of rows decoded so far, only written by the decode task. */
+    private volatile long m_decoded;
+
+    /** Set when the iterator is closed, stops the decode task. */
+    private volatile boolean m_isClosed;
+
+    /** The batch currently being returned by {@link #next()}. */
+    private BlobSupportDataRow[] m_currentBatch;
+
+    /** Index of the next row in {@link #m_currentBatch}. */
+    private int m_currentIndex;
+
+    /** Number of rows returned by {@link #next()}. */
+    private long m_returned;
+
+    /** Failure of the decode task, rethrown on every subsequent call to {@link #next()}. */
+    private RuntimeException m_failure;
+
+    /** Content of the rows returned after the iterator has been closed, instantiated lazily. */
+    private DataCell[] m_missingCellsForClosedTable;
+
+    /**
+     * Creates the iterator and starts decoding the first batches.
+     *
+     * @param delegate the iterator to read from, must not be used elsewhere
+     * @param size the number of rows in the table
+     * @param numColumns the number of columns in the table
+     * @param maxBatches the maximum number of batches decoded ahead of the consumer, &gt; 0
+     */
+    ReadAheadRowIterator(final BufferFromFileIteratorVersion20 delegate, final long size, final int numColumns,
+        final int maxBatches) {
+        m_delegate = delegate;
+        m_size = size;
+        m_numColumns = numColumns;
+        m_maxBatches = maxBatches;
+        // may be null if the table is read outside of a node's context (e.g., in unit tests)
+        m_nodeContext = NodeContext.getContext();
+        schedule();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setBuffer(final Buffer buffer) {
+        super.setBuffer(buffer);
+        // the delegate closes itself when garbage collected
+        m_delegate.setBuffer(buffer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized boolean hasNext() {
+        final boolean hasNext = m_returned < m_size;
+        if (!hasNext && !m_isClosed) {
+            close();
+        }
+        return hasNext;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized BlobSupportDataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Iterator at end");
+        }
+        if (m_failure != null) {
+            throw m_failure;
+        }
+        if (!m_isClosed && (m_currentBatch == null || m_currentIndex == m_currentBatch.length)) {
+            m_currentBatch = takeBatch();
+            m_currentIndex = 0;
+        }
+        final long rowIndex = m_returned++;
+        if (m_isClosed) {
+            m_currentBatch = null;
+            return createRowForClosedTable(rowIndex);
+        }
+        final BlobSupportDataRow row = m_currentBatch[m_currentIndex];
+        // release the row as early as possible, the consumer may hold the iterator for long
+        m_currentBatch[m_currentIndex++] = null;
+        return row;
+    }
+
+    /**
+     * Waits for the next decoded batch and triggers decoding of further batches.
+     *
+     * @return the next batch or null if the iterator has been closed
+     */
+    private BlobSupportDataRow[] takeBatch() {
+        boolean isInterrupted = false;
+        try {
+            Object batch = null;
+            while (batch == null && !m_isClosed) {
+                try {
+                    batch = m_batches.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ie) {
+                    // the stream position must stay consistent, hence we continue waiting
+                    isInterrupted = true;
+                }
+            }
+            if (batch instanceof Throwable) {
+                final Throwable t = (Throwable)batch;
+                if (t instanceof Error) {
+                    throw (Error)t;
+                }
+                m_failure = t instanceof RuntimeException ? (RuntimeException)t
+                    : new DataContainerException("Reading rows ahead failed: " + t.getMessage(), t);
+                throw m_failure;
+            }
+            schedule();
+            return (BlobSupportDataRow[])batch;
+        } finally {
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Submits a decode task unless one is already pending or there is nothing left to decode. */
+    private void schedule() {
+        if (!m_isClosed && m_decoded < m_size && m_isScheduled.compareAndSet(false, true)) {
+            ASYNC_READ_EXECUTORS.execute(this::decodeBatches);
+        }
+    }
+
+    /** Decodes batches until the queue is full, all rows have been read, or the iterator is closed. */
+    private void decodeBatches() {
+        NodeContext.pushContext(m_nodeContext);
+        try {
+            while (!m_isClosed && m_decoded < m_size && m_batches.size() < m_maxBatches) {
+                final BlobSupportDataRow[] batch =
+                    new BlobSupportDataRow[(int)Math.min(ROWS_PER_BATCH, m_size - m_decoded)];
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] = m_delegate.next();
+                }
+                m_decoded += batch.length;
+                m_batches.add(batch);
+            }
+        } catch (Throwable t) {
+            LOGGER.debug("Reading rows ahead failed: " + t.getMessage(), t);
+            m_decoded = m_size;
+            m_batches.add(t);
+        } finally {
+            NodeContext.removeLastContext();
+            if (m_isClosed) {
+                m_batches.clear();
+            }
+            m_isScheduled.set(false);
+        }
+        // the consumer might have taken a batch after the size check above but before the flag was reset
+        if (m_batches.size() < m_maxBatches) {
+            schedule();
+        }
+    }
+
+    private BlobSupportDataRow createRowForClosedTable(final long rowIndex) {
+        if (m_missingCellsForClosedTable == null) {
+            m_missingCellsForClosedTable = new DataCell[m_numColumns];
+            Arrays.fill(m_missingCellsForClosedTable, DataType.getMissingCell());
+            LOGGER.warn("Invalid access on table, iterator has been closed");
+        }
+        final RowKey key = new RowKey("INVALID_ROW (table is closed) - (Row " + rowIndex + ")");
+        return new BlobSupportDataRow(key, m_missingCellsForClosedTable);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Not synchronized as a consumer waiting for a batch holds the monitor of this iterator.
+     */
+    @Override
+    public boolean performClose() throws IOException {
+        m_isClosed = true;
+        m_batches.clear();
+        return m_delegate.performClose();
+    }
+
+}
@@ -53,6 +53,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -60,8 +61,11 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
@@ -85,12 +89,14 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.workflow.WorkflowDataRepository;
 import org.knime.core.util.MultiThreadWorker;
 import org.knime.core.util.Pair;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Table implementation that is created based on a ColumnRearranger. This class is not intended for subclassing or to be
@@ -376,10 +382,12 @@ public static RearrangeColumnsTable create(final ColumnRearranger rearranger, fi
             container.setBufferCreator(new NoKeyBufferCreator());
             assert newColumnFactoryList.size() == newColCount;
             try {
-                if (workerCount <= 0) {
-                    calcNewColsSynchronously(table, subProgress, newColsProducerMapping, container);
-                } else {
+                if (workerCount > 0) {
                     calcNewColsASynchronously(table, subProgress, newColsProducerMapping, container);
+                } else if (isPipelinedProcessing(newColsProducerMapping)) {
+                    calcNewColsPipelined(table, subProgress, newColsProducerMapping, container);
+                } else {
+                    calcNewColsSynchronously(table, subProgress, newColsProducerMapping, container);
                 }
             } finally {
                 container.close();
@@ -452,6 +460,11 @@ static void finishProcessing(final NewColumnsProducerMapping newColumnFactoryLis
     private static void calcNewColsSynchronously(final BufferedDataTable table, final ExecutionMonitor subProgress,
         final NewColumnsProducerMapping newColsProducerMapping, final DataContainer container)
         throws CanceledExecutionException {
+        final int rowBlockSize = getMaxRowBlockSize(newColsProducerMapping);
+        if (rowBlockSize > 1) {
+            calcNewColsInBlocks(table, subProgress, newColsProducerMapping, container, rowBlockSize);
+            return;
+        }
         long finalRowCount = table.size();
         Set<CellFactory> newColsFactories = newColsProducerMapping.getUniqueCellFactoryMap().keySet();
         final int factoryCount = newColsFactories.size();
@@ -471,6 +484,54 @@ private static void calcNewColsSynchronously(final BufferedDataTable table, fina
         }
     }
 
+    /**
+     * Processes input sequentially in the caller thread, handing blocks of rows to the cell factories, see
+     * {@link AbstractCellFactory#getCells(DataRow[], DataCell[][])}.
+     */
+    private static void calcNewColsInBlocks(final BufferedDataTable table, final ExecutionMonitor subProgress,
+        final NewColumnsProducerMapping newColsProducerMapping, final DataContainer container, final int rowBlockSize)
+        throws CanceledExecutionException {
+        final long finalRowCount = table.size();
+        final Set<CellFactory> newColsFactories = newColsProducerMapping.getUniqueCellFactoryMap().keySet();
+        final CellFactory facForProgress = newColsFactories.isEmpty() ? null : newColsFactories.iterator().next();
+        final List<DataRow> block = new ArrayList<>(rowBlockSize);
+        long r = 0;
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                block.clear();
+                while (block.size() < rowBlockSize && it.hasNext()) {
+                    block.add(it.next());
+                }
+                final DataRow[] appendRows =
+                    calcNewCellsForRows(block.toArray(new DataRow[block.size()]), newColsProducerMapping);
+                for (DataRow append : appendRows) {
+                    container.addRowToTable(append);
+                    r++;
+                    if (facForProgress != null) {
+                        facForProgress.setProgress(r, finalRowCount, append.getKey(), subProgress);
+                    }
+                }
+                subProgress.checkCanceled();
+            }
+        }
+    }
+
+    /**
+     * The largest {@link AbstractCellFactory#getRowBlockSize() row block size} of all factories.
+     *
+     * @param newColsProducerMapping The factories.
+     * @return The block size, 1 if all factories process rows one by one.
+     */
+    static int getMaxRowBlockSize(final NewColumnsProducerMapping newColsProducerMapping) {
+        int rowBlockSize = 1;
+        for (CellFactory factory : newColsProducerMapping.getUniqueCellFactoryMap().keySet()) {
+            if (factory instanceof AbstractCellFactory) {
+                rowBlockSize = Math.max(rowBlockSize, ((AbstractCellFactory)factory).getRowBlockSize());
+            }
+        }
+        return rowBlockSize;
+    }
+
     /**
      * Processes input concurrently using a {@link ConcurrentNewColCalculator}.
      */
@@ -519,6 +580,52 @@ private static void calcNewColsASynchronously(final BufferedDataTable table, fin
         }
     }
 
+    /**
+     * Whether the new columns are produced by several factories that can be evaluated concurrently, see
+     * {@link AbstractCellFactory#setPipelinedProcessing(boolean, int)}.
+     */
+    private static boolean isPipelinedProcessing(final NewColumnsProducerMapping newColsProducerMapping) {
+        final Set<CellFactory> factories = newColsProducerMapping.getUniqueCellFactoryMap().keySet();
+        return factories.size() > 1 && factories.stream()
+            .allMatch(f -> f instanceof AbstractCellFactory && ((AbstractCellFactory)f).isPipelinedProcessing());
+    }
+
+    /**
+     * Processes input using a {@link PipelinedNewColCalculator}.
+     */
+    private static void calcNewColsPipelined(final BufferedDataTable table, final ExecutionMonitor subProgress,
+        final NewColumnsProducerMapping newColsProducerMapping, final DataContainer container)
+        throws CanceledExecutionException {
+        final PipelinedNewColCalculator calculator =
+            new PipelinedNewColCalculator(table.size(), container, subProgress, newColsProducerMapping);
+        final Callable<Void> c = () -> {
+            calculator.run(table);
+            return null;
+        };
+        try {
+            if (ThreadPool.currentPool() != null) {
+                // the caller mostly waits for the stages; don't let it occupy a thread of the pool meanwhile
+                KNIMEConstants.GLOBAL_THREAD_POOL.runInvisible(c);
+            } else {
+                c.call();
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            }
+            if (cause instanceof InterruptedException) {
+                CanceledExecutionException cee = new CanceledExecutionException(cause.getMessage());
+                cee.initCause(cause);
+                throw cee;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
     private static Set<Class<? extends CellFactory>> codingProblemsCellFactoryClasses;
 
     /**
@@ -536,16 +643,108 @@ static DataRow calcNewCellsForRow(final DataRow unconvertedRow, final NewColumns
         IdentityHashMap<CellFactory, List<Pair<Integer, Integer>>> uniqueCellFactoryMap =
             producerMap.getUniqueCellFactoryMap();
         for (Map.Entry<CellFactory, List<Pair<Integer, Integer>>> e : uniqueCellFactoryMap.entrySet()) {
-            CellFactory factory = e.getKey();
-            List<Pair<Integer, Integer>> list = e.getValue();
-            DataCell[] fromFac = factory.getCells(row);
-            if (fromFac.length != list.size()) {
-                String error = String.format("New cells array length conflict: expected %d, actual %d (class %s)",
-                    list.size(), fromFac.length, factory.getClass().getName());
-                if (fromFac.length < list.size()) {
-                    throw new IndexOutOfBoundsException(error);
-                } else {
-                    // such problems were ignored until 2.6 -- print warning only
+            putCellsFromFactory(e.getKey(), e.getValue(), row, newCells);
+        }
+        DataRow appendix = new DefaultRow(row.getKey(), newCells);
+        return appendix;
+    }
+
+    /**
+     * Block variant of {@link #calcNewCellsForRow(DataRow, NewColumnsProducerMapping)}, which hands the rows to the
+     * cell factories in blocks of their {@link AbstractCellFactory#getRowBlockSize() row block size}.
+     *
+     * @param unconvertedRows The input rows to be processed
+     * @param producerMap For each new (or replaced) column the factory.
+     * @return The output rows, one for each input row.
+     */
+    static DataRow[] calcNewCellsForRows(final DataRow[] unconvertedRows,
+        final NewColumnsProducerMapping producerMap) {
+        final int newColCount = producerMap.getAllNewColumnsList().size();
+        final int count = unconvertedRows.length;
+        final DataCell[][] newCells = new DataCell[count][];
+        final DataRow[] rows = new DataRow[count];
+        for (int i = 0; i < count; i++) {
+            newCells[i] = new DataCell[newColCount];
+            rows[i] = applyDataTypeConverters(unconvertedRows[i], producerMap, newCells[i]);
+        }
+        for (Map.Entry<CellFactory, List<Pair<Integer, Integer>>> e : producerMap.getUniqueCellFactoryMap()
+            .entrySet()) {
+            putCellsFromFactory(e.getKey(), e.getValue(), rows, count, newCells);
+        }
+        final DataRow[] appendix = new DataRow[count];
+        for (int i = 0; i < count; i++) {
+            appendix[i] = new DefaultRow(rows[i].getKey(), newCells[i]);
+        }
+        return appendix;
+    }
+
+    /**
+     * Calls a single cell factory for an input row and puts the produced cells into the new cells array.
+     *
+     * @param factory The factory to call.
+     * @param list The index pairs of the factory, see {@link NewColumnsProducerMapping#getUniqueCellFactoryMap()}.
+     * @param row The (converted) input row.
+     * @param newCells The array of all new cells of the row, only the factory's positions are written.
+     */
+    private static void putCellsFromFactory(final CellFactory factory, final List<Pair<Integer, Integer>> list,
+        final DataRow row, final DataCell[] newCells) {
+        putCells(factory, list, factory.getCells(row), newCells);
+    }
+
+    /**
+     * Calls a single cell factory for the first <code>count</code> rows of a block, using
+     * {@link AbstractCellFactory#getCells(DataRow[], DataCell[][])} if the factory has a row block size larger than 1,
+     * and puts the produced cells into the new cells arrays.
+     *
+     * @param factory The factory to call.
+     * @param list The index pairs of the factory, see {@link NewColumnsProducerMapping#getUniqueCellFactoryMap()}.
+     * @param rows The (converted) input rows.
+     * @param count The number of rows to process.
+     * @param newCells The arrays of all new cells of the rows, only the factory's positions are written.
+     */
+    private static void putCellsFromFactory(final CellFactory factory, final List<Pair<Integer, Integer>> list,
+        final DataRow[] rows, final int count, final DataCell[][] newCells) {
+        final int blockSize =
+            factory instanceof AbstractCellFactory ? ((AbstractCellFactory)factory).getRowBlockSize() : 1;
+        if (blockSize <= 1) {
+            for (int i = 0; i < count; i++) {
+                putCellsFromFactory(factory, list, rows[i], newCells[i]);
+            }
+            return;
+        }
+        for (int from = 0; from < count; from += blockSize) {
+            final int length = Math.min(blockSize, count - from);
+            final DataRow[] block = Arrays.copyOfRange(rows, from, from + length);
+            final DataCell[][] fromFac = new DataCell[length][];
+            ((AbstractCellFactory)factory).getCells(block, fromFac);
+            for (int i = 0; i < length; i++) {
+                putCells(factory, list, fromFac[i], newCells[from + i]);
+            }
+        }
+    }
+
+    /**
+     * Puts the cells produced by a cell factory for a single row into the new cells array.
+     *
+     * @param factory The factory (for error reporting).
+     * @param list The index pairs of the factory, see {@link NewColumnsProducerMapping#getUniqueCellFactoryMap()}.
+     * @param fromFac The cells returned by the factory.
+     * @param newCells The array of all new cells of the row, only the factory's positions are written.
+     */
+    private static void putCells(final CellFactory factory, final List<Pair<Integer, Integer>> list,
+        final DataCell[] fromFac, final DataCell[] newCells) {
+        if (fromFac == null) {
+            throw new NullPointerException("Cell factory returned no cells (class " + factory.getClass().getName()
+                + ")");
+        }
+        if (fromFac.length != list.size()) {
+            String error = String.format("New cells array length conflict: expected %d, actual %d (class %s)",
+                list.size(), fromFac.length, factory.getClass().getName());
+            if (fromFac.length < list.size()) {
+                throw new IndexOutOfBoundsException(error);
+            } else {
+                // such problems were ignored until 2.6 -- print warning only
+                synchronized (RearrangeColumnsTable.class) {
                     if (codingProblemsCellFactoryClasses == null) {
                         codingProblemsCellFactoryClasses = new HashSet<Class<? extends CellFactory>>();
                     }
@@ -554,17 +753,15 @@ static DataRow calcNewCellsForRow(final DataRow unconvertedRow, final NewColumns
                     }
                 }
             }
-            final int length = list.size();
-            for (int i = 0; i < length; i++) {
-                Pair<Integer, Integer> indexPair = list.get(i);
-                int indexInNewCellsArray = indexPair.getFirst();
-                int indexInFactory = indexPair.getSecond();
-                assert newCells[indexInNewCellsArray] == null : "New cells array at index expected to be null";
-                newCells[indexInNewCellsArray] = fromFac[indexInFactory];
-            }
         }
-        DataRow appendix = new DefaultRow(row.getKey(), newCells);
-        return appendix;
+        final int length = list.size();
+        for (int i = 0; i < length; i++) {
+            Pair<Integer, Integer> indexPair = list.get(i);
+            int indexInNewCellsArray = indexPair.getFirst();
+            int indexInFactory = indexPair.getSecond();
+            assert newCells[indexInNewCellsArray] == null : "New cells array at index expected to be null";
+            newCells[indexInNewCellsArray] = fromFac[indexInFactory];
+        }
     }
 
     /**
@@ -787,6 +984,277 @@ protected void processFinished(final ComputationTask task) throws ExecutionExcep
 
     }
 
+    /**
+     * Evaluates several cell factories concurrently, each in its own pipeline stage. The caller thread reads the input
+     * rows (applying the type converters) into a bounded window and writes the new cells in input order once all
+     * stages have processed a row. A stage processes the rows in order and in batches of the factory's
+     * {@link AbstractCellFactory#getPipelineRowBatchSize() row batch size}; at most one task per stage is queued or
+     * running on the global thread pool, so a factory is never called concurrently.
+     */
+    private static final class PipelinedNewColCalculator {
+
+        /** The minimum number of rows that have been read but not yet written. */
+        private static final int MIN_WINDOW_SIZE = 128;
+
+        private final long m_totalRowCount;
+
+        private final DataContainer m_container;
+
+        private final ExecutionMonitor m_subProgress;
+
+        private final NewColumnsProducerMapping m_producerMap;
+
+        private final CellFactory m_facForProgress;
+
+        private final Stage[] m_stages;
+
+        /** Rows in flight, row i is kept at index i % length. */
+        private final Slot[] m_window;
+
+        private final ReentrantLock m_lock = new ReentrantLock();
+
+        /** Signaled whenever a stage has finished a batch or has become idle. */
+        private final Condition m_stageProgress = m_lock.newCondition();
+
+        /** Number of rows read so far; written by the caller thread only, guarded by {@link #m_lock}. */
+        private long m_readCount;
+
+        /** Whether all rows have been read, guarded by {@link #m_lock}. */
+        private boolean m_isInputDone;
+
+        /** Set on failure or when done, stops all stages; guarded by {@link #m_lock}. */
+        private boolean m_isStopped;
+
+        /** First exception thrown by a stage, guarded by {@link #m_lock}. */
+        private Throwable m_failure;
+
+        private PipelinedNewColCalculator(final long totalRowCount, final DataContainer container,
+            final ExecutionMonitor subProgress, final NewColumnsProducerMapping producerMap) {
+            m_totalRowCount = totalRowCount;
+            m_container = container;
+            m_subProgress = subProgress;
+            m_producerMap = producerMap;
+            final IdentityHashMap<CellFactory, List<Pair<Integer, Integer>>> uniqueCellFactoryMap =
+                producerMap.getUniqueCellFactoryMap();
+            m_stages = new Stage[uniqueCellFactoryMap.size()];
+            int maxBatchSize = 1;
+            int i = 0;
+            for (Map.Entry<CellFactory, List<Pair<Integer, Integer>>> e : uniqueCellFactoryMap.entrySet()) {
+                final int batchSize = ((AbstractCellFactory)e.getKey()).getPipelineRowBatchSize();
+                m_stages[i++] = new Stage(e.getKey(), e.getValue(), batchSize);
+                maxBatchSize = Math.max(maxBatchSize, batchSize);
+            }
+            m_facForProgress = m_stages[0].m_factory;
+            // the window must hold at least one full batch of the slowest stage beyond the rows the others wait for
+            m_window = new Slot[Math.max(MIN_WINDOW_SIZE, 2 * maxBatchSize)];
+        }
+
+        /**
+         * Reads the table, evaluates the factories and writes the new cells to the container.
+         *
+         * @param table The input table.
+         * @throws CanceledExecutionException If canceled.
+         * @throws InterruptedException If interrupted while waiting for the stages.
+         */
+        private void run(final BufferedDataTable table) throws CanceledExecutionException, InterruptedException {
+            final int newColCount = m_producerMap.getNewColumnCount();
+            final List<Slot> finished = new ArrayList<>();
+            long written = 0;
+            try (CloseableRowIterator it = table.iterator()) {
+                boolean hasNext = it.hasNext();
+                while (true) {
+                    // read rows as long as there is space in the window
+                    while (hasNext && m_readCount - written < m_window.length) {
+                        final DataRow row = it.next();
+                        final DataCell[] newCells = new DataCell[newColCount];
+                        final Slot slot = new Slot(applyDataTypeConverters(row, m_producerMap, newCells), newCells);
+                        hasNext = it.hasNext();
+                        m_lock.lock();
+                        try {
+                            m_window[(int)(m_readCount % m_window.length)] = slot;
+                            m_readCount++;
+                            m_isInputDone = !hasNext;
+                            scheduleStages();
+                        } finally {
+                            m_lock.unlock();
+                        }
+                    }
+                    // collect the rows all stages are done with, in input order
+                    m_lock.lock();
+                    try {
+                        if (!hasNext && !m_isInputDone) { // empty table
+                            m_isInputDone = true;
+                        }
+                        checkFailure();
+                        long next = written;
+                        while (next < m_readCount && getSlot(next).m_pendingStages == 0) {
+                            finished.add(getSlot(next++));
+                        }
+                        if (finished.isEmpty()) {
+                            if (m_isInputDone && written == m_readCount) {
+                                break;
+                            }
+                            if (!hasNext || m_readCount - written >= m_window.length) {
+                                m_stageProgress.await();
+                            }
+                        }
+                    } finally {
+                        m_lock.unlock();
+                    }
+                    for (Slot slot : finished) {
+                        final RowKey key = slot.m_row.getKey();
+                        m_container.addRowToTable(new DefaultRow(key, slot.m_newCells));
+                        written++;
+                        m_facForProgress.setProgress(written, m_totalRowCount, key, m_subProgress);
+                        m_subProgress.checkCanceled();
+                    }
+                    finished.clear();
+                }
+            } finally {
+                stop();
+            }
+        }
+
+        /** Submits a task for each idle stage that has enough rows to process; requires {@link #m_lock}. */
+        private void scheduleStages() {
+            for (Stage stage : m_stages) {
+                if (!stage.m_isScheduled && stage.isReady()) {
+                    stage.m_isScheduled = true;
+                    KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(stage);
+                }
+            }
+        }
+
+        /** @return the row in flight with the given index; requires {@link #m_lock}. */
+        private Slot getSlot(final long rowIndex) {
+            return m_window[(int)(rowIndex % m_window.length)];
+        }
+
+        /** Rethrows the failure of a stage in the caller thread; requires {@link #m_lock}. */
+        private void checkFailure() {
+            if (m_failure instanceof RuntimeException) {
+                throw (RuntimeException)m_failure;
+            } else if (m_failure instanceof Error) {
+                throw (Error)m_failure;
+            } else if (m_failure != null) {
+                throw new RuntimeException(m_failure);
+            }
+        }
+
+        /** Stops all stages and waits until none is running so that the factories can be finished safely. */
+        private void stop() {
+            m_lock.lock();
+            try {
+                m_isStopped = true;
+                while (Arrays.stream(m_stages).anyMatch(s -> s.m_isScheduled)) {
+                    m_stageProgress.awaitUninterruptibly();
+                }
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        /** A row in flight together with its new cells. */
+        private final class Slot {
+
+            private final DataRow m_row;
+
+            private final DataCell[] m_newCells;
+
+            /** Number of stages that have not yet processed this row, guarded by {@link #m_lock}. */
+            private int m_pendingStages;
+
+            private Slot(final DataRow row, final DataCell[] newCells) {
+                m_row = row;
+                m_newCells = newCells;
+                m_pendingStages = m_stages.length;
+            }
+        }
+
+        /** The pipeline stage of a single cell factory. */
+        private final class Stage implements Runnable {
+
+            private final CellFactory m_factory;
+
+            private final List<Pair<Integer, Integer>> m_indexPairs;
+
+            private final int m_batchSize;
+
+            /** Index of the next row to process, guarded by {@link #m_lock}. */
+            private long m_nextRow;
+
+            /** Whether a task of this stage is queued or running, guarded by {@link #m_lock}. */
+            private boolean m_isScheduled;
+
+            private Stage(final CellFactory factory, final List<Pair<Integer, Integer>> indexPairs,
+                final int batchSize) {
+                m_factory = factory;
+                m_indexPairs = indexPairs;
+                m_batchSize = batchSize;
+            }
+
+            /** @return whether a full batch (or the remainder of the input) can be processed; requires the lock. */
+            private boolean isReady() {
+                final long available = m_readCount - m_nextRow;
+                return !m_isStopped && (available >= m_batchSize || (m_isInputDone && available > 0));
+            }
+
+            @Override
+            public void run() {
+                final Slot[] batch = new Slot[m_batchSize];
+                try {
+                    while (true) {
+                        final int count;
+                        m_lock.lock();
+                        try {
+                            if (!isReady()) {
+                                m_isScheduled = false;
+                                m_stageProgress.signalAll();
+                                return;
+                            }
+                            count = (int)Math.min(m_batchSize, m_readCount - m_nextRow);
+                            for (int i = 0; i < count; i++) {
+                                batch[i] = getSlot(m_nextRow + i);
+                            }
+                        } finally {
+                            m_lock.unlock();
+                        }
+                        final DataRow[] rows = new DataRow[count];
+                        final DataCell[][] newCells = new DataCell[count][];
+                        for (int i = 0; i < count; i++) {
+                            rows[i] = batch[i].m_row;
+                            newCells[i] = batch[i].m_newCells;
+                        }
+                        putCellsFromFactory(m_factory, m_indexPairs, rows, count, newCells);
+                        m_lock.lock();
+                        try {
+                            m_nextRow += count;
+                            for (int i = 0; i < count; i++) {
+                                batch[i].m_pendingStages--;
+                                batch[i] = null;
+                            }
+                            m_stageProgress.signalAll();
+                        } finally {
+                            m_lock.unlock();
+                        }
+                    }
+                } catch (Throwable t) {
+                    m_lock.lock();
+                    try {
+                        if (m_failure == null) {
+                            m_failure = t;
+                        }
+                        m_isStopped = true;
+                        m_isScheduled = false;
+                        m_stageProgress.signalAll();
+                    } finally {
+                        m_lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * A class that helps to distinguish SpecAndFactoryObjects. There are three kinds: representing input columns,
      * created with a cell factory, created with a converter (often molecular type adapter)
@@ -0,0 +1,547 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import org.knime.core.data.RowKey;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+/**
+ * Summary of the row keys of a table, which allows to prove that two tables have no row key in common without
+ * iterating them. It consists of the smallest and the largest key (ordered by length first, so that generated keys
+ * such as "Row9" and "Row10" are ordered by their number), the common prefix and suffix of all keys and a Bloom filter
+ * of the keys.
+ *
+ * <p>
+ * Summaries are collected while a {@link Buffer} is written and saved along with its meta information. The summary of
+ * a concatenation is composed of the summaries of the concatenated tables, see
+ * {@link #compose(boolean, RowKeySummary...)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class RowKeySummary {
+
+    /** Key order used for the key range: shorter keys first, keys of the same length in lexicographic order. */
+    static final Comparator<String> KEY_ORDER =
+        Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    /** Minimum size of the Bloom filter in bits (one long). */
+    private static final int MIN_BITS = 64;
+
+    /** Maximum size of the Bloom filter in bits (32kB). */
+    private static final int MAX_BITS = 1 << 18;
+
+    /** Bits in the Bloom filter per key (unless {@link #MAX_BITS} is reached). */
+    private static final int BITS_PER_KEY = 8;
+
+    /** Number of bits set per key. */
+    private static final int NUM_PROBES = 3;
+
+    private static final String CFG_MIN_KEY = "min_key";
+
+    private static final String CFG_MAX_KEY = "max_key";
+
+    private static final String CFG_COMMON_PREFIX = "common_prefix";
+
+    private static final String CFG_COMMON_SUFFIX = "common_suffix";
+
+    private static final String CFG_HAS_UNIQUE_KEYS = "has_unique_keys";
+
+    private static final String CFG_BLOOM_FILTER = "bloom_filter";
+
+    private final String m_minKey;
+
+    private final String m_maxKey;
+
+    private final String m_commonPrefix;
+
+    private final String m_commonSuffix;
+
+    private final boolean m_hasUniqueKeys;
+
+    /** The Bloom filter, its length is a power of two; null for composed summaries. */
+    private final long[] m_bloomFilter;
+
+    /** The summaries this one is composed of, see {@link #compose(boolean, RowKeySummary...)}; null otherwise. */
+    private final RowKeySummary[] m_parts;
+
+    private RowKeySummary(final String minKey, final String maxKey, final String commonPrefix,
+        final String commonSuffix, final boolean hasUniqueKeys, final long[] bloomFilter,
+        final RowKeySummary[] parts) {
+        m_minKey = minKey;
+        m_maxKey = maxKey;
+        m_commonPrefix = commonPrefix;
+        m_commonSuffix = commonSuffix;
+        m_hasUniqueKeys = hasUniqueKeys;
+        m_bloomFilter = bloomFilter;
+        m_parts = parts;
+    }
+
+    /**
+     * @return whether the keys of the summarized table are known to be unique
+     */
+    boolean hasUniqueKeys() {
+        return m_hasUniqueKeys;
+    }
+
+    /**
+     * @param hasUniqueKeys see {@link #hasUniqueKeys()}
+     * @return this summary if the flag matches, otherwise a copy with the flag changed
+     */
+    RowKeySummary withUniqueKeys(final boolean hasUniqueKeys) {
+        if (hasUniqueKeys == m_hasUniqueKeys) {
+            return this;
+        }
+        return new RowKeySummary(m_minKey, m_maxKey, m_commonPrefix, m_commonSuffix, hasUniqueKeys, m_bloomFilter,
+            m_parts);
+    }
+
+    /**
+     * Whether the summarized table may contain the argument key. A <code>false</code> result is definite.
+     *
+     * @param key the key in question
+     * @return <code>false</code> if the key is definitely not contained in the summarized table
+     */
+    boolean mightContain(final String key) {
+        if (KEY_ORDER.compare(key, m_minKey) < 0 || KEY_ORDER.compare(key, m_maxKey) > 0
+            || !key.startsWith(m_commonPrefix) || !key.endsWith(m_commonSuffix)) {
+            return false;
+        }
+        if (m_parts != null) {
+            for (RowKeySummary part : m_parts) {
+                if (part.mightContain(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        final long hash = hash(key.hashCode());
+        final int mask = (m_bloomFilter.length << 6) - 1;
+        for (int i = 0; i < NUM_PROBES; i++) {
+            final int bit = probe(hash, i) & mask;
+            if ((m_bloomFilter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the summarized tables are proven to have no key in common. A <code>false</code> result doesn't mean that
+     * they do share a key.
+     *
+     * @param other the summary of the other table
+     * @return <code>true</code> if the tables definitely have no key in common
+     */
+    boolean isDisjoint(final RowKeySummary other) {
+        if (KEY_ORDER.compare(m_maxKey, other.m_minKey) < 0 || KEY_ORDER.compare(other.m_maxKey, m_minKey) < 0) {
+            return true;
+        }
+        if (!m_commonPrefix.startsWith(other.m_commonPrefix) && !other.m_commonPrefix.startsWith(m_commonPrefix)) {
+            return true;
+        }
+        if (!m_commonSuffix.endsWith(other.m_commonSuffix) && !other.m_commonSuffix.endsWith(m_commonSuffix)) {
+            return true;
+        }
+        if (m_parts != null) {
+            for (RowKeySummary part : m_parts) {
+                if (!part.isDisjoint(other)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (other.m_parts != null) {
+            return other.isDisjoint(this);
+        }
+        // a key contained in both tables sets the same bits in both filters (after folding them to the same size)
+        final int words = Math.min(m_bloomFilter.length, other.m_bloomFilter.length);
+        final long[] filter = fold(m_bloomFilter, words);
+        final long[] otherFilter = fold(other.m_bloomFilter, words);
+        for (int i = 0; i < words; i++) {
+            if ((filter[i] & otherFilter[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Composes the summary of a table that consists of the rows of other tables.
+     *
+     * @param hasUniqueKeys whether the keys of the composed table are known to be unique
+     * @param parts the summaries of the (non-empty) tables, not empty
+     * @return the composed summary
+     */
+    static RowKeySummary compose(final boolean hasUniqueKeys, final RowKeySummary... parts) {
+        if (parts.length == 1) {
+            return parts[0].withUniqueKeys(hasUniqueKeys);
+        }
+        final List<RowKeySummary> leafs = new ArrayList<>(parts.length);
+        String minKey = parts[0].m_minKey;
+        String maxKey = parts[0].m_maxKey;
+        String commonPrefix = parts[0].m_commonPrefix;
+        String commonSuffix = parts[0].m_commonSuffix;
+        for (RowKeySummary part : parts) {
+            if (part.m_parts != null) {
+                leafs.addAll(Arrays.asList(part.m_parts));
+            } else {
+                leafs.add(part);
+            }
+            minKey = KEY_ORDER.compare(part.m_minKey, minKey) < 0 ? part.m_minKey : minKey;
+            maxKey = KEY_ORDER.compare(part.m_maxKey, maxKey) > 0 ? part.m_maxKey : maxKey;
+            commonPrefix = commonPrefix(commonPrefix, part.m_commonPrefix);
+            commonSuffix = commonSuffix(commonSuffix, part.m_commonSuffix);
+        }
+        return new RowKeySummary(minKey, maxKey, commonPrefix, commonSuffix, hasUniqueKeys, null,
+            leafs.toArray(new RowKeySummary[leafs.size()]));
+    }
+
+    /**
+     * Saves this summary.
+     *
+     * @param settings to save to
+     * @throws IllegalStateException if this is a composed summary
+     */
+    void save(final NodeSettingsWO settings) {
+        if (m_parts != null) {
+            throw new IllegalStateException("Composed row key summaries can't be saved");
+        }
+        settings.addString(CFG_MIN_KEY, m_minKey);
+        settings.addString(CFG_MAX_KEY, m_maxKey);
+        settings.addString(CFG_COMMON_PREFIX, m_commonPrefix);
+        settings.addString(CFG_COMMON_SUFFIX, m_commonSuffix);
+        settings.addBoolean(CFG_HAS_UNIQUE_KEYS, m_hasUniqueKeys);
+        final ByteBuffer bytes = ByteBuffer.allocate(m_bloomFilter.length * Long.BYTES);
+        bytes.asLongBuffer().put(m_bloomFilter);
+        settings.addString(CFG_BLOOM_FILTER, Base64.getEncoder().encodeToString(bytes.array()));
+    }
+
+    /**
+     * Loads a summary saved by {@link #save(NodeSettingsWO)}.
+     *
+     * @param settings to load from
+     * @return the summary
+     * @throws InvalidSettingsException if the settings are invalid
+     */
+    static RowKeySummary load(final NodeSettingsRO settings) throws InvalidSettingsException {
+        final String minKey = settings.getString(CFG_MIN_KEY);
+        final String maxKey = settings.getString(CFG_MAX_KEY);
+        final String commonPrefix = settings.getString(CFG_COMMON_PREFIX);
+        final String commonSuffix = settings.getString(CFG_COMMON_SUFFIX);
+        if (minKey == null || maxKey == null || commonPrefix == null || commonSuffix == null) {
+            throw new InvalidSettingsException("Row key summary is incomplete");
+        }
+        final boolean hasUniqueKeys = settings.getBoolean(CFG_HAS_UNIQUE_KEYS);
+        final byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(settings.getString(CFG_BLOOM_FILTER, ""));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSettingsException("Invalid Bloom filter: " + e.getMessage(), e);
+        }
+        final int words = bytes.length / Long.BYTES;
+        if (words == 0 || Integer.bitCount(words) != 1 || bytes.length % Long.BYTES != 0) {
+            throw new InvalidSettingsException("Invalid Bloom filter length: " + bytes.length);
+        }
+        final long[] bloomFilter = new long[words];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(bloomFilter);
+        return new RowKeySummary(minKey, maxKey, commonPrefix, commonSuffix, hasUniqueKeys, bloomFilter, null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Row keys \"" + m_minKey + "\" to \"" + m_maxKey + "\""
+            + (m_parts != null ? " in " + m_parts.length + " parts" : "");
+    }
+
+    private static long hash(final int keyHash) {
+        // spread the (cached) string hash code to 64 bits, see the finalizer of MurmurHash3
+        long h = keyHash * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static int probe(final long hash, final int i) {
+        return (int)hash + i * ((int)(hash >>> 32) | 1);
+    }
+
+    /**
+     * Folds a Bloom filter to a smaller size by or-ing its upper halves into the lower ones. As the filter sizes are
+     * powers of two, the result equals the filter that would have been created with the smaller size.
+     */
+    private static long[] fold(final long[] filter, final int words) {
+        if (filter.length == words) {
+            return filter;
+        }
+        final long[] result = Arrays.copyOf(filter, words);
+        for (int i = words; i < filter.length; i++) {
+            result[i & (words - 1)] |= filter[i];
+        }
+        return result;
+    }
+
+    private static String commonPrefix(final String s1, final String s2) {
+        final int length = Math.min(s1.length(), s2.length());
+        int i = 0;
+        while (i < length && s1.charAt(i) == s2.charAt(i)) {
+            i++;
+        }
+        return i == s1.length() ? s1 : s1.substring(0, i);
+    }
+
+    private static String commonSuffix(final String s1, final String s2) {
+        final int length = Math.min(s1.length(), s2.length());
+        int i = 0;
+        while (i < length && s1.charAt(s1.length() - 1 - i) == s2.charAt(s2.length() - 1 - i)) {
+            i++;
+        }
+        return i == s1.length() ? s1 : s1.substring(s1.length() - i);
+    }
+
+    /**
+     * Collects the summary of the keys added to a buffer. Key hashes are kept until the number of keys justifies a
+     * Bloom filter of maximum size, so that the filter of small tables can be sized to their final row count. As long
+     * as all keys are generated ones (see {@link RowKey#getGeneratedIndex()}), they are summarized by their numbers,
+     * without their strings.
+     */
+    static final class Builder {
+
+        private static final int MAX_BUFFERED_HASHES = MAX_BITS / BITS_PER_KEY;
+
+        /** Powers of ten up to the maximum number of a generated key. */
+        private static final long[] POWERS_OF_TEN = new long[19];
+
+        static {
+            POWERS_OF_TEN[0] = 1;
+            for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+                POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+            }
+        }
+
+        /** Whether all keys added so far are generated ones, summarized by the fields below instead of the strings. */
+        private boolean m_isGenerated = true;
+
+        private long m_minIndex;
+
+        private long m_maxIndex;
+
+        /** Value and number of the leading digits common to the numbers of all generated keys. */
+        private long m_prefix;
+
+        private int m_prefixDigits;
+
+        /** Value and number of the trailing digits common to the numbers of all generated keys. */
+        private long m_suffix;
+
+        private int m_suffixDigits;
+
+        private String m_minKey;
+
+        private String m_maxKey;
+
+        private String m_commonPrefix;
+
+        private String m_commonSuffix;
+
+        private long m_count;
+
+        private long[] m_hashes = new long[16];
+
+        private long[] m_bloomFilter;
+
+        /**
+         * Adds the key of the next row.
+         *
+         * @param key the row key
+         */
+        void add(final RowKey key) {
+            final long index = key.getGeneratedIndex();
+            if (m_isGenerated && index >= 0) {
+                addGenerated(index);
+            } else {
+                if (m_isGenerated) {
+                    if (m_count > 0) {
+                        summarizeGenerated();
+                    }
+                    m_isGenerated = false;
+                }
+                addString(key.getString());
+            }
+            final long hash = hash(key.hashCode());
+            if (m_bloomFilter != null) {
+                set(m_bloomFilter, hash);
+            } else if (m_count < MAX_BUFFERED_HASHES) {
+                if (m_count == m_hashes.length) {
+                    m_hashes = Arrays.copyOf(m_hashes, m_hashes.length * 2);
+                }
+                m_hashes[(int)m_count] = hash;
+            } else {
+                m_bloomFilter = new long[MAX_BITS >>> 6];
+                for (int i = 0; i < m_count; i++) {
+                    set(m_bloomFilter, m_hashes[i]);
+                }
+                set(m_bloomFilter, hash);
+                m_hashes = null;
+            }
+            m_count++;
+        }
+
+        private void addString(final String s) {
+            if (m_count == 0) {
+                m_minKey = s;
+                m_maxKey = s;
+                m_commonPrefix = s;
+                m_commonSuffix = s;
+            } else {
+                if (KEY_ORDER.compare(s, m_minKey) < 0) {
+                    m_minKey = s;
+                } else if (KEY_ORDER.compare(s, m_maxKey) > 0) {
+                    m_maxKey = s;
+                }
+                m_commonPrefix = commonPrefix(m_commonPrefix, s);
+                m_commonSuffix = commonSuffix(m_commonSuffix, s);
+            }
+        }
+
+        private void addGenerated(final long index) {
+            final int digits = digits(index);
+            if (m_count == 0) {
+                m_minIndex = index;
+                m_maxIndex = index;
+                m_prefix = index;
+                m_prefixDigits = digits;
+                m_suffix = index;
+                m_suffixDigits = digits;
+                return;
+            }
+            // the order of generated keys is the one of their numbers as those have no leading zeros
+            if (index < m_minIndex) {
+                m_minIndex = index;
+            } else if (index > m_maxIndex) {
+                m_maxIndex = index;
+            }
+            while (m_prefixDigits > 0
+                && (digits < m_prefixDigits || index / POWERS_OF_TEN[digits - m_prefixDigits] != m_prefix)) {
+                m_prefixDigits--;
+                m_prefix /= 10;
+            }
+            while (m_suffixDigits > 0
+                && (digits < m_suffixDigits || index % POWERS_OF_TEN[m_suffixDigits] != m_suffix)) {
+                m_suffixDigits--;
+                m_suffix %= POWERS_OF_TEN[m_suffixDigits];
+            }
+        }
+
+        /** Sets the string fields to the summary of the generated keys added so far. */
+        private void summarizeGenerated() {
+            m_minKey = RowKey.createRowKey(m_minIndex).getString();
+            m_maxKey = RowKey.createRowKey(m_maxIndex).getString();
+            // all keys start with "Row", followed by the common leading digits
+            final int prefixLength = m_minKey.length() - digits(m_minIndex) + m_prefixDigits;
+            m_commonPrefix = m_minKey.substring(0, prefixLength);
+            // distinct keys only share trailing digits, equal ones their whole string
+            m_commonSuffix =
+                m_minIndex == m_maxIndex ? m_minKey : m_minKey.substring(m_minKey.length() - m_suffixDigits);
+        }
+
+        private static int digits(final long index) {
+            int digits = 1;
+            while (digits < POWERS_OF_TEN.length && index >= POWERS_OF_TEN[digits]) {
+                digits++;
+            }
+            return digits;
+        }
+
+        /**
+         * @param hasUniqueKeys see {@link RowKeySummary#hasUniqueKeys()}
+         * @return the summary of the keys added so far or null if none were added
+         */
+        RowKeySummary build(final boolean hasUniqueKeys) {
+            if (m_count == 0) {
+                return null;
+            }
+            if (m_isGenerated) {
+                summarizeGenerated();
+            }
+            final long minBits = m_count * BITS_PER_KEY;
+            final int bits = (int)Math.max(MIN_BITS, Math.min(MAX_BITS, Long.highestOneBit(minBits - 1) << 1));
+            final long[] bloomFilter;
+            if (m_bloomFilter != null) {
+                bloomFilter = fold(m_bloomFilter, bits >>> 6);
+            } else {
+                bloomFilter = new long[bits >>> 6];
+                for (int i = 0; i < m_count; i++) {
+                    set(bloomFilter, m_hashes[i]);
+                }
+            }
+            return new RowKeySummary(m_minKey, m_maxKey, m_commonPrefix, m_commonSuffix, hasUniqueKeys, bloomFilter,
+                null);
+        }
+
+        private static void set(final long[] filter, final long hash) {
+            final int mask = (filter.length << 6) - 1;
+            for (int i = 0; i < NUM_PROBES; i++) {
+                final int bit = probe(hash, i) & mask;
+                filter[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+}
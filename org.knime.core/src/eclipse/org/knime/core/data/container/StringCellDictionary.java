@@ -0,0 +1,261 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Dictionary of the distinct {@link StringCell StringCells} of a column, used by the {@link DefaultTableStoreWriter} to
+ * write repeated strings as an index into the dictionary instead of the full string. Writer and reader build the
+ * dictionary in the same way while going through the rows: a string that isn't contained yet is written in full and
+ * added to the dictionary, as long as the dictionary has less than {@link #MAX_SIZE} entries, stays within its memory
+ * limit and the string isn't longer than {@link #MAX_STRING_LENGTH}. Cells read from the same dictionary entry share
+ * one instance.
+ *
+ * <p>
+ * Only columns of type string are encoded, sharing a memory limit of {@link #MAX_TABLE_BYTES} per table (and hence per
+ * writer and reading iterator). A dictionary that is full but had fewer hits than entries (a column with mostly
+ * distinct values) is dropped, its column is then written in full.
+ *
+ * <p>
+ * Only the cells of tables read from disk share instances. Rows held in memory (while adding rows or in the buffer
+ * cache) keep the cells they were created with: those rows may already be handed out to iterators, and interning
+ * them would cost a lookup per cell also for tables that are never written.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StringCellDictionary {
+
+    /** Maximum number of entries, further distinct strings are written in full. */
+    static final int MAX_SIZE = 1024;
+
+    /** Maximum length of strings added to the dictionary (long strings rarely repeat and would be retained). */
+    static final int MAX_STRING_LENGTH = 256;
+
+    /** Maximum estimated memory of the dictionaries of a table, split evenly among its string columns. */
+    static final long MAX_TABLE_BYTES = 256 * 1024;
+
+    /** Estimated memory of an entry besides the string's characters (cell, string, list and map entry). */
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    /** The maximum estimated memory of the entries. */
+    private final long m_maxBytes;
+
+    /** The estimated memory of the entries. */
+    private long m_bytes;
+
+    /** The number of cells written or read as index. */
+    private long m_hits;
+
+    /** The entries in order of addition, null if the dictionary has been dropped or disabled. */
+    private List<StringCell> m_cells = new ArrayList<>();
+
+    /** The index of each entry, only used when writing. */
+    private Map<String, Integer> m_indices;
+
+    /**
+     * @param maxBytes the maximum estimated memory of the entries
+     */
+    private StringCellDictionary(final long maxBytes) {
+        m_maxBytes = maxBytes;
+    }
+
+    /**
+     * Creates the dictionaries of a table about to be written.
+     *
+     * @param spec the spec of the table
+     * @return the dictionary of each column, null for columns that aren't encoded, or null if no column is encoded
+     */
+    static StringCellDictionary[] createForWriting(final DataTableSpec spec) {
+        int stringColumns = 0;
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            if (StringCell.TYPE.equals(spec.getColumnSpec(i).getType())) {
+                stringColumns++;
+            }
+        }
+        if (stringColumns == 0 || MAX_TABLE_BYTES / stringColumns < ENTRY_OVERHEAD_BYTES) {
+            return null;
+        }
+        final StringCellDictionary[] dictionaries = new StringCellDictionary[spec.getNumColumns()];
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            if (StringCell.TYPE.equals(spec.getColumnSpec(i).getType())) {
+                dictionaries[i] = new StringCellDictionary(MAX_TABLE_BYTES / stringColumns);
+            }
+        }
+        return dictionaries;
+    }
+
+    /**
+     * Creates the dictionaries for reading a table, equal to the ones the table was written with.
+     *
+     * @param numColumns the number of columns of the table
+     * @param columns the encoded columns, see {@link #getColumns(StringCellDictionary[])}
+     * @param maxBytes the memory limit of each dictionary, see {@link #getMaxBytes(StringCellDictionary[])}
+     * @return the dictionary of each column, null for columns that aren't encoded
+     */
+    static StringCellDictionary[] createForReading(final int numColumns, final int[] columns, final long maxBytes) {
+        final StringCellDictionary[] dictionaries = new StringCellDictionary[numColumns];
+        for (int column : columns) {
+            if (column < numColumns) {
+                dictionaries[column] = new StringCellDictionary(maxBytes);
+            }
+        }
+        return dictionaries;
+    }
+
+    /**
+     * @param dictionaries the dictionaries created by {@link #createForWriting(DataTableSpec)}
+     * @return the indices of the encoded columns
+     */
+    static int[] getColumns(final StringCellDictionary[] dictionaries) {
+        final List<Integer> columns = new ArrayList<>();
+        for (int i = 0; i < dictionaries.length; i++) {
+            if (dictionaries[i] != null) {
+                columns.add(i);
+            }
+        }
+        return columns.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param dictionaries the dictionaries created by {@link #createForWriting(DataTableSpec)}
+     * @return the memory limit of each dictionary
+     */
+    static long getMaxBytes(final StringCellDictionary[] dictionaries) {
+        for (StringCellDictionary dictionary : dictionaries) {
+            if (dictionary != null) {
+                return dictionary.m_maxBytes;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Called when writing a cell.
+     *
+     * @param cell the cell to write
+     * @return the index of the cell's string or -1 if it's not contained; in the latter case the cell needs to be
+     *         written in full and has been added to the dictionary (unless it can't be added)
+     */
+    int lookupOrAdd(final StringCell cell) {
+        if (m_cells == null) {
+            return -1;
+        }
+        if (m_indices == null) {
+            m_indices = new HashMap<>();
+        }
+        final Integer index = m_indices.get(cell.getStringValue());
+        if (index != null) {
+            m_hits++;
+            return index;
+        }
+        add(cell);
+        return -1;
+    }
+
+    /**
+     * Called when reading a cell that was written in full, adds it to the dictionary just like
+     * {@link #lookupOrAdd(StringCell)} did when the cell was written.
+     *
+     * @param cell the cell read
+     */
+    void add(final StringCell cell) {
+        if (m_cells == null) {
+            return;
+        }
+        final String s = cell.getStringValue();
+        if (s.length() > MAX_STRING_LENGTH) {
+            return;
+        }
+        final long bytes = ENTRY_OVERHEAD_BYTES + 2L * s.length();
+        if (m_cells.size() < MAX_SIZE && m_bytes + bytes <= m_maxBytes) {
+            if (m_indices != null) {
+                m_indices.put(s, m_cells.size());
+            }
+            m_cells.add(cell);
+            m_bytes += bytes;
+        } else if (m_hits < m_cells.size()) {
+            // full and mostly distinct values, not worth the lookups and the memory
+            disable();
+        }
+    }
+
+    /**
+     * Called when reading a cell that was written as index.
+     *
+     * @param index the index read
+     * @return the cell of that entry
+     * @throws IOException if the index is invalid or the dictionary has been disabled due to a read error
+     */
+    StringCell get(final long index) throws IOException {
+        if (m_cells == null) {
+            throw new IOException("String dictionary not available due to an earlier read error");
+        }
+        if (index < 0 || index >= m_cells.size()) {
+            throw new IOException("Invalid string dictionary index " + index + " (dictionary size " + m_cells.size()
+                + ")");
+        }
+        m_hits++;
+        return m_cells.get((int)index);
+    }
+
+    /**
+     * Drops the entries, further cells are neither looked up nor added. Called by the reader if a cell of the column
+     * can't be read, as its dictionary may no longer match the writer's.
+     */
+    void disable() {
+        m_cells = null;
+        m_indices = null;
+    }
+}
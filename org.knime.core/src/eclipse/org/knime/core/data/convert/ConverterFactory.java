@@ -106,6 +106,19 @@ default String getName() {
      */
     public String getIdentifier();
 
+    /**
+     * Whether the converters created by this factory keep no state between invocations, such that a single instance
+     * may be reused for any number of values, e.g. by compiled {@link org.knime.core.data.convert.map.DataRowProducer
+     * data row producers} and {@link org.knime.core.data.convert.map.DataRowConsumer consumers}. Factories that
+     * cannot guarantee this must return {@code false}, in which case a new converter is created for every value.
+     *
+     * @return {@code true} if created converters may be reused, {@code false} (default) otherwise
+     * @since 4.1
+     */
+    default boolean isStateless() {
+        return false;
+    }
+
     /**
      * Called when this factory is being serialized.
      *
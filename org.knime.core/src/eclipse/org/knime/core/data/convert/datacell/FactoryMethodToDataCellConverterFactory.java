@@ -140,6 +140,17 @@ public DataCell convert(final S source) throws Exception {
         };
     }
 
+    /**
+     * {@inheritDoc}
+     * <P>
+     * Always {@code true}, as the created converters only invoke the factory method on a cell factory that is bound
+     * to the file store factory passed to {@link #create(FileStoreFactory)}.
+     */
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
     @Override
     public Class<S> getSourceType() {
         return m_srcType;
@@ -122,6 +122,17 @@ public JavaToDataCellConverter<T> create(final FileStoreFactory fileStoreFactory
         return m_converter;
     }
 
+    /**
+     * {@inheritDoc}
+     * <P>
+     * Always {@code true}, as this factory returns the same converter instance from every call to
+     * {@link #create(FileStoreFactory)}.
+     */
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
     @Override
     public Class<T> getSourceType() {
         return m_sourceType;
@@ -123,6 +123,16 @@ public DataCellToJavaConverter<S, D> create() {
         return m_converter;
     }
 
+    /**
+     * {@inheritDoc}
+     * <P>
+     * Always {@code true}, as this factory returns the same converter instance from every call to {@link #create()}.
+     */
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
     @Override
     public Class<S> getSourceType() {
         return m_sourceType;
@@ -50,6 +50,7 @@
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
+import org.knime.core.data.convert.ConverterFactory;
 import org.knime.core.data.convert.java.DataCellToBooleanConverter;
 import org.knime.core.data.convert.java.DataCellToByteConverter;
 import org.knime.core.data.convert.java.DataCellToCharConverter;
@@ -69,6 +70,11 @@
  * <P>
  * Internally, each consumption path is translated to an executable mapper. There are mapper implementations for all
  * Java primitive types (to avoid autoboxing) as well as a common one for all object types.
+ * <P>
+ * In <em>compiled</em> mode (see {@link #DefaultDataRowConsumer(Destination, ConsumptionPath[], boolean)}), paths whose
+ * converter and consumer factories both {@link ConverterFactory#isStateless() declare themselves stateless} are
+ * translated to compiled mappers that create their converter and consumer once and reuse them for all rows. All other
+ * paths keep obtaining new instances from their factories for every cell.
  *
  * @param <D> Type of the {@link Destination} to which to write the data rows.
  * @param <CP> Subtype of {@link ConsumerParameters} that can be used to configure the consumers per call to
@@ -92,6 +98,22 @@
      *            to {@link #consumeDataRow(DataRow, ConsumerParameters[])}.
      */
     public DefaultDataRowConsumer(final D destination, final ConsumptionPath[] mapping) {
+        this(destination, mapping, false);
+    }
+
+    /**
+     * Creates a new data row consumer for the given destination and the given mapping.
+     *
+     * @param destination The destination to which to write data rows.
+     * @param mapping Consumption paths that describe the mapping from {@link DataCell data cells} to destination. The
+     *            number and order of the passed paths must match the ones of the parameters and data cells later passed
+     *            to {@link #consumeDataRow(DataRow, ConsumerParameters[])}.
+     * @param compiled If {@code true}, the converter and consumer of each path whose factories are
+     *            {@link ConverterFactory#isStateless() stateless} are created once upfront and reused for all rows.
+     *            Otherwise, or for paths with stateful factories, new instances are created for each cell.
+     * @since 4.1
+     */
+    public DefaultDataRowConsumer(final D destination, final ConsumptionPath[] mapping, final boolean compiled) {
         m_destination = destination;
         @SuppressWarnings("unchecked")
         final Mapper<CP, ?, ?>[] mappers = new Mapper[mapping.length];
@@ -99,7 +121,9 @@ public DefaultDataRowConsumer(final D destination, final ConsumptionPath[] mappi
             final ConsumptionPath path = mapping[i];
             final DataCellToJavaConverterFactory<?, ?> converterFactory = path.m_converterFactory;
             final CellValueConsumerFactory<?, ?, ?, ?> consumerFactory = path.m_consumerFactory;
-            mappers[i] = createMapper(converterFactory, consumerFactory);
+            final Mapper<CP, ?, ?> mapper = createMapper(converterFactory, consumerFactory);
+            mappers[i] = compiled && converterFactory.isStateless() && consumerFactory.isStateless() ? mapper.compile()
+                : mapper;
         }
         m_mappers = mappers;
     }
@@ -213,6 +237,11 @@ protected void map(final DataCell cell, final CP params) throws Exception {
                 consumer.consumeDoubleCellValue(m_destination, value, params);
             }
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledDoubleMapper(m_converterFactory, m_consumerFactory);
+        }
     }
 
     private final class IntMapper extends Mapper<CP, //
@@ -237,6 +266,11 @@ protected void map(final DataCell cell, final CP params) throws Exception {
                 consumer.consumeIntCellValue(m_destination, value, params);
             }
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledIntMapper(m_converterFactory, m_consumerFactory);
+        }
     }
 
     private final class LongMapper extends Mapper<CP, //
@@ -261,6 +295,11 @@ protected void map(final DataCell cell, final CP params) throws Exception {
                 consumer.consumeLongCellValue(m_destination, value, params);
             }
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledLongMapper(m_converterFactory, m_consumerFactory);
+        }
     }
 
     private final class BooleanMapper extends Mapper<CP, //
@@ -286,6 +325,11 @@ protected void map(final DataCell cell, final CP params) throws Exception {
                 consumer.consumeBooleanCellValue(m_destination, value, params);
             }
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledBooleanMapper(m_converterFactory, m_consumerFactory);
+        }
     }
 
     private final class FloatMapper extends Mapper<CP, //
@@ -311,6 +355,11 @@ protected void map(final DataCell cell, final CP params) throws Exception {
                 consumer.consumeFloatCellValue(m_destination, value, params);
             }
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledFloatMapper(m_converterFactory, m_consumerFactory);
+        }
     }
 
     private final class ByteMapper extends Mapper<CP, //
@@ -335,6 +384,11 @@ protected void map(final DataCell cell, final CP params) throws Exception {
                 consumer.consumeByteCellValue(m_destination, value, params);
             }
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledByteMapper(m_converterFactory, m_consumerFactory);
+        }
     }
 
     private final class ShortMapper extends Mapper<CP, //
@@ -360,6 +414,11 @@ protected void map(final DataCell cell, final CP params) throws Exception {
                 consumer.consumeShortCellValue(m_destination, value, params);
             }
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledShortMapper(m_converterFactory, m_consumerFactory);
+        }
     }
 
     private final class CharMapper extends Mapper<CP, //
@@ -384,6 +443,11 @@ protected void map(final DataCell cell, final CP params) throws Exception {
                 consumer.consumeCharCellValue(m_destination, value, params);
             }
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledCharMapper(m_converterFactory, m_consumerFactory);
+        }
     }
 
     private final class ObjectMapper extends Mapper<CP, //
@@ -404,6 +468,269 @@ protected void map(final DataCell cell, final CP params) throws Exception {
             final Object cellValue = cell.isMissing() ? null : converter.convertUnsafe(cell);
             consumer.consumeCellValue(m_destination, cellValue, params);
         }
+
+        @Override
+        protected Mapper<CP, ?, ?> compile() {
+            return new CompiledObjectMapper(m_converterFactory, m_consumerFactory);
+        }
+    }
+
+    // Compiled mapper implementations:
+
+    private final class CompiledDoubleMapper extends Mapper<CP, //
+            TypedDataCellToJavaConverterFactory<?, ?, DataCellToDoubleConverter<?>>, //
+            TypedCellValueConsumerFactory<D, ?, ?, CP, DoubleCellValueConsumer<D, CP>>> {
+
+        @SuppressWarnings("rawtypes")
+        private final DataCellToDoubleConverter m_converter;
+
+        private final DoubleCellValueConsumer<D, CP> m_consumer;
+
+        private CompiledDoubleMapper(
+            final TypedDataCellToJavaConverterFactory<?, ?, DataCellToDoubleConverter<?>> converterFactory,
+            final TypedCellValueConsumerFactory<D, ?, ?, CP, DoubleCellValueConsumer<D, CP>> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            if (cell.isMissing()) {
+                m_consumer.consumeMissingCellValue(m_destination, params);
+            } else {
+                @SuppressWarnings("unchecked")
+                final double value = m_converter.convertIntoDouble(cell);
+                m_consumer.consumeDoubleCellValue(m_destination, value, params);
+            }
+        }
+    }
+
+    private final class CompiledIntMapper extends Mapper<CP, //
+            TypedDataCellToJavaConverterFactory<?, ?, DataCellToIntConverter<?>>, //
+            TypedCellValueConsumerFactory<D, ?, ?, CP, IntCellValueConsumer<D, CP>>> {
+
+        @SuppressWarnings("rawtypes")
+        private final DataCellToIntConverter m_converter;
+
+        private final IntCellValueConsumer<D, CP> m_consumer;
+
+        private CompiledIntMapper(
+            final TypedDataCellToJavaConverterFactory<?, ?, DataCellToIntConverter<?>> converterFactory,
+            final TypedCellValueConsumerFactory<D, ?, ?, CP, IntCellValueConsumer<D, CP>> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            if (cell.isMissing()) {
+                m_consumer.consumeMissingCellValue(m_destination, params);
+            } else {
+                @SuppressWarnings("unchecked")
+                final int value = m_converter.convertIntoInt(cell);
+                m_consumer.consumeIntCellValue(m_destination, value, params);
+            }
+        }
+    }
+
+    private final class CompiledLongMapper extends Mapper<CP, //
+            TypedDataCellToJavaConverterFactory<?, ?, DataCellToLongConverter<?>>, //
+            TypedCellValueConsumerFactory<D, ?, ?, CP, LongCellValueConsumer<D, CP>>> {
+
+        @SuppressWarnings("rawtypes")
+        private final DataCellToLongConverter m_converter;
+
+        private final LongCellValueConsumer<D, CP> m_consumer;
+
+        private CompiledLongMapper(
+            final TypedDataCellToJavaConverterFactory<?, ?, DataCellToLongConverter<?>> converterFactory,
+            final TypedCellValueConsumerFactory<D, ?, ?, CP, LongCellValueConsumer<D, CP>> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            if (cell.isMissing()) {
+                m_consumer.consumeMissingCellValue(m_destination, params);
+            } else {
+                @SuppressWarnings("unchecked")
+                final long value = m_converter.convertIntoLong(cell);
+                m_consumer.consumeLongCellValue(m_destination, value, params);
+            }
+        }
+    }
+
+    private final class CompiledBooleanMapper extends Mapper<CP, //
+            TypedDataCellToJavaConverterFactory<?, ?, DataCellToBooleanConverter<?>>, //
+            TypedCellValueConsumerFactory<D, ?, ?, CP, BooleanCellValueConsumer<D, CP>>> {
+
+        @SuppressWarnings("rawtypes")
+        private final DataCellToBooleanConverter m_converter;
+
+        private final BooleanCellValueConsumer<D, CP> m_consumer;
+
+        private CompiledBooleanMapper(
+            final TypedDataCellToJavaConverterFactory<?, ?, DataCellToBooleanConverter<?>> converterFactory,
+            final TypedCellValueConsumerFactory<D, ?, ?, CP, BooleanCellValueConsumer<D, CP>> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            if (cell.isMissing()) {
+                m_consumer.consumeMissingCellValue(m_destination, params);
+            } else {
+                @SuppressWarnings("unchecked")
+                final boolean value = m_converter.convertIntoBoolean(cell);
+                m_consumer.consumeBooleanCellValue(m_destination, value, params);
+            }
+        }
+    }
+
+    private final class CompiledFloatMapper extends Mapper<CP, //
+            TypedDataCellToJavaConverterFactory<?, ?, DataCellToFloatConverter<?>>, //
+            TypedCellValueConsumerFactory<D, ?, ?, CP, FloatCellValueConsumer<D, CP>>> {
+
+        @SuppressWarnings("rawtypes")
+        private final DataCellToFloatConverter m_converter;
+
+        private final FloatCellValueConsumer<D, CP> m_consumer;
+
+        private CompiledFloatMapper(
+            final TypedDataCellToJavaConverterFactory<?, ?, DataCellToFloatConverter<?>> converterFactory,
+            final TypedCellValueConsumerFactory<D, ?, ?, CP, FloatCellValueConsumer<D, CP>> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            if (cell.isMissing()) {
+                m_consumer.consumeMissingCellValue(m_destination, params);
+            } else {
+                @SuppressWarnings("unchecked")
+                final float value = m_converter.convertIntoFloat(cell);
+                m_consumer.consumeFloatCellValue(m_destination, value, params);
+            }
+        }
+    }
+
+    private final class CompiledByteMapper extends Mapper<CP, //
+            TypedDataCellToJavaConverterFactory<?, ?, DataCellToByteConverter<?>>, //
+            TypedCellValueConsumerFactory<D, ?, ?, CP, ByteCellValueConsumer<D, CP>>> {
+
+        @SuppressWarnings("rawtypes")
+        private final DataCellToByteConverter m_converter;
+
+        private final ByteCellValueConsumer<D, CP> m_consumer;
+
+        private CompiledByteMapper(
+            final TypedDataCellToJavaConverterFactory<?, ?, DataCellToByteConverter<?>> converterFactory,
+            final TypedCellValueConsumerFactory<D, ?, ?, CP, ByteCellValueConsumer<D, CP>> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            if (cell.isMissing()) {
+                m_consumer.consumeMissingCellValue(m_destination, params);
+            } else {
+                @SuppressWarnings("unchecked")
+                final byte value = m_converter.convertIntoByte(cell);
+                m_consumer.consumeByteCellValue(m_destination, value, params);
+            }
+        }
+    }
+
+    private final class CompiledShortMapper extends Mapper<CP, //
+            TypedDataCellToJavaConverterFactory<?, ?, DataCellToShortConverter<?>>, //
+            TypedCellValueConsumerFactory<D, ?, ?, CP, ShortCellValueConsumer<D, CP>>> {
+
+        @SuppressWarnings("rawtypes")
+        private final DataCellToShortConverter m_converter;
+
+        private final ShortCellValueConsumer<D, CP> m_consumer;
+
+        private CompiledShortMapper(
+            final TypedDataCellToJavaConverterFactory<?, ?, DataCellToShortConverter<?>> converterFactory,
+            final TypedCellValueConsumerFactory<D, ?, ?, CP, ShortCellValueConsumer<D, CP>> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            if (cell.isMissing()) {
+                m_consumer.consumeMissingCellValue(m_destination, params);
+            } else {
+                @SuppressWarnings("unchecked")
+                final short value = m_converter.convertIntoShort(cell);
+                m_consumer.consumeShortCellValue(m_destination, value, params);
+            }
+        }
+    }
+
+    private final class CompiledCharMapper extends Mapper<CP, //
+            TypedDataCellToJavaConverterFactory<?, ?, DataCellToCharConverter<?>>, //
+            TypedCellValueConsumerFactory<D, ?, ?, CP, CharCellValueConsumer<D, CP>>> {
+
+        @SuppressWarnings("rawtypes")
+        private final DataCellToCharConverter m_converter;
+
+        private final CharCellValueConsumer<D, CP> m_consumer;
+
+        private CompiledCharMapper(
+            final TypedDataCellToJavaConverterFactory<?, ?, DataCellToCharConverter<?>> converterFactory,
+            final TypedCellValueConsumerFactory<D, ?, ?, CP, CharCellValueConsumer<D, CP>> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            if (cell.isMissing()) {
+                m_consumer.consumeMissingCellValue(m_destination, params);
+            } else {
+                @SuppressWarnings("unchecked")
+                final char value = m_converter.convertIntoChar(cell);
+                m_consumer.consumeCharCellValue(m_destination, value, params);
+            }
+        }
+    }
+
+    private final class CompiledObjectMapper extends Mapper<CP, //
+            DataCellToJavaConverterFactory<?, ?>, //
+            CellValueConsumerFactory<D, ?, ?, CP>> {
+
+        private final DataCellToJavaConverter<?, ?> m_converter;
+
+        private final CellValueConsumer<D, Object, CP> m_consumer;
+
+        @SuppressWarnings("unchecked")
+        private CompiledObjectMapper(
+            final DataCellToJavaConverterFactory<?, ?> converterFactory,
+            final CellValueConsumerFactory<D, ?, ?, CP> consumerFactory) {
+            super(converterFactory, consumerFactory);
+            m_converter = converterFactory.create();
+            m_consumer = (CellValueConsumer<D, Object, CP>)consumerFactory.create();
+        }
+
+        @Override
+        protected void map(final DataCell cell, final CP params) throws Exception {
+            final Object cellValue = cell.isMissing() ? null : m_converter.convertUnsafe(cell);
+            m_consumer.consumeCellValue(m_destination, cellValue, params);
+        }
     }
 
     private abstract static class Mapper<CP extends ConsumerParameters<?>, //
@@ -420,5 +747,13 @@ private Mapper(final DC converterFactory, final CC consumerFactory) {
         }
 
         protected abstract void map(DataCell cell, final CP params) throws Exception;
+
+        /**
+         * @return a mapper for the same path that creates its converter and consumer once and reuses them for all
+         *         cells, or this mapper if it already does so
+         */
+        protected Mapper<CP, ?, ?> compile() {
+            return this;
+        }
     }
 }
@@ -53,6 +53,7 @@
 import org.knime.core.data.MissingCell;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.convert.ConverterFactory;
 import org.knime.core.data.convert.datacell.BooleanToDataCellConverter;
 import org.knime.core.data.convert.datacell.ByteToDataCellConverter;
 import org.knime.core.data.convert.datacell.CharToDataCellConverter;
@@ -75,6 +76,11 @@
  * <P>
  * Internally, each production path is translated to an executable mapper. There are mapper implementations for all Java
  * primitive types (to avoid autoboxing) as well as a common one for all object types.
+ * <P>
+ * In <em>compiled</em> mode (see {@link #DefaultDataRowProducer(Source, ProductionPath[], FileStoreFactory, boolean)}),
+ * paths whose producer and converter factories both {@link ConverterFactory#isStateless() declare themselves
+ * stateless} are translated to compiled mappers that create their producer and converter once and reuse them for all
+ * rows. All other paths keep obtaining new instances from their factories for every cell.
  *
  * @param <S> Type of the {@link Source} from which to create data rows.
  * @param <PP> Subtype of {@link Source.ProducerParameters} that can be used to configure the producers per call to
@@ -120,6 +126,24 @@ public DefaultDataRowProducer(final S source, final ProductionPath[] mapping, fi
      */
     public DefaultDataRowProducer(final S source, final ProductionPath[] mapping,
         final FileStoreFactory fileStoreFactory) {
+        this(source, mapping, fileStoreFactory, false);
+    }
+
+    /**
+     * Creates a new data row producer for the given source and the given mapping.
+     *
+     * @param source The source from which to create data rows.
+     * @param mapping Production paths that describe the mapping from source to {@link DataCell data cells}. The number
+     *            and order of the passed paths must match the ones of the parameters later passed to
+     *            {@link #produceDataRow(RowKey, ProducerParameters[])}.
+     * @param fileStoreFactory {@link FileStoreFactory} which may be used for creating {@link CellFactory}s.
+     * @param compiled If {@code true}, the producer and converter of each path whose factories are
+     *            {@link ConverterFactory#isStateless() stateless} are created once upfront and reused for all rows.
+     *            Otherwise, or for paths with stateful factories, new instances are created for each cell.
+     * @since 4.1
+     */
+    public DefaultDataRowProducer(final S source, final ProductionPath[] mapping,
+        final FileStoreFactory fileStoreFactory, final boolean compiled) {
         m_source = source;
         m_fileStoreFactory = fileStoreFactory;
         m_tempCells = new DataCell[mapping.length];
@@ -129,7 +153,9 @@ public DefaultDataRowProducer(final S source, final ProductionPath[] mapping,
             final ProductionPath path = mapping[i];
             final CellValueProducerFactory<?, ?, ?, ?> producerFactory = path.m_producerFactory;
             final JavaToDataCellConverterFactory<?> converterFactory = path.m_converterFactory;
-            mappers[i] = createMapper(producerFactory, converterFactory);
+            final Mapper<PP, ?, ?> mapper = createMapper(producerFactory, converterFactory);
+            mappers[i] = compiled && producerFactory.isStateless() && converterFactory.isStateless() ? mapper.compile()
+                : mapper;
         }
         m_mappers = mappers;
     }
@@ -243,6 +269,11 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertDouble(producer.produceDoubleCellValue(m_source, params));
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledDoubleMapper(m_producerFactory, m_converterFactory);
+        }
     }
 
     private final class IntMapper extends Mapper<PP, //
@@ -264,6 +295,11 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertInt(producer.produceIntCellValue(m_source, params));
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledIntMapper(m_producerFactory, m_converterFactory);
+        }
     }
 
     private final class LongMapper extends Mapper<PP, //
@@ -286,6 +322,11 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertLong(producer.produceLongCellValue(m_source, params));
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledLongMapper(m_producerFactory, m_converterFactory);
+        }
     }
 
     private final class BooleanMapper extends Mapper<PP, //
@@ -308,6 +349,11 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertBoolean(producer.produceBooleanCellValue(m_source, params));
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledBooleanMapper(m_producerFactory, m_converterFactory);
+        }
     }
 
     private final class FloatMapper extends Mapper<PP, //
@@ -330,6 +376,11 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertFloat(producer.produceFloatCellValue(m_source, params));
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledFloatMapper(m_producerFactory, m_converterFactory);
+        }
     }
 
     private final class ByteMapper extends Mapper<PP, //
@@ -352,6 +403,11 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertByte(producer.produceByteCellValue(m_source, params));
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledByteMapper(m_producerFactory, m_converterFactory);
+        }
     }
 
     private final class ShortMapper extends Mapper<PP, //
@@ -374,6 +430,11 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertShort(producer.produceShortCellValue(m_source, params));
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledShortMapper(m_producerFactory, m_converterFactory);
+        }
     }
 
     private final class CharMapper extends Mapper<PP, //
@@ -396,6 +457,11 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertChar(producer.produceCharCellValue(m_source, params));
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledCharMapper(m_producerFactory, m_converterFactory);
+        }
     }
 
     private final class ObjectMapper extends Mapper<PP, //
@@ -418,6 +484,248 @@ protected final DataCell map(final PP params) throws Exception {
                 return converter.convertUnsafe(value);
             }
         }
+
+        @Override
+        protected Mapper<PP, ?, ?> compile() {
+            return new CompiledObjectMapper(m_producerFactory, m_converterFactory);
+        }
+    }
+
+    // Compiled mapper implementations:
+
+    private final class CompiledDoubleMapper extends Mapper<PP, //
+            TypedCellValueProducerFactory<S, ?, ?, PP, DoubleCellValueProducer<S, PP>>, //
+            TypedJavaToDataCellConverterFactory<?, DoubleToDataCellConverter>> {
+
+        private final DoubleCellValueProducer<S, PP> m_producer;
+
+        private final DoubleToDataCellConverter m_converter;
+
+        private CompiledDoubleMapper(
+            final TypedCellValueProducerFactory<S, ?, ?, PP, DoubleCellValueProducer<S, PP>> producerFactory,
+            final TypedJavaToDataCellConverterFactory<?, DoubleToDataCellConverter> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            if (m_producer.producesMissingCellValue(m_source, params)) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertDouble(m_producer.produceDoubleCellValue(m_source, params));
+            }
+        }
+    }
+
+    private final class CompiledIntMapper extends Mapper<PP, //
+            TypedCellValueProducerFactory<S, ?, ?, PP, IntCellValueProducer<S, PP>>, //
+            TypedJavaToDataCellConverterFactory<?, IntToDataCellConverter>> {
+
+        private final IntCellValueProducer<S, PP> m_producer;
+
+        private final IntToDataCellConverter m_converter;
+
+        private CompiledIntMapper(
+            final TypedCellValueProducerFactory<S, ?, ?, PP, IntCellValueProducer<S, PP>> producerFactory,
+            final TypedJavaToDataCellConverterFactory<?, IntToDataCellConverter> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            if (m_producer.producesMissingCellValue(m_source, params)) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertInt(m_producer.produceIntCellValue(m_source, params));
+            }
+        }
+    }
+
+    private final class CompiledLongMapper extends Mapper<PP, //
+            TypedCellValueProducerFactory<S, ?, ?, PP, LongCellValueProducer<S, PP>>, //
+            TypedJavaToDataCellConverterFactory<?, LongToDataCellConverter>> {
+
+        private final LongCellValueProducer<S, PP> m_producer;
+
+        private final LongToDataCellConverter m_converter;
+
+        private CompiledLongMapper(
+            final TypedCellValueProducerFactory<S, ?, ?, PP, LongCellValueProducer<S, PP>> producerFactory,
+            final TypedJavaToDataCellConverterFactory<?, LongToDataCellConverter> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            if (m_producer.producesMissingCellValue(m_source, params)) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertLong(m_producer.produceLongCellValue(m_source, params));
+            }
+        }
+    }
+
+    private final class CompiledBooleanMapper extends Mapper<PP, //
+            TypedCellValueProducerFactory<S, ?, ?, PP, BooleanCellValueProducer<S, PP>>, //
+            TypedJavaToDataCellConverterFactory<?, BooleanToDataCellConverter>> {
+
+        private final BooleanCellValueProducer<S, PP> m_producer;
+
+        private final BooleanToDataCellConverter m_converter;
+
+        private CompiledBooleanMapper(
+            final TypedCellValueProducerFactory<S, ?, ?, PP, BooleanCellValueProducer<S, PP>> producerFactory,
+            final TypedJavaToDataCellConverterFactory<?, BooleanToDataCellConverter> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            if (m_producer.producesMissingCellValue(m_source, params)) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertBoolean(m_producer.produceBooleanCellValue(m_source, params));
+            }
+        }
+    }
+
+    private final class CompiledFloatMapper extends Mapper<PP, //
+            TypedCellValueProducerFactory<S, ?, ?, PP, FloatCellValueProducer<S, PP>>, //
+            TypedJavaToDataCellConverterFactory<?, FloatToDataCellConverter>> {
+
+        private final FloatCellValueProducer<S, PP> m_producer;
+
+        private final FloatToDataCellConverter m_converter;
+
+        private CompiledFloatMapper(
+            final TypedCellValueProducerFactory<S, ?, ?, PP, FloatCellValueProducer<S, PP>> producerFactory,
+            final TypedJavaToDataCellConverterFactory<?, FloatToDataCellConverter> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            if (m_producer.producesMissingCellValue(m_source, params)) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertFloat(m_producer.produceFloatCellValue(m_source, params));
+            }
+        }
+    }
+
+    private final class CompiledByteMapper extends Mapper<PP, //
+            TypedCellValueProducerFactory<S, ?, ?, PP, ByteCellValueProducer<S, PP>>, //
+            TypedJavaToDataCellConverterFactory<?, ByteToDataCellConverter>> {
+
+        private final ByteCellValueProducer<S, PP> m_producer;
+
+        private final ByteToDataCellConverter m_converter;
+
+        private CompiledByteMapper(
+            final TypedCellValueProducerFactory<S, ?, ?, PP, ByteCellValueProducer<S, PP>> producerFactory,
+            final TypedJavaToDataCellConverterFactory<?, ByteToDataCellConverter> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            if (m_producer.producesMissingCellValue(m_source, params)) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertByte(m_producer.produceByteCellValue(m_source, params));
+            }
+        }
+    }
+
+    private final class CompiledShortMapper extends Mapper<PP, //
+            TypedCellValueProducerFactory<S, ?, ?, PP, ShortCellValueProducer<S, PP>>, //
+            TypedJavaToDataCellConverterFactory<?, ShortToDataCellConverter>> {
+
+        private final ShortCellValueProducer<S, PP> m_producer;
+
+        private final ShortToDataCellConverter m_converter;
+
+        private CompiledShortMapper(
+            final TypedCellValueProducerFactory<S, ?, ?, PP, ShortCellValueProducer<S, PP>> producerFactory,
+            final TypedJavaToDataCellConverterFactory<?, ShortToDataCellConverter> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            if (m_producer.producesMissingCellValue(m_source, params)) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertShort(m_producer.produceShortCellValue(m_source, params));
+            }
+        }
+    }
+
+    private final class CompiledCharMapper extends Mapper<PP, //
+            TypedCellValueProducerFactory<S, ?, ?, PP, CharCellValueProducer<S, PP>>, //
+            TypedJavaToDataCellConverterFactory<?, CharToDataCellConverter>> {
+
+        private final CharCellValueProducer<S, PP> m_producer;
+
+        private final CharToDataCellConverter m_converter;
+
+        private CompiledCharMapper(
+            final TypedCellValueProducerFactory<S, ?, ?, PP, CharCellValueProducer<S, PP>> producerFactory,
+            final TypedJavaToDataCellConverterFactory<?, CharToDataCellConverter> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            if (m_producer.producesMissingCellValue(m_source, params)) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertChar(m_producer.produceCharCellValue(m_source, params));
+            }
+        }
+    }
+
+    private final class CompiledObjectMapper extends Mapper<PP, //
+            CellValueProducerFactory<S, ?, ?, PP>, //
+            JavaToDataCellConverterFactory<?>> {
+
+        private final CellValueProducer<S, ?, PP> m_producer;
+
+        private final JavaToDataCellConverter<?> m_converter;
+
+        private CompiledObjectMapper(
+            final CellValueProducerFactory<S, ?, ?, PP> producerFactory,
+            final JavaToDataCellConverterFactory<?> converterFactory) {
+            super(producerFactory, converterFactory);
+            m_producer = producerFactory.create();
+            m_converter = converterFactory.create(m_fileStoreFactory);
+        }
+
+        @Override
+        protected final DataCell map(final PP params) throws Exception {
+            final Object value = m_producer.produceCellValue(m_source, params);
+            if (value == null) {
+                return new MissingCell(null);
+            } else {
+                return m_converter.convertUnsafe(value);
+            }
+        }
     }
 
     private abstract static class Mapper<PP extends ProducerParameters<?>, //
@@ -434,5 +742,13 @@ private Mapper(final P producerFactory, final C converterFactory) {
         }
 
         protected abstract DataCell map(PP params) throws Exception;
+
+        /**
+         * @return a mapper for the same path that creates its producer and converter once and reuses them for all
+         *         cells, or this mapper if it already does so
+         */
+        protected Mapper<PP, ?, ?> compile() {
+            return this;
+        }
     }
 }
@@ -9,6 +9,7 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.convert.ConverterFactory;
 import org.knime.core.data.convert.datacell.JavaToDataCellConverter;
 import org.knime.core.data.convert.datacell.JavaToDataCellConverterFactory;
 import org.knime.core.data.convert.datacell.JavaToDataCellConverterRegistry;
@@ -226,6 +227,29 @@ private MappingFramework() {
         return new DefaultDataRowProducer<>(source, mapping, fileStoreFactory);
     }
 
+    /**
+     * Creates a compiled {@link DataRowProducer} that allows to produce data rows from a given {@link Source source}
+     * using a given {@link ProductionPath mapping}. In contrast to
+     * {@link #createDataRowProducer(FileStoreFactory, Source, ProductionPath[])}, the producer and converter of each
+     * path whose factories {@link ConverterFactory#isStateless() declare themselves stateless} are created once and
+     * reused for every row, with primitive paths avoiding autoboxing. Paths with stateful factories keep creating new
+     * instances for every cell.
+     *
+     * @param fileStoreFactory {@link FileStoreFactory} which may be used for creating {@link CellFactory}s.
+     * @param source The source from which to create data rows.
+     * @param mapping Per-{@link DataCell cell} production paths that describe the mapping from source to data cell.
+     *
+     * @param <S> Type of the source from which to create data rows.
+     * @param <PP> Producer parameters subclass. Specific to the source.
+     * @return The data row producer for the given source and the given mapping.
+     * @since 4.1
+     */
+    public static <S extends Source<?>, PP extends ProducerParameters<S>> DataRowProducer<PP>
+        compileDataRowProducer(final FileStoreFactory fileStoreFactory, final S source,
+            final ProductionPath[] mapping) {
+        return new DefaultDataRowProducer<>(source, mapping, fileStoreFactory, true);
+    }
+
     /**
      * Map a row of input data from the given source to a {@link DataRow}.
      *
@@ -257,6 +281,7 @@ public static <S extends Source<?>, PP extends ProducerParameters<S>> DataRow ma
      * @throws Exception If conversion fails
      * @param <ST> Source type
      * @param <PP> Producer parameters subclass
+     * @see #compileDataRowProducer(FileStoreFactory, Source, ProductionPath[]) for mapping many rows
      * @since 4.0
      */
     public static <S extends Source<?>, PP extends ProducerParameters<S>> DataRow map(final RowKey key,
@@ -305,6 +330,27 @@ public static <S extends Source<?>, PP extends ProducerParameters<S>> DataRow ma
         return new DefaultDataRowConsumer<>(destination, mapping);
     }
 
+    /**
+     * Creates a compiled {@link DataRowConsumer} that allows to write data rows to a given {@link Destination
+     * destination} using a given {@link ConsumptionPath mapping}. In contrast to
+     * {@link #createDataRowConsumer(Destination, ConsumptionPath[])}, the converter and consumer of each path whose
+     * factories {@link ConverterFactory#isStateless() declare themselves stateless} are created once and reused for
+     * every row, with primitive paths avoiding autoboxing. Paths with stateful factories keep creating new instances
+     * for every cell.
+     *
+     * @param <D> Type of the destination to which to write data rows.
+     * @param <CP> Consumer parameters subclass. Specific to the destination.
+     * @param destination The destination to which to write data rows.
+     * @param mapping Per-{@link DataCell cell} consumption paths that describe the mapping from data cell to
+     *            destination.
+     * @return The data row consumer for the given destination and the given mapping.
+     * @since 4.1
+     */
+    public static <D extends Destination<?>, CP extends ConsumerParameters<D>> DataRowConsumer<CP>
+        compileDataRowConsumer(final D destination, final ConsumptionPath[] mapping) {
+        return new DefaultDataRowConsumer<>(destination, mapping, true);
+    }
+
     /**
      * Map data from a {@link DataRow} to an external storage.
      *
@@ -96,6 +96,16 @@ public CellValueConsumer<D, T, CP> create() {
         return m_consumer;
     }
 
+    /**
+     * {@inheritDoc}
+     * <P>
+     * Always {@code true}, as this factory returns the same consumer instance from every call to {@link #create()}.
+     */
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
     @Override
     public ET getDestinationType() {
         return m_externalType;
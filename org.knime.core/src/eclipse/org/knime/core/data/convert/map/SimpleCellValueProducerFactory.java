@@ -112,4 +112,14 @@ public Class<CellValueProducer<S, T, PP>> getProducerType() {
     public CellValueProducer<S, T, PP> create() {
         return m_producer;
     }
+
+    /**
+     * {@inheritDoc}
+     * <P>
+     * Always {@code true}, as this factory returns the same producer instance from every call to {@link #create()}.
+     */
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
 }
\ No newline at end of file
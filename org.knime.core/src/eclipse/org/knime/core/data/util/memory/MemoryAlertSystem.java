@@ -432,6 +432,38 @@ public boolean isMemoryLow() {
         return m_lowMemory.get();
     }
 
+    /**
+     * Returns the amount of tenured gen heap space that can still be occupied before the usage threshold of this
+     * instance is reached. For the instance returned by {@link #getInstance()} this is based on the usage after the
+     * last garbage collection (if there was one), otherwise on the current usage.
+     *
+     * @return the headroom in bytes; negative if the threshold is already exceeded, {@link Long#MAX_VALUE} if the
+     *         maximum size of the memory pool is undefined
+     * @since 4.1
+     */
+    public long getHeadroom() {
+        MemoryUsage usage = m_checkCollectedMemory ? m_memPool.getCollectionUsage() : null;
+        if (usage == null || usage.getUsed() == 0L) {
+            usage = m_memPool.getUsage();
+        }
+        return getHeadroom(usage, m_usageThreshold);
+    }
+
+    /**
+     * Package scope for testing.
+     *
+     * @param usage the usage of the memory pool
+     * @param usageThreshold the usage threshold, between 0 and 1
+     * @return the headroom in bytes, {@link Long#MAX_VALUE} if the maximum is undefined (-1)
+     */
+    static long getHeadroom(final MemoryUsage usage, final double usageThreshold) {
+        if (usage.getMax() < 0) {
+            // no limit known, don't hold back anything based on it
+            return Long.MAX_VALUE;
+        }
+        return (long)(usage.getMax() * usageThreshold) - usage.getUsed();
+    }
+
     /**
      * Creates a new memory action indicator.
      *
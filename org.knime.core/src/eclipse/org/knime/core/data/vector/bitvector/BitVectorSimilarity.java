@@ -0,0 +1,344 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.vector.bitvector;
+
+import java.util.List;
+
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Allocation-free similarity kernels for {@link BitVectorValue}s. The kernels work directly on the internal storage of
+ * {@link DenseBitVectorCell}s (population count on the overlapping 64-bit words) and {@link SparseBitVectorCell}s
+ * (merge of the sorted index arrays, switching to a galloping search if one operand is much sparser than the other).
+ * Neither the operands nor any intermediate vectors are copied, which makes the methods suitable for tight
+ * similarity search loops. The batch methods compare one query against many targets and compute the query cardinality
+ * only once.
+ *
+ * <p>
+ * Other {@link BitVectorValue} implementations are supported as well, but have to be accessed through
+ * {@link BitVectorValue#nextSetBit(long)} and {@link BitVectorValue#get(long)}, which is considerably slower.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class BitVectorSimilarity {
+
+    /**
+     * The ratio of the operand sizes above which the sparse intersection uses a galloping (exponential) search instead
+     * of a linear merge.
+     */
+    private static final int GALLOP_RATIO = 8;
+
+    private static final String NPE_MESSAGE = "Given BitVectorValues may not be null!";
+
+    /** The supported similarity measures. A measure whose denominator is 0 (two empty vectors) yields 0. */
+    public enum Measure {
+        /** Tanimoto (Jaccard) coefficient: <code>|a &amp; b| / (|a| + |b| - |a &amp; b|)</code>. */
+        TANIMOTO {
+            @Override
+            public double compute(final long cardinality1, final long cardinality2, final long intersection) {
+                final long union = cardinality1 + cardinality2 - intersection;
+                return union == 0 ? 0.0 : intersection / (double)union;
+            }
+        },
+
+        /** Dice coefficient: <code>2 * |a &amp; b| / (|a| + |b|)</code>. */
+        DICE {
+            @Override
+            public double compute(final long cardinality1, final long cardinality2, final long intersection) {
+                final long sum = cardinality1 + cardinality2;
+                return sum == 0 ? 0.0 : 2.0 * intersection / sum;
+            }
+        },
+
+        /** Cosine similarity: <code>|a &amp; b| / sqrt(|a| * |b|)</code>. */
+        COSINE {
+            @Override
+            public double compute(final long cardinality1, final long cardinality2, final long intersection) {
+                if (cardinality1 == 0 || cardinality2 == 0) {
+                    return 0.0;
+                }
+                return intersection / Math.sqrt((double)cardinality1 * cardinality2);
+            }
+        };
+
+        /**
+         * Computes the similarity from the cardinalities of the two operands and of their intersection.
+         *
+         * @param cardinality1 number of set bits in the first operand
+         * @param cardinality2 number of set bits in the second operand
+         * @param intersection number of bits set in both operands
+         * @return the similarity, a value in [0, 1]
+         */
+        public abstract double compute(long cardinality1, long cardinality2, long intersection);
+    }
+
+    private BitVectorSimilarity() {
+    }
+
+    /**
+     * Computes the similarity of the two given bit vectors.
+     *
+     * @param measure the similarity measure
+     * @param bv1 the first vector
+     * @param bv2 the second vector
+     * @return the similarity, a value in [0, 1]
+     * @throws NullPointerException if any argument is <code>null</code>
+     */
+    public static double similarity(final Measure measure, final BitVectorValue bv1, final BitVectorValue bv2) {
+        CheckUtils.checkNotNull(measure, "Measure must not be null");
+        CheckUtils.checkNotNull(bv1, NPE_MESSAGE);
+        CheckUtils.checkNotNull(bv2, NPE_MESSAGE);
+        return measure.compute(bv1.cardinality(), bv2.cardinality(), cardinalityOfIntersection(bv1, bv2));
+    }
+
+    /**
+     * Computes the similarity of one query vector to each of the given target vectors. The cardinality of the query is
+     * computed only once and no objects are allocated.
+     *
+     * @param measure the similarity measure
+     * @param query the query vector
+     * @param targets the target vectors, none of them may be <code>null</code>
+     * @param result the array to write the similarities to; <code>result[i]</code> receives the similarity of the
+     *            query to <code>targets[i]</code>
+     * @throws NullPointerException if any argument or target is <code>null</code>
+     * @throws IllegalArgumentException if the result array is shorter than the targets array
+     */
+    public static void similarities(final Measure measure, final BitVectorValue query,
+        final BitVectorValue[] targets, final double[] result) {
+        CheckUtils.checkNotNull(measure, "Measure must not be null");
+        CheckUtils.checkNotNull(query, NPE_MESSAGE);
+        CheckUtils.checkArgument(result.length >= targets.length,
+            "Result array too short (%d) for %d targets", result.length, targets.length);
+        final long queryCardinality = query.cardinality();
+        for (int i = 0; i < targets.length; i++) {
+            final BitVectorValue target = CheckUtils.checkNotNull(targets[i], NPE_MESSAGE);
+            result[i] = measure.compute(queryCardinality, target.cardinality(),
+                cardinalityOfIntersection(query, target));
+        }
+    }
+
+    /**
+     * Computes the similarity of one query vector to each of the given target vectors. Equivalent to
+     * {@link #similarities(Measure, BitVectorValue, BitVectorValue[], double[])} for lists; use a random access list
+     * to avoid the allocation of an iterator.
+     *
+     * @param measure the similarity measure
+     * @param query the query vector
+     * @param targets the target vectors, none of them may be <code>null</code>
+     * @param result the array to write the similarities to; <code>result[i]</code> receives the similarity of the
+     *            query to <code>targets.get(i)</code>
+     * @throws NullPointerException if any argument or target is <code>null</code>
+     * @throws IllegalArgumentException if the result array is shorter than the targets list
+     */
+    public static void similarities(final Measure measure, final BitVectorValue query,
+        final List<? extends BitVectorValue> targets, final double[] result) {
+        CheckUtils.checkNotNull(measure, "Measure must not be null");
+        CheckUtils.checkNotNull(query, NPE_MESSAGE);
+        final int size = targets.size();
+        CheckUtils.checkArgument(result.length >= size,
+            "Result array too short (%d) for %d targets", result.length, size);
+        final long queryCardinality = query.cardinality();
+        for (int i = 0; i < size; i++) {
+            final BitVectorValue target = CheckUtils.checkNotNull(targets.get(i), NPE_MESSAGE);
+            result[i] = measure.compute(queryCardinality, target.cardinality(),
+                cardinalityOfIntersection(query, target));
+        }
+    }
+
+    /**
+     * Computes the number of bits set in both vectors without creating the intersection vector. Dense and sparse
+     * cells (in any combination) are handled on their internal storage.
+     *
+     * @param bv1 the first vector
+     * @param bv2 the second vector
+     * @return the cardinality of the intersection
+     * @throws NullPointerException if any argument is <code>null</code>
+     * @see BitVectorUtil#cardinalityOfIntersection(BitVectorValue, BitVectorValue)
+     */
+    public static long cardinalityOfIntersection(final BitVectorValue bv1, final BitVectorValue bv2) {
+        if (bv1 instanceof DenseBitVectorCell) {
+            final DenseBitVector dense = ((DenseBitVectorCell)bv1).getBitVectorInternal();
+            if (bv2 instanceof DenseBitVectorCell) {
+                return intersectionCount(dense, ((DenseBitVectorCell)bv2).getBitVectorInternal());
+            } else if (bv2 instanceof SparseBitVectorCell) {
+                return intersectionCount(dense, ((SparseBitVectorCell)bv2).getBitVectorInternal());
+            }
+        } else if (bv1 instanceof SparseBitVectorCell) {
+            final SparseBitVector sparse = ((SparseBitVectorCell)bv1).getBitVectorInternal();
+            if (bv2 instanceof SparseBitVectorCell) {
+                return sparse.cardinalityOfIntersection(((SparseBitVectorCell)bv2).getBitVectorInternal());
+            } else if (bv2 instanceof DenseBitVectorCell) {
+                return intersectionCount(((DenseBitVectorCell)bv2).getBitVectorInternal(), sparse);
+            }
+        }
+        return BitVectorUtil.cardinalityOfIntersection(bv1, bv2);
+    }
+
+    /**
+     * Counts the bits set in both dense vectors, only visiting the words in which both vectors have set bits.
+     */
+    static long intersectionCount(final DenseBitVector bv1, final DenseBitVector bv2) {
+        final int first = Math.max(bv1.getFirstAddrInternal(), bv2.getFirstAddrInternal());
+        final int last = Math.min(bv1.getLastAddrInternal(), bv2.getLastAddrInternal());
+        if (bv1.getFirstAddrInternal() < 0 || bv2.getFirstAddrInternal() < 0 || first > last) {
+            return 0;
+        }
+        return intersectionCount(bv1.getStorageInternal(), bv2.getStorageInternal(), first, last + 1);
+    }
+
+    /**
+     * Counts the bits of the sparse vector that are also set in the dense vector.
+     */
+    static long intersectionCount(final DenseBitVector dense, final SparseBitVector sparse) {
+        final long[] words = dense.getStorageInternal();
+        final long[] indices = sparse.getIdxStorageInternal();
+        final int count = (int)sparse.cardinality();
+        final long length = (long)(dense.getLastAddrInternal() + 1) << 6;
+        long result = 0;
+        for (int i = 0; i < count; i++) {
+            final long idx = indices[i];
+            if (idx >= length) {
+                break; // indices are sorted, no further set bits in the dense vector
+            }
+            result += (words[(int)(idx >>> 6)] >>> idx) & 1L;
+        }
+        return result;
+    }
+
+    /**
+     * Counts the bits set in both word arrays in the address range [from, to), i.e. the population count of the
+     * bitwise AND.
+     *
+     * @param words1 the words of the first vector
+     * @param words2 the words of the second vector
+     * @param from the first word address (inclusive)
+     * @param to the last word address (exclusive), must not exceed the length of either array
+     * @return the number of bits set in both arrays
+     */
+    static long intersectionCount(final long[] words1, final long[] words2, final int from, final int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            result += Long.bitCount(words1[i] & words2[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the values contained in both sorted (ascending, without duplicates) index arrays. If one array is much
+     * shorter than the other, each of its values is located in the longer one by exponential search starting at the
+     * last match position, which costs O(m log(n/m)) instead of O(m + n).
+     *
+     * @param indices1 the first sorted array
+     * @param length1 the number of valid elements in the first array
+     * @param indices2 the second sorted array
+     * @param length2 the number of valid elements in the second array
+     * @return the number of common values
+     */
+    static long intersectionCount(final long[] indices1, final int length1, final long[] indices2,
+        final int length2) {
+        if (length1 == 0 || length2 == 0 || indices1[length1 - 1] < indices2[0]
+            || indices2[length2 - 1] < indices1[0]) {
+            return 0;
+        }
+        if (length1 > length2) {
+            return intersectionCount(indices2, length2, indices1, length1);
+        }
+        if (length2 / length1 >= GALLOP_RATIO) {
+            return gallopingIntersectionCount(indices1, length1, indices2, length2);
+        }
+        long result = 0;
+        int i1 = 0;
+        int i2 = 0;
+        while (i1 < length1 && i2 < length2) {
+            final long v1 = indices1[i1];
+            final long v2 = indices2[i2];
+            if (v1 == v2) {
+                result++;
+                i1++;
+                i2++;
+            } else if (v1 < v2) {
+                i1++;
+            } else {
+                i2++;
+            }
+        }
+        return result;
+    }
+
+    /** Intersection count for a short array <code>small</code> and a much longer array <code>large</code>. */
+    private static long gallopingIntersectionCount(final long[] small, final int smallLength, final long[] large,
+        final int largeLength) {
+        long result = 0;
+        int low = 0;
+        for (int i = 0; i < smallLength && low < largeLength; i++) {
+            final long value = small[i];
+            // exponential search for the first position in large whose value is >= value
+            int bound = 1;
+            while (low + bound < largeLength && large[low + bound] < value) {
+                bound <<= 1;
+            }
+            int lo = low + (bound >>> 1);
+            int hi = Math.min(low + bound, largeLength - 1);
+            // binary search in [lo, hi] for the insertion point of value
+            while (lo <= hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (large[mid] < value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            if (lo < largeLength && large[lo] == value) {
+                result++;
+                lo++;
+            }
+            low = lo;
+        }
+        return result;
+    }
+}
@@ -169,6 +169,12 @@ public static long cardinalityOfIntersection(final BitVectorValue bv1, final Bit
             return ((DenseBitVectorCell)bv1).cardinalityOfIntersection((DenseBitVectorCell)bv2);
         } else if (bv1 instanceof SparseBitVectorCell && bv2 instanceof SparseBitVectorCell) {
             return ((SparseBitVectorCell)bv1).cardinalityOfIntersection((SparseBitVectorCell)bv2);
+        } else if (bv1 instanceof DenseBitVectorCell && bv2 instanceof SparseBitVectorCell) {
+            return BitVectorSimilarity.intersectionCount(((DenseBitVectorCell)bv1).getBitVectorInternal(),
+                ((SparseBitVectorCell)bv2).getBitVectorInternal());
+        } else if (bv1 instanceof SparseBitVectorCell && bv2 instanceof DenseBitVectorCell) {
+            return BitVectorSimilarity.intersectionCount(((DenseBitVectorCell)bv2).getBitVectorInternal(),
+                ((SparseBitVectorCell)bv1).getBitVectorInternal());
         }
 
         // we have to go into the loop
@@ -1251,6 +1251,24 @@ public String dumpBits() {
         return result.toString();
     }
 
+    /**
+     * @return the internal storage, not a copy -- must not be modified
+     * @see BitVectorSimilarity
+     */
+    long[] getStorageInternal() {
+        return m_storage;
+    }
+
+    /** @return the first storage address containing a set bit, -1 if empty */
+    int getFirstAddrInternal() {
+        return m_firstAddr;
+    }
+
+    /** @return the last storage address containing a set bit, -1 if empty */
+    int getLastAddrInternal() {
+        return m_lastAddr;
+    }
+
     /**
      * Computes the cardinality of the intersection with the given bitVector.
      *
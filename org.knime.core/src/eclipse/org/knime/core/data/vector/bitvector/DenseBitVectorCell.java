@@ -207,6 +207,13 @@ public long nextSetBit(final long startIdx) {
     }
 
 
+    /**
+     * @return the underlying bit vector, not a copy -- must not be modified
+     */
+    DenseBitVector getBitVectorInternal() {
+        return m_bitVector;
+    }
+
     /**
      * @see BitVectorUtil#cardinalityOfIntersection(BitVectorValue, BitVectorValue)
      * @param bitVectorCell the other cell containing the operand
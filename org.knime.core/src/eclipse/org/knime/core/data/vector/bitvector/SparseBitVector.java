@@ -1003,6 +1003,15 @@ public long[] getAllOneIndices() {
         return Arrays.copyOf(m_idxStorage, m_lastIdx + 1);
     }
 
+    /**
+     * @return the sorted indices of the set bits, not a copy -- must not be modified; only the first
+     *         {@link #cardinality()} elements are valid
+     * @see BitVectorSimilarity
+     */
+    long[] getIdxStorageInternal() {
+        return m_idxStorage;
+    }
+
     /**
      * Computes the cardinality of the intersection with the given bitVector.
      *
@@ -1011,24 +1020,8 @@ public long[] getAllOneIndices() {
      * @return the cardinality of the intersection
      */
     long cardinalityOfIntersection(final SparseBitVector bitVector) {
-        if (isEmpty() || bitVector.isEmpty()) {
-            return 0;
-        }
-        long result = 0;
-        int thisIdx = 0;
-        int bvIdx = 0;
-        while (thisIdx <= m_lastIdx && bvIdx <= bitVector.m_lastIdx) {
-            if (m_idxStorage[thisIdx] == bitVector.m_idxStorage[bvIdx]) {
-                // index is set in both arguments
-                result++;
-            }
-            if (m_idxStorage[thisIdx] < bitVector.m_idxStorage[bvIdx]) {
-                thisIdx++;
-            } else {
-                bvIdx++;
-            }
-        }
-        return result;
+        return BitVectorSimilarity.intersectionCount(m_idxStorage, m_lastIdx + 1, bitVector.m_idxStorage,
+            bitVector.m_lastIdx + 1);
     }
 
     /**
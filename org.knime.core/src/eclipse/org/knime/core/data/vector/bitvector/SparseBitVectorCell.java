@@ -214,6 +214,13 @@ public long nextSetBit(final long startIdx) {
         return m_bitVector.nextSetBit(startIdx);
     }
 
+    /**
+     * @return the underlying bit vector, not a copy -- must not be modified
+     */
+    SparseBitVector getBitVectorInternal() {
+        return m_bitVector;
+    }
+
     /**
      * @see BitVectorUtil#cardinalityOfIntersection(BitVectorValue, BitVectorValue)
      * @param bitVectorCell the other cell containing the operand
@@ -100,6 +100,26 @@ public double getValue(final int index) {
         return m_doubleVector[index];
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void copyValues(final int srcPos, final double[] dest, final int destPos, final int length) {
+        System.arraycopy(m_doubleVector, srcPos, dest, destPos, length);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] toArray() {
+        return m_doubleVector.clone();
+    }
+
+    /**
+     * @return the underlying array, not a copy -- must not be modified
+     * @see DoubleVectorMath
+     */
+    double[] getArrayInternal() {
+        return m_doubleVector;
+    }
+
     /* ########################
      * CollectionDataValue
      * ######################## */
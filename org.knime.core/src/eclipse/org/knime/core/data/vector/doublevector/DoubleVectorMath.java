@@ -0,0 +1,273 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.vector.doublevector;
+
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Bulk arithmetic on {@link DoubleVectorValue}s. {@link DenseDoubleVectorCell}s are processed on their backing array
+ * without copying it; other implementations are copied once via {@link DoubleVectorValue#toArray()}.
+ *
+ * <p>
+ * The array kernels are plain counted loops over primitive arrays, which the JIT compiles to SIMD instructions for
+ * the element-wise operations. Reductions (dot product, distance, norm) use four independent accumulators to break
+ * the dependency on a single running sum; the result may therefore differ from a strictly sequential summation in
+ * the last bits.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class DoubleVectorMath {
+
+    private DoubleVectorMath() {
+    }
+
+    /**
+     * The dot product of two vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the sum of the element-wise products
+     * @throws IllegalArgumentException if the vectors differ in length
+     */
+    public static double dot(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        return dot(valuesOf(v1), valuesOf(v2));
+    }
+
+    /**
+     * The squared euclidean distance of two vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the sum of the squared element-wise differences
+     * @throws IllegalArgumentException if the vectors differ in length
+     */
+    public static double squaredDistance(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        return squaredDistance(valuesOf(v1), valuesOf(v2));
+    }
+
+    /**
+     * The euclidean (L2) distance of two vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the euclidean distance
+     * @throws IllegalArgumentException if the vectors differ in length
+     */
+    public static double distance(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        return Math.sqrt(squaredDistance(v1, v2));
+    }
+
+    /**
+     * The euclidean (L2) norm of a vector.
+     *
+     * @param v the vector
+     * @return the norm
+     */
+    public static double norm(final DoubleVectorValue v) {
+        final double[] values = valuesOf(v);
+        return Math.sqrt(dot(values, values));
+    }
+
+    /**
+     * Scales the vector to unit length. A vector of norm 0 is returned as a (zero) copy.
+     *
+     * @param v the vector
+     * @return a new cell containing the normalized vector
+     */
+    public static DenseDoubleVectorCell normalize(final DoubleVectorValue v) {
+        final double norm = norm(v);
+        return scale(v, norm == 0.0 ? 1.0 : 1.0 / norm);
+    }
+
+    /**
+     * Multiplies each element with a factor.
+     *
+     * @param v the vector
+     * @param factor the factor
+     * @return a new cell containing the scaled vector
+     */
+    public static DenseDoubleVectorCell scale(final DoubleVectorValue v, final double factor) {
+        final double[] values = valuesOf(v);
+        final double[] result = new double[values.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values[i] * factor;
+        }
+        return new DenseDoubleVectorCell(result);
+    }
+
+    /**
+     * The element-wise sum of two vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return a new cell containing <code>v1 + v2</code>
+     * @throws IllegalArgumentException if the vectors differ in length
+     */
+    public static DenseDoubleVectorCell add(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        final double[] a = valuesOf(v1);
+        final double[] b = valuesOf(v2);
+        checkSameLength(a, b);
+        final double[] result = new double[a.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a[i] + b[i];
+        }
+        return new DenseDoubleVectorCell(result);
+    }
+
+    /**
+     * The element-wise difference of two vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return a new cell containing <code>v1 - v2</code>
+     * @throws IllegalArgumentException if the vectors differ in length
+     */
+    public static DenseDoubleVectorCell subtract(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        final double[] a = valuesOf(v1);
+        final double[] b = valuesOf(v2);
+        checkSameLength(a, b);
+        final double[] result = new double[a.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a[i] - b[i];
+        }
+        return new DenseDoubleVectorCell(result);
+    }
+
+    /**
+     * The element-wise (Hadamard) product of two vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return a new cell containing the element-wise products
+     * @throws IllegalArgumentException if the vectors differ in length
+     */
+    public static DenseDoubleVectorCell multiply(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        final double[] a = valuesOf(v1);
+        final double[] b = valuesOf(v2);
+        checkSameLength(a, b);
+        final double[] result = new double[a.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a[i] * b[i];
+        }
+        return new DenseDoubleVectorCell(result);
+    }
+
+    /**
+     * The dot product of two arrays.
+     *
+     * @param a the first array
+     * @param b the second array
+     * @return the sum of the element-wise products
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static double dot(final double[] a, final double[] b) {
+        checkSameLength(a, b);
+        final int length = a.length;
+        final int unrolled = length & ~3;
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int i = 0; i < unrolled; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (int i = unrolled; i < length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * The squared euclidean distance of two arrays.
+     *
+     * @param a the first array
+     * @param b the second array
+     * @return the sum of the squared element-wise differences
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static double squaredDistance(final double[] a, final double[] b) {
+        checkSameLength(a, b);
+        final int length = a.length;
+        final int unrolled = length & ~3;
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int i = 0; i < unrolled; i += 4) {
+            final double d0 = a[i] - b[i];
+            final double d1 = a[i + 1] - b[i + 1];
+            final double d2 = a[i + 2] - b[i + 2];
+            final double d3 = a[i + 3] - b[i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (int i = unrolled; i < length; i++) {
+            final double d = a[i] - b[i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** The values of the vector, the backing array for dense cells (not to be modified). */
+    private static double[] valuesOf(final DoubleVectorValue v) {
+        CheckUtils.checkArgumentNotNull(v, "Vector must not be null");
+        if (v instanceof DenseDoubleVectorCell) {
+            return ((DenseDoubleVectorCell)v).getArrayInternal();
+        }
+        return v.toArray();
+    }
+
+    private static void checkSameLength(final double[] a, final double[] b) {
+        CheckUtils.checkArgument(a.length == b.length, "Vector lengths differ: %d vs. %d", a.length, b.length);
+    }
+}
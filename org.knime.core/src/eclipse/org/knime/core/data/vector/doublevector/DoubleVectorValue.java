@@ -79,6 +79,37 @@ public interface DoubleVectorValue extends DataValue {
      */
     public double getValue(final int index);
 
+    /** Copies a range of values into the given array. The default implementation reads the values one by one,
+     * implementations backed by an array should override it with a bulk copy.
+     * @param srcPos The first index in this vector to copy.
+     * @param dest The destination array.
+     * @param destPos The first index in the destination array.
+     * @param length The number of values to copy.
+     * @throws IndexOutOfBoundsException if a range is invalid
+     * @since 4.1
+     */
+    public default void copyValues(final int srcPos, final double[] dest, final int destPos, final int length) {
+        if (srcPos < 0 || destPos < 0 || length < 0 || srcPos + length > getLength()
+            || destPos + length > dest.length) {
+            throw new IndexOutOfBoundsException(String.format("Invalid range: source %d, destination %d, length %d",
+                srcPos, destPos, length));
+        }
+        for (int i = 0; i < length; i++) {
+            dest[destPos + i] = getValue(srcPos + i);
+        }
+    }
+
+    /** A copy of all values of this vector.
+     * @return A new array of length {@link #getLength()}.
+     * @see DoubleVectorMath
+     * @since 4.1
+     */
+    public default double[] toArray() {
+        final double[] result = new double[getLength()];
+        copyValues(0, result, 0, result.length);
+        return result;
+    }
+
     /** Implementations of the meta information of this value class. */
     class DoubleVectorUtilityFactory extends ExtensibleUtilityFactory {
         /** Singleton icon to be used to display this cell type. */
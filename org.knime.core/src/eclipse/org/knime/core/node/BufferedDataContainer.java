@@ -47,6 +47,7 @@
  */
 package org.knime.core.node;
 
+import java.io.IOException;
 import java.util.Map;
 
 import org.knime.core.data.DataTableSpec;
@@ -57,6 +58,7 @@
 import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
 import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
 import org.knime.core.internal.ReferencedFile;
+import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
 import org.knime.core.node.workflow.SingleNodeContainer.MemoryPolicy;
 import org.knime.core.node.workflow.WorkflowDataRepository;
 
@@ -216,6 +218,23 @@ public BufferedDataTable getTable() {
         return m_resultTable;
     }
 
+    /**
+     * Closes this container with a file level copy of the argument table if that table is backed by a container
+     * table whose data file can be shared, see {@link DataContainer#closeWithFileCopy(ContainerTable)}. If it returns
+     * <code>false</code> the container is unchanged and the rows need to be added as usual.
+     *
+     * @param table the table to copy
+     * @return whether the container was closed with a copy of the table
+     * @throws IOException if the data file can't be linked or copied
+     * @throws IllegalStateException if the container is not open or rows were already added
+     * @since 4.1
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public boolean closeWithFileCopyOf(final BufferedDataTable table) throws IOException {
+        KnowsRowCountTable delegate = table.getDelegate();
+        return delegate instanceof ContainerTable && closeWithFileCopy((ContainerTable)delegate);
+    }
+
     /**
      * Just delegates to
      * {@link DataContainer#readFromZipDelayed(ReferencedFile, DataTableSpec, int, WorkflowDataRepository)} This
@@ -62,6 +62,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import javax.swing.JComponent;
@@ -83,6 +84,7 @@
 import org.knime.core.data.container.DefaultTableStoreFormat;
 import org.knime.core.data.container.JoinedTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
+import org.knime.core.data.container.RowKeySummary;
 import org.knime.core.data.container.TableSpecReplacerTable;
 import org.knime.core.data.container.VoidTable;
 import org.knime.core.data.container.WrappedTable;
@@ -453,6 +455,25 @@ public Integer getBufferedTableId() {
         return m_tableID;
     }
 
+    /** Summary of the row keys of this table if it is known without iterating the table, used to avoid scanning
+     * tables for duplicate row keys when they are concatenated.
+     * @return the summary, empty if not known.
+     * @since 4.1
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public Optional<RowKeySummary> getRowKeySummary() {
+        if (m_delegate instanceof ContainerTable) {
+            return ((ContainerTable)m_delegate).getRowKeySummary();
+        } else if (m_delegate instanceof ConcatenateTable) {
+            return ((ConcatenateTable)m_delegate).getRowKeySummary();
+        } else if (m_delegate instanceof RearrangeColumnsTable || m_delegate instanceof TableSpecReplacerTable
+            || m_delegate instanceof JoinedTable) {
+            // same rows as the (first) reference table
+            return m_delegate.getReferenceTables()[0].getRowKeySummary();
+        }
+        return Optional.empty();
+    }
+
     private final class CloseableFailProveRowIterator
         extends CloseableRowIterator {
 
@@ -135,6 +135,17 @@ public final class KNIMEConstants {
      */
     public static final String PROPERTY_ASYNC_WRITE_CACHE_SIZE = "knime.async.io.cachesize";
 
+    /**
+     * Java property to specify the number of row batches that are decoded ahead of the consumer by a background thread
+     * when reading a table from disk. The larger the value, the more rows are kept in memory while iterating. A value
+     * of 0 disables reading ahead; it is also disabled if rows are handled sequentially (see
+     * {@link #PROPERTY_SYNCHRONOUS_IO}). If not specified the default is obtained from
+     * {@link DataContainerSettings#getDefault()}.
+     *
+     * @since 4.1
+     */
+    public static final String PROPERTY_ASYNC_READ_AHEAD = "knime.async.io.readahead";
+
     /**
      * The number of nominal values kept in the domain when adding rows to a table. This is only the default and may be
      * overruled by individual node implementations. If not specified the default is obtained from
@@ -361,6 +372,45 @@ public final class KNIMEConstants {
     * @since 3.0 */
    public static final String PROPERTY_HIGH_DPI_SUPPORT = "knime.highdpi.support";
 
+    /**
+     * Java property to have node state, progress and message listeners that are registered through the UI wrappers
+     * notified asynchronously with events being coalesced per node (see
+     * {@link org.knime.core.node.workflow.AsyncNodeEventDispatcher}). The value should be <code>true</code> or
+     * <code>false</code> (which is the default); by default these listeners are notified synchronously on the thread
+     * causing the change.
+     *
+     * @since 4.1
+     */
+    public static final String PROPERTY_ASYNC_UI_NODE_EVENTS = "knime.ui.node.events.async";
+
+    /**
+     * Java property to enable or disable the memory-aware admission of locally executed nodes, i.e. deferring the
+     * start of nodes whose declared memory footprint (see {@link MemoryFootprintAware}) exceeds the remaining tenured
+     * generation headroom. The value should be <code>true</code> or <code>false</code> (which is the default).
+     *
+     * @since 4.1
+     */
+    public static final String PROPERTY_MEMORY_ADMISSION_CONTROL = "knime.execution.memory.admission";
+
+    /**
+     * Java property to enable or disable the index of node descriptions in the configuration area, which avoids
+     * parsing the node description XML files during startup. The value should be <code>true</code> (which is the
+     * default) or <code>false</code>.
+     *
+     * @since 4.1
+     */
+    public static final String PROPERTY_NODE_DESCRIPTION_INDEX = "knime.nodedescription.index";
+
+    /**
+     * Java property to set the age in hours after which data container files (<code>knime_container_*</code>) left in
+     * the temp directory by previous sessions are deleted on startup. The deletion is disabled by default (or with a
+     * value of 0). Only enable it if no other KNIME instance that runs longer than the given age shares the temp
+     * directory, as the files of running instances can't be told apart from orphaned ones.
+     *
+     * @since 4.1
+     */
+    public static final String PROPERTY_TEMP_FILE_SWEEP_AGE = "knime.tempfiles.sweep.age";
+
     /**
      * The minimum refresh interval in ms, e.g. to refresh the node progress or the state of the remote job view.
      *
@@ -0,0 +1,71 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node;
+
+import org.knime.core.node.port.PortObject;
+
+/**
+ * Interface that can be implemented by a {@link NodeModel} to declare the amount of (heap) memory its execution is
+ * expected to retain, e.g. a sort or pivoting node holding large parts of its input in memory. The local job manager
+ * uses this value to defer the start of the node while the tenured generation headroom reported by the
+ * {@link org.knime.core.data.util.memory.MemoryAlertSystem} is too small, instead of starting several memory-heavy
+ * nodes at the same moment. Nodes not implementing this interface are never deferred.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public interface MemoryFootprintAware {
+
+    /**
+     * Returns the expected memory footprint of the next execution. Called before the node is executed (and before
+     * {@link NodeModel#execute(PortObject[], ExecutionContext)}), it must be cheap and must not modify any state.
+     *
+     * @param inData the input data of the execution, elements may be <code>null</code> for optional inputs
+     * @return expected number of bytes, or a negative value if unknown (the node is not deferred then)
+     */
+    long getExpectedMemoryFootprint(PortObject[] inData);
+}
@@ -0,0 +1,553 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.xmlbeans.XmlException;
+import org.knime.core.internal.ConfigurationAreaChecker;
+import org.knime.core.node.NodeFactory.NodeType;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.Version;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+/**
+ * Shares the node descriptions parsed from the XML files of the node factories between all instances of a factory
+ * class, so that each file is parsed at most once per session.
+ *
+ * <p>
+ * In addition the content of the descriptions is kept in an index in the configuration area, one directory per bundle
+ * with one file per bundle version. On subsequent starts the descriptions are created from the index and the XML
+ * file is only parsed once {@link NodeDescription#getXMLDescription()} is called (i.e. when the node's documentation
+ * is shown). Bundles with an unresolved version qualifier (as in development setups) are not indexed, as their node
+ * descriptions can change without a change of the version. The index can be disabled with the system property
+ * {@value KNIMEConstants#PROPERTY_NODE_DESCRIPTION_INDEX}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NodeDescriptionCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(NodeDescriptionCache.class);
+
+    private static final NodeDescriptionCache INSTANCE = new NodeDescriptionCache();
+
+    /** Marks the index files, followed by the format version. */
+    private static final int INDEX_MAGIC = 0x4B4E4449;
+
+    private static final int INDEX_VERSION = 1;
+
+    /** Port indices are probed up to this bound. */
+    private static final int MAX_PORTS = 1000;
+
+    private final Map<Class<?>, NodeDescription> m_descriptions = new ConcurrentHashMap<>();
+
+    /** The index per bundle (symbolic name and version), an empty index if the bundle is not indexed. */
+    private final Map<String, BundleIndex> m_bundleIndices = new ConcurrentHashMap<>();
+
+    private final Path m_indexDirectory;
+
+    private NodeDescriptionCache() {
+        Path indexDirectory = null;
+        if (!"false".equalsIgnoreCase(System.getProperty(KNIMEConstants.PROPERTY_NODE_DESCRIPTION_INDEX))) {
+            try {
+                indexDirectory = ConfigurationAreaChecker.getConfigurationLocationPath()
+                    .map(p -> p.resolve("org.knime.core").resolve("node-descriptions")).orElse(null);
+            } catch (RuntimeException | LinkageError ex) {
+                // not running in an OSGi/Eclipse environment
+                LOGGER.debug("No configuration area available for the node description index: " + ex.getMessage());
+            }
+        }
+        m_indexDirectory = indexDirectory;
+    }
+
+    /** @return the singleton instance */
+    static NodeDescriptionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the node description of a factory class, parsing it only if it is neither cached nor indexed. The
+     * returned object is shared by all callers.
+     *
+     * @param factoryClass the class of the factory
+     * @param parser the parser used if the description needs to be parsed
+     * @return the node description
+     * @throws SAXException if the XML file is not well-formed
+     * @throws IOException if the XML file cannot be read
+     * @throws XmlException if the XML file is not valid
+     */
+    NodeDescription get(@SuppressWarnings("rawtypes") final Class<? extends NodeFactory> factoryClass,
+        final NodeDescriptionParser parser) throws SAXException, IOException, XmlException {
+        NodeDescription description = m_descriptions.get(factoryClass);
+        if (description != null) {
+            return description;
+        }
+        final BundleIndex index = getBundleIndex(factoryClass);
+        final IndexEntry entry = index.get(factoryClass.getName());
+        if (entry != null) {
+            description = new IndexedNodeDescription(factoryClass, entry, parser);
+        } else {
+            // concurrent requests for the same class may parse twice, the first result wins
+            description = parser.parseDescription(factoryClass);
+            if (!(description instanceof NoDescriptionProxy)) {
+                index.add(factoryClass.getName(), IndexEntry.of(description));
+            }
+        }
+        final NodeDescription previous = m_descriptions.putIfAbsent(factoryClass, description);
+        return previous != null ? previous : description;
+    }
+
+    private BundleIndex getBundleIndex(final Class<?> factoryClass) {
+        if (m_indexDirectory == null) {
+            return BundleIndex.NONE;
+        }
+        final Bundle bundle;
+        try {
+            bundle = FrameworkUtil.getBundle(factoryClass);
+        } catch (RuntimeException | LinkageError ex) {
+            return BundleIndex.NONE;
+        }
+        if (bundle == null || "qualifier".equals(bundle.getVersion().getQualifier())) {
+            return BundleIndex.NONE;
+        }
+        final String bundleName = bundle.getSymbolicName();
+        final Version version = bundle.getVersion();
+        return m_bundleIndices.computeIfAbsent(bundleName + "_" + version,
+            k -> new BundleIndex(m_indexDirectory.resolve(bundleName), version));
+    }
+
+    /** The content of a node description except for the XML. Package scope for testing. */
+    static final class IndexEntry {
+        private String m_nodeName;
+
+        private String m_iconPath;
+
+        private String m_interactiveViewName;
+
+        private NodeType m_type;
+
+        private boolean m_deprecated;
+
+        /** Names and descriptions of the ports and views, alternating. */
+        private String[] m_inports;
+
+        private String[] m_outports;
+
+        private String[] m_views;
+
+        static IndexEntry of(final NodeDescription description) {
+            final IndexEntry entry = new IndexEntry();
+            entry.m_nodeName = description.getNodeName();
+            entry.m_iconPath = description.getIconPath();
+            entry.m_interactiveViewName = description.getInteractiveViewName();
+            entry.m_type = description.getType();
+            entry.m_deprecated = description.isDeprecated();
+            final List<String> inports = new ArrayList<>();
+            for (int i = 0; i < MAX_PORTS; i++) {
+                final String name = description.getInportName(i);
+                final String desc = description.getInportDescription(i);
+                if (name == null && desc == null) {
+                    break;
+                }
+                inports.add(name);
+                inports.add(desc);
+            }
+            entry.m_inports = inports.toArray(new String[inports.size()]);
+            final List<String> outports = new ArrayList<>();
+            for (int i = 0; i < MAX_PORTS; i++) {
+                final String name = description.getOutportName(i);
+                final String desc = description.getOutportDescription(i);
+                if (name == null && desc == null) {
+                    break;
+                }
+                outports.add(name);
+                outports.add(desc);
+            }
+            entry.m_outports = outports.toArray(new String[outports.size()]);
+            entry.m_views = new String[2 * description.getViewCount()];
+            for (int i = 0; i < description.getViewCount(); i++) {
+                entry.m_views[2 * i] = description.getViewName(i);
+                entry.m_views[2 * i + 1] = description.getViewDescription(i);
+            }
+            return entry;
+        }
+
+        void write(final DataOutput out) throws IOException {
+            writeString(out, m_nodeName);
+            writeString(out, m_iconPath);
+            writeString(out, m_interactiveViewName);
+            writeString(out, m_type == null ? null : m_type.name());
+            out.writeBoolean(m_deprecated);
+            writeStrings(out, m_inports);
+            writeStrings(out, m_outports);
+            writeStrings(out, m_views);
+        }
+
+        static IndexEntry read(final DataInput in) throws IOException {
+            final IndexEntry entry = new IndexEntry();
+            entry.m_nodeName = readString(in);
+            entry.m_iconPath = readString(in);
+            entry.m_interactiveViewName = readString(in);
+            final String type = readString(in);
+            try {
+                entry.m_type = type == null ? null : NodeType.valueOf(type);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Unknown node type in node description index: " + type, ex);
+            }
+            entry.m_deprecated = in.readBoolean();
+            entry.m_inports = readStrings(in);
+            entry.m_outports = readStrings(in);
+            entry.m_views = readStrings(in);
+            return entry;
+        }
+
+        /** Strings are written with their length, as descriptions may exceed the limit of modified UTF-8. */
+        private static void writeString(final DataOutput out, final String s) throws IOException {
+            if (s == null) {
+                out.writeInt(-1);
+            } else {
+                final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private static String readString(final DataInput in) throws IOException {
+            final int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static void writeStrings(final DataOutput out, final String[] strings) throws IOException {
+            out.writeInt(strings.length);
+            for (String s : strings) {
+                writeString(out, s);
+            }
+        }
+
+        private static String[] readStrings(final DataInput in) throws IOException {
+            final String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(in);
+            }
+            return strings;
+        }
+    }
+
+    /**
+     * The index file of one bundle version. Entries are appended as descriptions are parsed, a truncated last entry
+     * (e.g. after a crash) is ignored when reading. Several KNIME instances may share the configuration area, so the
+     * file is locked while it is read or written. Package scope for testing.
+     */
+    static final class BundleIndex {
+
+        static final BundleIndex NONE = new BundleIndex(null, null);
+
+        /** Only one lock per file is allowed in a JVM, other instances for the same file wait on this monitor. */
+        private static final Object FILE_LOCK = new Object();
+
+        private final Path m_directory;
+
+        private final Version m_version;
+
+        private final Path m_file;
+
+        private Map<String, IndexEntry> m_entries;
+
+        private boolean m_failed;
+
+        /**
+         * @param directory the index directory of the bundle, <code>null</code> if the bundle is not indexed
+         * @param version the version of the bundle
+         */
+        BundleIndex(final Path directory, final Version version) {
+            m_directory = directory;
+            m_version = version;
+            m_file = directory == null ? null : directory.resolve(version + ".idx");
+            m_failed = directory == null;
+        }
+
+        synchronized IndexEntry get(final String factoryClassName) {
+            if (m_failed) {
+                return null;
+            }
+            return getEntries().get(factoryClassName);
+        }
+
+        synchronized void add(final String factoryClassName, final IndexEntry entry) {
+            if (m_failed || getEntries().containsKey(factoryClassName)) {
+                return;
+            }
+            try {
+                // each entry is written with a single write call to keep the file consistent
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (DataOutputStream out = new DataOutputStream(bytes)) {
+                    out.writeUTF(factoryClassName);
+                    entry.write(out);
+                }
+                Files.createDirectories(m_directory);
+                synchronized (FILE_LOCK) {
+                    try (FileChannel channel = FileChannel.open(m_file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND); FileLock lock = channel.lock()) {
+                        if (channel.size() == 0) {
+                            deleteOutdatedIndices();
+                            final ByteBuffer header = ByteBuffer.allocate(8);
+                            header.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).flip();
+                            writeFully(channel, header);
+                        }
+                        writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()));
+                    }
+                }
+                m_entries.put(factoryClassName, entry);
+            } catch (IOException ex) {
+                LOGGER.debug("Could not write node description index " + m_file + ": " + ex.getMessage(), ex);
+                m_failed = true;
+            }
+        }
+
+        private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private Map<String, IndexEntry> getEntries() {
+            if (m_entries == null) {
+                m_entries = read();
+            }
+            return m_entries;
+        }
+
+        private Map<String, IndexEntry> read() {
+            final Map<String, IndexEntry> entries = new HashMap<>();
+            if (!Files.exists(m_file)) {
+                return entries;
+            }
+            synchronized (FILE_LOCK) {
+                try (FileChannel channel = FileChannel.open(m_file, StandardOpenOption.READ);
+                        FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+                    // the stream is not closed, that would close the channel before the lock is released
+                    final DataInputStream in =
+                        new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                    if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                        LOGGER.debug("Ignoring node description index " + m_file + " in unknown format");
+                        m_failed = true;
+                        return entries;
+                    }
+                    while (true) {
+                        final String factoryClassName;
+                        try {
+                            factoryClassName = in.readUTF();
+                        } catch (EOFException ex) {
+                            break;
+                        }
+                        entries.put(factoryClassName, IndexEntry.read(in));
+                    }
+                } catch (EOFException ex) {
+                    // truncated last entry, it will be parsed again but can't be appended anymore
+                    m_failed = true;
+                } catch (IOException ex) {
+                    LOGGER.debug("Could not read node description index " + m_file + ": " + ex.getMessage(), ex);
+                    m_failed = true;
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * Deletes the index files of older versions of the bundle. Files of newer versions are kept, they may belong
+         * to another installation sharing the configuration area.
+         */
+        private void deleteOutdatedIndices() throws IOException {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(m_directory, "*.idx")) {
+                for (Path file : files) {
+                    final String name = file.getFileName().toString();
+                    final Version version;
+                    try {
+                        version = Version.parseVersion(name.substring(0, name.length() - ".idx".length()));
+                    } catch (IllegalArgumentException ex) {
+                        continue;
+                    }
+                    if (version.compareTo(m_version) < 0) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+    }
+
+    /** A node description read from the index, the XML is only parsed on demand. Package scope for testing. */
+    static final class IndexedNodeDescription extends NodeDescription {
+
+        @SuppressWarnings("rawtypes")
+        private final Class<? extends NodeFactory> m_factoryClass;
+
+        private final IndexEntry m_entry;
+
+        private final NodeDescriptionParser m_parser;
+
+        private NodeDescription m_parsed;
+
+        IndexedNodeDescription(@SuppressWarnings("rawtypes") final Class<? extends NodeFactory> factoryClass,
+            final IndexEntry entry, final NodeDescriptionParser parser) {
+            m_factoryClass = factoryClass;
+            m_entry = entry;
+            m_parser = parser;
+            super.setIsDeprecated(entry.m_deprecated);
+        }
+
+        private static String get(final String[] values, final int index) {
+            return index >= 0 && index < values.length ? values[index] : null;
+        }
+
+        @Override
+        public String getIconPath() {
+            return m_entry.m_iconPath;
+        }
+
+        @Override
+        public String getInportDescription(final int index) {
+            return get(m_entry.m_inports, 2 * index + 1);
+        }
+
+        @Override
+        public String getInportName(final int index) {
+            return get(m_entry.m_inports, 2 * index);
+        }
+
+        @Override
+        public String getInteractiveViewName() {
+            return m_entry.m_interactiveViewName;
+        }
+
+        @Override
+        public String getNodeName() {
+            return m_entry.m_nodeName;
+        }
+
+        @Override
+        public String getOutportDescription(final int index) {
+            return get(m_entry.m_outports, 2 * index + 1);
+        }
+
+        @Override
+        public String getOutportName(final int index) {
+            return get(m_entry.m_outports, 2 * index);
+        }
+
+        @Override
+        public NodeType getType() {
+            return m_entry.m_type;
+        }
+
+        @Override
+        public int getViewCount() {
+            return m_entry.m_views.length / 2;
+        }
+
+        @Override
+        public String getViewDescription(final int index) {
+            return get(m_entry.m_views, 2 * index + 1);
+        }
+
+        @Override
+        public String getViewName(final int index) {
+            return get(m_entry.m_views, 2 * index);
+        }
+
+        @Override
+        protected synchronized void setIsDeprecated(final boolean b) {
+            super.setIsDeprecated(b);
+            if (m_parsed != null) {
+                m_parsed.setIsDeprecated(b);
+            }
+        }
+
+        @Override
+        public synchronized Element getXMLDescription() {
+            if (m_parsed == null) {
+                try {
+                    m_parsed = m_parser.parseDescription(m_factoryClass);
+                } catch (SAXException | IOException | XmlException ex) {
+                    LOGGER.error("Could not parse node description of " + m_factoryClass.getName() + ": "
+                        + ex.getMessage(), ex);
+                    m_parsed = new NoDescriptionProxy(m_factoryClass);
+                }
+                // the deprecation flag may have been changed after the description was created
+                m_parsed.setIsDeprecated(isDeprecated());
+            }
+            return m_parsed.getXMLDescription();
+        }
+    }
+}
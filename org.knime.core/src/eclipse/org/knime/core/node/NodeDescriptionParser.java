@@ -63,7 +63,7 @@
 /**
  * This class is used to parse the XML files with the node description that accompany every node factory. It
  * automatically determines the version of the node description and create the appriopriate proxy object. This object is
- * thread safe (synchronized internally).
+ * thread safe, each thread parses with its own document builder so that descriptions can be parsed concurrently.
  *
  * @author Thorsten Meinl, KNIME AG, Zurich, Switzerland
  * @since 2.8
@@ -99,7 +99,8 @@ public InputSource resolveEntity(final String publicId, final String systemId) t
         }
     };
 
-    private final DocumentBuilder m_parser;
+    /** Document builders are not thread-safe, each thread parses with its own builder. */
+    private final ThreadLocal<DocumentBuilder> m_parser;
 
     /**
      * Creates a new node description parser.
@@ -107,9 +108,26 @@ public InputSource resolveEntity(final String publicId, final String systemId) t
      * @throws ParserConfigurationException if no appropriate parser can be found (highly unlikely)
      */
     public NodeDescriptionParser() throws ParserConfigurationException {
-        DocumentBuilderFactory fac = NodeDescription.getDocumentBuilderFactory();
-        m_parser = fac.newDocumentBuilder();
-        m_parser.setEntityResolver(RESOLVER);
+        final DocumentBuilderFactory fac = NodeDescription.getDocumentBuilderFactory();
+        final DocumentBuilder parser;
+        synchronized (fac) {
+            parser = fac.newDocumentBuilder();
+        }
+        parser.setEntityResolver(RESOLVER);
+        m_parser = ThreadLocal.withInitial(() -> {
+            try {
+                final DocumentBuilder p;
+                synchronized (fac) { // the factory is shared and not thread-safe
+                    p = fac.newDocumentBuilder();
+                }
+                p.setEntityResolver(RESOLVER);
+                return p;
+            } catch (ParserConfigurationException ex) {
+                // can't happen, the same factory has already created a builder above
+                throw new IllegalStateException(ex.getMessage(), ex);
+            }
+        });
+        m_parser.set(parser);
     }
 
     /**
@@ -149,9 +167,11 @@ public NodeDescription parseDescription(
         }
 
 
-        Document doc;
-        synchronized (m_parser) {
-            doc = m_parser.parse(inStream);
+        final Document doc;
+        try {
+            doc = m_parser.get().parse(inStream);
+        } finally {
+            inStream.close();
         }
 
         String namespaceUri = doc.getDocumentElement().getNamespaceURI();
@@ -175,8 +175,10 @@ protected NodeFactory(final boolean lazyInitialization) {
     }
 
     /**
-     * Creates the description for this node. The default implementation reads the factory's XML file. Subclasses may
-     * override this method in order to create the description by other means.
+     * Creates the description for this node. The default implementation reads the factory's XML file. The description
+     * is shared between all instances of the factory class and is, if possible, restored from an index in the
+     * configuration area instead of parsing the XML file. Subclasses may override this method in order to create the
+     * description by other means.
      *
      * @return the node description
      * @throws SAXException if the XML file is not well-formed
@@ -185,7 +187,11 @@ protected NodeFactory(final boolean lazyInitialization) {
      * @since 2.8
      */
     protected NodeDescription createNodeDescription() throws SAXException, IOException, XmlException {
-        return PARSER.parseDescription(this.getClass());
+        if (this instanceof DynamicNodeFactory) {
+            // descriptions of dynamic nodes depend on the factory instance
+            return PARSER.parseDescription(this.getClass());
+        }
+        return NodeDescriptionCache.getInstance().get(this.getClass(), PARSER);
     }
 
     /**
@@ -226,7 +232,6 @@ public synchronized void init() {
         // constructor - local fields in the derived NodeFactory have
         // not been initialized
 
-        addBundleInformation();
         addLoadedFactory(getClass());
         m_initialized = true;
     }
@@ -258,16 +263,21 @@ protected InputStream getPropertiesInputStream() {
     }
 
     /**
-     * Adds information about the bundle/feature in which this node resides to the XML description tree. Note that the
-     * bundle information does not have a namespace!
+     * Adds information about the bundle/feature in which this node resides to the XML description tree unless it has
+     * already been added (the description may be shared with other instances of the factory). Note that the bundle
+     * information does not have a namespace!
      */
-    private void addBundleInformation() {
-        Element root = m_nodeDescription.getXMLDescription();
-
-        if ((root != null) && !(this instanceof MissingNodeFactory)) { // for running in non-osgi context
+    private void addBundleInformation(final Element root) {
+        if ((root == null) || (this instanceof MissingNodeFactory)) { // for running in non-osgi context
+            return;
+        }
+        Document doc = root.getOwnerDocument();
+        synchronized (doc) {
+            if (root.getElementsByTagName("osgi-info").getLength() > 0) {
+                return;
+            }
             NodeAndBundleInformationPersistor nodeInfo = NodeAndBundleInformationPersistor.create(this);
 
-            Document doc = root.getOwnerDocument();
             Element bundleElement = doc.createElement("osgi-info");
             bundleElement.setAttribute("bundle-symbolic-name",
                 nodeInfo.getFeatureSymbolicName().orElse(nodeInfo.getBundleSymbolicName().orElse("<Unknown>")));
@@ -336,7 +346,9 @@ private URL resolveIcon(final String path) {
      * @return XML description of this node
      */
     public Element getXMLDescription() {
-        return m_nodeDescription.getXMLDescription();
+        Element root = m_nodeDescription.getXMLDescription();
+        addBundleInformation(root);
+        return root;
     }
 
 
@@ -0,0 +1,404 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.MemoryFootprintAware;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Admits node execution jobs to a {@link ThreadPool} based on their expected memory footprint. A job is deferred
+ * (kept in a FIFO queue) while its footprint exceeds the tenured generation headroom reported by the
+ * {@link MemoryAlertSystem} minus the footprint reserved by jobs that were admitted before and are still running.
+ * This avoids starting several memory-heavy nodes (sorts, pivots, in-memory tables, ...) at the same moment, which
+ * otherwise triggers low memory alerts and spilling in all of them at once.
+ *
+ * <p>
+ * Admission control is disabled by default, see {@link KNIMEConstants#PROPERTY_MEMORY_ADMISSION_CONTROL}. Only nodes
+ * declaring their footprint by implementing {@link MemoryFootprintAware} are subject to it, all other jobs are never
+ * deferred. A job is always admitted if no other job with footprint is running, and deferred jobs are admitted after
+ * {@link #DEFAULT_MAX_WAIT_MILLIS} regardless of the headroom, so execution cannot stall indefinitely. Deferred jobs
+ * count as pending jobs of the pool (see {@link ThreadPool#addDeferredJob()}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class MemoryAdmissionController {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(MemoryAdmissionController.class);
+
+    /** Time after which a deferred job is admitted regardless of the memory headroom. */
+    static final long DEFAULT_MAX_WAIT_MILLIS = 60000L;
+
+    /** Interval in which deferred jobs are re-checked (the headroom may grow due to garbage collection). */
+    private static final long RECHECK_INTERVAL_MILLIS = 500L;
+
+    private static final MemoryAdmissionController INSTANCE = new MemoryAdmissionController(
+        () -> MemoryAlertSystem.getInstance().getHeadroom(), DEFAULT_MAX_WAIT_MILLIS,
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_MEMORY_ADMISSION_CONTROL));
+
+    private static final ScheduledExecutorService RECHECK_SERVICE =
+        Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "KNIME Memory Admission Control");
+            t.setDaemon(true);
+            return t;
+        });
+
+    private final LongSupplier m_headroomSupplier;
+
+    private final long m_maxWaitMillis;
+
+    private final boolean m_enabled;
+
+    /** Deferred jobs, guarded by itself as are {@link #m_reserved}, {@link #m_running} and {@link #m_recheck}. */
+    private final Deque<AdmissionFuture> m_pending = new ArrayDeque<>();
+
+    private long m_reserved;
+
+    private int m_running;
+
+    private ScheduledFuture<?> m_recheck;
+
+    /**
+     * @param headroomSupplier provides the currently available memory in bytes
+     * @param maxWaitMillis time after which a deferred job is admitted regardless of the headroom
+     * @param enabled if <code>false</code> all jobs are admitted immediately
+     */
+    MemoryAdmissionController(final LongSupplier headroomSupplier, final long maxWaitMillis,
+        final boolean enabled) {
+        m_headroomSupplier = headroomSupplier;
+        m_maxWaitMillis = maxWaitMillis;
+        m_enabled = enabled;
+    }
+
+    /** @return the shared instance used by the local job managers. */
+    public static MemoryAdmissionController getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return whether jobs are subject to admission control, see
+     *         {@link KNIMEConstants#PROPERTY_MEMORY_ADMISSION_CONTROL}
+     */
+    public boolean isEnabled() {
+        return m_enabled;
+    }
+
+    /**
+     * Submits the execution of the given node to the pool, possibly deferred until enough memory is available.
+     *
+     * @param pool the pool running the job
+     * @param job the job executing the node
+     * @param snc the node to be executed
+     * @param data the node's input data
+     * @return a future representing the (possibly deferred) execution
+     */
+    public Future<?> submit(final ThreadPool pool, final Runnable job, final SingleNodeContainer snc,
+        final PortObject[] data) {
+        if (!m_enabled) {
+            return pool.enqueue(job);
+        }
+        final long footprint = getDeclaredFootprint(snc, data);
+        if (footprint <= 0L) {
+            return pool.enqueue(job);
+        }
+        return submit(pool, job, footprint);
+    }
+
+    /**
+     * Submits the task to the pool, possibly deferred.
+     *
+     * @param pool the pool running the task
+     * @param task the task
+     * @param footprint the expected footprint in bytes (&lt;= 0 if none)
+     * @return a future representing the (possibly deferred) execution
+     */
+    Future<?> submit(final ThreadPool pool, final Runnable task, final long footprint) {
+        final AdmissionFuture future = new AdmissionFuture(pool, task, Math.max(footprint, 0L));
+        final List<AdmissionFuture> admitted = new ArrayList<>();
+        synchronized (m_pending) {
+            admitPending(admitted);
+            if (future.m_footprint == 0L || (m_pending.isEmpty() && canAdmit(future.m_footprint))) {
+                reserve(future);
+                admitted.add(future);
+            } else {
+                LOGGER.debugWithFormat("Deferring execution (expected footprint %d MB, %d MB reserved)",
+                    future.m_footprint >> 20, m_reserved >> 20);
+                future.m_isDeferred = true;
+                pool.addDeferredJob();
+                m_pending.add(future);
+                if (m_recheck == null) {
+                    m_recheck = RECHECK_SERVICE.scheduleWithFixedDelay(this::recheck, RECHECK_INTERVAL_MILLIS,
+                        RECHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        enqueue(admitted);
+        return future;
+    }
+
+    private static long getDeclaredFootprint(final SingleNodeContainer snc, final PortObject[] data) {
+        if (snc instanceof NativeNodeContainer) {
+            NodeModel model = ((NativeNodeContainer)snc).getNodeModel();
+            if (model instanceof MemoryFootprintAware) {
+                try {
+                    return ((MemoryFootprintAware)model).getExpectedMemoryFootprint(data);
+                } catch (Exception e) {
+                    LOGGER.coding("Unable to determine memory footprint of " + snc.getNameWithID() + ": "
+                        + e.getMessage(), e);
+                }
+            }
+        }
+        return 0L;
+    }
+
+    /** @return the number of currently deferred jobs. */
+    int getNrPendingJobs() {
+        synchronized (m_pending) {
+            return m_pending.size();
+        }
+    }
+
+    /** Called by the timer: admits deferred jobs if possible and stops the timer if there are none. */
+    private void recheck() {
+        final List<AdmissionFuture> admitted = new ArrayList<>();
+        synchronized (m_pending) {
+            admitPending(admitted);
+            if (m_pending.isEmpty() && m_recheck != null) {
+                m_recheck.cancel(false);
+                m_recheck = null;
+            }
+        }
+        enqueue(admitted);
+    }
+
+    /** Must hold lock on m_pending. */
+    private boolean canAdmit(final long footprint) {
+        return m_running == 0 || footprint <= m_headroomSupplier.getAsLong() - m_reserved;
+    }
+
+    /**
+     * Must hold lock on m_pending. Removes the deferred jobs that can be admitted now from the queue and adds them to
+     * the argument list, they need to be passed to {@link #enqueue(List)} after the lock is released.
+     */
+    private void admitPending(final List<AdmissionFuture> admitted) {
+        final long now = System.currentTimeMillis();
+        AdmissionFuture head;
+        while ((head = m_pending.peek()) != null
+            && (canAdmit(head.m_footprint) || now - head.m_submitTime >= m_maxWaitMillis)) {
+            m_pending.poll();
+            reserve(head);
+            admitted.add(head);
+        }
+    }
+
+    /** Must hold lock on m_pending. */
+    private void reserve(final AdmissionFuture future) {
+        if (future.m_footprint > 0L) {
+            m_reserved += future.m_footprint;
+            m_running++;
+        }
+        future.m_isAdmitted = true;
+    }
+
+    /** Submits admitted jobs to their pool, must not hold the lock on m_pending. */
+    private static void enqueue(final List<AdmissionFuture> admitted) {
+        for (AdmissionFuture future : admitted) {
+            future.setDelegate(future.m_isDeferred ? future.m_pool.enqueueDeferredJob(future)
+                : future.m_pool.enqueue(future));
+        }
+    }
+
+    private void release(final AdmissionFuture future) {
+        final List<AdmissionFuture> admitted = new ArrayList<>();
+        synchronized (m_pending) {
+            if (future.m_footprint > 0L) {
+                m_reserved -= future.m_footprint;
+                m_running--;
+            }
+            admitPending(admitted);
+        }
+        enqueue(admitted);
+    }
+
+    /** The future returned to the job manager, also the runnable that is queued in the pool once admitted. */
+    private final class AdmissionFuture implements Future<Object>, Runnable {
+
+        private final ThreadPool m_pool;
+
+        private final Runnable m_task;
+
+        private final long m_footprint;
+
+        private final long m_submitTime = System.currentTimeMillis();
+
+        /** Whether the job was put into the queue of deferred jobs (and registered with the pool as such). */
+        private boolean m_isDeferred;
+
+        /** Whether the job was admitted, guarded by m_pending. It's submitted to the pool shortly after. */
+        private boolean m_isAdmitted;
+
+        /** Set when the task starts running or is canceled before it runs; the reservation is released once. */
+        private final AtomicBoolean m_started = new AtomicBoolean();
+
+        private final CountDownLatch m_admittedLatch = new CountDownLatch(1);
+
+        private volatile Future<?> m_delegate;
+
+        private volatile boolean m_canceledWhilePending;
+
+        AdmissionFuture(final ThreadPool pool, final Runnable task, final long footprint) {
+            m_pool = pool;
+            m_task = task;
+            m_footprint = footprint;
+        }
+
+        void setDelegate(final Future<?> delegate) {
+            m_delegate = delegate;
+            m_admittedLatch.countDown();
+        }
+
+        @Override
+        public void run() {
+            if (!m_started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                m_task.run();
+            } finally {
+                release(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            synchronized (m_pending) {
+                if (!m_isAdmitted) {
+                    m_pending.remove(this);
+                    m_canceledWhilePending = true;
+                    m_pool.removeDeferredJob();
+                    m_admittedLatch.countDown();
+                    return true;
+                }
+            }
+            // admitted, the delegate is set by the admitting thread right after it released the lock
+            boolean interrupted = false;
+            while (m_delegate == null) {
+                try {
+                    m_admittedLatch.await();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            boolean canceled = m_delegate.cancel(mayInterruptIfRunning);
+            if (canceled && m_started.compareAndSet(false, true)) {
+                // never ran, give back reservation
+                release(this);
+            }
+            return canceled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            Future<?> delegate = m_delegate;
+            return delegate == null ? m_canceledWhilePending : delegate.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            Future<?> delegate = m_delegate;
+            return delegate == null ? m_canceledWhilePending : delegate.isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            m_admittedLatch.await();
+            if (m_canceledWhilePending) {
+                throw new CancellationException();
+            }
+            return m_delegate.get();
+        }
+
+        @Override
+        public Object get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            if (!m_admittedLatch.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            if (m_canceledWhilePending) {
+                throw new CancellationException();
+            }
+            return m_delegate.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+}
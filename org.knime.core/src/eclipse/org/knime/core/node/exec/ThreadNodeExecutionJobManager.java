@@ -88,7 +88,8 @@ public NodeExecutionJob submitJob(final NodeContainer nc, final PortObject[] dat
                     + " is not able to execute a metanode: " + nc.getNameWithID());
         }
         LocalNodeExecutionJob job = new LocalNodeExecutionJob((SingleNodeContainer)nc, data);
-        Future<?> future = m_pool.enqueue(job);
+        // deferred while the expected memory footprint exceeds the available memory
+        Future<?> future = MemoryAdmissionController.getInstance().submit(m_pool, job, (SingleNodeContainer)nc, data);
         job.setFuture(future);
         return job;
     }
@@ -158,6 +158,11 @@ public static final PortObject copy(final PortObject object, final ExecutionCont
             BufferedDataTable in = (BufferedDataTable)object;
             BufferedDataContainer con = exec.createDataContainer(
                     in.getSpec(), true, 0);
+            // tables without blobs and file stores can be copied on file level (no decoding/encoding of rows)
+            if (con.closeWithFileCopyOf(in)) {
+                progress.setProgress(1.0);
+                return con.getTable();
+            }
             final long rowCount = in.size();
             long row = 0;
             boolean hasLoggedCloneProblem = false;
@@ -179,7 +184,8 @@ public static final PortObject copy(final PortObject object, final ExecutionCont
                     cells[i] = c;
                 }
                 con.addRowToTable(new DefaultRow(r.getKey(), cells));
-                progress.setProgress(row / (double)rowCount, "Copied row " + row + "/" + rowCount);
+                final long rowFinal = row;
+                progress.setProgress(row / (double)rowCount, () -> "Copied row " + rowFinal + "/" + rowCount);
                 progress.checkCanceled();
                 row++;
             }
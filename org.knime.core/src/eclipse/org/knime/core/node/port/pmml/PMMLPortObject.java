@@ -44,6 +44,8 @@
  */
 package org.knime.core.node.port.pmml;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -60,6 +62,9 @@
 import javax.swing.JComponent;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.xmlbeans.SchemaType;
 import org.apache.xmlbeans.XmlCursor;
@@ -92,8 +97,6 @@
 import org.dmg.pmml.TransformationDictionaryDocument.TransformationDictionary;
 import org.dmg.pmml.TreeModelDocument.TreeModel;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.util.LockedSupplier;
-import org.knime.core.data.util.NonClosableInputStream;
 import org.knime.core.data.xml.PMMLCellFactory;
 import org.knime.core.data.xml.PMMLValue;
 import org.knime.core.node.NodeLogger;
@@ -101,11 +104,11 @@
 import org.knime.core.node.port.PortTypeRegistry;
 import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.pmml.preproc.DerivedFieldMapper;
+import org.knime.core.util.FileUtil;
 import org.knime.core.pmml.PMMLFormatter;
 import org.knime.core.pmml.PMMLModelType;
 import org.knime.core.pmml.PMMLUtils;
 import org.knime.core.pmml.PMMLValidator;
-import org.w3c.dom.Document;
 import org.w3c.dom.DocumentFragment;
 import org.xml.sax.SAXException;
 
@@ -200,8 +203,20 @@ public final class PMMLPortObject implements PortObject {
     /* ------------------------------------------------------ */
 
 
+    /** The parsed document, <code>null</code> as long as it has not been materialized from {@link #m_rawPMML}. */
     private PMMLDocument m_pmmlDoc;
 
+    /** The serialized document, <code>null</code> if the document was modified since it was last written. The array
+     * is never modified and is shared between copies of this object. */
+    private byte[] m_rawPMML;
+
+    /** Whether the current content passed {@link #validate()}, reset on each modification. */
+    private boolean m_isValidated;
+
+    /** Whether references into {@link #m_pmmlDoc} were passed in or handed out, in which case the document can be
+     * modified without notice. Neither the serialized document nor the validation result are cached then. */
+    private boolean m_isShared;
+
     private PMMLPortObjectSpec m_spec;
 
     /**
@@ -234,6 +249,8 @@ public PMMLPortObject(final PMMLPortObjectSpec spec,
             final PMMLDocument pmmlDoc) {
         m_spec = spec;
         m_pmmlDoc = pmmlDoc;
+        // the caller keeps its reference to the document
+        m_isShared = true;
         if (!m_pmmlDoc.validate()) {
             throw new IllegalArgumentException(
                     "The passed PMML document is not valid.");
@@ -268,8 +285,10 @@ public PMMLPortObject(final PMMLPortObjectSpec spec,
             final PMMLPortObject port, final DataTableSpec inData) {
         m_spec = spec;
         if (port != null) {
-            try (LockedSupplier<Document> supplier = port.getPMMLValue().getDocumentSupplier()) {
-                parse(supplier.get());
+            // share the serialized content, it is only parsed once this copy is actually read or modified
+            synchronized (port) {
+                m_rawPMML = port.getRawPMML();
+                m_isValidated = port.m_isValidated;
             }
         } else if (inData != null) {
             initializePMMLDocument(inData);
@@ -279,16 +298,69 @@ public PMMLPortObject(final PMMLPortObjectSpec spec,
     }
 
     /**
-     * @param doc
+     * Returns the PMML document for read access, parsing it from the serialized content if it has not been
+     * materialized yet.
+     *
+     * @return the PMML document, never <code>null</code>
+     */
+    private synchronized PMMLDocument getPMMLDocument() {
+        if (m_pmmlDoc == null) {
+            try {
+                m_pmmlDoc = parse(new ByteArrayInputStream(m_rawPMML));
+            } catch (IOException | XmlException e) {
+                throw new IllegalStateException("An error occurred while parsing the PMML document.", e);
+            }
+        }
+        return m_pmmlDoc;
+    }
+
+    /**
+     * Returns the PMML document for write access. The cached serialized content and validation result are dropped as
+     * they no longer reflect the document.
+     *
+     * @return the PMML document, never <code>null</code>
+     */
+    private synchronized PMMLDocument modifyPMMLDocument() {
+        PMMLDocument pmmlDoc = getPMMLDocument();
+        m_rawPMML = null;
+        m_isValidated = false;
+        return pmmlDoc;
+    }
+
+    /**
+     * Returns the PMML document for access by code outside of this class, which may keep references into the document
+     * and modify it at any later time. The serialized content and validation result are therefore dropped and no
+     * longer cached for this object.
+     *
+     * @return the PMML document, never <code>null</code>
      */
-    private void parse(final Document doc) {
+    private synchronized PMMLDocument sharePMMLDocument() {
+        PMMLDocument pmmlDoc = modifyPMMLDocument();
+        m_isShared = true;
+        return pmmlDoc;
+    }
+
+    /**
+     * Returns the serialized PMML document, writing it only if it has been modified since it was last serialized or
+     * loaded. A shared document is written on each call.
+     *
+     * @return the serialized document, must not be modified by the caller
+     */
+    private synchronized byte[] getRawPMML() {
+        if (m_rawPMML != null) {
+            return m_rawPMML;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
-            m_pmmlDoc = PMMLDocument.Factory.parse(doc);
-            // no validation needed here as the input is already validated
-        } catch (XmlException e) {
-            throw new IllegalArgumentException("An error occurred while "
-                    + "parsing the PMML document.", e);
+            PMMLFormatter.save(m_pmmlDoc, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize PMML document.", e);
+        }
+        byte[] rawPMML = out.toByteArray();
+        if (!m_isShared) {
+            m_rawPMML = rawPMML;
         }
+        return rawPMML;
     }
 
     /* Just added temporary for models still using SAX. Will be removed soon.*/
@@ -326,7 +398,7 @@ public void addPMMLModelFromHandler(final PMMLContentHandler handler)
         } catch (Exception e) {
             throw new SAXException(e);
         }
-        PMML pmmlXml = m_pmmlDoc.getPMML();
+        PMML pmmlXml = modifyPMMLDocument().getPMML();
         XmlCursor pmmlCursor = pmmlXml.newCursor();
         pmmlCursor.toEndToken();
         XmlCursor modelCursor = model.newCursor();
@@ -339,13 +411,14 @@ public void addPMMLModelFromHandler(final PMMLContentHandler handler)
     /*=======================================================================*/
 
     /**
-     * Writes the port object to valid PMML. The stream is not closed by this method.
+     * Writes the port object to valid PMML. The stream is not closed by this method. An unmodified document is written
+     * as it was loaded without serializing it again.
      *
      * @param out stream which reads the PMML file
      * @throws IOException if the file cannot be written to the stream
      */
     public final void save(final OutputStream out) throws IOException {
-        PMMLFormatter.save(m_pmmlDoc, out);
+        out.write(getRawPMML());
     }
 
    /**
@@ -368,7 +441,7 @@ private void initializePMMLDocument(final DataTableSpec inData) {
      * @param translator the model translator to be initialized
      */
     public void initializeModelTranslator(final PMMLTranslator translator) {
-        translator.initializeFrom(m_pmmlDoc);
+        translator.initializeFrom(sharePMMLDocument());
     }
 
     /**
@@ -377,7 +450,8 @@ public void initializeModelTranslator(final PMMLTranslator translator) {
      *      added
      */
     public void addModelTranslater(final PMMLTranslator modelTranslator) {
-        SchemaType type = modelTranslator.exportTo(m_pmmlDoc, m_spec);
+        final PMMLDocument pmmlDoc = modifyPMMLDocument();
+        SchemaType type = modelTranslator.exportTo(pmmlDoc, m_spec);
         LocalTransformations localTransformations = moveDerivedFields(type);
 
         /* Remove mining fields from mining schema that where created as a
@@ -387,10 +461,10 @@ public void addModelTranslater(final PMMLTranslator modelTranslator) {
          * as derived field in the transformation dictionary or local
          * transformations. */
         Set<String> derivedFields = new HashSet<String>();
-        for (DerivedField derivedField : getDerivedFields()) {
+        for (DerivedField derivedField : DerivedFieldMapper.getDerivedFields(pmmlDoc.getPMML())) {
             derivedFields.add(derivedField.getName());
         }
-        MiningSchema miningSchema = PMMLUtils.getFirstMiningSchema(m_pmmlDoc,
+        MiningSchema miningSchema = PMMLUtils.getFirstMiningSchema(pmmlDoc,
                 type);
         if (miningSchema == null) {
             LOGGER.info("No mining schema found.");
@@ -449,7 +523,7 @@ public void addModelTranslater(final PMMLTranslator modelTranslator) {
     /** Moves the content of the transformation dictionary to local
      * transformations of the model if a model exists. */
     public void moveGlobalTransformationsToModel() {
-        PMML pmml = m_pmmlDoc.getPMML();
+        PMML pmml = modifyPMMLDocument().getPMML();
         TransformationDictionary transDict
                 = pmml.getTransformationDictionary();
         if (transDict == null || transDict.getDerivedFieldArray() == null
@@ -522,7 +596,7 @@ public void moveGlobalTransformationsToModel() {
      *      has to be moved
      */
     private LocalTransformations moveDerivedFields(final SchemaType type) {
-        PMML pmml = m_pmmlDoc.getPMML();
+        PMML pmml = modifyPMMLDocument().getPMML();
 
         TransformationDictionary transDict
                 = pmml.getTransformationDictionary();
@@ -601,11 +675,12 @@ private LocalTransformations moveDerivedFields(final SchemaType type) {
     public String getSummary() {
         StringBuffer sb = new StringBuffer();
         sb.append("PMML document with version ");
-        sb.append(m_pmmlDoc.getPMML().getVersion());
+        final PMMLDocument pmmlDoc = getPMMLDocument();
+        sb.append(pmmlDoc.getPMML().getVersion());
         sb.append(" and models: ");
         boolean first = true;
         for (PMMLModelType modelType
-                : PMMLUtils.getNumberOfModels(m_pmmlDoc).keySet()) {
+                : PMMLUtils.getNumberOfModels(pmmlDoc).keySet()) {
             if (!first) {
                 sb.append(",");
             } else {
@@ -639,7 +714,8 @@ public void loadFrom(final PMMLPortObjectSpec spec, final InputStream in, final
     }
 
     /**
-     * Initializes the pmml port object based on the xml input stream.
+     * Initializes the pmml port object based on the xml input stream. Documents in the current PMML version are only
+     * parsed once their content is accessed, until then they are kept (and also saved) in their serialized form.
      * @param spec the referring spec of this object
      * @param is the pmml input stream
      * @throws IOException if the file cannot be found
@@ -647,42 +723,94 @@ public void loadFrom(final PMMLPortObjectSpec spec, final InputStream in, final
      */
     public void loadFrom(final PMMLPortObjectSpec spec, final InputStream is)
             throws IOException, XmlException {
-        // disallow close in the factory -- we had indeterministic behavior
-        // where close was called more than once (which should be OK) but as
-        // the argument input stream is a NonClosableZipInput, which delegates
-        // close to closeEntry(), we have to make sure that close is only
-        // called once.
-        // TODO: The document is read twice here. Could we "probe" into the file to check the version?
-        XmlObject xmlDoc = XmlObject.Factory.parse(
-                new NonClosableInputStream(is));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FileUtil.copy(is, bytes);
         is.close();
-        if (xmlDoc instanceof PMMLDocument) {
-            m_pmmlDoc = (PMMLDocument)xmlDoc;
-        } else {
-            /* Try to recover when reading a PMML 3.x/4.0 document that
-             * was produced by KNIME by just replacing the PMML version and
-             * namespace. */
-            if (PMMLUtils.isOldKNIMEPMML(xmlDoc) || PMMLUtils.is4_1PMML(xmlDoc)) {
-                try {
-                    String updatedPMML
-                            = PMMLUtils.getUpdatedVersionAndNamespace(xmlDoc);
-                    /* Parse the modified document and assign it to a
-                     * PMMLDocument.*/
-                    m_pmmlDoc = PMMLDocument.Factory.parse(updatedPMML);
-                } catch (Exception e) {
-                    throw new RuntimeException(
-                            "Parsing of PMML v 3.x/4.0 document failed.", e);
-                }
-                LOGGER.info(
-                        "KNIME produced PMML 3.x/4.0  converted to PMML 4.1.");
+        byte[] rawPMML = bytes.toByteArray();
+        synchronized (this) {
+            if (isCurrentPMMLVersion(rawPMML)) {
+                m_rawPMML = rawPMML;
+                m_pmmlDoc = null;
             } else {
-                throw new RuntimeException(
-                        "Parsing of PMML v 3.x/4.0 document failed.");
+                m_rawPMML = null;
+                m_pmmlDoc = parse(new ByteArrayInputStream(rawPMML));
             }
+            m_isValidated = false;
+            m_isShared = false;
         }
         m_spec = spec;
     }
 
+    /**
+     * Checks whether the root element of the serialized document is in the namespace of the current PMML version.
+     * The remainder of the document is streamed through so that malformed documents are rejected while loading, but
+     * no XMLBeans document is created.
+     *
+     * @param rawPMML the serialized document
+     * @return true if the document can be parsed as {@link PMMLDocument} without conversion
+     * @throws XmlException if the document is not well-formed
+     */
+    private static boolean isCurrentPMMLVersion(final byte[] rawPMML) throws XmlException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(rawPMML));
+            try {
+                QName root = null;
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamReader.START_ELEMENT && root == null) {
+                        root = reader.getName();
+                    }
+                }
+                if (root == null) {
+                    throw new XmlException("The PMML document does not contain a root element.");
+                }
+                return PMMLDocument.type.getDocumentElementName().equals(root);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new XmlException(e);
+        }
+    }
+
+    /**
+     * Parses a PMML document. Documents produced by older KNIME versions are converted to the current PMML version.
+     *
+     * @param is the stream to read the document from, will not be closed
+     * @return the parsed document
+     * @throws IOException if the stream cannot be read
+     * @throws XmlException if something goes wrong during parsing
+     */
+    private static PMMLDocument parse(final InputStream is) throws IOException, XmlException {
+        XmlObject xmlDoc = XmlObject.Factory.parse(is);
+        if (xmlDoc instanceof PMMLDocument) {
+            return (PMMLDocument)xmlDoc;
+        }
+        /* Try to recover when reading a PMML 3.x/4.0 document that
+         * was produced by KNIME by just replacing the PMML version and
+         * namespace. */
+        if (PMMLUtils.isOldKNIMEPMML(xmlDoc) || PMMLUtils.is4_1PMML(xmlDoc)) {
+            PMMLDocument pmmlDoc;
+            try {
+                String updatedPMML
+                        = PMMLUtils.getUpdatedVersionAndNamespace(xmlDoc);
+                /* Parse the modified document and assign it to a
+                 * PMMLDocument.*/
+                pmmlDoc = PMMLDocument.Factory.parse(updatedPMML);
+            } catch (Exception e) {
+                throw new RuntimeException(
+                        "Parsing of PMML v 3.x/4.0 document failed.", e);
+            }
+            LOGGER.info(
+                    "KNIME produced PMML 3.x/4.0  converted to PMML 4.1.");
+            return pmmlDoc;
+        } else {
+            throw new RuntimeException(
+                    "Parsing of PMML v 3.x/4.0 document failed.");
+        }
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -718,11 +846,11 @@ public void addGlobalTransformations(
                     + "supported so far. Only derived fields are allowed.");
         }
 
-        TransformationDictionary dict
-            = m_pmmlDoc.getPMML().getTransformationDictionary();
+        final PMML pmml = modifyPMMLDocument().getPMML();
+        TransformationDictionary dict = pmml.getTransformationDictionary();
         if (dict == null) {
-            m_pmmlDoc.getPMML().setTransformationDictionary(dictionary);
-            dict = m_pmmlDoc.getPMML().getTransformationDictionary();
+            pmml.setTransformationDictionary(dictionary);
+            dict = pmml.getTransformationDictionary();
         } else {
             // append the transformations to the existing dictionary
             DerivedField[] existingFields = dict.getDerivedFieldArray();
@@ -752,7 +880,7 @@ public void addGlobalTransformations(
          * results in duplicate entries. Those columns should only appear once
          * as derived field in the transformation dictionary or local
          * transformations. */
-        DataDictionary dataDict = m_pmmlDoc.getPMML().getDataDictionary();
+        DataDictionary dataDict = pmml.getDataDictionary();
         DataField[] dataFieldArray = dataDict.getDataFieldArray();
         List<DataField> dataFields = new ArrayList<DataField>(Arrays.asList(
                 dataFieldArray));
@@ -771,7 +899,6 @@ public void addGlobalTransformations(
         Map<String, String> derivedFieldMap = dfm.getDerivedFieldMap();
         /* Use XPATH to update field names in the model and move the derived
          * fields to local transformations. */
-        PMML pmml = m_pmmlDoc.getPMML();
         if (pmml.getTreeModelArray().length > 0) {
             fixAttributeAtPath(pmml, TREE_PATH, FIELD, derivedFieldMap);
         } else if (pmml.getClusteringModelArray().length > 0) {
@@ -857,10 +984,18 @@ private void fixAttributeAtPath(final PMML pmml, final String xpath,
     /**
      * @return the derived fields defined in the transformation dictionary and
      *          local transformations or an empty array if no derived fields
-     *          are defined.
+     *          are defined. The fields are copies, modifying them does not
+     *          affect this object.
      */
     public DerivedField[] getDerivedFields() {
-        return DerivedFieldMapper.getDerivedFields(m_pmmlDoc.getPMML());
+        final DerivedField[] fields;
+        synchronized (this) {
+            fields = DerivedFieldMapper.getDerivedFields(getPMMLDocument().getPMML());
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = (DerivedField)fields[i].copy();
+            }
+        }
+        return fields;
     }
 
     /**
@@ -870,19 +1005,23 @@ public DerivedField[] getDerivedFields() {
      */
     public PMMLValue getPMMLValue() {
         try {
-            return (PMMLValue)PMMLCellFactory.create(PMMLFormatter.xmlText(m_pmmlDoc));
+            return (PMMLValue)PMMLCellFactory.create(new ByteArrayInputStream(getRawPMML()));
         } catch (Exception e) {
             throw new RuntimeException("Could not create PMML value.", e);
         }
     }
 
     /**
-     * Validates that this PMMLPortObject contains a valid PMML document.
+     * Validates that this PMMLPortObject contains a valid PMML document. A successful validation is remembered until
+     * the document is modified.
      * @throws IllegalStateException if this PMMLPortObject does not contain a
      *      valid PMML document
      */
-    public void validate() throws IllegalStateException {
-        Map<String, String> errors = PMMLValidator.validatePMML(m_pmmlDoc);
+    public synchronized void validate() throws IllegalStateException {
+        if (m_isValidated) {
+            return;
+        }
+        Map<String, String> errors = PMMLValidator.validatePMML(getPMMLDocument());
         if (!errors.isEmpty()) {
             StringBuffer sb = new StringBuffer("Invalid PMML document found. "
                     + "Errors: ");
@@ -898,6 +1037,7 @@ public void validate() throws IllegalStateException {
             LOGGER.error(msg);
             throw new IllegalStateException(msg);
         }
+        m_isValidated = !m_isShared;
     }
 
     /**
@@ -965,11 +1105,7 @@ public boolean equals(final Object obj) {
             return false;
         }
         PMMLPortObject other = (PMMLPortObject)obj;
-        if (m_pmmlDoc == null) {
-            if (other.m_pmmlDoc != null) {
-                return false;
-            }
-        } else if (!m_pmmlDoc.valueEquals(other.m_pmmlDoc)) {
+        if (!hasEqualDocument(other)) {
             return false;
         }
         if (m_spec == null) {
@@ -989,10 +1125,25 @@ public boolean equals(final Object obj) {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result
-                + ((m_pmmlDoc == null) ? 0 : m_pmmlDoc.hashCode());
+        // the document is not part of the hash code as that would require to materialize it
         result = prime * result + ((m_spec == null) ? 0 : m_spec.hashCode());
         return result;
     }
 
+    /** Compares the documents of both objects, only parsing them if their serialized content differs. */
+    private boolean hasEqualDocument(final PMMLPortObject other) {
+        final byte[] raw;
+        final byte[] otherRaw;
+        synchronized (this) {
+            raw = m_rawPMML;
+        }
+        synchronized (other) {
+            otherRaw = other.m_rawPMML;
+        }
+        if (raw != null && otherRaw != null && Arrays.equals(raw, otherRaw)) {
+            return true;
+        }
+        return getPMMLDocument().valueEquals(other.getPMMLDocument());
+    }
+
 }
@@ -0,0 +1,882 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.pmml.preproc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.dmg.pmml.ApplyDocument.Apply;
+import org.dmg.pmml.ConstantDocument.Constant;
+import org.dmg.pmml.DATATYPE;
+import org.dmg.pmml.DerivedFieldDocument.DerivedField;
+import org.dmg.pmml.DiscretizeBinDocument.DiscretizeBin;
+import org.dmg.pmml.DiscretizeDocument.Discretize;
+import org.dmg.pmml.ExtensionDocument.Extension;
+import org.dmg.pmml.FieldColumnPairDocument.FieldColumnPair;
+import org.dmg.pmml.FieldRefDocument.FieldRef;
+import org.dmg.pmml.INVALIDVALUETREATMENTMETHOD;
+import org.dmg.pmml.IntervalDocument.Interval;
+import org.dmg.pmml.IntervalDocument.Interval.Closure;
+import org.dmg.pmml.LinearNormDocument.LinearNorm;
+import org.dmg.pmml.MapValuesDocument.MapValues;
+import org.dmg.pmml.NormContinuousDocument.NormContinuous;
+import org.dmg.pmml.NormDiscreteDocument.NormDiscrete;
+import org.dmg.pmml.OUTLIERTREATMENTMETHOD;
+import org.dmg.pmml.RowDocument.Row;
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.container.AbstractCellFactory;
+import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.def.BooleanCell.BooleanCellFactory;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.port.pmml.PMMLDataDictionaryTranslator;
+import org.knime.core.node.port.pmml.PMMLPortObject;
+import org.knime.core.util.UniqueNameGenerator;
+
+/**
+ * Evaluates PMML derived fields (as found in the transformation dictionary and the local transformations of a PMML
+ * document) directly on {@link DataRow}s. The derived fields are compiled once into a chain of expressions with all
+ * field references resolved to array positions, so that applying the preprocessing of a PMML document neither
+ * touches the XML nor requires a separate node for each transformation.
+ *
+ * <p>
+ * Supported are the expressions {@link FieldRef}, {@link Constant}, {@link NormContinuous}, {@link NormDiscrete},
+ * {@link Discretize}, {@link MapValues} with an inline table and {@link Apply} with the arithmetic, mathematical,
+ * comparison and boolean built-in functions as well as <code>isMissing</code>, <code>isNotMissing</code> and
+ * <code>if</code>. Derived fields may refer to columns of the input table and to previously defined derived fields.
+ * Constants and replacement values are converted to their type once while compiling. Invalid results of an
+ * {@link Apply}, i.e. infinite or undefined numbers, are treated according to its <code>invalidValueTreatment</code>:
+ * <code>asIs</code> keeps them, <code>asMissing</code> replaces them by the <code>defaultValue</code> (or a missing
+ * value) and <code>returnInvalid</code> returns them as missing values.
+ *
+ * <p>
+ * The evaluator holds no state that changes during evaluation, hence {@link #evaluate(DataRow)} can be called
+ * concurrently. Use {@link #createColumnRearranger(DataTableSpec)} and
+ * {@link ColumnRearranger#createStreamableFunction()} to run it in streaming mode.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class DerivedFieldEvaluator {
+
+    /** A compiled PMML expression. */
+    @FunctionalInterface
+    private interface Expression {
+        /**
+         * @param values the values of the referenced input columns followed by those of the derived fields computed
+         *            so far
+         * @return the result, possibly a missing cell but never <code>null</code>
+         */
+        DataCell evaluate(DataCell[] values);
+    }
+
+    private static final DataCell MISSING = DataType.getMissingCell();
+
+    /** Indices of the input columns that are referenced, in the order of their slots in the value array. */
+    private final int[] m_inputColumns;
+
+    /** The compiled derived fields, their results are written to the slots following the input columns. */
+    private final Expression[] m_expressions;
+
+    private final DataColumnSpec[] m_columnSpecs;
+
+    private DerivedFieldEvaluator(final int[] inputColumns, final Expression[] expressions,
+        final DataColumnSpec[] columnSpecs) {
+        m_inputColumns = inputColumns;
+        m_expressions = expressions;
+        m_columnSpecs = columnSpecs;
+    }
+
+    /**
+     * Compiles all derived fields of a PMML port object.
+     *
+     * @param port the PMML port object whose transformations are compiled
+     * @param spec the spec of the tables the evaluator is applied to
+     * @return the compiled evaluator
+     * @throws InvalidSettingsException if a derived field refers to an unknown field or uses an unsupported
+     *             expression
+     * @see PMMLPortObject#getDerivedFields()
+     */
+    public static DerivedFieldEvaluator compile(final PMMLPortObject port, final DataTableSpec spec)
+        throws InvalidSettingsException {
+        return compile(port.getDerivedFields(), spec);
+    }
+
+    /**
+     * Compiles the given derived fields.
+     *
+     * @param derivedFields the derived fields in the order of their definition
+     * @param spec the spec of the tables the evaluator is applied to
+     * @return the compiled evaluator
+     * @throws InvalidSettingsException if a derived field refers to an unknown field or uses an unsupported
+     *             expression
+     */
+    public static DerivedFieldEvaluator compile(final DerivedField[] derivedFields, final DataTableSpec spec)
+        throws InvalidSettingsException {
+        return new Compiler(spec).compile(derivedFields);
+    }
+
+    /**
+     * @return the specs of the columns computed by this evaluator, one per derived field
+     */
+    public DataColumnSpec[] getColumnSpecs() {
+        return m_columnSpecs.clone();
+    }
+
+    /**
+     * Computes all derived fields for a row.
+     *
+     * @param row a row of a table with the spec this evaluator has been compiled for
+     * @return the values of the derived fields in the order of {@link #getColumnSpecs()}
+     */
+    public DataCell[] evaluate(final DataRow row) {
+        final int offset = m_inputColumns.length;
+        final DataCell[] values = new DataCell[offset + m_expressions.length];
+        for (int i = 0; i < offset; i++) {
+            values[i] = row.getCell(m_inputColumns[i]);
+        }
+        for (int i = 0; i < m_expressions.length; i++) {
+            values[offset + i] = m_expressions[i].evaluate(values);
+        }
+        return Arrays.copyOfRange(values, offset, values.length);
+    }
+
+    /**
+     * Creates a cell factory that appends the derived fields. Rows are processed concurrently as the evaluation of a
+     * row does not depend on other rows.
+     *
+     * @return a new cell factory
+     */
+    public CellFactory createCellFactory() {
+        return new AbstractCellFactory(true, getColumnSpecs()) {
+            @Override
+            public DataCell[] getCells(final DataRow row) {
+                return evaluate(row);
+            }
+        };
+    }
+
+    /**
+     * Creates a column rearranger that appends the derived fields to the input table, which can be used to create
+     * the output table or a {@link org.knime.core.node.streamable.StreamableFunction}.
+     *
+     * @param spec the spec of the input table, must be the spec this evaluator was compiled for
+     * @return a new column rearranger
+     */
+    public ColumnRearranger createColumnRearranger(final DataTableSpec spec) {
+        final ColumnRearranger rearranger = new ColumnRearranger(spec);
+        rearranger.append(createCellFactory());
+        return rearranger;
+    }
+
+    /** Translates derived fields into expressions, resolving field names to slots of the value array. */
+    private static final class Compiler {
+
+        private final DataTableSpec m_spec;
+
+        /** Maps the referenced input column indices to their slot. */
+        private final Map<Integer, Integer> m_inputSlots = new LinkedHashMap<>();
+
+        /** Maps the names of the derived fields compiled so far to their index. */
+        private final Map<String, Integer> m_derivedIndices = new HashMap<>();
+
+        /** Slots of derived fields are only known once all input columns are collected, hence resolved late. */
+        private final List<int[]> m_derivedReferences = new ArrayList<>();
+
+        Compiler(final DataTableSpec spec) {
+            m_spec = spec;
+        }
+
+        DerivedFieldEvaluator compile(final DerivedField[] derivedFields) throws InvalidSettingsException {
+            final Expression[] expressions = new Expression[derivedFields.length];
+            final DataColumnSpec[] columnSpecs = new DataColumnSpec[derivedFields.length];
+            final UniqueNameGenerator nameGenerator = new UniqueNameGenerator(m_spec);
+            for (int i = 0; i < derivedFields.length; i++) {
+                final DerivedField df = derivedFields[i];
+                final DataType type = PMMLDataDictionaryTranslator.getKNIMEDataType(df.getDataType());
+                expressions[i] = convertTo(compileDerivedField(df), type);
+                columnSpecs[i] = nameGenerator.newColumn(df.getName(), type);
+                m_derivedIndices.put(df.getName(), i);
+            }
+            final int offset = m_inputSlots.size();
+            for (int[] reference : m_derivedReferences) {
+                reference[0] += offset;
+            }
+            final int[] inputColumns = m_inputSlots.keySet().stream().mapToInt(Integer::intValue).toArray();
+            return new DerivedFieldEvaluator(inputColumns, expressions, columnSpecs);
+        }
+
+        private Expression compileDerivedField(final DerivedField df) throws InvalidSettingsException {
+            if (df.isSetFieldRef()) {
+                return compileFieldRef(df.getFieldRef());
+            } else if (df.isSetConstant()) {
+                return compileConstant(df.getConstant());
+            } else if (df.isSetNormContinuous()) {
+                return compileNormContinuous(df.getNormContinuous());
+            } else if (df.isSetNormDiscrete()) {
+                return compileNormDiscrete(df.getNormDiscrete());
+            } else if (df.isSetDiscretize()) {
+                return compileDiscretize(df.getDiscretize());
+            } else if (df.isSetMapValues()) {
+                return compileMapValues(df.getMapValues());
+            } else if (df.isSetApply()) {
+                return compileApply(df.getApply());
+            }
+            throw new InvalidSettingsException(
+                "The expression of derived field \"" + df.getName() + "\" is not supported.");
+        }
+
+        private Expression compileExpression(final XmlObject expression) throws InvalidSettingsException {
+            if (expression instanceof FieldRef) {
+                return compileFieldRef((FieldRef)expression);
+            } else if (expression instanceof Constant) {
+                return compileConstant((Constant)expression);
+            } else if (expression instanceof NormContinuous) {
+                return compileNormContinuous((NormContinuous)expression);
+            } else if (expression instanceof NormDiscrete) {
+                return compileNormDiscrete((NormDiscrete)expression);
+            } else if (expression instanceof Discretize) {
+                return compileDiscretize((Discretize)expression);
+            } else if (expression instanceof MapValues) {
+                return compileMapValues((MapValues)expression);
+            } else if (expression instanceof Apply) {
+                return compileApply((Apply)expression);
+            }
+            throw new InvalidSettingsException(
+                "Unsupported PMML expression: " + expression.getDomNode().getLocalName());
+        }
+
+        /**
+         * Resolves a field name to a slot, derived fields hide input columns of the same name.
+         *
+         * @return a one element array holding the slot, which is final once {@link #compile(DerivedField[])}
+         *         returns
+         */
+        private int[] resolve(final String field) throws InvalidSettingsException {
+            final Integer derivedIndex = m_derivedIndices.get(field);
+            if (derivedIndex != null) {
+                final int[] slot = new int[]{derivedIndex};
+                m_derivedReferences.add(slot);
+                return slot;
+            }
+            final int colIndex = m_spec.findColumnIndex(field);
+            if (colIndex < 0) {
+                throw new InvalidSettingsException("Field \"" + field + "\" is neither a column of the input table "
+                    + "nor a previously defined derived field.");
+            }
+            Integer slot = m_inputSlots.get(colIndex);
+            if (slot == null) {
+                slot = m_inputSlots.size();
+                m_inputSlots.put(colIndex, slot);
+            }
+            return new int[]{slot};
+        }
+
+        private Expression compileFieldRef(final FieldRef fieldRef) throws InvalidSettingsException {
+            final int[] slot = resolve(fieldRef.getField());
+            final DataCell mapMissingTo = fieldRef.isSetMapMissingTo() ? toCell(fieldRef.getMapMissingTo()) : MISSING;
+            return values -> {
+                final DataCell cell = values[slot[0]];
+                return cell.isMissing() ? mapMissingTo : cell;
+            };
+        }
+
+        private static Expression compileConstant(final Constant constant) throws InvalidSettingsException {
+            final DataCell value = constant.isSetDataType() ? toCell(constant.getStringValue(), constant.getDataType())
+                : toCell(constant.getStringValue());
+            return values -> value;
+        }
+
+        @SuppressWarnings("deprecation")
+        private Expression compileNormContinuous(final NormContinuous norm) throws InvalidSettingsException {
+            final int[] slot = resolve(norm.getField());
+            final LinearNorm[] linearNorms = norm.getLinearNormArray();
+            if (linearNorms.length < 2) {
+                throw new InvalidSettingsException(
+                    "NormContinuous of field \"" + norm.getField() + "\" needs at least two LinearNorm elements.");
+            }
+            final double[] orig = new double[linearNorms.length];
+            final double[] normed = new double[linearNorms.length];
+            for (int i = 0; i < linearNorms.length; i++) {
+                orig[i] = linearNorms[i].getOrig();
+                normed[i] = linearNorms[i].getNorm();
+            }
+            final OUTLIERTREATMENTMETHOD.Enum outliers = norm.getOutliers();
+            final DataCell mapMissingTo = norm.isSetMapMissingTo() ? new DoubleCell(norm.getMapMissingTo()) : MISSING;
+            return values -> {
+                final DataCell cell = values[slot[0]];
+                final double x = cell.isMissing() ? Double.NaN : toDouble(cell);
+                if (Double.isNaN(x)) {
+                    return mapMissingTo;
+                }
+                final int last = orig.length - 1;
+                if (x < orig[0] || x > orig[last]) {
+                    if (OUTLIERTREATMENTMETHOD.AS_MISSING_VALUES == outliers) {
+                        return MISSING;
+                    } else if (OUTLIERTREATMENTMETHOD.AS_EXTREME_VALUES == outliers) {
+                        return new DoubleCell(x < orig[0] ? normed[0] : normed[last]);
+                    }
+                }
+                // find the segment containing x, outliers are extrapolated from the outermost segments
+                int i = Arrays.binarySearch(orig, x);
+                if (i < 0) {
+                    i = -i - 2;
+                }
+                i = Math.max(0, Math.min(i, last - 1));
+                return new DoubleCell(
+                    normed[i] + (x - orig[i]) * (normed[i + 1] - normed[i]) / (orig[i + 1] - orig[i]));
+            };
+        }
+
+        private Expression compileNormDiscrete(final NormDiscrete norm) throws InvalidSettingsException {
+            final int[] slot = resolve(norm.getField());
+            final String value = norm.getValue();
+            final DataCell mapMissingTo = norm.isSetMapMissingTo() ? new DoubleCell(norm.getMapMissingTo()) : MISSING;
+            final DataCell one = new DoubleCell(1);
+            final DataCell zero = new DoubleCell(0);
+            return values -> {
+                final DataCell cell = values[slot[0]];
+                if (cell.isMissing()) {
+                    return mapMissingTo;
+                }
+                return value.equals(toStringValue(cell)) ? one : zero;
+            };
+        }
+
+        @SuppressWarnings("deprecation")
+        private Expression compileDiscretize(final Discretize discretize) throws InvalidSettingsException {
+            final int[] slot = resolve(discretize.getField());
+            final DiscretizeBin[] bins = discretize.getDiscretizeBinArray();
+            final double[] left = new double[bins.length];
+            final double[] right = new double[bins.length];
+            final boolean[] leftClosed = new boolean[bins.length];
+            final boolean[] rightClosed = new boolean[bins.length];
+            final DataCell[] binValues = new DataCell[bins.length];
+            for (int i = 0; i < bins.length; i++) {
+                final Interval interval = bins[i].getInterval();
+                final Closure.Enum closure = interval.getClosure();
+                left[i] = interval.isSetLeftMargin() ? interval.getLeftMargin() : Double.NEGATIVE_INFINITY;
+                right[i] = interval.isSetRightMargin() ? interval.getRightMargin() : Double.POSITIVE_INFINITY;
+                leftClosed[i] = Closure.CLOSED_OPEN == closure || Closure.CLOSED_CLOSED == closure;
+                rightClosed[i] = Closure.OPEN_CLOSED == closure || Closure.CLOSED_CLOSED == closure;
+                binValues[i] = new StringCell(bins[i].getBinValue());
+            }
+            final DataCell mapMissingTo = discretize.isSetMapMissingTo()
+                ? new StringCell(discretize.getMapMissingTo()) : MISSING;
+            final DataCell defaultValue = discretize.isSetDefaultValue()
+                ? new StringCell(discretize.getDefaultValue()) : MISSING;
+            return values -> {
+                final DataCell cell = values[slot[0]];
+                final double x = cell.isMissing() ? Double.NaN : toDouble(cell);
+                if (Double.isNaN(x)) {
+                    return mapMissingTo;
+                }
+                // the first matching bin wins, bins are usually few so a linear scan is fastest
+                for (int i = 0; i < binValues.length; i++) {
+                    if ((leftClosed[i] ? x >= left[i] : x > left[i])
+                        && (rightClosed[i] ? x <= right[i] : x < right[i])) {
+                        return binValues[i];
+                    }
+                }
+                return defaultValue;
+            };
+        }
+
+        @SuppressWarnings("deprecation")
+        private Expression compileMapValues(final MapValues mapValues) throws InvalidSettingsException {
+            final FieldColumnPair[] pairs = mapValues.getFieldColumnPairArray();
+            final int[][] slots = new int[pairs.length][];
+            final String[] columns = new String[pairs.length];
+            for (int i = 0; i < pairs.length; i++) {
+                slots[i] = resolve(pairs[i].getField());
+                columns[i] = pairs[i].getColumn();
+            }
+            if (!mapValues.isSetInlineTable()) {
+                throw new InvalidSettingsException("MapValues is only supported with an inline table.");
+            }
+            final String outputColumn = mapValues.getOutputColumn();
+            final Map<List<String>, DataCell> table = new HashMap<>();
+            for (Row row : mapValues.getInlineTable().getRowArray()) {
+                final Map<String, String> rowValues = readRow(row);
+                final List<String> key = new ArrayList<>(columns.length);
+                for (String column : columns) {
+                    key.add(rowValues.get(column));
+                }
+                final String output = rowValues.get(outputColumn);
+                // as in PMML the first matching row defines the output
+                table.putIfAbsent(key, output == null ? MISSING : new StringCell(output));
+            }
+            final DataCell mapMissingTo = mapValues.isSetMapMissingTo()
+                ? new StringCell(mapValues.getMapMissingTo()) : MISSING;
+            final DataCell defaultValue = mapValues.isSetDefaultValue()
+                ? new StringCell(mapValues.getDefaultValue()) : MISSING;
+            return values -> {
+                final String[] key = new String[slots.length];
+                for (int i = 0; i < slots.length; i++) {
+                    final DataCell cell = values[slots[i][0]];
+                    if (cell.isMissing()) {
+                        return mapMissingTo;
+                    }
+                    key[i] = toStringValue(cell);
+                }
+                final DataCell result = table.get(Arrays.asList(key));
+                return result == null ? defaultValue : result;
+            };
+        }
+
+        /** Reads the cells of an inline table row, which are child elements named after their column. */
+        private static Map<String, String> readRow(final Row row) {
+            final Map<String, String> values = new HashMap<>();
+            final XmlCursor cursor = row.newCursor();
+            try {
+                if (cursor.toFirstChild()) {
+                    do {
+                        values.put(cursor.getName().getLocalPart(), cursor.getTextValue());
+                    } while (cursor.toNextSibling());
+                }
+            } finally {
+                cursor.dispose();
+            }
+            return values;
+        }
+
+        private Expression compileApply(final Apply apply) throws InvalidSettingsException {
+            final List<Expression> argList = new ArrayList<>();
+            // the arguments are compiled in document order, which the typed getters of XMLBeans do not preserve
+            final XmlCursor cursor = apply.newCursor();
+            try {
+                if (cursor.toFirstChild()) {
+                    do {
+                        final XmlObject child = cursor.getObject();
+                        if (!(child instanceof Extension)) {
+                            argList.add(compileExpression(child));
+                        }
+                    } while (cursor.toNextSibling());
+                }
+            } finally {
+                cursor.dispose();
+            }
+            final Expression[] args = argList.toArray(new Expression[argList.size()]);
+            final String function = apply.getFunction();
+            final DataCell mapMissingTo = apply.isSetMapMissingTo() ? toCell(apply.getMapMissingTo()) : MISSING;
+            final DataCell defaultValue = apply.isSetDefaultValue() ? toCell(apply.getDefaultValue()) : MISSING;
+            final Expression result = compileFunction(function, args, mapMissingTo, defaultValue);
+            final INVALIDVALUETREATMENTMETHOD.Enum invalidValueTreatment = apply.getInvalidValueTreatment();
+            if (INVALIDVALUETREATMENTMETHOD.AS_IS == invalidValueTreatment) {
+                return result;
+            }
+            final DataCell invalidValue =
+                INVALIDVALUETREATMENTMETHOD.AS_MISSING == invalidValueTreatment ? defaultValue : MISSING;
+            return values -> {
+                final DataCell cell = result.evaluate(values);
+                if (cell instanceof DoubleCell && !Double.isFinite(((DoubleCell)cell).getDoubleValue())) {
+                    return invalidValue;
+                }
+                return cell;
+            };
+        }
+
+        /**
+         * Compiles a function call.
+         *
+         * @param mapMissingTo the result if a required argument is missing
+         * @param defaultValue the result if the function itself yields no value
+         */
+        private static Expression compileFunction(final String function, final Expression[] args,
+            final DataCell mapMissingTo, final DataCell defaultValue) throws InvalidSettingsException {
+            switch (function) {
+                case "isMissing":
+                    checkArgCount(function, args, 1);
+                    return values -> BooleanCellFactory.create(args[0].evaluate(values).isMissing());
+                case "isNotMissing":
+                    checkArgCount(function, args, 1);
+                    return values -> BooleanCellFactory.create(!args[0].evaluate(values).isMissing());
+                case "if":
+                    if (args.length != 2 && args.length != 3) {
+                        throw new InvalidSettingsException("Function \"if\" expects two or three arguments.");
+                    }
+                    return values -> {
+                        final DataCell condition = args[0].evaluate(values);
+                        if (condition.isMissing()) {
+                            return mapMissingTo;
+                        }
+                        if (toBoolean(condition)) {
+                            return args[1].evaluate(values);
+                        }
+                        return args.length == 3 ? args[2].evaluate(values) : defaultValue;
+                    };
+                default:
+                    return compileStrictFunction(function, args, mapMissingTo);
+            }
+        }
+
+        /** Compiles the functions that return missing (or the replacement) if any argument is missing. */
+        private static Expression compileStrictFunction(final String function, final Expression[] args,
+            final DataCell mapMissingTo) throws InvalidSettingsException {
+            final Function<DataCell[], DataCell> body = compileFunctionBody(function, args.length);
+            return values -> {
+                final DataCell[] argValues = new DataCell[args.length];
+                for (int i = 0; i < args.length; i++) {
+                    argValues[i] = args[i].evaluate(values);
+                    if (argValues[i].isMissing()) {
+                        return mapMissingTo;
+                    }
+                }
+                return body.apply(argValues);
+            };
+        }
+
+        private static Function<DataCell[], DataCell> compileFunctionBody(final String function, final int argCount)
+            throws InvalidSettingsException {
+            switch (function) {
+                case "+":
+                    return binary(function, argCount, (a, b) -> a + b);
+                case "-":
+                    return binary(function, argCount, (a, b) -> a - b);
+                case "*":
+                    return binary(function, argCount, (a, b) -> a * b);
+                case "/":
+                    return binary(function, argCount, (a, b) -> a / b);
+                case "pow":
+                    return binary(function, argCount, Math::pow);
+                case "threshold":
+                    return binary(function, argCount, (a, b) -> a > b ? 1 : 0);
+                case "min":
+                    return aggregate(function, argCount, Math::min);
+                case "max":
+                    return aggregate(function, argCount, Math::max);
+                case "sum":
+                    return aggregate(function, argCount, (a, b) -> a + b);
+                case "product":
+                    return aggregate(function, argCount, (a, b) -> a * b);
+                case "avg": {
+                    final Function<DataCell[], DataCell> sum = aggregate(function, argCount, (a, b) -> a + b);
+                    return v -> new DoubleCell(((DoubleValue)sum.apply(v)).getDoubleValue() / v.length);
+                }
+                case "abs":
+                    return unary(function, argCount, Math::abs);
+                case "exp":
+                    return unary(function, argCount, Math::exp);
+                case "ln":
+                    return unary(function, argCount, Math::log);
+                case "log10":
+                    return unary(function, argCount, Math::log10);
+                case "sqrt":
+                    return unary(function, argCount, Math::sqrt);
+                case "floor":
+                    return unary(function, argCount, Math::floor);
+                case "ceil":
+                    return unary(function, argCount, Math::ceil);
+                case "round":
+                    return unary(function, argCount, a -> Math.round(a));
+                case "equal":
+                    checkArgCount(function, argCount, 2);
+                    return v -> BooleanCellFactory.create(compare(v[0], v[1]) == 0);
+                case "notEqual":
+                    checkArgCount(function, argCount, 2);
+                    return v -> BooleanCellFactory.create(compare(v[0], v[1]) != 0);
+                case "lessThan":
+                    checkArgCount(function, argCount, 2);
+                    return v -> BooleanCellFactory.create(compare(v[0], v[1]) < 0);
+                case "lessOrEqual":
+                    checkArgCount(function, argCount, 2);
+                    return v -> BooleanCellFactory.create(compare(v[0], v[1]) <= 0);
+                case "greaterThan":
+                    checkArgCount(function, argCount, 2);
+                    return v -> BooleanCellFactory.create(compare(v[0], v[1]) > 0);
+                case "greaterOrEqual":
+                    checkArgCount(function, argCount, 2);
+                    return v -> BooleanCellFactory.create(compare(v[0], v[1]) >= 0);
+                case "and":
+                    return v -> {
+                        boolean result = true;
+                        for (DataCell c : v) {
+                            result &= toBoolean(c);
+                        }
+                        return BooleanCellFactory.create(result);
+                    };
+                case "or":
+                    return v -> {
+                        boolean result = false;
+                        for (DataCell c : v) {
+                            result |= toBoolean(c);
+                        }
+                        return BooleanCellFactory.create(result);
+                    };
+                case "not":
+                    checkArgCount(function, argCount, 1);
+                    return v -> BooleanCellFactory.create(!toBoolean(v[0]));
+                default:
+                    throw new InvalidSettingsException("PMML function \"" + function + "\" is not supported.");
+            }
+        }
+
+        private static Function<DataCell[], DataCell> unary(final String function, final int argCount,
+            final DoubleUnaryOperator op) throws InvalidSettingsException {
+            checkArgCount(function, argCount, 1);
+            return v -> new DoubleCell(op.applyAsDouble(toDouble(v[0])));
+        }
+
+        private static Function<DataCell[], DataCell> binary(final String function, final int argCount,
+            final DoubleBinaryOperator op) throws InvalidSettingsException {
+            checkArgCount(function, argCount, 2);
+            return v -> new DoubleCell(op.applyAsDouble(toDouble(v[0]), toDouble(v[1])));
+        }
+
+        private static Function<DataCell[], DataCell> aggregate(final String function, final int argCount,
+            final DoubleBinaryOperator op) throws InvalidSettingsException {
+            if (argCount == 0) {
+                throw new InvalidSettingsException("Function \"" + function + "\" expects at least one argument.");
+            }
+            return v -> {
+                double result = toDouble(v[0]);
+                for (int i = 1; i < v.length; i++) {
+                    result = op.applyAsDouble(result, toDouble(v[i]));
+                }
+                return new DoubleCell(result);
+            };
+        }
+
+        private static void checkArgCount(final String function, final Expression[] args, final int expected)
+            throws InvalidSettingsException {
+            checkArgCount(function, args.length, expected);
+        }
+
+        private static void checkArgCount(final String function, final int argCount, final int expected)
+            throws InvalidSettingsException {
+            if (argCount != expected) {
+                throw new InvalidSettingsException("Function \"" + function + "\" expects " + expected
+                    + " argument(s) but got " + argCount + ".");
+            }
+        }
+    }
+
+    /** Wraps an expression so that its result is converted to the type declared for the derived field. */
+    private static Expression convertTo(final Expression expression, final DataType type) {
+        if (type.equals(DoubleCell.TYPE)) {
+            return values -> {
+                final DataCell cell = expression.evaluate(values);
+                if (cell.isMissing() || cell instanceof DoubleCell) {
+                    return cell;
+                }
+                final double value = toDouble(cell);
+                return Double.isNaN(value) ? MISSING : new DoubleCell(value);
+            };
+        } else if (type.equals(IntCell.TYPE)) {
+            return values -> {
+                final DataCell cell = expression.evaluate(values);
+                if (cell.isMissing() || cell instanceof IntCell) {
+                    return cell;
+                }
+                final double value = toDouble(cell);
+                return Double.isNaN(value) ? MISSING : new IntCell((int)Math.round(value));
+            };
+        } else if (type.equals(BooleanCellFactory.TYPE)) {
+            return values -> {
+                final DataCell cell = expression.evaluate(values);
+                return cell.isMissing() || cell instanceof BooleanValue ? cell
+                    : BooleanCellFactory.create(toBoolean(cell));
+            };
+        }
+        return values -> {
+            final DataCell cell = expression.evaluate(values);
+            return cell.isMissing() || cell instanceof StringCell ? cell : new StringCell(toStringValue(cell));
+        };
+    }
+
+    /**
+     * Converts a value of a PMML document to a cell of the given type.
+     *
+     * @throws InvalidSettingsException if the value is not valid for the type
+     */
+    private static DataCell toCell(final String value, final DATATYPE.Enum dataType) throws InvalidSettingsException {
+        final DataType type = PMMLDataDictionaryTranslator.getKNIMEDataType(dataType);
+        if (type.equals(StringCell.TYPE)) {
+            return new StringCell(value);
+        } else if (type.equals(BooleanCellFactory.TYPE)) {
+            final String trimmed = value.trim();
+            if ("true".equals(trimmed) || "1".equals(trimmed)) {
+                return BooleanCellFactory.create(true);
+            } else if ("false".equals(trimmed) || "0".equals(trimmed)) {
+                return BooleanCellFactory.create(false);
+            }
+        } else {
+            final double number = parseDouble(value);
+            if (type.equals(IntCell.TYPE) && number == (int)number) {
+                return new IntCell((int)number);
+            } else if (type.equals(DoubleCell.TYPE) && !Double.isNaN(number)) {
+                return new DoubleCell(number);
+            }
+        }
+        throw new InvalidSettingsException("\"" + value + "\" is not a valid " + dataType + " value.");
+    }
+
+    /** Converts a value of a PMML document without declared type, numbers become double cells. */
+    private static DataCell toCell(final String value) {
+        final double number = parseDouble(value);
+        return Double.isNaN(number) ? new StringCell(value) : new DoubleCell(number);
+    }
+
+    /** @return the numeric value of a cell, strings are parsed and yield NaN if they are not numbers */
+    private static double toDouble(final DataCell cell) {
+        if (cell instanceof DoubleValue) {
+            return ((DoubleValue)cell).getDoubleValue();
+        } else if (cell instanceof BooleanValue) {
+            return ((BooleanValue)cell).getBooleanValue() ? 1 : 0;
+        }
+        return parseDouble(toStringValue(cell));
+    }
+
+    /**
+     * Parses a decimal number, optionally with exponent, or one of the special values <code>INF</code>,
+     * <code>-INF</code> and <code>NaN</code> of XML schema. Strings are checked before they are parsed, as many
+     * string values are compared or discretized and throwing an exception for each of them would be expensive.
+     *
+     * @return the number or NaN if the string is not a number
+     */
+    private static double parseDouble(final String value) {
+        final String s = value.trim();
+        final int length = s.length();
+        int i = 0;
+        if (i < length && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+            i++;
+        }
+        if (length - i == 3 && s.startsWith("INF", i)) {
+            return s.charAt(0) == '-' ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        final int start = i;
+        i = skipDigits(s, i);
+        if (i < length && s.charAt(i) == '.') {
+            i = skipDigits(s, i + 1);
+        }
+        if (i == start || (i == start + 1 && s.charAt(start) == '.')) {
+            // no digits, NaN itself is not distinguished from other non-numbers
+            return Double.NaN;
+        }
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                i++;
+            }
+            final int exponentStart = i;
+            i = skipDigits(s, i);
+            if (i == exponentStart) {
+                return Double.NaN;
+            }
+        }
+        return i == length ? Double.parseDouble(s) : Double.NaN;
+    }
+
+    private static int skipDigits(final String s, final int start) {
+        int i = start;
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean toBoolean(final DataCell cell) {
+        if (cell instanceof BooleanValue) {
+            return ((BooleanValue)cell).getBooleanValue();
+        } else if (cell instanceof DoubleValue) {
+            return ((DoubleValue)cell).getDoubleValue() != 0;
+        }
+        return Boolean.parseBoolean(toStringValue(cell));
+    }
+
+    /**
+     * Returns the string representation used to compare a cell with values in the PMML document. Integral numbers
+     * are written without fraction, so that a double column matches the category "1".
+     */
+    private static String toStringValue(final DataCell cell) {
+        if (cell instanceof StringValue) {
+            return ((StringValue)cell).getStringValue();
+        } else if (cell instanceof IntValue) {
+            return Integer.toString(((IntValue)cell).getIntValue());
+        } else if (cell instanceof LongValue) {
+            return Long.toString(((LongValue)cell).getLongValue());
+        } else if (cell instanceof DoubleValue) {
+            final double d = ((DoubleValue)cell).getDoubleValue();
+            if (d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < 1e15) {
+                return Long.toString((long)d);
+            }
+            return Double.toString(d);
+        }
+        return cell.toString();
+    }
+
+    /** Compares numerically if both values are numbers, otherwise by their string representation. */
+    private static int compare(final DataCell a, final DataCell b) {
+        final double da = toDouble(a);
+        final double db = toDouble(b);
+        if (!Double.isNaN(da) && !Double.isNaN(db)) {
+            return Double.compare(da, db);
+        }
+        return toStringValue(a).compareTo(toStringValue(b));
+    }
+}
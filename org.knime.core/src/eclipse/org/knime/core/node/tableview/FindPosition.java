@@ -151,6 +151,21 @@ private int nextRow() {
         return (m_searchRowInclColNameRow + 1) % (m_rowCount + 1);
     }
 
+    /**
+     * Moves the position to the given cell. Used when the next hit was found by other means than {@link #next()}
+     * (e.g. an index).
+     *
+     * @param row the row (&gt;= 0)
+     * @param column the column or {@link #HEADER} for the row ID
+     */
+    void setPosition(final int row, final int column) {
+        CheckUtils.checkArgument(row >= 0 && row < m_rowCount, "Invalid row: %d", row);
+        CheckUtils.checkArgument(column >= HEADER && column < m_columnCountInclRowIDCol - 1, "Invalid column: %d",
+            column);
+        m_searchRowInclColNameRow = row + 1;
+        m_searchColumnInclRowIDCol = column + 1;
+    }
+
     /** Reset position to row 0. */
     void reset() {
         m_searchRowInclColNameRow = 0;
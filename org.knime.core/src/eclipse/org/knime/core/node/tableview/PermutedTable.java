@@ -0,0 +1,300 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.tableview;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataTable;
+
+/**
+ * A read-only view on a table that returns the rows of the underlying table in the order of a permutation (as computed
+ * by {@link TableSortPermutation}). Used by the table view to show a sorted table without writing a sorted copy.
+ *
+ * <p>
+ * Rows are fetched in batches. The underlying table is read in blocks of {@link #BLOCK_SIZE} consecutive rows, which
+ * are kept in a (softly referenced) cache. A batch reads the blocks containing its rows that aren't cached in a single
+ * forward pass over the underlying table, which starts at the first of these blocks (through a {@link
+ * TableFilter#filterRangeOfRows(long, long) row range filter} where the underlying table supports it) and skips the
+ * rows in between. Each batch hence iterates the underlying table at most once, also for tables on disk, where every
+ * iteration decodes the rows from the start of the table, and scrolling back and forth does not read rows again.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PermutedTable implements DataTable {
+
+    /** Number of rows fetched from the underlying table at a time. */
+    static final int BATCH_SIZE = 1024;
+
+    /** Number of consecutive rows of the underlying table that are read and cached together. */
+    static final int BLOCK_SIZE = 64;
+
+    /** Maximum number of blocks kept in {@link #m_blockCache}. Package scope for testing. */
+    static final int MAX_CACHED_BLOCKS = 4096;
+
+    private final DataTable m_table;
+
+    private final int[] m_permutation;
+
+    /** Blocks of the underlying table by block index, least recently used first; guarded by itself. */
+    private final Map<Integer, SoftReference<DataRow[]>> m_blockCache =
+        new LinkedHashMap<Integer, SoftReference<DataRow[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, SoftReference<DataRow[]>> eldest) {
+                return size() > MAX_CACHED_BLOCKS;
+            }
+        };
+
+    /**
+     * @param table the underlying table
+     * @param permutation position <code>i</code> of this table shows row <code>permutation[i]</code> of the underlying
+     *            table; not copied, must not be modified
+     */
+    PermutedTable(final DataTable table, final int[] permutation) {
+        m_table = table;
+        m_permutation = permutation;
+    }
+
+    /** @return the underlying (unsorted) table */
+    DataTable getTable() {
+        return m_table;
+    }
+
+    /** @return the permutation, not a copy */
+    int[] getPermutation() {
+        return m_permutation;
+    }
+
+    /** @return the number of rows */
+    int size() {
+        return m_permutation.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataTableSpec getDataTableSpec() {
+        return m_table.getDataTableSpec();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * An iterator starting at the given position, without reading the rows before it.
+     *
+     * @param fromPosition the position of the first row to return
+     * @return a new iterator
+     */
+    CloseableRowIterator iterator(final int fromPosition) {
+        return new PermutedRowIterator(fromPosition);
+    }
+
+    /**
+     * Reads the rows at the positions [from, to) of this table.
+     */
+    private DataRow[] fetch(final int from, final int to) {
+        final int count = to - from;
+        // row index in upper, offset within the batch in lower 32 bits; sorting groups them by block
+        final long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long)m_permutation[from + i] << 32) | i;
+        }
+        Arrays.sort(order);
+        // the distinct blocks covered by this batch, in ascending order
+        final int[] blockIndices = new int[count];
+        int blockCount = 0;
+        for (int k = 0; k < count; k++) {
+            final int blockIndex = (int)((order[k] >>> 32) / BLOCK_SIZE);
+            if (blockCount == 0 || blockIndices[blockCount - 1] != blockIndex) {
+                blockIndices[blockCount++] = blockIndex;
+            }
+        }
+        final DataRow[][] blocks = new DataRow[blockCount][];
+        synchronized (m_blockCache) {
+            for (int b = 0; b < blockCount; b++) {
+                final SoftReference<DataRow[]> ref = m_blockCache.get(blockIndices[b]);
+                blocks[b] = ref == null ? null : ref.get();
+            }
+        }
+        readMissingBlocks(blockIndices, blocks, blockCount);
+        final DataRow[] rows = new DataRow[count];
+        for (int k = 0, b = 0; k < count; k++) {
+            final long index = order[k] >>> 32;
+            while (blockIndices[b] != index / BLOCK_SIZE) {
+                b++;
+            }
+            rows[(int)order[k]] = blocks[b][(int)(index % BLOCK_SIZE)];
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the blocks of the underlying table that are missing (null) in <code>blocks</code> in a single forward pass
+     * and puts them into the block cache.
+     *
+     * @param blockIndices the indices of the blocks, ascending
+     * @param blocks the blocks, null for blocks to read
+     * @param blockCount the number of blocks
+     */
+    private void readMissingBlocks(final int[] blockIndices, final DataRow[][] blocks, final int blockCount) {
+        int first = 0;
+        while (first < blockCount && blocks[first] != null) {
+            first++;
+        }
+        if (first == blockCount) {
+            return;
+        }
+        int last = blockCount - 1;
+        while (blocks[last] != null) {
+            last--;
+        }
+        final long firstIndex = (long)blockIndices[first] * BLOCK_SIZE;
+        final long lastIndex = Math.min((blockIndices[last] + 1L) * BLOCK_SIZE, m_permutation.length) - 1;
+        final boolean[] isRead = new boolean[blockCount];
+        final RowIterator it = rangeIterator(firstIndex, lastIndex);
+        try {
+            long index = firstIndex;
+            for (int b = first; b <= last; b++) {
+                if (blocks[b] != null) {
+                    continue;
+                }
+                final long blockStart = (long)blockIndices[b] * BLOCK_SIZE;
+                for (; index < blockStart; index++) {
+                    nextRow(it);
+                }
+                final DataRow[] block = new DataRow[(int)Math.min(BLOCK_SIZE, lastIndex - blockStart + 1)];
+                for (int r = 0; r < block.length; r++) {
+                    block[r] = nextRow(it);
+                }
+                index += block.length;
+                blocks[b] = block;
+                isRead[b] = true;
+            }
+        } finally {
+            if (it instanceof CloseableRowIterator) {
+                ((CloseableRowIterator)it).close();
+            }
+        }
+        synchronized (m_blockCache) {
+            for (int b = first; b <= last; b++) {
+                if (isRead[b]) {
+                    m_blockCache.put(blockIndices[b], new SoftReference<>(blocks[b]));
+                }
+            }
+        }
+    }
+
+    private static DataRow nextRow(final RowIterator it) {
+        if (!it.hasNext()) {
+            throw new IllegalStateException("Underlying table has fewer rows than expected by the sort order");
+        }
+        return it.next();
+    }
+
+    /** An iterator over the rows of the underlying table with index in [from, to]. */
+    private RowIterator rangeIterator(final long from, final long to) {
+        if (m_table instanceof BufferedDataTable) {
+            return ((BufferedDataTable)m_table).filter(TableFilter.filterRangeOfRows(from, to)).iterator();
+        } else if (m_table instanceof ContainerTable) {
+            return ((ContainerTable)m_table).iteratorWithFilter(TableFilter.filterRangeOfRows(from, to), null);
+        }
+        final RowIterator it = m_table.iterator();
+        for (long i = 0; i < from && it.hasNext(); i++) {
+            it.next();
+        }
+        return it;
+    }
+
+    private final class PermutedRowIterator extends CloseableRowIterator {
+
+        private int m_position;
+
+        private int m_batchStart;
+
+        private DataRow[] m_batch;
+
+        PermutedRowIterator(final int fromPosition) {
+            m_position = fromPosition;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_position < m_permutation.length;
+        }
+
+        @Override
+        public DataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more rows");
+            }
+            if (m_batch == null || m_position >= m_batchStart + m_batch.length) {
+                m_batchStart = m_position;
+                m_batch = fetch(m_position, Math.min(m_permutation.length, m_position + BATCH_SIZE));
+            }
+            return m_batch[m_position++ - m_batchStart];
+        }
+
+        @Override
+        public void close() {
+            m_position = m_permutation.length;
+            m_batch = null;
+        }
+    }
+}
@@ -49,6 +49,8 @@
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import javax.swing.JComponent;
@@ -156,6 +158,9 @@ public boolean performsFiltering() {
      */
     public static final int CHUNK_SIZE = 50;
 
+    /** Number of sort permutations kept in {@link #m_sortPermutationCache}. */
+    private static final int MAX_CACHED_SORT_PERMUTATIONS = 4;
+
     /** underlying data; may be null to indicate invalid status. */
     private DataTable m_data;
 
@@ -202,6 +207,11 @@ public boolean performsFiltering() {
      */
     private int m_rowCountInIterator;
 
+    /** Index of the first row returned by {@link #m_iterator}. This is 0 unless the iterator was positioned directly
+     * at a row (only supported for a sorted {@link PermutedTable} without filtering), rows before it are not cached.
+     */
+    private int m_firstRowInIterator;
+
     /** lower bound for overall number of rows in {@link #m_data}, updated when
      * new rows are encountered.
      */
@@ -240,6 +250,10 @@ public boolean performsFiltering() {
      */
     private RowCounterThread m_rowCounterThread;
 
+    /** Index of the row IDs and string columns used by the search in the table view, built on first request.
+     * See {@link #getSearchIndex()}. */
+    private TableSearchIndex m_searchIndex;
+
     /** See {@link #setSortingAllowed(boolean)} for details. */
     private boolean m_isSortingAllowed = false;
 
@@ -257,6 +271,16 @@ public boolean performsFiltering() {
      * sorted table). */
     private DataTable m_originalUnsortedTable;
 
+    /** Sort permutations of {@link #m_originalUnsortedTable} computed so far, so that returning to a previous sort
+     * order does not sort again. Only accessed in the EDT; cleared when a new table is set. */
+    private final Map<TableSortOrder, int[]> m_sortPermutationCache =
+        new LinkedHashMap<TableSortOrder, int[]>(8, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<TableSortOrder, int[]> eldest) {
+                return size() > MAX_CACHED_SORT_PERMUTATIONS;
+            }
+        };
+
     /**
      * Creates a new TableContentModel with empty content. Call
      * {@link #setDataTable(DataTable)} to set a valid data table. No
@@ -352,6 +376,13 @@ private void setDataTableIntern(final DataTable originalData,
             m_tableSorterWorker = null;
         }
         m_tableSortOrder = sortOrder;
+        if (originalData != m_originalUnsortedTable) {
+            m_sortPermutationCache.clear();
+            cancelSearchIndex();
+        }
+        if (data instanceof PermutedTable) {
+            m_sortPermutationCache.put(sortOrder, ((PermutedTable)data).getPermutation());
+        }
         cancelRowCountingInBackground();
         int oldColCount = getColumnCount();
         int newColCount =
@@ -391,6 +422,8 @@ private void setDataTableIntern(final DataTable originalData,
                 rowCountFromTable = ((BufferedDataTable)data).size();
             } else if (data instanceof ContainerTable) {
                 rowCountFromTable = ((ContainerTable)data).size();
+            } else if (data instanceof PermutedTable) {
+                rowCountFromTable = ((PermutedTable)data).size();
             } else {
                 rowCountFromTable = -1; // unknown
             }
@@ -475,6 +508,44 @@ public synchronized void cancelRowCountingInBackground() {
         }
     }
 
+    /**
+     * Returns the index of the row IDs and string columns of the displayed table, which allows searching these without
+     * iterating the table. The index is built for the unsorted table, hence kept when the sort order changes; see
+     * {@link #getSortPermutation()}. The first call starts building the index in a background thread; the returned
+     * index may therefore not be {@link TableSearchIndex#isReady() ready} yet. The index is discarded when new data is
+     * set or the content filter changes.
+     *
+     * @return the index or <code>null</code> if there is no data, rows are filtered (row indices in the view are not
+     *         row indices in the table) or the index could not be built
+     */
+    synchronized TableSearchIndex getSearchIndex() {
+        if (!hasData() || m_tableFilter.performsFiltering()) {
+            return null;
+        }
+        final DataTable table = m_data instanceof PermutedTable ? ((PermutedTable)m_data).getTable() : m_data;
+        if (m_searchIndex == null || m_searchIndex.getTable() != table) {
+            cancelSearchIndex();
+            m_searchIndex = new TableSearchIndex(table);
+        }
+        return m_searchIndex.isFailed() ? null : m_searchIndex;
+    }
+
+    /**
+     * @return the permutation of the rows of the table {@link #getSearchIndex() indexed for searching} if the view is
+     *         sorted through a permutation, <code>null</code> if the rows are shown in the order of that table
+     */
+    synchronized int[] getSortPermutation() {
+        return m_data instanceof PermutedTable ? ((PermutedTable)m_data).getPermutation() : null;
+    }
+
+    /** Stops building and discards the search index, if any. */
+    private synchronized void cancelSearchIndex() {
+        if (m_searchIndex != null) {
+            m_searchIndex.cancel();
+            m_searchIndex = null;
+        }
+    }
+
     /**
      * Set a new <code>HiLiteHandler</code>. If the argument is
      * <code>null</code> hiliting is disabled.
@@ -618,8 +689,11 @@ private void sortTableIntern(final int column, final JComponent parComponent, fi
                     ? new TableSortOrder(column) : m_tableSortOrder;
             nextOrder = tableOrder.nextSortOrder(column, sortKey);
         }
+        final int[] cachedPermutation = nextOrder == null ? null : m_sortPermutationCache.get(nextOrder);
         if (nextOrder == null) {
             setDataTableOnSort(m_originalUnsortedTable, nextOrder);
+        } else if (cachedPermutation != null) {
+            setDataTableOnSort(new PermutedTable(m_originalUnsortedTable, cachedPermutation), nextOrder);
         } else {
             TableSorterWorker sortWorker = new TableSorterWorker(
                 m_originalUnsortedTable, nextOrder, parComponent, this);
@@ -689,6 +763,7 @@ public final void setTableContentFilter(
             return;
         }
         m_tableFilter = newFilter;
+        cancelSearchIndex();
         if (m_tableFilter.performsFiltering()) {
             // don't know how many rows are being filtered
             m_rowCountOfInterest = 0;
@@ -1082,14 +1157,19 @@ protected DataRow getRow(final int row) {
 
         // the iterator goes further when the last known row is requested
         boolean pushIterator = !isRowCountFinal() && (row == oldRowCount - 1);
-        if (row >= (m_rowCountOfInterestInIterator - cacheSize)
+        if (row >= (m_rowCountOfInterestInIterator - cacheSize) && row >= m_firstRowInIterator
                 && (row < m_rowCountOfInterestInIterator) && !pushIterator) {
             return getRowFromCache(row);
         }
 
         /* row is not in cache */
-        // row already released from cache
-        if (row < (m_rowCountOfInterestInIterator - cacheSize)) {
+        final boolean isReleased = row < (m_rowCountOfInterestInIterator - cacheSize) || row < m_firstRowInIterator;
+        if (m_data instanceof PermutedTable && !m_tableFilter.performsFiltering()
+                && (isReleased || row >= m_rowCountOfInterestInIterator + cacheSize)) {
+            // sorted table: rows can be fetched by position, no need to iterate from the start
+            positionIterator(row - (row % cacheSize));
+        } else if (isReleased) {
+            // row already released from cache
             // clear cache, init new iterator
             clearCache();
         }
@@ -1180,6 +1260,7 @@ protected void clearCache() {
         }
         m_iterator = getNewDataIterator();
         m_rowCountInIterator = 0;
+        m_firstRowInIterator = 0;
         // all updated in nextBlock()
         m_rowCountOfInterestInIterator = 0;
         // clear cache
@@ -1187,6 +1268,27 @@ protected void clearCache() {
         m_hilitSet.clear();
     } // clearCache()
 
+    /**
+     * Clears the cache and instantiates a new iterator on the {@link PermutedTable} that starts at the given row. Only
+     * to be called if no filtering is done, i.e. row indices in the model are positions in the table.
+     *
+     * @param row the first row to be returned by the new iterator, must be a multiple of the cache size so that
+     *            the rows are cached starting at the beginning of the ring buffer
+     */
+    private void positionIterator(final int row) {
+        assert m_data instanceof PermutedTable && !m_tableFilter.performsFiltering();
+        assert row % getCacheSize() == 0;
+        if (m_iterator instanceof CloseableRowIterator) {
+            ((CloseableRowIterator)m_iterator).close();
+        }
+        m_iterator = ((PermutedTable)m_data).iterator(row);
+        m_rowCountInIterator = row;
+        m_rowCountOfInterestInIterator = row;
+        m_firstRowInIterator = row;
+        Arrays.fill(m_cachedRows, null);
+        m_hilitSet.clear();
+    }
+
     /**
      * Returns a row with a given index from the cache. It is mandatory to give
      * a row index which is certainly in the cache, i.e.
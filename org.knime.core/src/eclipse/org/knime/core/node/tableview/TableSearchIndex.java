@@ -0,0 +1,358 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.tableview;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * An in-memory index of the row IDs and string columns of a table, built in a low priority background thread. Used by
+ * the table view's search to find a row ID or string cell without iterating the table (and going through the row cache
+ * of the {@link TableContentModel}) for every search.
+ *
+ * <p>
+ * The strings are stored UTF-8 encoded in one byte array per column, and row IDs as created by
+ * {@link RowKey#createRowKey(long)} from the row index are not stored at all. The index is only built if it fits into
+ * a memory budget (a fraction of the maximum heap). If it doesn't, the string columns are dropped and only the row IDs
+ * are indexed; if even these don't fit, the index is discarded and the search falls back to iterating the table.
+ *
+ * <p>
+ * The index is built for the unsorted table. If the view is sorted, the search is passed the sort permutation.
+ *
+ * @see TableContentModel#getSearchIndex()
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class TableSearchIndex {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TableSearchIndex.class);
+
+    /** Fraction of the maximum heap the index may occupy. */
+    private static final double MEMORY_BUDGET_FRACTION = 0.1;
+
+    /** Largest array size the VM can allocate safely. */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /** Number of rows after which the memory of the index is checked against the budget. */
+    private static final int MEMORY_CHECK_INTERVAL = 1024;
+
+    private final DataTable m_table;
+
+    private final long m_memoryBudget;
+
+    private final Thread m_builder;
+
+    /** Whether the column with the respective index is a string column, i.e. indexed if memory permits. */
+    private final boolean[] m_isStringColumn;
+
+    /** The row IDs, <code>null</code> if all row IDs are generated from the row index. */
+    private StringArena m_rowIDs;
+
+    /** The strings of the columns by column index, <code>null</code> for non-string columns or if dropped. */
+    private StringArena[] m_columns;
+
+    /** The number of indexed rows, -1 until the index is ready; written last when building completes. */
+    private volatile int m_size = -1;
+
+    private volatile boolean m_isFailed;
+
+    /**
+     * Creates and starts building the index.
+     *
+     * @param table the table whose row IDs and string columns are indexed (in iteration order)
+     */
+    TableSearchIndex(final DataTable table) {
+        this(table, (long)(Runtime.getRuntime().maxMemory() * MEMORY_BUDGET_FRACTION));
+    }
+
+    /**
+     * Creates and starts building the index.
+     *
+     * @param table the table whose row IDs and string columns are indexed (in iteration order)
+     * @param memoryBudget the approximate maximum size of the index in bytes
+     */
+    TableSearchIndex(final DataTable table, final long memoryBudget) {
+        m_table = table;
+        m_memoryBudget = memoryBudget;
+        final DataTableSpec spec = table.getDataTableSpec();
+        m_isStringColumn = new boolean[spec.getNumColumns()];
+        for (int i = 0; i < m_isStringColumn.length; i++) {
+            // the renderers of string cells show their value, which is what the search of the view matches
+            m_isStringColumn[i] = StringCell.TYPE.equals(spec.getColumnSpec(i).getType());
+        }
+        m_builder = new Thread(this::build, "TableSearchIndex for Table " + table.hashCode());
+        m_builder.setPriority(Thread.MIN_PRIORITY);
+        m_builder.setDaemon(true);
+        m_builder.start();
+    }
+
+    private void build() {
+        StringArena rowIDs = null;
+        StringArena[] columns = new StringArena[m_isStringColumn.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = m_isStringColumn[i] ? new StringArena() : null;
+        }
+        int size = 0;
+        final RowIterator it = m_table.iterator();
+        try {
+            while (it.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    m_isFailed = true;
+                    return;
+                }
+                if (size == MAX_ARRAY_SIZE) {
+                    LOGGER.debug("Too many rows for search index, index not built");
+                    m_isFailed = true;
+                    return;
+                }
+                final DataRow row = it.next();
+                final RowKey key = row.getKey();
+                if (rowIDs == null && key.getGeneratedIndex() != size) {
+                    // first row ID that is not generated from the row index, store all row IDs from now on
+                    rowIDs = new StringArena();
+                    for (int i = 0; i < size; i++) {
+                        rowIDs.add(RowKey.createRowKey((long)i).getString());
+                    }
+                }
+                boolean isFull = rowIDs != null && !rowIDs.add(key.getString());
+                if (columns != null) {
+                    for (int i = 0; i < columns.length; i++) {
+                        if (columns[i] != null) {
+                            isFull |= !columns[i].add(row.getCell(i).toString());
+                        }
+                    }
+                }
+                size++;
+                if (isFull || size % MEMORY_CHECK_INTERVAL == 0 || !it.hasNext()) {
+                    if (isFull || getMemory(rowIDs, columns) > m_memoryBudget) {
+                        if (columns == null) {
+                            LOGGER.debug("Row IDs exceed memory budget for search index, index not built");
+                            m_isFailed = true;
+                            return;
+                        }
+                        LOGGER.debug("String columns exceed memory budget for search index, only row IDs indexed");
+                        columns = null;
+                        if (rowIDs != null && !rowIDs.hasSize(size)) {
+                            m_isFailed = true;
+                            return;
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Unable to build search index: " + e.getMessage(), e);
+            m_isFailed = true;
+            return;
+        } finally {
+            if (it instanceof CloseableRowIterator) {
+                ((CloseableRowIterator)it).close();
+            }
+        }
+        if (rowIDs != null) {
+            rowIDs.trim();
+        }
+        if (columns != null) {
+            for (StringArena column : columns) {
+                if (column != null) {
+                    column.trim();
+                }
+            }
+        }
+        m_rowIDs = rowIDs;
+        m_columns = columns;
+        m_size = size;
+    }
+
+    private static long getMemory(final StringArena rowIDs, final StringArena[] columns) {
+        long memory = rowIDs == null ? 0 : rowIDs.getMemory();
+        if (columns != null) {
+            for (StringArena column : columns) {
+                memory += column == null ? 0 : column.getMemory();
+            }
+        }
+        return memory;
+    }
+
+    /** @return the table this index was built for */
+    DataTable getTable() {
+        return m_table;
+    }
+
+    /** @return true if the index has been built completely and can be queried */
+    boolean isReady() {
+        return m_size >= 0;
+    }
+
+    /** @return true if building the index failed or was canceled; such an index will never become ready */
+    boolean isFailed() {
+        return m_isFailed;
+    }
+
+    /** @return the number of indexed rows, only to be called if {@link #isReady() ready} */
+    int size() {
+        return m_size;
+    }
+
+    /**
+     * Whether the cells of a column are contained in the index, only to be called if {@link #isReady() ready}.
+     *
+     * @param column the index of the column in the table spec
+     * @return true if the column is a string column and the index didn't need to drop it to fit into memory
+     */
+    boolean isIndexed(final int column) {
+        final StringArena[] columns = m_columns;
+        return columns != null && column >= 0 && column < columns.length && columns[column] != null;
+    }
+
+    /** Stops building the index. */
+    void cancel() {
+        m_builder.interrupt();
+    }
+
+    /**
+     * Finds the first cell at or after the given position whose text matches the search string, only to be called if
+     * {@link #isReady() ready}. Cells are checked in the order of the table view's search: row by row, and within a
+     * row the row ID first, then the columns.
+     *
+     * @param searchString the search string
+     * @param permutation maps the rows of the view to rows of the indexed table, <code>null</code> if the view shows
+     *            the rows in table order
+     * @param searchRowID whether row IDs are searched
+     * @param columns the columns to search, as column indices in the table spec (all {@link #isIndexed(int) indexed})
+     *            in the order of the view; empty if data is not searched
+     * @param fromRow the row (of the view) to start in
+     * @param fromColumn the position in <code>columns</code> to start at in <code>fromRow</code>,
+     *            {@link FindPosition#HEADER} to start with the row ID
+     * @param toRow the last row to check (exclusive)
+     * @return the row and the position in <code>columns</code> (or {@link FindPosition#HEADER} for the row ID) of the
+     *         first matching cell, or <code>null</code> if there is none
+     */
+    int[] find(final SearchString searchString, final int[] permutation, final boolean searchRowID,
+        final int[] columns, final int fromRow, final int fromColumn, final int toRow) {
+        final int to = Math.min(toRow, m_size);
+        final StringArena[] indexedColumns = m_columns;
+        for (int row = Math.max(0, fromRow); row < to; row++) {
+            final int tableRow = permutation == null ? row : permutation[row];
+            final int startColumn = row == fromRow ? fromColumn : FindPosition.HEADER;
+            if (searchRowID && startColumn <= FindPosition.HEADER && searchString.matches(getRowID(tableRow))) {
+                return new int[]{row, FindPosition.HEADER};
+            }
+            for (int c = Math.max(0, startColumn); c < columns.length; c++) {
+                if (searchString.matches(indexedColumns[columns[c]].get(tableRow))) {
+                    return new int[]{row, c};
+                }
+            }
+        }
+        return null;
+    }
+
+    private String getRowID(final int tableRow) {
+        return m_rowIDs == null ? RowKey.createRowKey((long)tableRow).getString() : m_rowIDs.get(tableRow);
+    }
+
+    /** Strings stored UTF-8 encoded and back to back in a single array. */
+    private static final class StringArena {
+
+        private byte[] m_bytes = new byte[1024];
+
+        /** End offset in {@link #m_bytes} of the respective string. */
+        private int[] m_ends = new int[256];
+
+        private int m_size;
+
+        /**
+         * @param s the string to append
+         * @return false if the arena can't hold the string, it is then not added
+         */
+        boolean add(final String s) {
+            final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            final int start = m_size == 0 ? 0 : m_ends[m_size - 1];
+            if ((long)start + bytes.length > MAX_ARRAY_SIZE || m_size == MAX_ARRAY_SIZE) {
+                return false;
+            }
+            if (start + bytes.length > m_bytes.length) {
+                m_bytes = Arrays.copyOf(m_bytes,
+                    (int)Math.min(MAX_ARRAY_SIZE, Math.max(2L * m_bytes.length, start + bytes.length)));
+            }
+            if (m_size == m_ends.length) {
+                m_ends = Arrays.copyOf(m_ends, (int)Math.min(MAX_ARRAY_SIZE, 2L * m_size));
+            }
+            System.arraycopy(bytes, 0, m_bytes, start, bytes.length);
+            m_ends[m_size++] = start + bytes.length;
+            return true;
+        }
+
+        String get(final int index) {
+            final int start = index == 0 ? 0 : m_ends[index - 1];
+            return new String(m_bytes, start, m_ends[index] - start, StandardCharsets.UTF_8);
+        }
+
+        /** @return whether the arena holds the given number of strings */
+        boolean hasSize(final int size) {
+            return m_size == size;
+        }
+
+        /** @return the allocated size in bytes */
+        long getMemory() {
+            return m_bytes.length + (long)Integer.BYTES * m_ends.length;
+        }
+
+        void trim() {
+            final int length = m_size == 0 ? 0 : m_ends[m_size - 1];
+            m_bytes = Arrays.copyOf(m_bytes, length);
+            m_ends = Arrays.copyOf(m_ends, m_size);
+        }
+    }
+}
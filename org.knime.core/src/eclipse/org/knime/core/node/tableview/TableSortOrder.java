@@ -47,6 +47,7 @@
  */
 package org.knime.core.node.tableview;
 
+import java.util.Objects;
 
 /** Represents sort order in a table (multiple columns).
  *
@@ -234,4 +235,26 @@ TableSortOrder nextSortOrder(final int colIdx, final TableSortKey sortKey) {
             }
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof TableSortOrder)) {
+            return false;
+        }
+        TableSortOrder o = (TableSortOrder)obj;
+        return m_colIndexPrimary == o.m_colIndexPrimary && m_colIndexSecondary == o.m_colIndexSecondary
+            && m_primarySortIsAscending == o.m_primarySortIsAscending
+            && m_secondarySortIsAscending == o.m_secondarySortIsAscending;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return Objects.hash(m_colIndexPrimary, m_colIndexSecondary, m_primarySortIsAscending,
+            m_secondarySortIsAscending);
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.tableview;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Computes the permutation that sorts a table according to a {@link TableSortOrder}, without creating a sorted copy of
+ * the table. Only the row index and the values of the sort columns are kept in memory; the result is used to create a
+ * {@link PermutedTable}. The order is the same as the one of the
+ * {@link org.knime.core.data.sort.DataTableSorter DataTableSorter} (stable, missing values are the smallest values).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class TableSortPermutation {
+
+    /** Runs shorter than this are sorted by insertion sort before merging. */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /** Memory is checked every that many rows while reading the sort keys. */
+    private static final int MEMORY_CHECK_INTERVAL = 1 << 16;
+
+    private final int[] m_columns;
+
+    private final boolean[] m_ascending;
+
+    private final DataValueComparator[] m_comparators;
+
+    /** Sort keys per sort column: a {@link DataCell}[] or, for the row ID, a String[]. */
+    private final Object[][] m_keys;
+
+    private TableSortPermutation(final DataTableSpec spec, final TableSortOrder order, final int capacity) {
+        m_columns = order.getSortColumnIndices();
+        m_ascending = order.getSortColumnOrder();
+        m_comparators = new DataValueComparator[m_columns.length];
+        m_keys = new Object[m_columns.length][];
+        for (int i = 0; i < m_columns.length; i++) {
+            if (m_columns[i] == TableSortOrder.COLIDX_ROWKEY) {
+                m_keys[i] = new String[capacity];
+            } else {
+                m_comparators[i] = spec.getColumnSpec(m_columns[i]).getType().getComparator();
+                m_keys[i] = new DataCell[capacity];
+            }
+        }
+    }
+
+    /**
+     * Computes the sort permutation of a table.
+     *
+     * @param table the table to sort
+     * @param rowCount the number of rows if known, otherwise -1
+     * @param order the sort order
+     * @param exec for progress and cancelation
+     * @return the permutation, i.e. position <code>i</code> of the sorted table is row <code>result[i]</code> of the
+     *         argument table; or <code>null</code> if the sort keys do not fit into memory or the table has more rows
+     *         than can be addressed
+     * @throws CanceledExecutionException if canceled
+     */
+    static int[] create(final DataTable table, final long rowCount, final TableSortOrder order,
+        final ExecutionMonitor exec) throws CanceledExecutionException {
+        if (rowCount > Integer.MAX_VALUE - 8) {
+            return null;
+        }
+        final TableSortPermutation sorter = new TableSortPermutation(table.getDataTableSpec(), order,
+            rowCount >= 0 ? (int)rowCount : 1024);
+        final ExecutionMonitor readExec = exec.createSubProgress(0.5);
+        final int size = sorter.readKeys(table, rowCount, readExec);
+        if (size < 0) {
+            return null;
+        }
+        final int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+        sorter.sort(permutation, exec.createSubProgress(0.5));
+        return permutation;
+    }
+
+    /** Reads the sort keys of all rows, returns the row count or -1 if memory gets low. */
+    private int readKeys(final DataTable table, final long rowCount, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        final RowIterator it = keyIterator(table);
+        try {
+            int row = 0;
+            while (it.hasNext()) {
+                final DataRow r = it.next();
+                if (row == m_keys[0].length) {
+                    if (row >= Integer.MAX_VALUE - 8) {
+                        return -1;
+                    }
+                    final int newLength = (int)Math.min(Integer.MAX_VALUE - 8, 2L * row);
+                    for (int i = 0; i < m_keys.length; i++) {
+                        m_keys[i] = Arrays.copyOf(m_keys[i], newLength);
+                    }
+                }
+                for (int i = 0; i < m_columns.length; i++) {
+                    if (m_columns[i] == TableSortOrder.COLIDX_ROWKEY) {
+                        m_keys[i][row] = r.getKey().getString();
+                    } else {
+                        m_keys[i][row] = r.getCell(m_columns[i]);
+                    }
+                }
+                row++;
+                if (row % MEMORY_CHECK_INTERVAL == 0) {
+                    exec.checkCanceled();
+                    if (rowCount > 0) {
+                        exec.setProgress(row / (double)rowCount, () -> "Reading sort keys");
+                    }
+                    if (MemoryAlertSystem.getInstance().isMemoryLow()) {
+                        return -1;
+                    }
+                }
+            }
+            return row;
+        } finally {
+            if (it instanceof CloseableRowIterator) {
+                ((CloseableRowIterator)it).close();
+            }
+        }
+    }
+
+    /** Iterator that only materializes the sort columns, if supported by the table. */
+    private RowIterator keyIterator(final DataTable table) {
+        final int[] dataColumns = Arrays.stream(m_columns).filter(c -> c >= 0).toArray();
+        if (dataColumns.length > 0) {
+            final TableFilter filter = TableFilter.materializeCols(dataColumns);
+            if (table instanceof BufferedDataTable) {
+                return ((BufferedDataTable)table).filter(filter).iterator();
+            } else if (table instanceof ContainerTable) {
+                return ((ContainerTable)table).iteratorWithFilter(filter, null);
+            }
+        }
+        return table.iterator();
+    }
+
+    private int compare(final int row1, final int row2) {
+        for (int i = 0; i < m_columns.length; i++) {
+            final int c;
+            if (m_comparators[i] == null) {
+                c = ((String)m_keys[i][row1]).compareTo((String)m_keys[i][row2]);
+            } else {
+                c = m_comparators[i].compare((DataCell)m_keys[i][row1], (DataCell)m_keys[i][row2]);
+            }
+            if (c != 0) {
+                return m_ascending[i] ? c : -c;
+            }
+        }
+        return 0;
+    }
+
+    /** Stable bottom-up merge sort of the row indices. */
+    private void sort(final int[] a, final ExecutionMonitor exec) throws CanceledExecutionException {
+        final int n = a.length;
+        for (int lo = 0; lo < n; lo += INSERTION_SORT_THRESHOLD) {
+            insertionSort(a, lo, Math.min(n, lo + INSERTION_SORT_THRESHOLD));
+        }
+        int[] src = a;
+        int[] dest = new int[n];
+        final int passes = Math.max(1, 32 - Integer.numberOfLeadingZeros(n / INSERTION_SORT_THRESHOLD));
+        int pass = 0;
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width <<= 1) {
+            exec.checkCanceled();
+            exec.setProgress(pass++ / (double)passes, () -> "Sorting");
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                final int mid = Math.min(n, lo + width);
+                final int hi = Math.min(n, lo + 2 * width);
+                merge(src, dest, lo, mid, hi);
+            }
+            final int[] tmp = src;
+            src = dest;
+            dest = tmp;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    private void insertionSort(final int[] a, final int from, final int to) {
+        for (int i = from + 1; i < to; i++) {
+            final int v = a[i];
+            int j = i - 1;
+            while (j >= from && compare(a[j], v) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+
+    private void merge(final int[] src, final int[] dest, final int lo, final int mid, final int hi) {
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && compare(src[i], src[j]) <= 0)) {
+                dest[k] = src[i++];
+            } else {
+                dest[k] = src[j++];
+            }
+        }
+    }
+}
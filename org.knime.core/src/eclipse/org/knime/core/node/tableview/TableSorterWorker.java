@@ -174,10 +174,6 @@ protected DataTable doInBackground() throws Exception {
         LOGGER.debug("Starting interactive table sorting on column(s) "
                 + sortColNames);
         boolean[] sortOrders = m_sortOrder.getSortColumnOrder();
-        // it DOES NOT respect blobs -- they will be copied (expensive)
-        DataTableSorter sorter =
-                new DataTableSorter(m_inputTable, rowCount, sortColNames,
-                        sortOrders, false);
         NodeProgressListener progLis = new NodeProgressListener() {
             @Override
             public void progressChanged(final NodeProgressEvent pe) {
@@ -188,7 +184,19 @@ public void progressChanged(final NodeProgressEvent pe) {
         ExecutionMonitor exec = new ExecutionMonitor(m_nodeProgressMonitor);
         m_nodeProgressMonitor.addProgressListener(progLis);
         try {
-            DataTable result = sorter.sort(exec);
+            // sort the row indices only, rows are fetched from the input table when displayed
+            int[] permutation = TableSortPermutation.create(m_inputTable, rowCount, m_sortOrder, exec);
+            DataTable result;
+            if (permutation != null) {
+                result = new PermutedTable(m_inputTable, permutation);
+            } else {
+                LOGGER.debug("Sort keys do not fit into memory, creating sorted copy of table");
+                // it DOES NOT respect blobs -- they will be copied (expensive)
+                DataTableSorter sorter =
+                        new DataTableSorter(m_inputTable, rowCount, sortColNames,
+                                sortOrders, false);
+                result = sorter.sort(exec);
+            }
             long elapsedMS = System.currentTimeMillis() - start;
             String time = StringFormat.formatElapsedTime(elapsedMS);
             LOGGER.debug("Interactive table sorting finished (" + time + ")");
@@ -757,6 +757,10 @@ void find(final SearchString searchString, final SearchOptions searchOptions) {
         }
         setLastSearchString(searchString);
 
+        if (!searchOptions.isSearchColumnName() && findIndexed(searchString, searchOptions)) {
+            return;
+        }
+
         m_searchPosition.mark();
         do {
             if (!m_searchPosition.next()) {
@@ -794,6 +798,49 @@ void find(final SearchString searchString, final SearchOptions searchOptions) {
         m_searchPosition.reset();
     }
 
+    /**
+     * Implementation of {@link #find(SearchString, SearchOptions)} through the search index of the content model, with
+     * the same semantics as the iteration over the search positions. Column names are not searched.
+     *
+     * @return false if the index is not available or doesn't contain all cells to search, nothing has been done then
+     */
+    private boolean findIndexed(final SearchString searchString, final SearchOptions searchOptions) {
+        final TableContentView cView = getContentTable();
+        final TableSearchIndex index = cView.getContentModel().getSearchIndex();
+        final int[] permutation = cView.getContentModel().getSortPermutation();
+        if (index == null || !index.isReady() || index.size() != cView.getRowCount()
+            || (permutation != null && permutation.length != index.size())) {
+            return false;
+        }
+        // the columns to search in view order, as column indices in the model
+        final int[] columns = new int[searchOptions.isSearchData() ? cView.getColumnCount() : 0];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = cView.convertColumnIndexToModel(i);
+            if (!index.isIndexed(columns[i])) {
+                return false;
+            }
+        }
+        final boolean searchRowID = searchOptions.isSearchRowID();
+        final int row = m_searchPosition.getSearchRow();
+        int[] hit = row < 0 ? index.find(searchString, permutation, searchRowID, columns, 0, FindPosition.HEADER,
+            index.size())
+            : index.find(searchString, permutation, searchRowID, columns, row, m_searchPosition.getSearchColumn() + 1,
+                index.size());
+        if (hit == null) {
+            JOptionPane.showMessageDialog(this, "Reached end of table, continue from top");
+            hit = index.find(searchString, permutation, searchRowID, columns, 0, FindPosition.HEADER,
+                Math.max(row + 1, 1));
+        }
+        if (hit != null) {
+            m_searchPosition.setPosition(hit[0], hit[1]);
+            gotoCell(hit[0], hit[1]);
+        } else {
+            JOptionPane.showMessageDialog(this, "Search string not found");
+            m_searchPosition.reset();
+        }
+        return true;
+    }
+
     private void initNewSearchPostion(final SearchOptions searchOptions) {
         TableContentView cView = getContentTable();
         int rowCount = cView.getRowCount();
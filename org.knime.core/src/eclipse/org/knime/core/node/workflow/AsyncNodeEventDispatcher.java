@@ -0,0 +1,383 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import java.util.ArrayList;
+import java.util.EventObject;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Decouples (slow) node listeners from the threads that change a node's state, progress or message. Listeners
+ * registered through the add methods of this class don't process events on the calling thread (which is often a
+ * node's execution thread holding the workflow lock) but are wrapped by a listener that queues the events and
+ * delivers them asynchronously on a small shared pool of dispatcher threads.
+ *
+ * <p>
+ * Events are coalesced per node: if multiple events of the same node are queued before they are delivered, only the
+ * latest one is delivered (at the position of the first one). Events are delivered to each listener sequentially and
+ * in order; a listener never sees an older event of a node after a newer one. Listeners must therefore not rely on
+ * seeing each intermediate event but should query the current state from the node (as is recommended anyway, see
+ * {@link NodeStateEvent#getState()}).
+ *
+ * <p>
+ * Listeners are removed through the corresponding remove methods of this class. Events that are still queued when a
+ * listener is removed are discarded. Exceptions thrown by a listener are logged in the same way as on the
+ * synchronous notification path.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class AsyncNodeEventDispatcher {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(AsyncNodeEventDispatcher.class);
+
+    private static final int MAX_THREADS = 4;
+
+    private static final ExecutorService DISPATCHER;
+
+    static {
+        ThreadPoolExecutor dispatcher = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 30L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger m_counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread t = new Thread(r, "KNIME-Node-Event-Dispatcher-" + m_counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        dispatcher.allowCoreThreadTimeOut(true);
+        DISPATCHER = dispatcher;
+    }
+
+    private static final AtomicLong RECEIVED_EVENT_COUNT = new AtomicLong();
+
+    private static final AtomicLong DELIVERED_EVENT_COUNT = new AtomicLong();
+
+    private AsyncNodeEventDispatcher() {
+    }
+
+    /**
+     * Registers a state listener with a node so that it receives coalesced events asynchronously.
+     *
+     * @param nc the node to listen to, not null
+     * @param listener the listener, not null
+     * @return true if the listener was not already registered before, false otherwise
+     * @see NodeContainer#addNodeStateChangeListener(NodeStateChangeListener)
+     */
+    public static boolean addStateListener(final NodeContainer nc, final NodeStateChangeListener listener) {
+        return nc.addNodeStateChangeListener(new AsyncStateListener(listener));
+    }
+
+    /**
+     * Removes a state listener that was registered by {@link #addStateListener(NodeContainer, NodeStateChangeListener)}
+     * and discards its queued events.
+     *
+     * @param nc the node, not null
+     * @param listener the listener, not null
+     * @return true if the listener was successfully removed, false if it was not registered
+     */
+    public static boolean removeStateListener(final NodeContainer nc, final NodeStateChangeListener listener) {
+        final AsyncStateListener key = new AsyncStateListener(listener);
+        return discardIfRemoved(nc.findListener(key), nc.removeNodeStateChangeListener(key));
+    }
+
+    /**
+     * Registers a progress listener with a node so that it receives coalesced events asynchronously.
+     *
+     * @param nc the node to listen to, not null
+     * @param listener the listener, not null
+     * @return true if the listener was not already registered before, false otherwise
+     * @see NodeContainer#addProgressListener(NodeProgressListener)
+     */
+    public static boolean addProgressListener(final NodeContainer nc, final NodeProgressListener listener) {
+        return nc.addProgressListener(new AsyncProgressListener(listener));
+    }
+
+    /**
+     * Removes a progress listener that was registered by {@link #addProgressListener(NodeContainer,
+     * NodeProgressListener)} and discards its queued events.
+     *
+     * @param nc the node, not null
+     * @param listener the listener, not null
+     * @return true if the listener was successfully removed, false if it was not registered
+     */
+    public static boolean removeProgressListener(final NodeContainer nc, final NodeProgressListener listener) {
+        final AsyncProgressListener key = new AsyncProgressListener(listener);
+        return discardIfRemoved(nc.findListener(key), nc.removeNodeProgressListener(key));
+    }
+
+    /**
+     * Registers a message listener with a node so that it receives coalesced events asynchronously.
+     *
+     * @param nc the node to listen to, not null
+     * @param listener the listener, not null
+     * @return true if the listener was not already registered before, false otherwise
+     * @see NodeContainer#addNodeMessageListener(NodeMessageListener)
+     */
+    public static boolean addMessageListener(final NodeContainer nc, final NodeMessageListener listener) {
+        return nc.addNodeMessageListener(new AsyncMessageListener(listener));
+    }
+
+    /**
+     * Removes a message listener that was registered by {@link #addMessageListener(NodeContainer,
+     * NodeMessageListener)} and discards its queued events.
+     *
+     * @param nc the node, not null
+     * @param listener the listener, not null
+     * @return true if the listener was successfully removed, false if it was not registered
+     */
+    public static boolean removeMessageListener(final NodeContainer nc, final NodeMessageListener listener) {
+        final AsyncMessageListener key = new AsyncMessageListener(listener);
+        return discardIfRemoved(nc.findListener(key), nc.removeNodeMessageListener(key));
+    }
+
+    private static boolean discardIfRemoved(final Object registered, final boolean isRemoved) {
+        if (isRemoved && registered instanceof AbstractAsyncListener) {
+            ((AbstractAsyncListener<?, ?>)registered).discard();
+        }
+        return isRemoved;
+    }
+
+    /** @return number of events received by all async listeners so far (for statistics and debugging). */
+    public static long getReceivedEventCount() {
+        return RECEIVED_EVENT_COUNT.get();
+    }
+
+    /** @return number of events delivered by all async listeners so far; the difference to
+     * {@link #getReceivedEventCount()} are the coalesced (or still pending) events. */
+    public static long getDeliveredEventCount() {
+        return DELIVERED_EVENT_COUNT.get();
+    }
+
+    /**
+     * Queues events per source and drains them sequentially on the dispatcher.
+     *
+     * @param <L> the listener type
+     * @param <E> the event type
+     */
+    private abstract static class AbstractAsyncListener<L, E extends EventObject> implements Runnable {
+
+        private final L m_delegate;
+
+        /** Latest pending event per source, in order of the first pending event; guarded by itself. */
+        private final Map<Object, E> m_pendingEvents = new LinkedHashMap<>();
+
+        /** Whether a drain task is scheduled or running; guarded by m_pendingEvents. */
+        private boolean m_isScheduled;
+
+        /** Set when the listener has been removed from its node, no further events are delivered then. */
+        private volatile boolean m_isDiscarded;
+
+        AbstractAsyncListener(final L delegate) {
+            if (delegate == null) {
+                throw new NullPointerException("Listener must not be null");
+            }
+            m_delegate = delegate;
+        }
+
+        final void enqueue(final E event) {
+            RECEIVED_EVENT_COUNT.incrementAndGet();
+            synchronized (m_pendingEvents) {
+                if (m_isDiscarded) {
+                    return;
+                }
+                m_pendingEvents.put(event.getSource(), event);
+                if (m_isScheduled) {
+                    return;
+                }
+                m_isScheduled = true;
+            }
+            DISPATCHER.execute(this);
+        }
+
+        @Override
+        public final void run() {
+            while (true) {
+                final List<E> batch;
+                synchronized (m_pendingEvents) {
+                    if (m_pendingEvents.isEmpty()) {
+                        m_isScheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(m_pendingEvents.values());
+                    m_pendingEvents.clear();
+                }
+                for (E e : batch) {
+                    if (m_isDiscarded) {
+                        break;
+                    }
+                    try {
+                        deliver(m_delegate, e);
+                    } catch (Throwable t) {
+                        LOGGER.error(getFailureMessage(), t);
+                    }
+                    DELIVERED_EVENT_COUNT.incrementAndGet();
+                }
+            }
+        }
+
+        /** Drops all queued events and ignores future ones, called when the listener is removed from its node. */
+        final void discard() {
+            m_isDiscarded = true;
+            synchronized (m_pendingEvents) {
+                m_pendingEvents.clear();
+            }
+        }
+
+        abstract void deliver(final L delegate, final E event);
+
+        /** @return the message logged (as error) if the listener throws an exception, as on the synchronous path. */
+        abstract String getFailureMessage();
+
+        @Override
+        public final int hashCode() {
+            return m_delegate.hashCode();
+        }
+
+        @Override
+        public final boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            return m_delegate.equals(((AbstractAsyncListener<?, ?>)obj).m_delegate);
+        }
+
+        @Override
+        public String toString() {
+            return "async(" + m_delegate + ")";
+        }
+    }
+
+    private static final class AsyncStateListener extends AbstractAsyncListener<NodeStateChangeListener, NodeStateEvent>
+        implements NodeStateChangeListener {
+
+        AsyncStateListener(final NodeStateChangeListener delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void stateChanged(final NodeStateEvent state) {
+            enqueue(state);
+        }
+
+        @Override
+        void deliver(final NodeStateChangeListener delegate, final NodeStateEvent event) {
+            delegate.stateChanged(event);
+        }
+
+        @Override
+        String getFailureMessage() {
+            // see NodeExecutionJob#logError, where state listener failures of executing nodes end up
+            return "Exception while notifying node state listeners";
+        }
+    }
+
+    private static final class AsyncProgressListener
+        extends AbstractAsyncListener<NodeProgressListener, NodeProgressEvent> implements NodeProgressListener {
+
+        AsyncProgressListener(final NodeProgressListener delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void progressChanged(final NodeProgressEvent pe) {
+            enqueue(pe);
+        }
+
+        @Override
+        void deliver(final NodeProgressListener delegate, final NodeProgressEvent event) {
+            delegate.progressChanged(event);
+        }
+
+        @Override
+        String getFailureMessage() {
+            // see DefaultNodeProgressMonitor#fireProgressChanged
+            return "Exception while notifying listeners";
+        }
+    }
+
+    private static final class AsyncMessageListener
+        extends AbstractAsyncListener<NodeMessageListener, NodeMessageEvent> implements NodeMessageListener {
+
+        AsyncMessageListener(final NodeMessageListener delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void messageChanged(final NodeMessageEvent messageEvent) {
+            enqueue(messageEvent);
+        }
+
+        @Override
+        void deliver(final NodeMessageListener delegate, final NodeMessageEvent event) {
+            delegate.messageChanged(event);
+        }
+
+        @Override
+        String getFailureMessage() {
+            // see Node#notifyMessageListeners
+            return "Exception while notifying node listeners";
+        }
+    }
+
+}
@@ -56,6 +56,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -387,6 +388,10 @@ protected static class WorkflowConfiguration {
         /** A collection of workflow variables. */
         public final Collection<FlowVariable> flowVariables = new ArrayList<FlowVariable>();
 
+        /** File to which a node execution trace is written, null if tracing is disabled.
+         * @since 4.1 */
+        public File traceFile;
+
         /** A collection of node options. */
         public final Collection<Option> nodeOptions = new ArrayList<BatchExecutor.Option>();
 
@@ -558,6 +563,11 @@ protected void handleCommandlineArgument(final String[] parts, final String s, f
                 throw new IllegalOptionException("Couldn't parse -destDir argument: " + s);
             }
             config.outputDir = new File(parts[1]);
+        } else if ("-traceFile".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -traceFile argument: " + s);
+            }
+            config.traceFile = new File(parts[1]);
         } else if ("-workflow.variable".equals(parts[0])) {
             if (parts.length != 2) {
                 throw new IllegalOptionException("Couldn't parse -workflow.variable argument: " + s);
@@ -624,6 +634,8 @@ public static String getOptionsString() {
                 + "                      if omitted the workflow is only saved in place\n"
                 + " -destDir=...      => directory where the executed workflow is saved to\n"
                 + "                      if omitted the workflow is only saved in place\n"
+                + " -traceFile=...    => file to which a node execution trace (queue, lock wait, configure\n"
+                + "                      and execute times per node) is written in Chrome trace event format\n"
                 + " -workflow.variable=name,value,type => define or overwrite workflow variable\n"
                 + "                      'name' with value 'value' (possibly enclosed by quotes). The\n"
                 + "                      'type' must be one of \"String\", \"int\" or \"double\".";
@@ -715,7 +727,7 @@ protected WorkflowManager loadWorkflow(final WorkflowConfiguration config) throw
             LockFailedException, IllegalOptionException {
         if (config.inputWorkflow.isFile()) {
             File dir = FileUtil.createTempDir("BatchExecutorInput");
-            FileUtil.unzip(config.inputWorkflow, dir);
+            FileUtil.unzipParallel(config.inputWorkflow, dir);
             config.workflowLocation = dir;
         } else {
             config.workflowLocation = config.inputWorkflow;
@@ -821,8 +833,18 @@ public void run() {
                 }
             };
             KNIMETimer.getInstance().schedule(task, 1000, 1000);
-            successful = wfm.executeAllAndWaitUntilDone();
-            task.cancel();
+            final NodeExecutionTracer tracer = NodeExecutionTracer.getInstance();
+            if (config.traceFile != null) {
+                tracer.setEnabled(true);
+            }
+            try {
+                successful = wfm.executeAllAndWaitUntilDone();
+            } finally {
+                task.cancel();
+                if (config.traceFile != null) {
+                    writeTrace(tracer, config.traceFile);
+                }
+            }
         }
         if (executionCanceled.booleanValue()) {
             throw new CanceledExecutionException();
@@ -831,6 +853,16 @@ public void run() {
         return successful;
     }
 
+    private static void writeTrace(final NodeExecutionTracer tracer, final File traceFile) {
+        try {
+            tracer.writeChromeTrace(traceFile);
+            LOGGER.info("Node execution trace written to: " + traceFile.getAbsolutePath());
+        } catch (IOException ex) {
+            LOGGER.error("Unable to write node execution trace to \"" + traceFile.getAbsolutePath() + "\": "
+                + ex.getMessage(), ex);
+        }
+    }
+
     /**
      * Saves the workflow after execution.
      *
@@ -852,7 +884,8 @@ protected void saveWorkflow(final WorkflowManager wfm, final WorkflowConfigurati
                 if (config.inputWorkflow.isFile()) {
                     // if input is a Zip file, overwrite input flow
                     // (Zip) workflow dir contains temp workflow dir
-                    FileUtil.zipDir(config.inputWorkflow, config.workflowLocation, 9, WORKFLOW_ZIP_FILTER, null);
+                    FileUtil.zipDirParallel(config.inputWorkflow, Collections.singletonList(config.workflowLocation), 9,
+                        WORKFLOW_ZIP_FILTER, FileUtil.ZIP_COMPRESSED_FILES_FILTER, null);
                     LOGGER.info("Saved workflow availabe at: " + config.inputWorkflow.getAbsolutePath());
                 }
             } else if (config.outputFile != null) { // save as Zip
@@ -864,7 +897,8 @@ protected void saveWorkflow(final WorkflowManager wfm, final WorkflowConfigurati
                 LOGGER.debug("Workflow saved: " + outputTempDir.getAbsolutePath());
 
                 // to be saved into new output zip file
-                FileUtil.zipDir(config.outputFile, workflowOutDir, 9, WORKFLOW_ZIP_FILTER, null);
+                FileUtil.zipDirParallel(config.outputFile, Collections.singletonList(workflowOutDir), 9,
+                    WORKFLOW_ZIP_FILTER, FileUtil.ZIP_COMPRESSED_FILES_FILTER, null);
                 LOGGER.info("Saved workflow availabe at: " + config.outputFile.getAbsolutePath());
             } else if (config.outputDir != null) { // save into dir
                 // copy current workflow dir
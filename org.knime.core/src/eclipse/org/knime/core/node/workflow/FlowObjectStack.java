@@ -45,9 +45,12 @@
 package org.knime.core.node.workflow;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -55,10 +58,7 @@
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Vector;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.knime.core.internal.KNIMEPath;
@@ -75,6 +75,12 @@
 /**
  * Container for the stack that keeps for an individual node the
  * flow variables and flow loop information.
+ *
+ * <p>
+ * The elements of the stack are kept in immutable entries that are shared between the stacks of a node and its
+ * successors, i.e. creating the stack of a successor, pushing and popping only create or drop the entries that
+ * differ. Each entry also carries a (persistent) index of the flow variables by name so that variables are looked up
+ * without scanning the stack.
  * @author Bernd Wiswedel, University of Konstanz
  */
 public final class FlowObjectStack implements Iterable<FlowObject> {
@@ -85,17 +91,16 @@ public final class FlowObjectStack implements Iterable<FlowObject> {
     /** Root stack with all constants. */
     private static FlowObjectStack rootStack = new FlowObjectStack();
 
-    /** Stack of FlowObjects, which is shared among nodes along the
-     * workflow. */
-    private final Vector<FlowObject> m_stack;
-    /** Owner of FlowObject object, which are put onto m_stack via this
+    /** Top-most entry of the stack, <code>null</code> if the stack is empty. The entries are immutable and shared
+     * among nodes along the workflow, modifications of this stack only replace the reference (guarded by this). */
+    private volatile Entry m_top;
+    /** Owner of FlowObject object, which are put onto the stack via this
      * StackWrapper. */
     private final NodeID m_nodeID;
 
     /** Root stack. */
     private FlowObjectStack() {
         m_nodeID = WorkflowManager.ROOT.getID();
-        m_stack = new Vector<FlowObject>();
         File wsDirPath = KNIMEPath.getWorkspaceDirPath();
         if (wsDirPath != null) {
             push(new FlowVariable("knime.workspace",
@@ -168,24 +173,21 @@ private FlowObjectStack() {
      * @throws NullPointerException If <code>id</code> is <code>null</code>.
      * @throws IllegalFlowObjectStackException If the stacks can't be merged.
      */
-    @SuppressWarnings("unchecked")
     private FlowObjectStack(final NodeID id, final FlowObjectStack[] predStacks, final boolean ignoredFlag) {
         if (id == null) {
             throw new NullPointerException("NodeID argument must not be null.");
         }
-        List<Vector<FlowObject>> predecessors =
-            new ArrayList<Vector<FlowObject>>();
+        List<Entry> predecessors = new ArrayList<Entry>();
         for (int i = 0; i < predStacks.length; i++) {
             if (predStacks[i] != null) {
-                predecessors.add(predStacks[i].m_stack);
+                predecessors.add(predStacks[i].m_top);
             }
         }
         if (predecessors.isEmpty()) {
-            predecessors.add(rootStack.m_stack);
+            predecessors.add(rootStack.m_top);
         }
-        Vector<FlowObject>[] sos = predecessors.toArray(
-                new Vector[predecessors.size()]);
-        m_stack = merge(resortInputStacks(sos));
+        Entry[] sos = predecessors.toArray(new Entry[predecessors.size()]);
+        m_top = merge(resortInputStacks(sos));
         m_nodeID = id;
     }
 
@@ -195,31 +197,38 @@ private FlowObjectStack(final NodeID id, final FlowObjectStack[] predStacks, fin
      * variables.
      * <p>
      * Method was added to address bug 2392.
-     * @param sos The input stacks
+     * @param sos The input stacks (their top entries)
      * @return sos if there is at most one element in the input stack or
      *         a copy, whereby the copy will be shifted by one and the last
      *         element is the first element of sos.
      */
-    private static Vector<FlowObject>[] resortInputStacks(
-            final Vector<FlowObject>[] sos) {
+    private static Entry[] resortInputStacks(final Entry[] sos) {
         if (sos.length <= 1) {
             return sos;
         }
-        @SuppressWarnings("unchecked")
-        Vector<FlowObject>[] result = new Vector[sos.length];
+        Entry[] result = new Entry[sos.length];
         System.arraycopy(sos, 1, result, 0, sos.length - 1);
         result[sos.length - 1] = sos[0];
         return result;
     }
 
-    private static Vector<FlowObject> merge(final Vector<FlowObject>[] sos) {
-        Vector<FlowObject> result = new Vector<FlowObject>();
+    private static Entry merge(final Entry[] sos) {
+        boolean isSameStack = true;
+        for (int i = 1; i < sos.length && isSameStack; i++) {
+            isSameStack = sos[i] == sos[0];
+        }
+        if (isSameStack) {
+            // merging a stack with itself yields the same result as the merge of the single stack, which is
+            // computed incrementally and shared
+            return Entry.merged(sos[0]);
+        }
+        List<FlowObject> result = new ArrayList<FlowObject>();
         @SuppressWarnings("unchecked") // no generics in array definition
         Iterator<FlowObject>[] its = new Iterator[sos.length];
         FlowObject[] nexts = new FlowObject[sos.length];
         boolean hasMoreElements = false;
         for (int i = 0; i < sos.length; i++) {
-            its[i] = new FilteredScopeIterator(sos[i].iterator(), Scope.Local);
+            its[i] = new FilteredScopeIterator(Entry.toList(sos[i]).iterator(), Scope.Local);
             hasMoreElements = hasMoreElements ||  its[i].hasNext();
         }
         while (hasMoreElements) {
@@ -268,7 +277,11 @@ private static Vector<FlowObject> merge(final Vector<FlowObject>[] sos) {
                 }
             }
         }
-        return result;
+        Entry top = null;
+        for (FlowObject o : result) {
+            top = new Entry(o, top);
+        }
+        return top;
     }
 
     /**
@@ -291,15 +304,12 @@ public <T extends FlowObject> T peek(final Class<T> type) {
      * @since 3.4
      */
     public <T extends FlowObject> Optional<T> peekOptional(final Class<T> type) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (type.isInstance(e)) {
-                    return Optional.of(type.cast(e));
-                }
+        for (Entry e = m_top; e != null; e = e.m_below) {
+            if (type.isInstance(e.m_object)) {
+                return Optional.of(type.cast(e.m_object));
             }
-            return Optional.empty();
         }
+        return Optional.empty();
     }
 
     /**
@@ -313,15 +323,12 @@ public <T extends FlowObject> Optional<T> peekOptional(final Class<T> type) {
      * @since 2.8
      */
     public <T extends FlowScopeContext> T peekScopeContext(final Class<T> type, final boolean isInactiveScope) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (type.isInstance(e) && (type.cast(e).isInactiveScope() == isInactiveScope)) {
-                    return type.cast(e);
-                }
+        for (Entry e = m_top; e != null; e = e.m_below) {
+            if (type.isInstance(e.m_object) && (type.cast(e.m_object).isInactiveScope() == isInactiveScope)) {
+                return type.cast(e.m_object);
             }
-            return null;
         }
+        return null;
     }
 
     /**
@@ -335,16 +342,18 @@ public <T extends FlowScopeContext> T peekScopeContext(final Class<T> type, fina
      * <code>type</code> or <code>null</code> if no such element is available.
      * @see java.util.Stack#pop()
      */
-    public <T extends FlowObject> T pop(final Class<T> type) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.remove(i);
-                if (type.isInstance(e)) {
-                    return type.cast(e);
-                }
+    public synchronized <T extends FlowObject> T pop(final Class<T> type) {
+        Entry e = m_top;
+        while (e != null) {
+            FlowObject o = e.m_object;
+            e = e.m_below;
+            if (type.isInstance(o)) {
+                m_top = e;
+                return type.cast(o);
             }
-            return null;
         }
+        m_top = null;
+        return null;
     }
 
     /**
@@ -361,16 +370,19 @@ public <T extends FlowObject> T pop(final Class<T> type) {
      * @see java.util.Stack#pop()
      * @since 2.8
      */
-    public <T extends FlowScopeContext> T popScopeContext(final Class<T> type, final boolean isInactiveScope) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.remove(i);
-                if (type.isInstance(e) && (type.cast(e).isInactiveScope() == isInactiveScope)) {
-                    return type.cast(e);
-                }
+    public synchronized <T extends FlowScopeContext> T popScopeContext(final Class<T> type,
+        final boolean isInactiveScope) {
+        Entry e = m_top;
+        while (e != null) {
+            FlowObject o = e.m_object;
+            e = e.m_below;
+            if (type.isInstance(o) && (type.cast(o).isInactiveScope() == isInactiveScope)) {
+                m_top = e;
+                return type.cast(o);
             }
-            return null;
         }
+        m_top = null;
+        return null;
     }
 
     /** Get the variable with the given name. Throws and exception if
@@ -383,16 +395,10 @@ public <T extends FlowScopeContext> T popScopeContext(final Class<T> type, final
      */
     @Deprecated
     public FlowVariable peekFlowVariable(final String name, final Type type) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (!(e instanceof FlowVariable)) {
-                    continue;
-                }
-                FlowVariable v = (FlowVariable)e;
-                if (v.getName().equals(name) && v.getType().equals(type)) {
-                    return v;
-                }
+        for (Entry e : Entry.getVariables(m_top, name)) {
+            FlowVariable v = (FlowVariable)e.m_object;
+            if (v.getType().equals(type)) {
+                return v;
             }
         }
         throw new NoSuchElementException("No such variable \"" + name + "\" of"
@@ -412,14 +418,13 @@ public FlowVariable peekFlowVariable(final String name, final Type type) {
     public Optional<FlowVariable> peekFlowVariable(final String name, final VariableType<?> type) {
         CheckUtils.checkArgumentNotNull(name, "Variable name must not be null.");
         CheckUtils.checkArgumentNotNull(type, "Variable type must not be null.");
-        synchronized (m_stack) {
-            final int size = m_stack.size();
-            return IntStream.rangeClosed(1, size).mapToObj(i -> m_stack.get(size - i))//
-                .filter(o -> o instanceof FlowVariable)//
-                .map(o -> (FlowVariable)o)//
-                .filter(v -> v.getName().equals(name) && v.getVariableType().equals(type))//
-                .findFirst();
+        for (Entry e : Entry.getVariables(m_top, name)) {
+            FlowVariable v = (FlowVariable)e.m_object;
+            if (v.getVariableType().equals(type)) {
+                return Optional.of(v);
+            }
         }
+        return Optional.empty();
     }
 
     /**
@@ -443,22 +448,22 @@ public Map<String, FlowVariable> getAvailableFlowVariables() {
      */
     @Deprecated
     public Map<String, FlowVariable> getAvailableFlowVariables(final FlowVariable.Type... types) {
-        LinkedHashMap<String, FlowVariable> hash = new LinkedHashMap<String, FlowVariable>();
         List<Type> typesAsList = Arrays.asList(types);
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (!(e instanceof FlowVariable)) {
-                    continue;
-                }
-                FlowVariable v = (FlowVariable)e;
-                if (!typesAsList.contains(v.getType())) {
-                    continue;
-                }
-                if (!hash.containsKey(v.getName())) {
-                    hash.put(v.getName(), v);
+        List<Entry> matches = new ArrayList<Entry>();
+        Entry.forEachName(m_top, named -> {
+            for (Entry e : named) {
+                if (typesAsList.contains(((FlowVariable)e.m_object).getType())) {
+                    matches.add(e);
+                    break;
                 }
             }
+        });
+        // top-most variables first
+        matches.sort((e1, e2) -> Integer.compare(e2.m_size, e1.m_size));
+        LinkedHashMap<String, FlowVariable> hash = new LinkedHashMap<String, FlowVariable>();
+        for (Entry e : matches) {
+            FlowVariable v = (FlowVariable)e.m_object;
+            hash.put(v.getName(), v);
         }
         return Collections.unmodifiableMap(hash);
     }
@@ -472,16 +477,18 @@ public Map<String, FlowVariable> getAvailableFlowVariables(final FlowVariable.Ty
      * @since 4.1
      */
     public Map<String, FlowVariable> getAvailableFlowVariables(final VariableType<?>[] types) {
-        synchronized (m_stack) {
-            final int size = m_stack.size();
-            final List<VariableType<?>> typesAsList = Arrays.asList(types);
-            return Collections.unmodifiableMap(//
-                IntStream.rangeClosed(1, size).mapToObj(i -> m_stack.get(size - i))//
-                    .filter(o -> o instanceof FlowVariable)//
-                    .map(o -> (FlowVariable)o)//
-                    .filter(v -> typesAsList.contains(v.getVariableType()))//
-                    .collect(Collectors.toMap(FlowVariable::getName, Function.identity(), (v1, v2) -> v1)));
-        }
+        final List<VariableType<?>> typesAsList = Arrays.asList(types);
+        final Map<String, FlowVariable> result = new HashMap<String, FlowVariable>();
+        Entry.forEachName(m_top, named -> {
+            for (Entry e : named) {
+                FlowVariable v = (FlowVariable)e.m_object;
+                if (typesAsList.contains(v.getVariableType())) {
+                    result.put(v.getName(), v);
+                    break;
+                }
+            }
+        });
+        return Collections.unmodifiableMap(result);
     }
 
     /**
@@ -508,15 +515,15 @@ public Map<String, FlowVariable> getAvailableFlowVariables(final VariableType<?>
     List<FlowObject> getFlowObjectsOwnedBy(final NodeID id,
             final Scope... ignoredScopes) {
         List<FlowObject> result = new ArrayList<FlowObject>();
-        synchronized (m_stack) {
-            FilteredScopeIterator it = new FilteredScopeIterator(m_stack.iterator(), ignoredScopes);
-            while (it.hasNext()) {
-                FlowObject v = it.next();
-                if (v.getOwner().equals(id)) {
-                    result.add(v);
-                }
+        FilteredScopeIterator it = new FilteredScopeIterator(iterator(), ignoredScopes);
+        while (it.hasNext()) {
+            FlowObject v = it.next();
+            if (v.getOwner().equals(id)) {
+                result.add(v);
             }
         }
+        // bottom of the stack first
+        Collections.reverse(result);
         return result;
     }
 
@@ -536,33 +543,50 @@ public void push(final FlowObject item) {
      * null for elements pushed by the sub node right after construction.
      * @param item The null item to push.
      */
-    void pushWithOwner(final FlowObject item) {
+    synchronized void pushWithOwner(final FlowObject item) {
         CheckUtils.checkArgument(item.getOwner() != null, "Item should have owner set at this point: %s", item);
-        m_stack.add(item);
+        m_top = new Entry(item, m_top);
     }
 
     /**
      * @return true if stack is empty
      */
     boolean isEmpty() {
-        return m_stack.isEmpty();
+        return m_top == null;
     }
 
     /** Get number of elements in the stack.
      * @return size of stack. */
     int size() {
-        return m_stack.size();
+        Entry top = m_top;
+        return top == null ? 0 : top.m_size;
     }
 
     /** Get iterator on elements, top of stack first. The iterator is
      * read only and not affected by potential modifications of the stack
-     * after this method returns (iterator on copy).
+     * after this method returns (iterator on immutable entries).
      * {@inheritDoc} */
     @Override
     public Iterator<FlowObject> iterator() {
-        Vector<FlowObject> copy = new Vector<FlowObject>(m_stack);
-        Collections.reverse(copy);
-        return Collections.unmodifiableList(copy).iterator();
+        final Entry top = m_top;
+        return new Iterator<FlowObject>() {
+            private Entry m_next = top;
+
+            @Override
+            public boolean hasNext() {
+                return m_next != null;
+            }
+
+            @Override
+            public FlowObject next() {
+                if (m_next == null) {
+                    throw new NoSuchElementException("Iterator at end");
+                }
+                FlowObject result = m_next.m_object;
+                m_next = m_next.m_below;
+                return result;
+            }
+        };
     }
 
     /**
@@ -578,10 +602,8 @@ public String toString() {
     public int hashCode() {
         // stacks are not really used in hashs ... but since we implement equals
         int hash = m_nodeID.hashCode();
-        synchronized (m_stack) {
-            for (FlowObject o : m_stack) {
-                hash += o.hashCode();
-            }
+        for (Entry e = m_top; e != null; e = e.m_below) {
+            hash += e.m_object.hashCode();
         }
         return hash;
     }
@@ -596,10 +618,8 @@ public boolean equals(final Object obj) {
             return false;
         }
         FlowObjectStack o = (FlowObjectStack)obj;
-        synchronized (m_stack) {
-            return o.m_nodeID.equals(m_nodeID)
-                && o.m_stack.equals(m_stack); // deep equals!
-        }
+        return o.m_nodeID.equals(m_nodeID)
+            && Entry.deepEquals(o.m_top, m_top); // deep equals!
     }
 
     /**
@@ -611,12 +631,9 @@ public String toDeepString() {
         b.append(m_nodeID);
         b.append("---");
         b.append('\n');
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; --i) {
-                FlowObject o = m_stack.get(i);
-                b.append(o);
-                b.append('\n');
-            }
+        for (Entry e = m_top; e != null; e = e.m_below) {
+            b.append(e.m_object);
+            b.append('\n');
         }
         b.append("--------");
         return b.toString();
@@ -737,5 +754,261 @@ private FlowObject internalNext() {
 
     }
 
+    /** An immutable element of a stack, which may be shared by many stacks. The entry knows the elements below it and
+     * carries an index of all flow variables up to and including this entry.
+     */
+    private static final class Entry {
+
+        /** Marks an empty merge result in {@link #m_merged}. */
+        private static final Entry EMPTY = new Entry();
+
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private final FlowObject m_object;
+        private final Entry m_below;
+        /** Number of elements up to and including this entry. */
+        private final int m_size;
+        /** Size of the stack up to the top-most scope context at or below this entry (0 if there is none), i.e.
+         * the elements above belong to the inner-most scope. */
+        private final int m_scopeBase;
+        /** Entries of the flow variables by name: for each variable type the top-most entry, top-most first. */
+        private final NameIndex m_variables;
+        /** The stack up to this entry as a successor node sees it if this stack is its only input, computed lazily
+         * and incrementally from the entries below ({@link #EMPTY} for an empty stack). */
+        private volatile Entry m_merged;
+
+        private Entry() {
+            m_object = null;
+            m_below = null;
+            m_size = 0;
+            m_scopeBase = 0;
+            m_variables = null;
+        }
+
+        Entry(final FlowObject object, final Entry below) {
+            m_object = object;
+            m_below = below;
+            m_size = below == null ? 1 : below.m_size + 1;
+            if (object instanceof FlowScopeContext) {
+                m_scopeBase = m_size;
+            } else {
+                m_scopeBase = below == null ? 0 : below.m_scopeBase;
+            }
+            NameIndex variables = below == null ? null : below.m_variables;
+            if (object instanceof FlowVariable) {
+                FlowVariable v = (FlowVariable)object;
+                Entry[] named = NameIndex.get(variables, v.getName());
+                variables = NameIndex.put(variables, v.getName(), prepend(named, v.getVariableType()));
+            }
+            m_variables = variables;
+        }
+
+        /** Puts this entry in front of the given entries, dropping the one of the same variable type. */
+        private Entry[] prepend(final Entry[] named, final VariableType<?> type) {
+            if (named == null) {
+                return new Entry[] {this};
+            }
+            List<Entry> result = new ArrayList<Entry>(named.length + 1);
+            result.add(this);
+            for (Entry e : named) {
+                if (!((FlowVariable)e.m_object).getVariableType().equals(type)) {
+                    result.add(e);
+                }
+            }
+            return result.toArray(new Entry[result.size()]);
+        }
+
+        /** @return the entries of the flow variables with the given name on the stack, top-most first */
+        static Entry[] getVariables(final Entry top, final String name) {
+            Entry[] named = top == null ? null : NameIndex.get(top.m_variables, name);
+            return named == null ? NO_ENTRIES : named;
+        }
+
+        /** Passes the entries of the variables of each name on the stack to the consumer. */
+        static void forEachName(final Entry top, final Consumer<Entry[]> consumer) {
+            if (top != null) {
+                NameIndex.forEach(top.m_variables, consumer);
+            }
+        }
+
+        /** @return the elements of the stack, bottom first */
+        static List<FlowObject> toList(final Entry top) {
+            FlowObject[] result = new FlowObject[top == null ? 0 : top.m_size];
+            for (Entry e = top; e != null; e = e.m_below) {
+                result[e.m_size - 1] = e.m_object;
+            }
+            return Arrays.asList(result);
+        }
+
+        static boolean deepEquals(final Entry e1, final Entry e2) {
+            Entry a = e1;
+            Entry b = e2;
+            if ((a == null ? 0 : a.m_size) != (b == null ? 0 : b.m_size)) {
+                return false;
+            }
+            // entries are immutable, the remaining stacks are equal once they are shared
+            while (a != b) {
+                if (!a.m_object.equals(b.m_object)) {
+                    return false;
+                }
+                a = a.m_below;
+                b = b.m_below;
+            }
+            return true;
+        }
+
+        /** Returns the stack as merged with no other input stack, i.e. without local variables and duplicates per
+         * scope. The result is computed from the merge result of the closest entry below that has it already.
+         * @param top the top of the stack, may be null
+         * @return the top of the merged stack, may be null */
+        static Entry merged(final Entry top) {
+            Deque<Entry> pending = new ArrayDeque<Entry>();
+            Entry result = null;
+            for (Entry e = top; e != null; e = e.m_below) {
+                Entry merged = e.m_merged;
+                if (merged != null) {
+                    result = merged == EMPTY ? null : merged;
+                    break;
+                }
+                pending.push(e);
+            }
+            while (!pending.isEmpty()) {
+                Entry e = pending.pop();
+                result = appendMerged(result, e.m_object);
+                e.m_merged = result == null ? EMPTY : result;
+            }
+            return result;
+        }
+
+        /** Adds an element to a merged stack, see {@link FlowObjectStack#merge(Entry[])} for the rules. */
+        private static Entry appendMerged(final Entry merged, final FlowObject o) {
+            if ((o instanceof FlowVariable) && ((FlowVariable)o).getScope() == Scope.Local) {
+                return merged;
+            }
+            if ((o instanceof FlowScopeContext) || (merged == null) || !merged.containsInScope(o)) {
+                return new Entry(o, merged);
+            }
+            // an equal element in the same scope is replaced and the new one moves to the top
+            Deque<FlowObject> above = new ArrayDeque<FlowObject>();
+            Entry e = merged;
+            while (!isSameElement(e.m_object, o)) {
+                above.push(e.m_object);
+                e = e.m_below;
+            }
+            Entry result = e.m_below;
+            while (!above.isEmpty()) {
+                result = new Entry(above.pop(), result);
+            }
+            return new Entry(o, result);
+        }
+
+        /** @return whether the elements above the inner-most scope context contain an element equal to the argument */
+        private boolean containsInScope(final FlowObject o) {
+            if (o instanceof FlowVariable) {
+                // equal variables have the same name, check the index first to avoid scanning the scope
+                boolean hasNameInScope = false;
+                for (Entry e : getVariables(this, ((FlowVariable)o).getName())) {
+                    hasNameInScope = hasNameInScope || e.m_size > m_scopeBase;
+                }
+                if (!hasNameInScope) {
+                    return false;
+                }
+            }
+            for (Entry e = this; e != null && e.m_size > m_scopeBase; e = e.m_below) {
+                if (isSameElement(e.m_object, o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Same as the element identity in a hash set. */
+        private static boolean isSameElement(final FlowObject element, final FlowObject o) {
+            return o.hashCode() == element.hashCode() && o.equals(element);
+        }
+    }
+
+    /** Persistent (immutable, path copying) AVL tree mapping variable names to the entries of the variables. A
+     * <code>null</code> reference represents the empty index.
+     */
+    private static final class NameIndex {
+
+        private final String m_name;
+        private final Entry[] m_entries;
+        private final NameIndex m_left;
+        private final NameIndex m_right;
+        private final int m_height;
+
+        private NameIndex(final String name, final Entry[] entries, final NameIndex left, final NameIndex right) {
+            m_name = name;
+            m_entries = entries;
+            m_left = left;
+            m_right = right;
+            m_height = Math.max(height(left), height(right)) + 1;
+        }
+
+        private static int height(final NameIndex node) {
+            return node == null ? 0 : node.m_height;
+        }
+
+        static Entry[] get(final NameIndex root, final String name) {
+            NameIndex node = root;
+            while (node != null) {
+                int c = name.compareTo(node.m_name);
+                if (c == 0) {
+                    return node.m_entries;
+                }
+                node = c < 0 ? node.m_left : node.m_right;
+            }
+            return null;
+        }
+
+        /** @return a new index with the given mapping, the argument index is not modified */
+        static NameIndex put(final NameIndex node, final String name, final Entry[] entries) {
+            if (node == null) {
+                return new NameIndex(name, entries, null, null);
+            }
+            int c = name.compareTo(node.m_name);
+            if (c == 0) {
+                return new NameIndex(name, entries, node.m_left, node.m_right);
+            } else if (c < 0) {
+                return balance(node.m_name, node.m_entries, put(node.m_left, name, entries), node.m_right);
+            } else {
+                return balance(node.m_name, node.m_entries, node.m_left, put(node.m_right, name, entries));
+            }
+        }
+
+        private static NameIndex balance(final String name, final Entry[] entries, final NameIndex left,
+            final NameIndex right) {
+            if (height(left) > height(right) + 1) {
+                if (height(left.m_left) >= height(left.m_right)) {
+                    return new NameIndex(left.m_name, left.m_entries, left.m_left,
+                        new NameIndex(name, entries, left.m_right, right));
+                }
+                NameIndex lr = left.m_right;
+                return new NameIndex(lr.m_name, lr.m_entries,
+                    new NameIndex(left.m_name, left.m_entries, left.m_left, lr.m_left),
+                    new NameIndex(name, entries, lr.m_right, right));
+            }
+            if (height(right) > height(left) + 1) {
+                if (height(right.m_right) >= height(right.m_left)) {
+                    return new NameIndex(right.m_name, right.m_entries,
+                        new NameIndex(name, entries, left, right.m_left), right.m_right);
+                }
+                NameIndex rl = right.m_left;
+                return new NameIndex(rl.m_name, rl.m_entries, new NameIndex(name, entries, left, rl.m_left),
+                    new NameIndex(right.m_name, right.m_entries, rl.m_right, right.m_right));
+            }
+            return new NameIndex(name, entries, left, right);
+        }
+
+        static void forEach(final NameIndex node, final Consumer<Entry[]> consumer) {
+            if (node != null) {
+                forEach(node.m_left, consumer);
+                consumer.accept(node.m_entries);
+                forEach(node.m_right, consumer);
+            }
+        }
+    }
 
 }
@@ -462,6 +462,7 @@ boolean queue(final PortObject[] inData) {
                 return false;
             }
             // queue job if state change was successful
+            getNodeTimer().queued();
             NodeExecutionJobManager jobManager = findJobManager();
             NodeContext.pushContext(this);
             try {
@@ -774,6 +775,25 @@ public boolean removeNodeProgressListener(final NodeProgressListener listener) {
        return m_progressListeners.remove(listener);
    }
 
+   /**
+    * Finds the registered state, progress or message listener that is equal to the argument, used by the
+    * {@link AsyncNodeEventDispatcher} to get hold of the wrapper instance it has registered.
+    *
+    * @param listener the listener to look for
+    * @return the registered listener or null
+    */
+   Object findListener(final Object listener) {
+       for (CopyOnWriteArraySet<?> listeners : new CopyOnWriteArraySet<?>[]{m_stateChangeListeners,
+           m_progressListeners, m_messageListeners}) {
+           for (Object l : listeners) {
+               if (listener.equals(l)) {
+                   return l;
+               }
+           }
+       }
+       return null;
+   }
+
    /**
     * Notifies all registered {@link NodeProgressListener}s about the new
     * progress.
@@ -0,0 +1,352 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Collects structured execution traces of nodes: the time a node spends queued, waiting for the workflow lock,
+ * configuring and executing, along with the number of rows and bytes it wrote through {@link DataContainer}s. The
+ * recorded spans can be exported in the Chrome trace event format (JSON), which can be loaded into
+ * <code>chrome://tracing</code>, Perfetto or any other tool reading that format.
+ *
+ * <p>
+ * Tracing is disabled by default. It's enabled by setting the system property {@value #PROPERTY_TRACE_FILE} (the
+ * trace is then written to the given file when the JVM shuts down), via the <code>-traceFile</code> option of the
+ * {@link BatchExecutor} or programmatically via {@link #setEnabled(boolean)}. The number of recorded spans is capped
+ * at {@value #MAX_SPANS}; further spans are dropped (and counted).
+ *
+ * @noreference This class is not intended to be referenced by clients.
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class NodeExecutionTracer {
+
+    /** System property pointing to a file to which the execution trace is written when the JVM shuts down. If
+     * set, tracing is enabled right from the start. */
+    public static final String PROPERTY_TRACE_FILE = "knime.execution.trace.file";
+
+    /** Maximum number of spans kept in memory. */
+    static final int MAX_SPANS = 2000000;
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(NodeExecutionTracer.class);
+
+    private static final NodeExecutionTracer INSTANCE = new NodeExecutionTracer();
+
+    /** The different phases of a node's life cycle that are traced. */
+    public enum Phase {
+        /** Node was queued (submitted to its job manager) and waits for a thread. */
+        QUEUED("queued"),
+        /** Node is about to start and waits for the workflow lock. */
+        LOCK_WAIT("lock wait"),
+        /** Node is configured. */
+        CONFIGURE("configure"),
+        /** Node is executing (from start to end of execution, including post-execution). */
+        EXECUTE("execute");
+
+        private final String m_name;
+
+        Phase(final String name) {
+            m_name = name;
+        }
+
+        /** @return the name as shown in the trace. */
+        public String getName() {
+            return m_name;
+        }
+    }
+
+    /** A single completed span. Times are in nanoseconds, as per {@link System#nanoTime()}. */
+    static final class Span {
+        private final String m_nodeID;
+        private final String m_nodeName;
+        private final Phase m_phase;
+        private final long m_startNanos;
+        private final long m_endNanos;
+        private final long m_threadID;
+        private final String m_threadName;
+        private final Map<String, Object> m_args;
+
+        Span(final NodeContainer nc, final Phase phase, final long startNanos, final long endNanos,
+            final Map<String, Object> args) {
+            m_nodeID = nc.getID().toString();
+            m_nodeName = nc.getName();
+            m_phase = phase;
+            m_startNanos = startNanos;
+            m_endNanos = Math.max(startNanos, endNanos);
+            final Thread thread = Thread.currentThread();
+            m_threadID = thread.getId();
+            m_threadName = thread.getName();
+            m_args = args == null ? Collections.emptyMap() : args;
+        }
+
+        Phase getPhase() {
+            return m_phase;
+        }
+
+        String getNodeID() {
+            return m_nodeID;
+        }
+
+        long getDurationNanos() {
+            return m_endNanos - m_startNanos;
+        }
+
+        Map<String, Object> getArgs() {
+            return m_args;
+        }
+    }
+
+    private final long m_originNanos = System.nanoTime();
+
+    private final ConcurrentLinkedQueue<Span> m_spans = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger m_spanCount = new AtomicInteger();
+
+    private final AtomicLong m_droppedSpanCount = new AtomicLong();
+
+    private volatile boolean m_isEnabled;
+
+    private NodeExecutionTracer() {
+        final String traceFile = System.getProperty(PROPERTY_TRACE_FILE);
+        if (StringUtils.isNotBlank(traceFile)) {
+            m_isEnabled = true;
+            LOGGER.debug("Node execution tracing enabled, trace will be written to \"" + traceFile + "\"");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    writeChromeTrace(new File(traceFile));
+                } catch (IOException ioe) {
+                    LOGGER.error("Unable to write node execution trace to \"" + traceFile + "\": "
+                        + ioe.getMessage(), ioe);
+                }
+            }, "KNIME-Execution-Trace-Writer"));
+        }
+    }
+
+    /** @return the singleton instance, not null. */
+    public static NodeExecutionTracer getInstance() {
+        return INSTANCE;
+    }
+
+    /** @return whether spans are currently recorded. */
+    public boolean isEnabled() {
+        return m_isEnabled;
+    }
+
+    /**
+     * Enables or disables tracing. Disabling doesn't discard the spans recorded so far, see {@link #clear()}.
+     *
+     * @param enabled the new state
+     */
+    public void setEnabled(final boolean enabled) {
+        m_isEnabled = enabled;
+    }
+
+    /** Discards all recorded spans. */
+    public void clear() {
+        m_spans.clear();
+        m_spanCount.set(0);
+        m_droppedSpanCount.set(0L);
+    }
+
+    /**
+     * Records a completed span, ignored if tracing is disabled.
+     *
+     * @param nc the node in question
+     * @param phase the phase
+     * @param startNanos start time as per {@link System#nanoTime()}
+     * @param endNanos end time as per {@link System#nanoTime()}
+     * @param args additional (primitive or string) arguments to be shown with the span, may be null
+     */
+    void addSpan(final NodeContainer nc, final Phase phase, final long startNanos, final long endNanos,
+        final Map<String, Object> args) {
+        if (!m_isEnabled) {
+            return;
+        }
+        if (m_spanCount.incrementAndGet() > MAX_SPANS) {
+            m_spanCount.decrementAndGet();
+            if (m_droppedSpanCount.getAndIncrement() == 0L) {
+                LOGGER.warn("Node execution trace exceeds " + MAX_SPANS + " spans; further spans are dropped");
+            }
+            return;
+        }
+        m_spans.add(new Span(nc, phase, startNanos, endNanos, args));
+    }
+
+    /**
+     * Called by {@link DataContainer} when a table has been closed. The rows and bytes are attributed to the node
+     * currently set in the {@link NodeContext} (no-op if tracing is disabled or there is no context).
+     *
+     * @param rowCount number of rows written
+     * @param byteCount number of bytes written to disc (0 if kept in memory)
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public void tableWritten(final long rowCount, final long byteCount) {
+        if (!m_isEnabled) {
+            return;
+        }
+        final NodeContext ctx = NodeContext.getContext();
+        final NodeContainer nc = ctx == null ? null : ctx.getNodeContainer();
+        if (nc != null) {
+            nc.getNodeTimer().addDataWritten(rowCount, byteCount);
+        }
+    }
+
+    /** @return a snapshot of the spans recorded so far, in the order they were completed. */
+    List<Span> getSpans() {
+        return new ArrayList<>(m_spans);
+    }
+
+    /**
+     * Writes all recorded spans as Chrome trace events (a JSON object with a "traceEvents" array, timestamps and
+     * durations in microseconds) to the given file.
+     *
+     * @param file the file to write to, overwritten if it exists
+     * @throws IOException if writing fails
+     */
+    public void writeChromeTrace(final File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            writeChromeTrace(out);
+        }
+        LOGGER.debug("Wrote node execution trace (" + m_spanCount.get() + " spans) to \"" + file.getAbsolutePath()
+            + "\"");
+    }
+
+    /**
+     * Writes all recorded spans as Chrome trace events to the given stream (stream is not closed).
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     */
+    public void writeChromeTrace(final OutputStream out) throws IOException {
+        final Map<Long, String> threadNames = new HashMap<>();
+        final JsonGenerator gen = Json.createGenerator(new NonClosingOutputStream(out));
+        gen.writeStartObject();
+        gen.write("displayTimeUnit", "ms");
+        gen.writeStartArray("traceEvents");
+        for (Span span : m_spans) {
+            threadNames.putIfAbsent(span.m_threadID, span.m_threadName);
+            gen.writeStartObject();
+            gen.write("name", span.m_nodeName + " (" + span.m_nodeID + ")");
+            gen.write("cat", span.m_phase.getName());
+            gen.write("ph", "X");
+            gen.write("ts", (span.m_startNanos - m_originNanos) / 1000L);
+            gen.write("dur", span.getDurationNanos() / 1000L);
+            gen.write("pid", 1);
+            gen.write("tid", span.m_threadID);
+            gen.writeStartObject("args");
+            gen.write("nodeID", span.m_nodeID);
+            gen.write("phase", span.m_phase.getName());
+            for (Map.Entry<String, Object> e : span.m_args.entrySet()) {
+                final Object value = e.getValue();
+                if (value instanceof Long || value instanceof Integer) {
+                    gen.write(e.getKey(), ((Number)value).longValue());
+                } else if (value instanceof Boolean) {
+                    gen.write(e.getKey(), (Boolean)value);
+                } else {
+                    gen.write(e.getKey(), String.valueOf(value));
+                }
+            }
+            gen.writeEnd(); // args
+            gen.writeEnd();
+        }
+        for (Map.Entry<Long, String> e : threadNames.entrySet()) {
+            gen.writeStartObject();
+            gen.write("name", "thread_name");
+            gen.write("ph", "M");
+            gen.write("pid", 1);
+            gen.write("tid", e.getKey());
+            gen.writeStartObject("args").write("name", e.getValue()).writeEnd();
+            gen.writeEnd();
+        }
+        gen.writeEnd(); // traceEvents
+        gen.writeStartObject("otherData");
+        gen.write("droppedSpans", m_droppedSpanCount.get());
+        gen.writeEnd();
+        gen.writeEnd();
+        gen.close();
+        out.flush();
+    }
+
+    /** Protects the caller's stream from being closed by the json generator. */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+}
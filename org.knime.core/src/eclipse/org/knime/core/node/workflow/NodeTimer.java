@@ -60,6 +60,7 @@
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.json.Json;
 import javax.json.JsonArray;
@@ -97,6 +98,7 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.workflow.NodeExecutionTracer.Phase;
 import org.knime.core.util.EclipseUtil;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -133,6 +135,12 @@ public final class NodeTimer {
     private int m_numberOfExecutionsSinceReset;
     private int m_numberOfExecutionsOverall;
 
+    // fields used for tracing only (see NodeExecutionTracer), all times in nanos (System.nanoTime())
+    private long m_queuedNanos = -1L;
+    private long m_execStartNanos = -1L;
+    private final AtomicLong m_rowsWritten = new AtomicLong();
+    private final AtomicLong m_bytesWritten = new AtomicLong();
+
     /**
      * Container holding stats for the entire instance and all nodes that have been used/timed.
      */
@@ -776,6 +784,60 @@ public void startExec() {
         m_startTime = System.currentTimeMillis();
     }
 
+    /** Called when the node was submitted to its job manager (only relevant for tracing). */
+    void queued() {
+        m_queuedNanos = NodeExecutionTracer.getInstance().isEnabled() ? System.nanoTime() : -1L;
+    }
+
+    /**
+     * Called when the node acquired the workflow lock right before execution start. Records the queue and lock wait
+     * spans if tracing is enabled.
+     *
+     * @param lockRequestedNanos time when the lock was requested, as per {@link System#nanoTime()}
+     */
+    void lockAcquired(final long lockRequestedNanos) {
+        final NodeExecutionTracer tracer = NodeExecutionTracer.getInstance();
+        if (!tracer.isEnabled()) {
+            m_execStartNanos = -1L;
+            return;
+        }
+        final long now = System.nanoTime();
+        if (m_queuedNanos >= 0L) {
+            tracer.addSpan(m_parent, Phase.QUEUED, m_queuedNanos, lockRequestedNanos, null);
+            m_queuedNanos = -1L;
+        }
+        tracer.addSpan(m_parent, Phase.LOCK_WAIT, lockRequestedNanos, now, null);
+        m_rowsWritten.set(0L);
+        m_bytesWritten.set(0L);
+        m_execStartNanos = now;
+    }
+
+    /**
+     * Records a configure span if tracing is enabled.
+     *
+     * @param startNanos time when configuration started, as per {@link System#nanoTime()}
+     * @param success whether configure succeeded
+     */
+    void configured(final long startNanos, final boolean success) {
+        final NodeExecutionTracer tracer = NodeExecutionTracer.getInstance();
+        if (tracer.isEnabled()) {
+            tracer.addSpan(m_parent, Phase.CONFIGURE, startNanos, System.nanoTime(),
+                Collections.singletonMap("success", success));
+        }
+    }
+
+    /**
+     * Adds the number of rows/bytes written by a data container during the current execution (only relevant for
+     * tracing).
+     *
+     * @param rowCount rows written
+     * @param byteCount bytes written
+     */
+    void addDataWritten(final long rowCount, final long byteCount) {
+        m_rowsWritten.addAndGet(rowCount);
+        m_bytesWritten.addAndGet(byteCount);
+    }
+
     public void endExec(final boolean success) {
         long currentTime = System.currentTimeMillis();
         if (m_startTime > 0) {
@@ -789,6 +851,15 @@ public void endExec(final boolean success) {
             GLOBAL_TIMER.addExecutionTime(cname, success, m_lastExecutionDuration);
         }
         m_startTime = -1;
+        if (m_execStartNanos >= 0L) {
+            final Map<String, Object> args = new LinkedHashMap<>();
+            args.put("success", success);
+            args.put("rowsWritten", m_rowsWritten.get());
+            args.put("bytesWritten", m_bytesWritten.get());
+            NodeExecutionTracer.getInstance().addSpan(m_parent, Phase.EXECUTE, m_execStartNanos, System.nanoTime(),
+                args);
+            m_execStartNanos = -1L;
+        }
     }
 
 }
@@ -299,11 +299,15 @@ public PortObjectSpec[] postConfigure(final PortObjectSpec[] inObjSpecs,
                 return jobMgr.configure(inObjSpecs, nodeModelOutSpecs);
             }
         };
+        final long configureStartNanos = System.nanoTime();
+        boolean success = false;
         NodeContext.pushContext(this);
         try {
-            return performConfigure(inSpecs, nch, keepNodeMessage);
+            success = performConfigure(inSpecs, nch, keepNodeMessage);
+            return success;
         } finally {
             NodeContext.removeLastContext();
+            getNodeTimer().configured(configureStartNanos, success);
         }
     }
 
@@ -190,6 +190,7 @@
 import org.knime.core.quickform.AbstractQuickFormConfiguration;
 import org.knime.core.quickform.AbstractQuickFormValueInConfiguration;
 import org.knime.core.quickform.in.QuickFormInputNode;
+import org.knime.core.util.FileDeletionService;
 import org.knime.core.util.FileUtil;
 import org.knime.core.util.IEarlyStartup;
 import org.knime.core.util.LoadVersion;
@@ -2971,9 +2972,11 @@ void doBeforePostExecution(final NodeContainer nc, final NodeContainerExecutionS
     void doBeforeExecution(final NodeContainer nc) {
         assert !nc.getID().equals(this.getID());
         assert !nc.isLocalWFM() : "No execution of local metanodes";
+        final long lockRequestedNanos = System.nanoTime();
         try (WorkflowLock lock = lock()) {
             // allow NNC to update states etc
             LOGGER.debug(nc.getNameWithID() + " doBeforeExecution");
+            nc.getNodeTimer().lockAcquired(lockRequestedNanos);
             nc.getNodeTimer().startExec();
             if (nc instanceof SingleNodeContainer) {
                 FlowObjectStack flowObjectStack = nc.getFlowObjectStack();
@@ -6761,7 +6764,7 @@ private NodeContainerTemplate loadMetaNodeTemplate(final NodeContainerTemplate m
             if (localDir.isFile()) {
                 // looks like a zipped metanode downloaded from a 4.4+ server
                 File unzipped = FileUtil.createTempDir("metanode-template");
-                FileUtil.unzip(localDir, unzipped);
+                FileUtil.unzipParallel(localDir, unzipped);
                 localDir = unzipped.listFiles()[0];
             }
             TemplateNodeContainerPersistor loadPersistor = loadHelper.createTemplateLoadPersistor(localDir, sourceURI);
@@ -8839,15 +8842,7 @@ void cleanup() {
             getConnectionContainers().stream().forEach(c -> c.cleanup());
             if (m_tmpDir != null) {
                 // delete the flow temp dir that we created
-                KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(new Runnable() {
-                    @Override
-                    public void run() {
-                        if (m_tmpDir.isDirectory() && !FileUtil.deleteRecursively(m_tmpDir)) {
-                            LOGGER.info(
-                                "Could not delete temporary directory for workflow " + getName() + " at " + m_tmpDir);
-                        }
-                    }
-                });
+                FileDeletionService.getInstance().delete(m_tmpDir);
             }
 
             //unset workflow annotation ids (in case they are about to be used somewhere else)
@@ -59,10 +59,13 @@
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeMap;
 
+import org.knime.core.data.RowKey;
 import org.knime.core.node.KNIMEConstants;
 
 /**
@@ -72,6 +75,10 @@
  * cleared. If then after adding all keys {@link #checkForDuplicates()} is called all created chunks are processed and
  * sorted by a merge sort like algorithm. If any duplicate keys are detected during this process an exception is thrown.
  *
+ * <p>
+ * Generated row keys added via {@link #addKey(RowKey)} are collected as ranges of their numbers, which neither
+ * requires their strings nor memory per key as long as they are added (mostly) in ascending order.
+ *
  * @author Thorsten Meinl, University of Konstanz
  */
 public class DuplicateChecker {
@@ -188,6 +195,21 @@ public boolean dispose() {
 
     private List<Chunk> m_storedChunks = new ArrayList<Chunk>();
 
+    /** The maximum number of disjoint ranges of generated keys, see {@link #m_generatedRanges}. */
+    private static final int MAX_GENERATED_RANGES = 1024;
+
+    /**
+     * Disjoint ranges of the numbers of all generated keys added so far (see {@link RowKey#getGeneratedIndex()}), maps
+     * the first number of a range to a single element array holding its last number.
+     */
+    private final TreeMap<Long, long[]> m_generatedRanges = new TreeMap<>();
+
+    /**
+     * Whether {@link #m_generatedRanges} exceeded {@link #MAX_GENERATED_RANGES} and are no longer changed. Generated
+     * keys outside the ranges are then added as string, which are hence never within a range.
+     */
+    private boolean m_generatedRangesFrozen;
+
     private static final boolean DISABLE_DUPLICATE_CHECK =
         Boolean.getBoolean(KNIMEConstants.PROPERTY_DISABLE_ROWID_DUPLICATE_CHECK);
 
@@ -262,6 +284,64 @@ public synchronized void addKey(final String s) throws DuplicateKeyException, IO
         }
     }
 
+    /**
+     * Adds a new row key to the duplicate checker. Equivalent to {@link #addKey(String)} with the key's string but
+     * doesn't need the string of generated keys. As those are only compared to the generated keys added via this
+     * method, generated keys must not also be added via {@link #addKey(String)}.
+     *
+     * @param key the key
+     * @throws DuplicateKeyException if a duplicate generated key or a duplicate within the current chunk has been
+     *             detected
+     * @throws IOException if an I/O error occurs while writing the chunk to disk
+     * @since 4.1
+     */
+    public synchronized void addKey(final RowKey key) throws DuplicateKeyException, IOException {
+        if (DISABLE_DUPLICATE_CHECK) {
+            return;
+        }
+        final long index = key.getGeneratedIndex();
+        if (index < 0 || !addGeneratedIndex(index)) {
+            addKey(key.getString());
+        }
+    }
+
+    /**
+     * Adds the number of a generated key to {@link #m_generatedRanges}.
+     *
+     * @param index the number of the key
+     * @return whether the number was added, false if the ranges are frozen and the key must be added as string
+     * @throws DuplicateKeyException if the number is already contained in a range
+     */
+    private boolean addGeneratedIndex(final long index) throws DuplicateKeyException {
+        final Map.Entry<Long, long[]> previous = m_generatedRanges.floorEntry(index);
+        if (previous != null && index <= previous.getValue()[0]) {
+            throw new DuplicateKeyException(RowKey.createRowKey(index).getString());
+        }
+        if (m_generatedRangesFrozen) {
+            return false;
+        }
+        final Map.Entry<Long, long[]> next = m_generatedRanges.higherEntry(index);
+        final boolean joinsNext = next != null && next.getKey() == index + 1;
+        if (previous != null && previous.getValue()[0] == index - 1) {
+            // common case: keys in ascending order
+            if (joinsNext) {
+                previous.getValue()[0] = next.getValue()[0];
+                m_generatedRanges.remove(next.getKey());
+            } else {
+                previous.getValue()[0] = index;
+            }
+        } else if (joinsNext) {
+            m_generatedRanges.remove(next.getKey());
+            m_generatedRanges.put(index, next.getValue());
+        } else if (m_generatedRanges.size() < MAX_GENERATED_RANGES) {
+            m_generatedRanges.put(index, new long[]{index});
+        } else {
+            m_generatedRangesFrozen = true;
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Checks for duplicates in all added keys. This method must only be called once after all keys have been added!
      * Multiple calls may lead to exceptions and excessive resource usage.
@@ -304,6 +384,8 @@ public synchronized void clear() {
         }
         m_storedChunks.clear();
         m_currentChunk.clear();
+        m_generatedRanges.clear();
+        m_generatedRangesFrozen = false;
     }
 
     /**
@@ -0,0 +1,399 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Deletes temporary files and directories (e.g. the files of cleared tables) in the background. Requests are queued
+ * and processed in batches by a small pool of worker threads, so that large amounts of temporary data (e.g. after
+ * resetting a workflow) are freed concurrently without blocking the caller.
+ *
+ * <p>
+ * If enabled, the service also sweeps orphaned data container files (<code>knime_container_*</code>) that previous
+ * sessions left in the temp directory, e.g. after a crash, see {@link #sweepOrphanedContainerFiles()}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class FileDeletionService {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(FileDeletionService.class);
+
+    private static final FileDeletionService INSTANCE = new FileDeletionService();
+
+    /** Maximum number of requests a worker takes from the queue at once. */
+    private static final int BATCH_SIZE = 64;
+
+    /** Default for {@link KNIMEConstants#PROPERTY_TEMP_FILE_SWEEP_AGE}, the sweep is disabled. */
+    private static final long DEFAULT_SWEEP_AGE_HOURS = 0;
+
+    private static final String CONTAINER_FILE_PREFIX = "knime_container_";
+
+    /** A queued file or directory. */
+    private static final class Request {
+        private final File m_file;
+
+        private final long m_queuedNanos;
+
+        /** The file system is only accessed by the workers, the caller may hold locks (e.g. while clearing tables). */
+        Request(final File file) {
+            m_file = file;
+            m_queuedNanos = System.nanoTime();
+        }
+    }
+
+    private final LinkedBlockingQueue<Request> m_queue = new LinkedBlockingQueue<>();
+
+    private final ExecutorService m_executor;
+
+    private final int m_maxWorkers;
+
+    private final AtomicInteger m_activeWorkers = new AtomicInteger();
+
+    /** Requests queued or being processed. */
+    private final AtomicInteger m_pendingCount = new AtomicInteger();
+
+    private final AtomicLong m_deletedFiles = new AtomicLong();
+
+    private final AtomicLong m_deletedBytes = new AtomicLong();
+
+    private final AtomicLong m_failedFiles = new AtomicLong();
+
+    private final AtomicBoolean m_isSweepScheduled = new AtomicBoolean();
+
+    /** Guards waiting for the queue to become empty. */
+    private final Object m_idleLock = new Object();
+
+    private FileDeletionService() {
+        m_maxWorkers = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(m_maxWorkers, m_maxWorkers, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), r -> {
+                Thread t = new Thread(r, "KNIME-Temp-File-Deleter-" + threadCount.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        m_executor = executor;
+    }
+
+    /** @return the singleton instance */
+    public static FileDeletionService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues files or directories for deletion and returns immediately. Directories are deleted recursively, symbolic
+     * links are deleted but not followed.
+     *
+     * @param files the files or directories to delete
+     */
+    public void delete(final File... files) {
+        for (File f : files) {
+            m_pendingCount.incrementAndGet();
+            m_queue.add(new Request(f));
+        }
+        startWorkerIfNeeded();
+    }
+
+    private void startWorkerIfNeeded() {
+        int active;
+        do {
+            active = m_activeWorkers.get();
+            if (active >= m_maxWorkers || m_queue.isEmpty()) {
+                return;
+            }
+        } while (!m_activeWorkers.compareAndSet(active, active + 1));
+        m_executor.execute(this::work);
+    }
+
+    private void work() {
+        final List<Request> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (m_queue.drainTo(batch, BATCH_SIZE) > 0) {
+                executeDeletion(batch);
+                batch.clear();
+            }
+        } finally {
+            m_activeWorkers.decrementAndGet();
+            // requests queued after the last drain but before the decrement need a worker
+            startWorkerIfNeeded();
+            synchronized (m_idleLock) {
+                m_idleLock.notifyAll();
+            }
+        }
+    }
+
+    private void executeDeletion(final List<Request> batch) {
+        List<Request> failed = null;
+        for (Request r : batch) {
+            if (!deleteRecursively(r.m_file) && r.m_file.exists()) {
+                if (failed == null) {
+                    failed = new ArrayList<>();
+                }
+                failed.add(r);
+            } else {
+                done(r, true);
+            }
+        }
+        if (failed != null) {
+            // note: although all input streams are closed, the file can't be deleted. If we call the gc, it works.
+            // That only happens on windows! http://forum.java.sun.com/thread.jspa?forumID=31&threadID=609458
+            System.gc();
+            for (Request r : failed) {
+                done(r, deleteRecursively(r.m_file) || !r.m_file.exists());
+            }
+        }
+    }
+
+    private void done(final Request r, final boolean deleted) {
+        m_pendingCount.decrementAndGet();
+        if (deleted) {
+            FileUtil.removeFromTempFiles(r.m_file);
+            LOGGER.debug("Deleted temporary file or directory \"" + r.m_file.getAbsolutePath() + "\"");
+        } else {
+            LOGGER.debug("Failed to delete temporary file or directory \"" + r.m_file.getAbsolutePath() + "\"");
+        }
+    }
+
+    /** Deletes the file or directory (without following links), counts the deleted files and bytes. */
+    private boolean deleteRecursively(final File file) {
+        final Path path = file.toPath();
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return true;
+        }
+        final boolean[] isComplete = {true};
+        try {
+            Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path f, final BasicFileAttributes attrs) {
+                    if (delete(f)) {
+                        m_deletedFiles.incrementAndGet();
+                        m_deletedBytes.addAndGet(attrs.size());
+                    } else {
+                        isComplete[0] = false;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(final Path f, final IOException exc) {
+                    isComplete[0] = false;
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) {
+                    isComplete[0] &= delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ex) {
+            return false;
+        }
+        return isComplete[0];
+    }
+
+    private boolean delete(final Path path) {
+        try {
+            Files.delete(path);
+            return true;
+        } catch (NoSuchFileException ex) { // NOSONAR deleted concurrently, fine
+            return true;
+        } catch (IOException ex) {
+            m_failedFiles.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Blocks the calling thread until all queued files have been deleted. Used by the shutdown hook.
+     */
+    public void waitUntilFinished() {
+        synchronized (m_idleLock) {
+            while (m_pendingCount.get() > 0) {
+                try {
+                    m_idleLock.wait(1000);
+                } catch (InterruptedException ie) {
+                    // that should only be called from the shutdown hook,
+                    // if someone interrupts us, so be it.
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules the deletion of data container files (<code>knime_container_*</code>) in the KNIME temp directory and
+     * the workflow temp directories in it (<code>knime_*</code>) that haven't been modified for longer than the age
+     * given by {@link KNIMEConstants#PROPERTY_TEMP_FILE_SWEEP_AGE}. Such files are left over by sessions that
+     * weren't shut down properly. The sweep is done at most once per session and in the background. It is disabled
+     * unless the property is set, as the files can't be told apart from those of other sessions that share the temp
+     * directory and are still running.
+     */
+    public void sweepOrphanedContainerFiles() {
+        final long maxAgeHours = getSweepAgeHours();
+        if (maxAgeHours <= 0 || !m_isSweepScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        final Path tempDir = KNIMEConstants.getKNIMETempPath();
+        final long maxModified = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(maxAgeHours);
+        m_executor.execute(() -> {
+            final List<File> orphans = findOrphanedContainerFiles(tempDir, maxModified);
+            if (!orphans.isEmpty()) {
+                LOGGER.debugWithFormat("Deleting %d orphaned data container files from %s", orphans.size(), tempDir);
+                delete(orphans.toArray(new File[orphans.size()]));
+            }
+        });
+    }
+
+    /**
+     * Lists the data container files in the temp directory and its workflow temp directories that were last modified
+     * before the given time. Package scope for testing.
+     *
+     * @param tempDir the temp directory
+     * @param maxModified the time in milliseconds before which files count as orphaned
+     * @return the orphaned files, possibly incomplete if the directory can't be read
+     */
+    static List<File> findOrphanedContainerFiles(final Path tempDir, final long maxModified) {
+        final List<File> orphans = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(tempDir, "knime_*")) {
+            for (Path p : entries) {
+                if (p.getFileName().toString().startsWith(CONTAINER_FILE_PREFIX)) {
+                    addIfOrphaned(p, maxModified, orphans);
+                } else if (Files.isDirectory(p, LinkOption.NOFOLLOW_LINKS)) {
+                    try (DirectoryStream<Path> children = Files.newDirectoryStream(p, CONTAINER_FILE_PREFIX + "*")) {
+                        for (Path c : children) {
+                            addIfOrphaned(c, maxModified, orphans);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.debug("Unable to sweep temp directory " + tempDir + ": " + ex.getMessage(), ex);
+        }
+        return orphans;
+    }
+
+    private static void addIfOrphaned(final Path p, final long maxModified, final List<File> orphans)
+        throws IOException {
+        if (Files.getLastModifiedTime(p, LinkOption.NOFOLLOW_LINKS).toMillis() < maxModified) {
+            orphans.add(p.toFile());
+        }
+    }
+
+    /** @return the configured sweep age in hours, 0 or less if the sweep is disabled; package scope for testing */
+    static long getSweepAgeHours() {
+        final String value = System.getProperty(KNIMEConstants.PROPERTY_TEMP_FILE_SWEEP_AGE);
+        if (value == null) {
+            return DEFAULT_SWEEP_AGE_HOURS;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            LOGGER.warn("Unable to parse property " + KNIMEConstants.PROPERTY_TEMP_FILE_SWEEP_AGE + " (\"" + value
+                + "\"), using default of " + DEFAULT_SWEEP_AGE_HOURS + " hours");
+            return DEFAULT_SWEEP_AGE_HOURS;
+        }
+    }
+
+    /** @return the number of files and directories queued or currently being deleted */
+    public int getPendingCount() {
+        return m_pendingCount.get();
+    }
+
+    /** @return the time in milliseconds the oldest queued request has been waiting, 0 if nothing is queued */
+    public long getLagMillis() {
+        final Request oldest = m_queue.peek();
+        return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.m_queuedNanos);
+    }
+
+    /** @return the number of files (not counting directories) deleted by this service */
+    public long getDeletedFiles() {
+        return m_deletedFiles.get();
+    }
+
+    /** @return the size in bytes of all files deleted by this service */
+    public long getDeletedBytes() {
+        return m_deletedBytes.get();
+    }
+
+    /** @return the number of files and directories that couldn't be deleted (on the first attempt) */
+    public long getFailedFiles() {
+        return m_failedFiles.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (pending: %d, lag %d ms; deleted: %d files, %d bytes; failed: %d)",
+            getClass().getSimpleName(), getPendingCount(), getLagMillis(), getDeletedFiles(), getDeletedBytes(),
+            getFailedFiles());
+    }
+}
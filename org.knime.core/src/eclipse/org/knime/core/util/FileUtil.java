@@ -388,6 +388,15 @@ private static boolean deleteRecursively(final File dir, final boolean removeFro
         }
     } // deleteRecursively(File)
 
+    /**
+     * Removes a file from the list of temporary files deleted on exit, called after it has been deleted otherwise.
+     *
+     * @param f the deleted file or directory
+     */
+    static void removeFromTempFiles(final File f) {
+        TEMP_FILES.remove(f);
+    }
+
     // size of read buffer when reading/writing from/to a zip stream
     private static final int BUFF_SIZE = 16384;
 
@@ -741,6 +750,76 @@ public static boolean zipDir(final File zipFile, final File rootDir,
                 compressionLevel, filter, exec);
     }
 
+    /**
+     * A filter that accepts files whose content is already compressed, e.g. the data files of tables written with
+     * GZIP or Snappy compression or nested zip archives. Such files are stored without compression by
+     * {@link #zipDirParallel(File, Collection, int, ZipFileFilter, ZipFileFilter, ExecutionMonitor)}.
+     *
+     * @since 4.1
+     */
+    public static final ZipFileFilter ZIP_COMPRESSED_FILES_FILTER = new ZipFileFilter() {
+
+        private final String[] m_suffixes = {".gz", ".snappy", ".zip", ".knwf", ".knar"};
+
+        @Override
+        public boolean include(final File f) {
+            final String name = f.getName().toLowerCase();
+            for (String suffix : m_suffixes) {
+                if (name.endsWith(suffix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Packs all files and directories passed in the includeList into a zip file, same as
+     * {@link #zipDir(File, Collection, int, ZipFileFilter, ExecutionMonitor)}, but compresses the files concurrently.
+     * Files accepted by the <code>storeFilter</code> are stored without compression, which is useful for files that
+     * are compressed already (see {@link #ZIP_COMPRESSED_FILES_FILTER}).
+     *
+     * @param zipFile the zip file that should be created. If it exists it will be overwritten.
+     * @param includeList list of files or directories to add to the zip archive, see
+     *            {@link #zipDir(File, Collection, int, ZipFileFilter, ExecutionMonitor)}
+     * @param compressionLevel the desired compression level, see {@link java.util.zip.Deflater#setLevel(int)}
+     * @param filter each file (and directory) contained is only included in the zip archive if it is accepted by the
+     *            filter. Must not be null.
+     * @param storeFilter files accepted by this filter are stored without compression. Must not be null.
+     * @param exec receives progress messages and is checked for cancel requests. Optional, can be null.
+     * @return <code>true</code> if all files and dirs accepted by the filter are included, <code>false</code> if an
+     *         error occurs reading a file, if a directory is unreadable.
+     * @throws CanceledExecutionException if the operation was canceled through the <code>exec</code>
+     * @throws IOException if an I/O error occurs when reading a file or writing the zip file, or if two files or
+     *             directories in the include list have the same (simple) name.
+     * @since 4.1
+     */
+    public static boolean zipDirParallel(final File zipFile, final Collection<File> includeList,
+        final int compressionLevel, final ZipFileFilter filter, final ZipFileFilter storeFilter,
+        final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
+        return ParallelZip.zip(zipFile, includeList, compressionLevel, filter, storeFilter, exec);
+    }
+
+    /**
+     * Extracts the contents of the given ZIP file into the destination directory, same as {@link #unzip(File, File)},
+     * but extracts the entries concurrently.
+     *
+     * @param zipFile a ZIP file
+     * @param destDir the destination directory, must already exist
+     * @throws IOException if an I/O error occurs or an entry would be extracted outside of the destination directory
+     * @since 4.1
+     */
+    public static void unzipParallel(final File zipFile, final File destDir) throws IOException {
+        if (!destDir.exists()) {
+            throw new IOException("Destination directory does not exist: "
+                    + destDir);
+        }
+        if (!destDir.isDirectory()) {
+            throw new IOException("Destination is not a directory: " + destDir);
+        }
+        ParallelZip.unzip(zipFile, destDir);
+    }
+
     /**
      * Extracts the contents of the given ZIP file into the destination
      * directory.
@@ -0,0 +1,636 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil.ZipFileFilter;
+
+/**
+ * Writes and extracts zip archives with several threads, see {@link FileUtil#zipDirParallel(File, Collection, int,
+ * ZipFileFilter, ZipFileFilter, ExecutionMonitor)} and {@link FileUtil#unzipParallel(File, File)}.
+ *
+ * <p>
+ * When writing, each file is deflated into its own raw deflate stream by a worker thread (in memory or, for large
+ * files, into a temporary file). The calling thread writes the entries in their original order into the archive, with
+ * the local headers, central directory and, if needed, the Zip64 extensions written by this class, as
+ * {@link java.util.zip.ZipOutputStream} can't take pre-compressed data. When extracting, the entries are read through
+ * a {@link ZipFile}, which inflates entries concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ParallelZip {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ParallelZip.class);
+
+    private static final int BUFF_SIZE = 16384;
+
+    /** Files up to this size are compressed into memory, larger ones into a temporary file. */
+    private static final long IN_MEMORY_LIMIT = 4L << 20;
+
+    /** Sizes and offsets at or above this value are written in the Zip64 extra field. */
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    /** General purpose flag: names are UTF-8 encoded. */
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private static final AtomicLong THREAD_COUNT = new AtomicLong();
+
+    private ParallelZip() {
+    }
+
+    /** A file or directory to be added to the archive. */
+    private static final class Source {
+        private final String m_name;
+
+        /** <code>null</code> for a directory. */
+        private final File m_file;
+
+        private final boolean m_store;
+
+        Source(final String name, final File file, final boolean store) {
+            m_name = name;
+            m_file = file;
+            m_store = store;
+        }
+    }
+
+    /** The content of an entry ready to be written into the archive. */
+    private static final class Compressed {
+        private final Source m_source;
+
+        private final int m_method;
+
+        private final long m_crc;
+
+        private final long m_size;
+
+        private final long m_compressedSize;
+
+        /** The deflated data if kept in memory. */
+        private final byte[] m_data;
+
+        /** The deflated data if it was written into a temporary file. */
+        private final File m_tempFile;
+
+        Compressed(final Source source, final int method, final long crc, final long size,
+            final long compressedSize, final byte[] data, final File tempFile) {
+            m_source = source;
+            m_method = method;
+            m_crc = crc;
+            m_size = size;
+            m_compressedSize = compressedSize;
+            m_data = data;
+            m_tempFile = tempFile;
+        }
+
+        void writeData(final OutputStream out, final byte[] buf) throws IOException {
+            if (m_data != null) {
+                out.write(m_data);
+            } else if (m_source.m_file != null) {
+                // stored entries are copied from the source, deflated ones from the temporary file
+                File file = m_tempFile != null ? m_tempFile : m_source.m_file;
+                long remaining = m_compressedSize;
+                try (InputStream in = new FileInputStream(file)) {
+                    int read;
+                    while (remaining > 0 && (read = in.read(buf, 0, (int)Math.min(buf.length, remaining))) >= 0) {
+                        out.write(buf, 0, read);
+                        remaining -= read;
+                    }
+                }
+                if (remaining != 0) {
+                    throw new IOException("File " + m_source.m_file.getAbsolutePath() + " changed while being zipped");
+                }
+            }
+        }
+
+        void dispose() {
+            if (m_tempFile != null && !m_tempFile.delete()) {
+                m_tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * @see FileUtil#zipDirParallel(File, Collection, int, ZipFileFilter, ZipFileFilter, ExecutionMonitor)
+     */
+    static boolean zip(final File zipFile, final Collection<File> includeList, final int compressionLevel,
+        final ZipFileFilter filter, final ZipFileFilter storeFilter, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        final ExecutionMonitor execMon = exec != null ? exec : new ExecutionMonitor();
+        final List<Source> sources = new ArrayList<Source>();
+        boolean complete = collect(includeList, filter, storeFilter, sources);
+        long totalSize = 0;
+        for (Source s : sources) {
+            totalSize += s.m_file == null ? 0 : s.m_file.length();
+        }
+
+        final int nrThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        // number of entries compressed ahead of the one written, bounds the memory and temporary files
+        final int window = 2 * nrThreads;
+        final ExecutorService executor = createExecutor(nrThreads);
+        final File tempDir = FileUtil.createTempDir("zip");
+        final Deque<Future<Compressed>> pending = new ArrayDeque<Future<Compressed>>();
+        final Iterator<Source> it = sources.iterator();
+        try (ArchiveWriter writer = new ArchiveWriter(zipFile)) {
+            while (pending.size() < window && it.hasNext()) {
+                pending.add(submit(executor, it.next(), compressionLevel, tempDir));
+            }
+            long written = 0;
+            while (!pending.isEmpty()) {
+                final Compressed c = await(pending.poll(), execMon);
+                if (it.hasNext()) {
+                    pending.add(submit(executor, it.next(), compressionLevel, tempDir));
+                }
+                if (c == null) {
+                    complete = false;
+                    continue;
+                }
+                try {
+                    writer.write(c);
+                } finally {
+                    c.dispose();
+                }
+                if (c.m_source.m_file != null) {
+                    written += c.m_size;
+                    execMon.setProgress(totalSize == 0 ? 1.0 : written / (double)totalSize,
+                        "Added file " + c.m_source.m_name);
+                }
+            }
+        } finally {
+            for (Future<Compressed> f : pending) {
+                f.cancel(true);
+            }
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            FileUtil.deleteRecursively(tempDir);
+        }
+        return complete;
+    }
+
+    /** Lists the entries in the order {@link FileUtil#zipDir(File, Collection, int, ZipFileFilter, ExecutionMonitor)}
+     * adds them. */
+    private static boolean collect(final Collection<File> includeList, final ZipFileFilter filter,
+        final ZipFileFilter storeFilter, final List<Source> sources) throws IOException {
+        // false if unable to look into a sub dir
+        boolean complete = true;
+        final Set<String> names = new HashSet<String>();
+        for (File f : includeList) {
+            if (!filter.include(f)) {
+                continue;
+            }
+            if (f.isFile()) {
+                add(new Source(f.getName(), f, storeFilter.include(f)), sources, names);
+            } else if (f.isDirectory()) {
+                String rootName = f.getName();
+                add(new Source(rootName + "/", null, true), sources, names);
+                Stack<File> dirs = new Stack<File>();
+                dirs.push(f);
+                int rootEndIdx = f.getAbsolutePath().length() + 1;
+                while (!dirs.isEmpty()) {
+                    File[] ls = dirs.pop().listFiles();
+                    if (ls == null) {
+                        // the dir was not accessible
+                        complete = false;
+                        continue;
+                    }
+                    for (File child : ls) {
+                        if (!filter.include(child)) {
+                            continue;
+                        }
+                        String entryName =
+                            rootName + "/" + child.getAbsolutePath().substring(rootEndIdx).replace('\\', '/');
+                        if (child.isFile()) {
+                            add(new Source(entryName, child, storeFilter.include(child)), sources, names);
+                        } else if (child.isDirectory()) {
+                            add(new Source(entryName + "/", null, true), sources, names);
+                            dirs.push(child);
+                        }
+                    }
+                }
+            } else {
+                throw new IOException("File " + f.getAbsolutePath() + " not added to zip archive");
+            }
+        }
+        return complete;
+    }
+
+    private static void add(final Source source, final List<Source> sources, final Set<String> names)
+        throws ZipException {
+        if (!names.add(source.m_name)) {
+            throw new ZipException("duplicate entry: " + source.m_name);
+        }
+        sources.add(source);
+    }
+
+    private static ExecutorService createExecutor(final int nrThreads) {
+        return ThreadUtils.executorServiceWithContext(Executors.newFixedThreadPool(nrThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread t = new Thread(r, "KNIME-Zip-Thread-" + THREAD_COUNT.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            }
+        }));
+    }
+
+    private static Future<Compressed> submit(final ExecutorService executor, final Source source,
+        final int compressionLevel, final File tempDir) {
+        if (source.m_file == null) {
+            return CompletableFuture.completedFuture(
+                new Compressed(source, ZipEntry.STORED, 0, 0, 0, null, null));
+        }
+        return executor.submit(() -> compress(source, compressionLevel, tempDir));
+    }
+
+    /** Waits for an entry, checking for cancellation. Returns <code>null</code> if the file couldn't be read for
+     * other reasons than an I/O error (same as the sequential zipping, which skips such files). */
+    private static Compressed await(final Future<Compressed> future, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        while (true) {
+            exec.checkCanceled();
+            try {
+                return future.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) { // NOSONAR check for cancellation and wait again
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing zip archive");
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException)cause;
+                } else if (cause instanceof Error) {
+                    throw (Error)cause;
+                }
+                LOGGER.debug("Error while adding file to zip archive: " + cause.getMessage(), cause);
+                return null;
+            }
+        }
+    }
+
+    private static Compressed compress(final Source source, final int compressionLevel, final File tempDir)
+        throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] buf = new byte[BUFF_SIZE];
+        long size = 0;
+        if (source.m_store) {
+            try (InputStream in = new FileInputStream(source.m_file)) {
+                int read;
+                while ((read = in.read(buf)) >= 0) {
+                    crc.update(buf, 0, read);
+                    size += read;
+                }
+            }
+            return new Compressed(source, ZipEntry.STORED, crc.getValue(), size, size, null, null);
+        }
+        final long length = source.m_file.length();
+        final ByteArrayOutputStream bytes;
+        final File tempFile;
+        final OutputStream sink;
+        if (length <= IN_MEMORY_LIMIT) {
+            bytes = new ByteArrayOutputStream((int)Math.max(BUFF_SIZE, length / 2));
+            tempFile = null;
+            sink = bytes;
+        } else {
+            bytes = null;
+            tempFile = File.createTempFile("entry", ".deflate", tempDir);
+            sink = new BufferedOutputStream(new FileOutputStream(tempFile), BUFF_SIZE);
+        }
+        final Deflater deflater = new Deflater(compressionLevel, true);
+        final long compressedSize;
+        try (InputStream in = new FileInputStream(source.m_file);
+                DeflaterOutputStream out = new DeflaterOutputStream(sink, deflater, BUFF_SIZE)) {
+            int read;
+            while ((read = in.read(buf)) >= 0) {
+                crc.update(buf, 0, read);
+                size += read;
+                out.write(buf, 0, read);
+            }
+            out.finish();
+            compressedSize = deflater.getBytesWritten();
+        } finally {
+            deflater.end();
+        }
+        return new Compressed(source, ZipEntry.DEFLATED, crc.getValue(), size, compressedSize,
+            bytes == null ? null : bytes.toByteArray(), tempFile);
+    }
+
+    /** Writes the zip file format, including the Zip64 extensions for large entries and archives. */
+    private static final class ArchiveWriter implements Closeable {
+
+        private final OutputStream m_out;
+
+        private final ByteArrayOutputStream m_centralDirectory = new ByteArrayOutputStream();
+
+        private final ByteArrayOutputStream m_header = new ByteArrayOutputStream();
+
+        private final byte[] m_buf = new byte[BUFF_SIZE];
+
+        private final int m_dosTime;
+
+        private long m_offset;
+
+        private long m_entryCount;
+
+        ArchiveWriter(final File zipFile) throws IOException {
+            m_out = new BufferedOutputStream(new FileOutputStream(zipFile), BUFF_SIZE);
+            m_dosTime = toDosTime(System.currentTimeMillis());
+        }
+
+        void write(final Compressed c) throws IOException {
+            final byte[] name = c.m_source.m_name.getBytes(StandardCharsets.UTF_8);
+            final boolean isZip64 = c.m_size >= ZIP64_MAGIC || c.m_compressedSize >= ZIP64_MAGIC;
+            final boolean isZip64Offset = m_offset >= ZIP64_MAGIC;
+            final int version = isZip64 || isZip64Offset ? 45 : 20;
+            final long headerOffset = m_offset;
+
+            m_header.reset();
+            writeInt(m_header, LOCAL_HEADER_SIGNATURE);
+            writeShort(m_header, version);
+            writeShort(m_header, FLAG_UTF8);
+            writeShort(m_header, c.m_method);
+            writeInt(m_header, m_dosTime);
+            writeInt(m_header, (int)c.m_crc);
+            writeInt(m_header, (int)(isZip64 ? ZIP64_MAGIC : c.m_compressedSize));
+            writeInt(m_header, (int)(isZip64 ? ZIP64_MAGIC : c.m_size));
+            writeShort(m_header, name.length);
+            writeShort(m_header, isZip64 ? 20 : 0);
+            m_header.write(name);
+            if (isZip64) {
+                writeShort(m_header, 0x0001);
+                writeShort(m_header, 16);
+                writeLong(m_header, c.m_size);
+                writeLong(m_header, c.m_compressedSize);
+            }
+            m_header.writeTo(m_out);
+            c.writeData(m_out, m_buf);
+            m_offset += m_header.size() + c.m_compressedSize;
+
+            final ByteArrayOutputStream cd = m_centralDirectory;
+            writeInt(cd, CENTRAL_HEADER_SIGNATURE);
+            writeShort(cd, version);
+            writeShort(cd, version);
+            writeShort(cd, FLAG_UTF8);
+            writeShort(cd, c.m_method);
+            writeInt(cd, m_dosTime);
+            writeInt(cd, (int)c.m_crc);
+            writeInt(cd, (int)(isZip64 ? ZIP64_MAGIC : c.m_compressedSize));
+            writeInt(cd, (int)(isZip64 ? ZIP64_MAGIC : c.m_size));
+            writeShort(cd, name.length);
+            writeShort(cd, (isZip64 || isZip64Offset) ? 4 + (isZip64 ? 16 : 0) + (isZip64Offset ? 8 : 0) : 0);
+            writeShort(cd, 0); // comment length
+            writeShort(cd, 0); // disk number
+            writeShort(cd, 0); // internal attributes
+            writeInt(cd, c.m_source.m_file == null ? 0x10 : 0); // external attributes, MS-DOS directory flag
+            writeInt(cd, (int)(isZip64Offset ? ZIP64_MAGIC : headerOffset));
+            cd.write(name);
+            if (isZip64 || isZip64Offset) {
+                writeShort(cd, 0x0001);
+                writeShort(cd, (isZip64 ? 16 : 0) + (isZip64Offset ? 8 : 0));
+                if (isZip64) {
+                    writeLong(cd, c.m_size);
+                    writeLong(cd, c.m_compressedSize);
+                }
+                if (isZip64Offset) {
+                    writeLong(cd, headerOffset);
+                }
+            }
+            m_entryCount++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (OutputStream out = m_out) {
+                final long cdOffset = m_offset;
+                final long cdSize = m_centralDirectory.size();
+                m_centralDirectory.writeTo(out);
+                m_header.reset();
+                final boolean isZip64 =
+                    m_entryCount >= ZIP64_MAGIC_COUNT || cdOffset >= ZIP64_MAGIC || cdSize >= ZIP64_MAGIC;
+                if (isZip64) {
+                    final long zip64EndOffset = cdOffset + cdSize;
+                    writeInt(m_header, ZIP64_END_SIGNATURE);
+                    writeLong(m_header, 44); // size of the remaining record
+                    writeShort(m_header, 45);
+                    writeShort(m_header, 45);
+                    writeInt(m_header, 0);
+                    writeInt(m_header, 0);
+                    writeLong(m_header, m_entryCount);
+                    writeLong(m_header, m_entryCount);
+                    writeLong(m_header, cdSize);
+                    writeLong(m_header, cdOffset);
+                    writeInt(m_header, ZIP64_LOCATOR_SIGNATURE);
+                    writeInt(m_header, 0);
+                    writeLong(m_header, zip64EndOffset);
+                    writeInt(m_header, 1);
+                }
+                writeInt(m_header, END_SIGNATURE);
+                writeShort(m_header, 0);
+                writeShort(m_header, 0);
+                writeShort(m_header, (int)Math.min(m_entryCount, ZIP64_MAGIC_COUNT));
+                writeShort(m_header, (int)Math.min(m_entryCount, ZIP64_MAGIC_COUNT));
+                writeInt(m_header, (int)Math.min(cdSize, ZIP64_MAGIC));
+                writeInt(m_header, (int)Math.min(cdOffset, ZIP64_MAGIC));
+                writeShort(m_header, 0); // comment length
+                m_header.writeTo(out);
+            }
+        }
+
+        private static int toDosTime(final long millis) {
+            LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+            if (t.getYear() < 1980) {
+                return (1 << 21) | (1 << 16);
+            }
+            return (t.getYear() - 1980) << 25 | t.getMonthValue() << 21 | t.getDayOfMonth() << 16
+                | t.getHour() << 11 | t.getMinute() << 5 | t.getSecond() >> 1;
+        }
+
+        private static void writeShort(final ByteArrayOutputStream out, final int v) {
+            out.write(v & 0xFF);
+            out.write((v >>> 8) & 0xFF);
+        }
+
+        private static void writeInt(final ByteArrayOutputStream out, final int v) {
+            writeShort(out, v & 0xFFFF);
+            writeShort(out, (v >>> 16) & 0xFFFF);
+        }
+
+        private static void writeLong(final ByteArrayOutputStream out, final long v) {
+            writeInt(out, (int)v);
+            writeInt(out, (int)(v >>> 32));
+        }
+    }
+
+    /**
+     * @see FileUtil#unzipParallel(File, File)
+     */
+    static void unzip(final File zipFile, final File destDir) throws IOException {
+        final String destPath = destDir.getCanonicalPath() + File.separator;
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            final List<ZipEntry> files = new ArrayList<ZipEntry>();
+            final List<File> targets = new ArrayList<File>();
+            // directories are created up-front, the files are extracted concurrently
+            for (Enumeration<? extends ZipEntry> en = zip.entries(); en.hasMoreElements();) {
+                ZipEntry e = en.nextElement();
+                String name = e.getName().replace('\\', '/');
+                if (e.isDirectory() && (name.isEmpty() || name.equals("/"))) {
+                    continue;
+                }
+                File f = new File(destDir, name);
+                if (!(f.getCanonicalPath() + File.separator).startsWith(destPath)) {
+                    throw new ZipException("Entry '" + e.getName() + "' is outside of the destination directory");
+                }
+                File dir = e.isDirectory() ? f : f.getParentFile();
+                if (!dir.mkdirs() && !dir.isDirectory()) {
+                    throw new IOException("Could not create directory '" + dir.getAbsolutePath() + "'.");
+                }
+                if (!e.isDirectory()) {
+                    files.add(e);
+                    targets.add(f);
+                }
+            }
+            final ExecutorService executor =
+                createExecutor(Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors())));
+            try {
+                final List<Future<Void>> futures = new ArrayList<Future<Void>>(files.size());
+                for (int i = 0; i < files.size(); i++) {
+                    final ZipEntry e = files.get(i);
+                    final File f = targets.get(i);
+                    futures.add(executor.submit(() -> {
+                        byte[] buf = new byte[BUFF_SIZE];
+                        try (InputStream in = zip.getInputStream(e); OutputStream out = new FileOutputStream(f)) {
+                            int read;
+                            while ((read = in.read(buf)) >= 0) {
+                                out.write(buf, 0, read);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while extracting zip archive");
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException)cause;
+                } else if (cause instanceof Error) {
+                    throw (Error)cause;
+                }
+                throw new IOException(cause.getMessage(), cause);
+            } finally {
+                executor.shutdownNow();
+                try {
+                    // the zip file must not be closed while entries are still read
+                    executor.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -446,10 +446,50 @@ private void decrementPendingJobs() {
      * @see #submit(Runnable)
      */
     public Future<?> enqueue(final Runnable r) {
+        return enqueue(r, true);
+    }
+
+    /**
+     * Registers a job that is not yet submitted but will be submitted later by
+     * {@link #enqueueDeferredJob(Runnable)}, or withdrawn by {@link #removeDeferredJob()}. The job counts as pending
+     * from now on, i.e. {@link #waitForTermination()} waits for it.
+     *
+     * @since 4.1
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public void addDeferredJob() {
+        incrementPendingJobs();
+    }
+
+    /**
+     * Submits a job that was registered by {@link #addDeferredJob()} before, see {@link #enqueue(Runnable)}.
+     *
+     * @param r the task to submit
+     * @return a Future representing pending completion of the task
+     * @since 4.1
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public Future<?> enqueueDeferredJob(final Runnable r) {
+        return enqueue(r, false);
+    }
+
+    /**
+     * Withdraws a job that was registered by {@link #addDeferredJob()} but will not be submitted.
+     *
+     * @since 4.1
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public void removeDeferredJob() {
+        decrementPendingJobs();
+    }
+
+    private Future<?> enqueue(final Runnable r, final boolean countPending) {
         MyFuture<?> ftask = new MyFuture<Object>(r, null);
 
         synchronized (m_queuedFutures) {
-            incrementPendingJobs();
+            if (countPending) {
+                incrementPendingJobs();
+            }
             if (wakeupWorker(ftask, this) == null) {
                 m_queuedFutures.add(ftask);
             }
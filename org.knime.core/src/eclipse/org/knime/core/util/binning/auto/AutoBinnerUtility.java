@@ -191,6 +191,21 @@ public static PMMLPreprocDiscretize createPMMLPrepocDiscretize(final AutoBinnerL
         return createDisretizeOp(settings, edgesMap, includeCols);
     }
 
+    /**
+     * This method creates a {@link PMMLPreprocDiscretize} object from quantile sketches, which were computed for all
+     * included columns in a single pass over the data.
+     *
+     * @param settings {@link AutoBinnerLearnSettings} object from node model
+     * @param sketches the sketches of (at least) the included columns
+     * @param includeCols the include columns from the node model
+     * @return a {@link PMMLPreprocDiscretize} object containing required parameters for binning operation
+     * @since 4.1
+     */
+    public static PMMLPreprocDiscretize createPMMLPrepocDiscretize(final AutoBinnerLearnSettings settings,
+        final ColumnQuantileSketches sketches, final String[] includeCols) {
+        return createDisretizeOp(settings, sketches.computeEdges(settings), includeCols);
+    }
+
     private static PMMLPreprocDiscretize createDisretizeOp(final AutoBinnerLearnSettings settings,
         final Map<String, double[]> edgesMap, final String[] includeCols) {
         final Map<String, List<PMMLDiscretizeBin>> binMap = createBins(settings, edgesMap, includeCols);
@@ -309,7 +324,7 @@ private static NumericBin getNumericBin(final PMMLDiscretizeBin bin) {
         return new NumericBin(binName, leftOpen, leftMargin, rightOpen, rightMargin);
     }
 
-    private static double[] calculateBounds(final int binCount, final double min, final double max) {
+    static double[] calculateBounds(final int binCount, final double min, final double max) {
         final double[] edges = new double[binCount + 1];
         edges[0] = min;
         edges[edges.length - 1] = max;
@@ -319,7 +334,7 @@ private static double[] calculateBounds(final int binCount, final double min, fi
         return edges;
     }
 
-    private static double[] toIntegerBoundaries(final double[] boundaries) {
+    static double[] toIntegerBoundaries(final double[] boundaries) {
         final Set<Double> intBoundaries = new TreeSet<Double>();
         intBoundaries.add(Math.floor(boundaries[0]));
         for (int i = 1; i < boundaries.length; i++) {
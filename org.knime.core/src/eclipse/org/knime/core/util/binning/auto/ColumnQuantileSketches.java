@@ -0,0 +1,354 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.util.binning.auto;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+
+/**
+ * {@link QuantileSketch Quantile sketches} for a set of numeric columns, which are all filled in a single pass over
+ * the data. From the sketches the bin edges for all columns are derived according to the
+ * {@link AutoBinnerLearnSettings}, so that equal frequency binning and sample quantiles do not require sorting each
+ * column.
+ *
+ * <p>
+ * The sketches can be computed on a {@link BufferedDataTable} ({@link #create(BufferedDataTable, String[],
+ * ExecutionMonitor)}) or partition by partition in a streaming execution. In the latter case each partition runs the
+ * operator of {@link #createStreamableOperator(String[], int)}, whose internals are combined with the operator of
+ * {@link #createMergeOperator()} and passed as instance of this class to the node's
+ * <code>finishStreamableExecution</code>.
+ *
+ * <p>
+ * Missing values and non-numeric cells are ignored.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class ColumnQuantileSketches extends StreamableOperatorInternals {
+
+    private String[] m_columns;
+
+    private QuantileSketch[] m_sketches;
+
+    /** Empty instance, as required by the framework to {@link #load(DataInputStream) load} internals. */
+    public ColumnQuantileSketches() {
+        this(new String[0]);
+    }
+
+    /**
+     * Creates empty sketches with the default accuracy.
+     *
+     * @param columns the names of the columns to sketch
+     */
+    public ColumnQuantileSketches(final String... columns) {
+        this(QuantileSketch.DEFAULT_K, columns);
+    }
+
+    /**
+     * Creates empty sketches.
+     *
+     * @param k the accuracy parameter of the sketches, see {@link QuantileSketch#QuantileSketch(int)}
+     * @param columns the names of the columns to sketch
+     */
+    public ColumnQuantileSketches(final int k, final String... columns) {
+        m_columns = columns.clone();
+        m_sketches = new QuantileSketch[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            m_sketches[i] = new QuantileSketch(k);
+        }
+    }
+
+    /**
+     * Sketches the given columns of a table in one pass.
+     *
+     * @param table the table to read
+     * @param columns the numeric columns to sketch
+     * @param exec for progress and cancellation
+     * @return the filled sketches
+     * @throws InvalidSettingsException if a column is not part of the table
+     * @throws CanceledExecutionException if execution is canceled
+     */
+    public static ColumnQuantileSketches create(final BufferedDataTable table, final String[] columns,
+        final ExecutionMonitor exec) throws InvalidSettingsException, CanceledExecutionException {
+        final ColumnQuantileSketches sketches = new ColumnQuantileSketches(columns);
+        final int[] indices = sketches.getColumnIndices(table.getDataTableSpec());
+        final long rowCount = table.size();
+        long rowIndex = 0;
+        // only the sketched columns are read from the table
+        try (CloseableRowIterator it = table.filter(TableFilter.materializeCols(indices)).iterator()) {
+            while (it.hasNext()) {
+                sketches.update(it.next(), indices);
+                rowIndex++;
+                if ((rowIndex & 0x3FF) == 0) {
+                    exec.checkCanceled();
+                    exec.setProgress(rowIndex / (double)rowCount);
+                }
+            }
+        }
+        return sketches;
+    }
+
+    /**
+     * Creates an operator that sketches the given columns of the data arriving at a streamable input port. Its
+     * {@link StreamableOperator#saveInternals() internals} are an instance of this class.
+     *
+     * @param columns the numeric columns to sketch
+     * @param inPortIndex the index of the input port to read
+     * @return a new operator
+     */
+    public static StreamableOperator createStreamableOperator(final String[] columns, final int inPortIndex) {
+        final String[] cols = columns.clone();
+        return new StreamableOperator() {
+            private ColumnQuantileSketches m_sketches = new ColumnQuantileSketches(cols);
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+                final RowInput input = (RowInput)inputs[inPortIndex];
+                final int[] indices = m_sketches.getColumnIndices(input.getDataTableSpec());
+                DataRow row;
+                while ((row = input.poll()) != null) {
+                    m_sketches.update(row, indices);
+                    exec.checkCanceled();
+                }
+                input.close();
+            }
+
+            @Override
+            public StreamableOperatorInternals saveInternals() {
+                return m_sketches;
+            }
+        };
+    }
+
+    /**
+     * Creates a merge operator combining the internals of the operators returned by
+     * {@link #createStreamableOperator(String[], int)}. The merge is hierarchical.
+     *
+     * @return a new merge operator
+     */
+    public static MergeOperator createMergeOperator() {
+        return new MergeOperator() {
+            @Override
+            public boolean isHierarchical() {
+                return true;
+            }
+
+            @Override
+            public StreamableOperatorInternals mergeIntermediate(final StreamableOperatorInternals[] operators) {
+                return mergeFinal(operators);
+            }
+
+            @Override
+            public StreamableOperatorInternals mergeFinal(final StreamableOperatorInternals[] operators) {
+                ColumnQuantileSketches result = null;
+                for (StreamableOperatorInternals internals : operators) {
+                    final ColumnQuantileSketches sketches = (ColumnQuantileSketches)internals;
+                    if (result == null) {
+                        result = new ColumnQuantileSketches(sketches.getK(), sketches.m_columns);
+                    }
+                    result.merge(sketches);
+                }
+                return result == null ? new ColumnQuantileSketches() : result;
+            }
+        };
+    }
+
+    /**
+     * @param spec the spec of the data to sketch
+     * @return the indices of the sketched columns in the spec, in the order of {@link #getColumns()}
+     * @throws InvalidSettingsException if a column is missing or not numeric
+     */
+    public int[] getColumnIndices(final DataTableSpec spec) throws InvalidSettingsException {
+        final int[] indices = new int[m_columns.length];
+        for (int i = 0; i < m_columns.length; i++) {
+            indices[i] = spec.findColumnIndex(m_columns[i]);
+            if (indices[i] < 0) {
+                throw new InvalidSettingsException("Column \"" + m_columns[i] + "\" not found in input table.");
+            }
+            if (!spec.getColumnSpec(indices[i]).getType().isCompatible(DoubleValue.class)) {
+                throw new InvalidSettingsException("Column \"" + m_columns[i] + "\" is not numeric.");
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Adds the values of a row to the sketches.
+     *
+     * @param row the row
+     * @param columnIndices the indices of the sketched columns in the row, see {@link #getColumnIndices(DataTableSpec)}
+     */
+    public void update(final DataRow row, final int[] columnIndices) {
+        for (int i = 0; i < columnIndices.length; i++) {
+            final DataCell cell = row.getCell(columnIndices[i]);
+            if (!cell.isMissing()) {
+                m_sketches[i].update(((DoubleValue)cell).getDoubleValue());
+            }
+        }
+    }
+
+    /**
+     * Adds the values of other sketches, e.g. those of another partition. The argument is not modified.
+     *
+     * @param other sketches of the same columns (in the same order) and the same accuracy
+     * @throws IllegalArgumentException if the columns differ
+     */
+    public void merge(final ColumnQuantileSketches other) {
+        if (!Arrays.equals(m_columns, other.m_columns)) {
+            throw new IllegalArgumentException("Cannot merge sketches of different columns: "
+                + Arrays.toString(m_columns) + " vs. " + Arrays.toString(other.m_columns));
+        }
+        for (int i = 0; i < m_sketches.length; i++) {
+            m_sketches[i].merge(other.m_sketches[i]);
+        }
+    }
+
+    /** @return the names of the sketched columns */
+    public String[] getColumns() {
+        return m_columns.clone();
+    }
+
+    /**
+     * @param column the name of a sketched column
+     * @return the sketch of the column or <code>null</code> if the column is not sketched
+     */
+    public QuantileSketch getSketch(final String column) {
+        for (int i = 0; i < m_columns.length; i++) {
+            if (m_columns[i].equals(column)) {
+                return m_sketches[i];
+            }
+        }
+        return null;
+    }
+
+    private int getK() {
+        return m_sketches.length == 0 ? QuantileSketch.DEFAULT_K : m_sketches[0].getK();
+    }
+
+    /**
+     * Computes the bin edges of all sketched columns. Equal width bins are derived from the exact minimum and
+     * maximum, equal frequency bins and sample quantiles from the approximate quantiles (see
+     * {@link QuantileSketch#getNormalizedRankError(int)} for their accuracy). Duplicate edges, as they occur for
+     * columns with few distinct values, are removed.
+     *
+     * @param settings the binning settings
+     * @return the ascending edges per column; columns without any value are omitted
+     */
+    public Map<String, double[]> computeEdges(final AutoBinnerLearnSettings settings) {
+        final Map<String, double[]> edgesMap = new LinkedHashMap<>();
+        for (int i = 0; i < m_columns.length; i++) {
+            final QuantileSketch sketch = m_sketches[i];
+            if (sketch.isEmpty()) {
+                continue;
+            }
+            double[] edges;
+            if (BinningMethod.SAMPLE_QUANTILES == settings.getMethod()) {
+                final double[] fractions = settings.getSampleQuantiles().clone();
+                Arrays.sort(fractions);
+                edges = sketch.getQuantiles(fractions);
+            } else if (EqualityMethod.FREQUENCY == settings.getEqualityMethod()) {
+                final double[] fractions = new double[settings.getBinCount() + 1];
+                for (int j = 0; j < fractions.length; j++) {
+                    fractions[j] = j / (double)settings.getBinCount();
+                }
+                edges = sketch.getQuantiles(fractions);
+            } else {
+                edges = AutoBinnerUtility.calculateBounds(settings.getBinCount(), sketch.getMin(), sketch.getMax());
+            }
+            if (settings.getIntegerBounds()) {
+                edges = AutoBinnerUtility.toIntegerBoundaries(edges);
+            }
+            edgesMap.put(m_columns[i], Arrays.stream(edges).distinct().toArray());
+        }
+        return edgesMap;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void load(final DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        m_columns = new String[count];
+        m_sketches = new QuantileSketch[count];
+        for (int i = 0; i < count; i++) {
+            m_columns[i] = input.readUTF();
+            m_sketches[i] = QuantileSketch.load(input);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void save(final DataOutputStream output) throws IOException {
+        output.writeInt(m_columns.length);
+        for (int i = 0; i < m_columns.length; i++) {
+            output.writeUTF(m_columns[i]);
+            m_sketches[i].save(output);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.util.binning.auto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A mergeable quantile sketch for a stream of doubles, following the KLL algorithm (Karnin, Lang, Liberty: "Optimal
+ * Quantile Approximation in Streams", FOCS 2016).
+ *
+ * <p>
+ * The sketch keeps a hierarchy of compactors. Level <i>h</i> holds items that each represent 2<sup><i>h</i></sup>
+ * values of the stream. Once a level exceeds its capacity it is sorted and every other item (starting at a random
+ * offset) is promoted to the next level. Capacities shrink geometrically by a factor of 2/3 towards the lower levels.
+ * The sketch therefore needs <i>O(k)</i> memory independent of the stream length.
+ *
+ * <p>
+ * <b>Error bound:</b> the rank of a value returned by {@link #getQuantile(double)} differs from the requested rank
+ * by at most {@link #getNormalizedRankError(int)} &middot; <i>n</i> with a probability of 99% (about 1.3% for the
+ * default <i>k</i> = {@value #DEFAULT_K}). Minimum and maximum are exact. Sketches built on separate partitions can be
+ * {@linkplain #merge(QuantileSketch) merged} and then have the same error bound as a sketch built on the whole stream.
+ * As long as fewer than <i>k</i> values have been added, all quantiles are exact.
+ *
+ * <p>
+ * Missing values must be filtered by the caller, NaN values are ignored. The class is not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.1
+ */
+public final class QuantileSketch {
+
+    /** The default accuracy parameter. */
+    public static final int DEFAULT_K = 200;
+
+    /** Capacities of the lower levels shrink by this factor. */
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    /** Minimal capacity of a level, keeps the low levels from degenerating. */
+    private static final int MIN_CAPACITY = 8;
+
+    private final int m_k;
+
+    /** The items per level, level 0 holds unweighted values. */
+    private double[][] m_levels;
+
+    private int[] m_levelSizes;
+
+    private int m_numLevels;
+
+    /** Number of items retained in all levels. */
+    private int m_retained;
+
+    /** Sum of the capacities of all levels, changes only when a level is added. */
+    private int m_totalCapacity;
+
+    private long m_count;
+
+    private double m_min = Double.POSITIVE_INFINITY;
+
+    private double m_max = Double.NEGATIVE_INFINITY;
+
+    /** State of the xorshift generator deciding which half of a compacted level is kept. */
+    private long m_random;
+
+    /** Creates a sketch with accuracy parameter {@value #DEFAULT_K}. */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates a sketch.
+     *
+     * @param k the accuracy parameter, larger values give more accurate quantiles at the cost of memory (roughly
+     *            3<i>k</i> doubles)
+     * @throws IllegalArgumentException if k is smaller than {@value #MIN_CAPACITY}
+     */
+    public QuantileSketch(final int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY + ": " + k);
+        }
+        m_k = k;
+        m_levels = new double[1][k];
+        m_levelSizes = new int[1];
+        m_numLevels = 1;
+        m_totalCapacity = capacity(0);
+        m_random = 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * The normalized rank error of a sketch with the given accuracy parameter, which holds with a probability of 99%.
+     * The constants are empirical values for KLL sketches with the compaction scheme used here.
+     *
+     * @param k the accuracy parameter
+     * @return the maximal rank error relative to the number of values
+     */
+    public static double getNormalizedRankError(final int k) {
+        return 2.296 / Math.pow(k, 0.9723);
+    }
+
+    /** @return the accuracy parameter */
+    public int getK() {
+        return m_k;
+    }
+
+    /** @return the number of values added to this sketch (including those of merged sketches) */
+    public long getCount() {
+        return m_count;
+    }
+
+    /** @return true if no values have been added */
+    public boolean isEmpty() {
+        return m_count == 0;
+    }
+
+    /** @return the smallest value added or NaN if the sketch is empty */
+    public double getMin() {
+        return isEmpty() ? Double.NaN : m_min;
+    }
+
+    /** @return the largest value added or NaN if the sketch is empty */
+    public double getMax() {
+        return isEmpty() ? Double.NaN : m_max;
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value the value, NaN is ignored
+     */
+    public void update(final double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        m_count++;
+        m_min = Math.min(m_min, value);
+        m_max = Math.max(m_max, value);
+        append(0, value);
+        if (m_retained > m_totalCapacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Adds all values of another sketch to this one. The argument is not modified.
+     *
+     * @param other the sketch to merge, must have the same accuracy parameter
+     * @throws IllegalArgumentException if the accuracy parameters differ
+     */
+    public void merge(final QuantileSketch other) {
+        if (other.m_k != m_k) {
+            throw new IllegalArgumentException(
+                "Cannot merge sketches with different accuracy (" + m_k + " vs. " + other.m_k + ")");
+        }
+        if (other.isEmpty()) {
+            return;
+        }
+        for (int h = 0; h < other.m_numLevels; h++) {
+            for (int i = 0; i < other.m_levelSizes[h]; i++) {
+                append(h, other.m_levels[h][i]);
+            }
+        }
+        m_count += other.m_count;
+        m_min = Math.min(m_min, other.m_min);
+        m_max = Math.max(m_max, other.m_max);
+        compress();
+    }
+
+    /**
+     * Returns an approximate quantile.
+     *
+     * @param fraction the rank of the quantile as fraction of the number of values, in [0, 1]
+     * @return the quantile or NaN if the sketch is empty; 0 and 1 yield the exact minimum and maximum
+     * @throws IllegalArgumentException if the fraction is not within [0, 1]
+     */
+    public double getQuantile(final double fraction) {
+        return getQuantiles(new double[]{fraction})[0];
+    }
+
+    /**
+     * Returns approximate quantiles, sorting the retained items only once.
+     *
+     * @param fractions the ranks of the quantiles as fractions of the number of values, each in [0, 1] and in any
+     *            order
+     * @return the quantiles in the order of the argument, NaN if the sketch is empty
+     * @throws IllegalArgumentException if a fraction is not within [0, 1]
+     */
+    public double[] getQuantiles(final double[] fractions) {
+        for (double f : fractions) {
+            if (!(f >= 0 && f <= 1)) {
+                throw new IllegalArgumentException("Quantile fraction must be within [0, 1]: " + f);
+            }
+        }
+        final double[] result = new double[fractions.length];
+        if (isEmpty()) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+        // collect all retained items with their weight and sort them by value
+        final int size = m_retained;
+        final double[] values = new double[size];
+        final long[] weights = new long[size];
+        int pos = 0;
+        for (int h = 0; h < m_numLevels; h++) {
+            final double[] level = m_levels[h];
+            for (int i = 0; i < m_levelSizes[h]; i++) {
+                values[pos] = level[i];
+                weights[pos++] = 1L << h;
+            }
+        }
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        final long[] cumulative = new long[size];
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += weights[order[i]];
+            cumulative[i] = sum;
+        }
+        for (int q = 0; q < fractions.length; q++) {
+            final double fraction = fractions[q];
+            if (fraction == 0) {
+                result[q] = m_min;
+            } else if (fraction == 1) {
+                result[q] = m_max;
+            } else {
+                // first item whose cumulative weight reaches the requested rank
+                final long rank = (long)Math.ceil(fraction * sum);
+                int i = Arrays.binarySearch(cumulative, rank);
+                if (i < 0) {
+                    i = -i - 1;
+                }
+                result[q] = values[order[Math.min(i, size - 1)]];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the sketch.
+     *
+     * @param output the output to write to
+     * @throws IOException if writing fails
+     * @see #load(DataInput)
+     */
+    public void save(final DataOutput output) throws IOException {
+        output.writeInt(m_k);
+        output.writeLong(m_count);
+        output.writeDouble(m_min);
+        output.writeDouble(m_max);
+        output.writeLong(m_random);
+        output.writeInt(m_numLevels);
+        for (int h = 0; h < m_numLevels; h++) {
+            output.writeInt(m_levelSizes[h]);
+            for (int i = 0; i < m_levelSizes[h]; i++) {
+                output.writeDouble(m_levels[h][i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #save(DataOutput)}.
+     *
+     * @param input the input to read from
+     * @return the sketch
+     * @throws IOException if reading fails or the content is invalid
+     */
+    public static QuantileSketch load(final DataInput input) throws IOException {
+        final int k = input.readInt();
+        if (k < MIN_CAPACITY) {
+            throw new IOException("Invalid accuracy parameter in quantile sketch: " + k);
+        }
+        final QuantileSketch sketch = new QuantileSketch(k);
+        sketch.m_count = input.readLong();
+        sketch.m_min = input.readDouble();
+        sketch.m_max = input.readDouble();
+        sketch.m_random = input.readLong();
+        final int numLevels = input.readInt();
+        for (int h = 0; h < numLevels; h++) {
+            final int size = input.readInt();
+            for (int i = 0; i < size; i++) {
+                sketch.append(h, input.readDouble());
+            }
+        }
+        return sketch;
+    }
+
+    /** The capacity of a level, the top level has capacity k. */
+    private int capacity(final int level) {
+        final int depth = m_numLevels - level - 1;
+        return Math.max(MIN_CAPACITY, (int)Math.ceil(m_k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void append(final int level, final double value) {
+        while (level >= m_numLevels) {
+            addLevel();
+        }
+        double[] items = m_levels[level];
+        final int size = m_levelSizes[level];
+        if (size == items.length) {
+            items = Arrays.copyOf(items, Math.max(MIN_CAPACITY, 2 * size));
+            m_levels[level] = items;
+        }
+        items[size] = value;
+        m_levelSizes[level] = size + 1;
+        m_retained++;
+    }
+
+    private void addLevel() {
+        if (m_numLevels == m_levels.length) {
+            m_levels = Arrays.copyOf(m_levels, 2 * m_numLevels);
+            m_levelSizes = Arrays.copyOf(m_levelSizes, 2 * m_numLevels);
+        }
+        m_levels[m_numLevels] = new double[MIN_CAPACITY];
+        m_levelSizes[m_numLevels] = 0;
+        m_numLevels++;
+        // a new top level increases the capacity of all others
+        m_totalCapacity = 0;
+        for (int h = 0; h < m_numLevels; h++) {
+            m_totalCapacity += capacity(h);
+        }
+    }
+
+    /** Compacts the lowest overfull levels until the sketch fits into its total capacity again. */
+    private void compress() {
+        while (m_retained > m_totalCapacity) {
+            int level = 0;
+            while (m_levelSizes[level] < capacity(level)) {
+                level++;
+            }
+            compact(level);
+        }
+    }
+
+    /**
+     * Sorts a level and promotes every other item to the next level. With an odd number of items the largest one
+     * stays in the level.
+     */
+    private void compact(final int level) {
+        if (level + 1 >= m_numLevels) {
+            addLevel();
+        }
+        final double[] items = m_levels[level];
+        final int size = m_levelSizes[level];
+        final int pairs = size / 2;
+        Arrays.sort(items, 0, size);
+        final int offset = nextBit();
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, items[2 * i + offset]);
+        }
+        if (size % 2 == 1) {
+            items[0] = items[size - 1];
+            m_levelSizes[level] = 1;
+        } else {
+            m_levelSizes[level] = 0;
+        }
+        m_retained -= 2 * pairs;
+    }
+
+    /** @return a pseudo random bit; a fixed seed keeps results reproducible for the same input order */
+    private int nextBit() {
+        long x = m_random;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        m_random = x;
+        return (int)(x >>> 63);
+    }
+}